@@ -0,0 +1,12 @@
+#!/bin/sh
+#usage: ./run_benchmarks.sh [baseline result file]
+#the results are saved to output/<date>.csv, if a baseline result file
+#is provided, the exit status is 1 when a benchmark regresses
+script_root_path="$(dirname "$(readlink -f "$0")")"
+root_out_folder=${script_root_path}/output
+baseline_file=$1
+
+date=$(date '+%d-%m-%Y_%H-%M')
+mkdir -p $root_out_folder
+
+java -classpath '../../bin:../../lib/cloudsim-4.0.jar:../../lib/commons-math3-3.6.1.jar:../../lib/colt.jar' edu.boun.edgecloudsim.benchmark.HotPathBenchmarks ${script_root_path}/config/benchmark_config.properties ${script_root_path}/../auction_app/config/edge_devices.xml ${script_root_path}/../auction_app/config/applications.xml ${root_out_folder}/${date}.csv $baseline_file
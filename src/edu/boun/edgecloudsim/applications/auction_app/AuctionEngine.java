@@ -0,0 +1,294 @@
+/*
+ * Title:        EdgeCloudSim - Auction Engine
+ *
+ * Description:
+ * AuctionEngine clears sealed-bid auctions between the tasks (buyers)
+ * and the edge VMs (sellers). A bid is a price offered for one unit
+ * of CPU capacity (%) and the demanded number of units; an ask is the
+ * current utilization of a VM, and the reserve price of the VM is
+ * the congestion price u/(100-u) derived from that utilization.
+ *
+ * All bids of a round are cleared at once. Bids and asks are kept in
+ * primitive arrays; the bid indexes are sorted by the price of the bids,
+ * and asks are kept sorted by utilization, so the cheapest VM is always
+ * the first ask. The engine is reused for
+ * all rounds, the arrays grow when needed.
+ *
+ * FIRST_PRICE: winners pay their own bid.
+ * SECOND_PRICE: all k winners pay the (k+1)-th price, i.e. the highest
+ *   losing bid (the multi-unit form of the Vickrey auction). If no bid
+ *   is lost, the winners pay the reserve price of their VM. A winner
+ *   ranked below the highest losing bid, whose smaller demand still
+ *   fitted, pays its own bid.
+ * DOUBLE_AUCTION: McAfee's trade reduction; the clearing price is the
+ *   midpoint of the first losing bid and the ask it faced, and the
+ *   winners bidding below that price are dropped. If the supply is not
+ *   exhausted, the winners pay the reserve price of their VM.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class AuctionEngine {
+	public static enum AUCTION_TYPES { FIRST_PRICE, SECOND_PRICE, DOUBLE_AUCTION }
+
+	private static final double MAX_UTILIZATION = 100;
+
+	private AUCTION_TYPES auctionType;
+
+	private int numOfBids;
+	private double[] bidPrice; //per unit of capacity
+	private double[] bidDemand; //units of capacity (%)
+	private int[] allocation; //ask index, -1 if the bid is lost
+	private double[] payment; //total payment of the bid
+	private Integer[] sortedBids; //ascending price
+	private Comparator<Integer> bidComparator;
+
+	private int numOfAsks;
+	private double[] askUtilization; //sorted ascending
+	private int[] askIndex; //original index of the sorted asks
+
+	//statistics of all rounds
+	private int numOfRounds;
+	private long totalNumOfBids;
+	private long totalNumOfWinners;
+	private double totalPayment;
+	private long totalClearingTime; //nanoseconds
+
+	public AuctionEngine(AUCTION_TYPES _auctionType) {
+		auctionType = _auctionType;
+		bidPrice = new double[16];
+		bidDemand = new double[16];
+		allocation = new int[16];
+		payment = new double[16];
+		sortedBids = new Integer[16];
+		askUtilization = new double[16];
+		askIndex = new int[16];
+
+		//equal prices are ordered by the bid index
+		bidComparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				int result = Double.compare(bidPrice[first], bidPrice[second]);
+				return (result != 0) ? result : Integer.compare(first, second);
+			}
+		};
+	}
+
+	public static double getReservePrice(double utilization) {
+		if(utilization >= MAX_UTILIZATION)
+			return Double.POSITIVE_INFINITY;
+		return utilization / (MAX_UTILIZATION - utilization);
+	}
+
+	/**
+	 * starts a new round, the previous bids and asks are discarded
+	 */
+	public void startRound() {
+		numOfBids = 0;
+		numOfAsks = 0;
+	}
+
+	/**
+	 * adds a VM with the given utilization (%) and returns the ask index
+	 */
+	public int addAsk(double utilization) {
+		if(numOfAsks == askUtilization.length){
+			askUtilization = Arrays.copyOf(askUtilization, numOfAsks * 2);
+			askIndex = Arrays.copyOf(askIndex, numOfAsks * 2);
+		}
+		askUtilization[numOfAsks] = utilization;
+		askIndex[numOfAsks] = numOfAsks;
+		return numOfAsks++;
+	}
+
+	/**
+	 * adds a bid with the given unit price and demand, returns the bid index
+	 */
+	public int addBid(double price, double demand) {
+		if(numOfBids == bidPrice.length){
+			int length = numOfBids * 2;
+			bidPrice = Arrays.copyOf(bidPrice, length);
+			bidDemand = Arrays.copyOf(bidDemand, length);
+			allocation = Arrays.copyOf(allocation, length);
+			payment = Arrays.copyOf(payment, length);
+			sortedBids = Arrays.copyOf(sortedBids, length);
+		}
+		bidPrice[numOfBids] = Math.max(0, price);
+		bidDemand[numOfBids] = demand;
+		return numOfBids++;
+	}
+
+	public int getNumOfBids() {
+		return numOfBids;
+	}
+
+	/**
+	 * returns the ask index of the VM allocated to the bid, -1 if the bid is lost
+	 */
+	public int getAllocation(int bid) {
+		return allocation[bid];
+	}
+
+	public double getPayment(int bid) {
+		return payment[bid];
+	}
+
+	/**
+	 * clears the bids of the current round
+	 */
+	public void clear() {
+		long startTime = System.nanoTime();
+
+		sortAsks();
+		sortBids();
+
+		//index of the first losing bid and the reserve price it faced
+		int firstLoser = -1;
+		double firstLoserAsk = 0;
+
+		//bids are matched in descending price order with the cheapest VM
+		for(int k=numOfBids-1; k>=0; k--){
+			int bid = sortedBids[k];
+			allocation[bid] = -1;
+			payment[bid] = 0;
+
+			double reservePrice = (numOfAsks == 0) ? Double.POSITIVE_INFINITY : getReservePrice(askUtilization[0]);
+			boolean fits = numOfAsks > 0 && askUtilization[0] + bidDemand[bid] <= MAX_UTILIZATION;
+
+			if(fits && bidPrice[bid] >= reservePrice){
+				allocation[bid] = askIndex[0];
+				payment[bid] = reservePrice; //unit price, finalized below
+				askUtilization[0] += bidDemand[bid];
+				siftFirstAsk();
+			}
+			else if(firstLoser == -1){
+				firstLoser = bid;
+				firstLoserAsk = reservePrice;
+			}
+		}
+
+		switch(auctionType){
+		case FIRST_PRICE:
+			for(int bid=0; bid<numOfBids; bid++)
+				if(allocation[bid] != -1)
+					payment[bid] = bidPrice[bid];
+			break;
+		case SECOND_PRICE:
+			//the reserve prices are kept if no bid is lost
+			if(firstLoser != -1){
+				for(int bid=0; bid<numOfBids; bid++)
+					if(allocation[bid] != -1)
+						payment[bid] = Math.min(bidPrice[firstLoser], bidPrice[bid]);
+			}
+			break;
+		case DOUBLE_AUCTION:
+			if(firstLoser != -1){
+				double clearingPrice = Double.isInfinite(firstLoserAsk) ?
+						bidPrice[firstLoser] : (bidPrice[firstLoser] + firstLoserAsk) / 2;
+				for(int bid=0; bid<numOfBids; bid++){
+					if(allocation[bid] == -1)
+						continue;
+					if(bidPrice[bid] < clearingPrice)
+						allocation[bid] = -1; //trade reduction
+					else
+						payment[bid] = clearingPrice;
+				}
+			}
+			break;
+		}
+
+		//unit prices to total payments
+		int numOfWinners = 0;
+		for(int bid=0; bid<numOfBids; bid++){
+			if(allocation[bid] == -1){
+				payment[bid] = 0;
+			}
+			else{
+				payment[bid] *= bidDemand[bid];
+				totalPayment += payment[bid];
+				numOfWinners++;
+			}
+		}
+
+		numOfRounds++;
+		totalNumOfBids += numOfBids;
+		totalNumOfWinners += numOfWinners;
+		totalClearingTime += System.nanoTime() - startTime;
+	}
+
+	private void sortBids() {
+		for(int bid=0; bid<numOfBids; bid++)
+			sortedBids[bid] = bid;
+		Arrays.sort(sortedBids, 0, numOfBids, bidComparator);
+	}
+
+	private void sortAsks() {
+		//insertion sort, the number of VMs is small
+		for(int i=1; i<numOfAsks; i++){
+			double utilization = askUtilization[i];
+			int index = askIndex[i];
+			int j = i - 1;
+			while(j >= 0 && askUtilization[j] > utilization){
+				askUtilization[j+1] = askUtilization[j];
+				askIndex[j+1] = askIndex[j];
+				j--;
+			}
+			askUtilization[j+1] = utilization;
+			askIndex[j+1] = index;
+		}
+	}
+
+	private void siftFirstAsk() {
+		double utilization = askUtilization[0];
+		int index = askIndex[0];
+
+		//binary search for the new position of the first ask
+		int low = 1, high = numOfAsks;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(askUtilization[mid] < utilization)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		int position = low - 1;
+		System.arraycopy(askUtilization, 1, askUtilization, 0, position);
+		System.arraycopy(askIndex, 1, askIndex, 0, position);
+		askUtilization[position] = utilization;
+		askIndex[position] = index;
+	}
+
+	public AUCTION_TYPES getAuctionType() {
+		return auctionType;
+	}
+
+	public int getNumOfRounds() {
+		return numOfRounds;
+	}
+
+	public long getTotalNumOfBids() {
+		return totalNumOfBids;
+	}
+
+	public long getTotalNumOfWinners() {
+		return totalNumOfWinners;
+	}
+
+	public double getTotalPayment() {
+		return totalPayment;
+	}
+
+	/**
+	 * returns the wall clock time spent to clear all rounds (in nanoseconds unit)
+	 */
+	public long getTotalClearingTime() {
+		return totalClearingTime;
+	}
+}
@@ -0,0 +1,423 @@
+/*
+ * Title:        EdgeCloudSim - HEFT Scheduler
+ *
+ * Description:
+ * HeftScheduler is the list scheduling baseline of the HEFT policy.
+ * A task graph is scheduled as a whole when it arrives via Heterogeneous
+ * Earliest Finish Time (Topcuoglu et al.):
+ * -> the upward rank of each subtask is calculated with the average
+ *    execution time and the average transfer delay over the VMs
+ * -> the subtasks are visited in the decreasing order of their ranks
+ *    and each one is assigned to the VM where it finishes earliest; the
+ *    idle slots between the subtasks already scheduled on a VM are used
+ *    if the subtask fits in (insertion based policy)
+ * The VMs are not reserved in the simulation; a subtask is released
+ * when its predecessors finish and it is sent to the VM of the schedule.
+ * The slots are only used to estimate the finish times of the subtasks.
+ *
+ * The intermediate data goes through the mobile device in this app, so
+ * the transfer delay of a subtask depends on the access point of the
+ * device and the site of the VM: WLAN (and MAN to a remote edge site) or
+ * WAN to the cloud. The network model is asked once in an update
+ * interval, not for each graph; the delays are kept as a fixed part and
+ * a part per KB for each access point and site. The upload and download
+ * delays are assumed to be symmetric as in the WLAN and WAN models.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import edu.boun.edgecloudsim.core.SimManager;
+import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.edge_server.EdgeHost;
+import edu.boun.edgecloudsim.edge_server.EdgeVM;
+
+public class HeftScheduler {
+	private static final double COST_UPDATE_INTERVAL = 5; //seconds, same as the M/M/1 queue model update
+
+	private Vm[] vms;
+	private int[] vmSites; //wlan id of the edge VMs, numOfEdgeSites for the cloud VMs
+	private double[] vmMips; //MIPS of a PE
+	private int[] vmPes;
+	private int numOfEdgeSites;
+
+	//the VMs of each site are siteVms[siteOffsets[site] .. siteOffsets[site+1])
+	private int[] siteOffsets;
+	private int[] siteVms;
+	private double[] siteMaxMips;
+	private int[] siteMaxPes;
+
+	//estimated transfer delay between a mobile device at the access point and a VM on the site
+	private double[][] fixedCosts; //[access point][site] seconds
+	private double[][] costsPerKb; //[access point][site] seconds per KB
+	private double[] avgFixedCosts; //average over the VMs for each access point
+	private double[] avgCostsPerKb;
+	private double costUpdateTime;
+
+	//busy slots of each VM between the first and the last index, ordered by their start times
+	private double[][] slotStarts;
+	private double[][] slotEnds;
+	private int[] firstSlots;
+	private int[] lastSlots; //exclusive
+
+	//the work arrays are reused for each graph
+	private double[] ranks;
+	private int[] order;
+	private double[] finishTimes;
+	private int[] selectedVms;
+	private double selectedFinishTime; //finish time of the subtask placed by the last selectVm call
+
+	//the last independent task, which is asked for the device and the VM
+	private Task lastTask;
+	private Vm lastTaskVm;
+
+	private int numOfGraphs;
+	private int numOfScheduledSubtasks;
+	private long totalSchedulingTime; //ns
+
+	public HeftScheduler(List<Vm> _vms, int _numOfEdgeSites) {
+		numOfEdgeSites = _numOfEdgeSites;
+		vms = _vms.toArray(new Vm[_vms.size()]);
+		vmSites = new int[vms.length];
+		vmMips = new double[vms.length];
+		vmPes = new int[vms.length];
+		siteOffsets = new int[numOfEdgeSites + 2];
+		siteMaxMips = new double[numOfEdgeSites + 1];
+		siteMaxPes = new int[numOfEdgeSites + 1];
+		for(int i=0; i<vms.length; i++){
+			if(vms[i] instanceof EdgeVM)
+				vmSites[i] = ((EdgeHost)vms[i].getHost()).getLocation().getServingWlanId();
+			else
+				vmSites[i] = numOfEdgeSites;
+			vmMips[i] = vms[i].getMips();
+			vmPes[i] = vms[i].getNumberOfPes();
+			siteOffsets[vmSites[i] + 1]++;
+			siteMaxMips[vmSites[i]] = Math.max(siteMaxMips[vmSites[i]], vmMips[i]);
+			siteMaxPes[vmSites[i]] = Math.max(siteMaxPes[vmSites[i]], vmPes[i]);
+		}
+		for(int site=0; site<=numOfEdgeSites; site++)
+			siteOffsets[site + 1] += siteOffsets[site];
+		siteVms = new int[vms.length];
+		int[] next = Arrays.copyOf(siteOffsets, numOfEdgeSites + 1);
+		for(int i=0; i<vms.length; i++)
+			siteVms[next[vmSites[i]]++] = i;
+
+		fixedCosts = new double[numOfEdgeSites][numOfEdgeSites + 1];
+		costsPerKb = new double[numOfEdgeSites][numOfEdgeSites + 1];
+		avgFixedCosts = new double[numOfEdgeSites];
+		avgCostsPerKb = new double[numOfEdgeSites];
+		costUpdateTime = Double.NEGATIVE_INFINITY;
+
+		slotStarts = new double[vms.length][4];
+		slotEnds = new double[vms.length][4];
+		firstSlots = new int[vms.length];
+		lastSlots = new int[vms.length];
+
+		ranks = new double[16];
+		order = new int[16];
+		finishTimes = new double[16];
+		selectedVms = new int[16];
+	}
+
+	/**
+	 * returns the VM of the task in the schedule, the task graph of a
+	 * subtask is scheduled when one of its subtasks is asked for the
+	 * first time. Returns null if no VM can be reached by the task
+	 */
+	public Vm getPlannedVm(Task task) {
+		int wlanId = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(), CloudSim.clock()).getServingWlanId();
+
+		if(task instanceof SubTask){
+			TaskGraphExecution execution = ((SubTask)task).getExecution();
+			if(!execution.isPlanned())
+				execution.setPlannedVms(schedule(execution.getTaskGraph(), wlanId, CloudSim.clock()));
+			return execution.getPlannedVm(((SubTask)task).getSubtaskIndex());
+		}
+
+		//the independent tasks are scheduled as a graph of a single subtask
+		if(task != lastTask){
+			long startTime = System.nanoTime();
+			prepare(1, CloudSim.clock());
+			int vm = selectVm(CloudSim.clock(), task.getCloudletLength(), task.getCloudletFileSize(), task.getNumberOfPes(), wlanId);
+			lastTask = task;
+			lastTaskVm = (vm == -1) ? null : vms[vm];
+			numOfGraphs++;
+			numOfScheduledSubtasks++;
+			totalSchedulingTime += System.nanoTime() - startTime;
+		}
+		return lastTaskVm;
+	}
+
+	/**
+	 * schedules the task graph of a mobile device at the given access
+	 * point at the given time and returns the VM of each subtask; the
+	 * subtasks which cannot reach any VM and their successors get null
+	 */
+	public Vm[] schedule(TaskGraph graph, int wlanId, double time) {
+		long startTime = System.nanoTime();
+		int numOfSubtasks = graph.getNumOfSubtasks();
+		prepare(numOfSubtasks, time);
+
+		//the average execution time of a subtask is its length per the average MIPS
+		double avgMips = 0;
+		for(int i=0; i<vms.length; i++)
+			avgMips += vmMips[i] * Math.min(graph.getPesNumber(), vmPes[i]);
+		avgMips /= vms.length;
+
+		//the subtasks are numbered in a topological order, the successors are visited first
+		for(int i=numOfSubtasks-1; i>=0; i--){
+			//the output is downloaded by the mobile device and uploaded to the VMs of the successors
+			double transferCost = 2 * (avgFixedCosts[wlanId] + avgCostsPerKb[wlanId] * graph.getSubtaskOutputSize(i));
+			double maxSuccessorRank = 0;
+			for(int j : graph.getSuccessors(i))
+				maxSuccessorRank = Math.max(maxSuccessorRank, transferCost + ranks[j]);
+			ranks[i] = graph.getSubtaskLength(i) / avgMips + maxSuccessorRank;
+		}
+
+		//a subtask ranks higher than its successors, so the decreasing rank order is topological
+		for(int i=0; i<numOfSubtasks; i++){
+			int j = i;
+			for(; j>0 && ranks[order[j-1]] < ranks[i]; j--)
+				order[j] = order[j-1];
+			order[j] = i;
+		}
+
+		Vm[] plannedVms = new Vm[numOfSubtasks];
+		double[] fixedCost = fixedCosts[wlanId];
+		double[] costPerKb = costsPerKb[wlanId];
+		for(int k=0; k<numOfSubtasks; k++){
+			int i = order[k];
+
+			//the outputs of the predecessors are downloaded to the mobile device
+			double dataReadyTime = time;
+			for(int p : graph.getPredecessors(i)){
+				if(selectedVms[p] == -1){
+					dataReadyTime = Double.POSITIVE_INFINITY;
+					break;
+				}
+				int site = vmSites[selectedVms[p]];
+				dataReadyTime = Math.max(dataReadyTime, finishTimes[p] + fixedCost[site] + costPerKb[site] * graph.getSubtaskOutputSize(p));
+			}
+
+			selectedVms[i] = -1;
+			if(dataReadyTime != Double.POSITIVE_INFINITY)
+				selectedVms[i] = selectVm(dataReadyTime, graph.getSubtaskLength(i), graph.getSubtaskInputSize(i), graph.getPesNumber(), wlanId);
+
+			if(selectedVms[i] != -1){
+				finishTimes[i] = selectedFinishTime;
+				plannedVms[i] = vms[selectedVms[i]];
+			}
+		}
+
+		numOfGraphs++;
+		numOfScheduledSubtasks += numOfSubtasks;
+		totalSchedulingTime += System.nanoTime() - startTime;
+		return plannedVms;
+	}
+
+	/*
+	 * selects the VM where the subtask finishes earliest and reserves the
+	 * slot of the subtask on it, returns -1 if no VM can be reached
+	 */
+	private int selectVm(double dataReadyTime, long length, long inputSize, int pes, int wlanId) {
+		double[] fixedCost = fixedCosts[wlanId];
+		double[] costPerKb = costsPerKb[wlanId];
+
+		int selectedVm = -1;
+		double selectedStartTime = 0;
+		selectedFinishTime = Double.POSITIVE_INFINITY;
+		for(int k=0; k<=numOfEdgeSites; k++){
+			//the site of the access point is visited first, since it is reached fastest
+			int site = (k == 0) ? wlanId : ((k <= wlanId) ? k - 1 : k);
+			if(siteOffsets[site] == siteOffsets[site + 1])
+				continue;
+
+			//the VMs are not searched if they cannot be better even if they are idle
+			double readyTime = dataReadyTime + fixedCost[site] + costPerKb[site] * inputSize;
+			if(readyTime + length / (siteMaxMips[site] * Math.min(pes, siteMaxPes[site])) >= selectedFinishTime)
+				continue;
+
+			for(int j=siteOffsets[site]; j<siteOffsets[site + 1]; j++){
+				int i = siteVms[j];
+				double executionTime = length / (vmMips[i] * Math.min(pes, vmPes[i]));
+				if(readyTime + executionTime >= selectedFinishTime)
+					continue;
+
+				double startTime = findIdleSlot(i, readyTime, executionTime);
+				if(startTime + executionTime < selectedFinishTime){
+					selectedVm = i;
+					selectedStartTime = startTime;
+					selectedFinishTime = startTime + executionTime;
+				}
+			}
+		}
+
+		if(selectedVm != -1)
+			reserveSlot(selectedVm, selectedStartTime, selectedFinishTime);
+		return selectedVm;
+	}
+
+	/*
+	 * returns the earliest start time after the ready time where the VM
+	 * is idle during the execution time
+	 */
+	private double findIdleSlot(int vm, double readyTime, double executionTime) {
+		double[] starts = slotStarts[vm];
+		double[] ends = slotEnds[vm];
+		int count = lastSlots[vm];
+
+		//the slots do not overlap, so their end times are ordered as well
+		int low = firstSlots[vm];
+		int high = count;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(ends[mid] <= readyTime)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		double startTime = readyTime;
+		for(int i=low; i<count; i++){
+			if(startTime + executionTime <= starts[i])
+				break;
+			startTime = Math.max(startTime, ends[i]);
+		}
+		return startTime;
+	}
+
+	private void reserveSlot(int vm, double start, double end) {
+		int first = firstSlots[vm];
+		int last = lastSlots[vm];
+
+		//the released slots are dropped before the arrays are grown
+		if(last == slotStarts[vm].length){
+			int length = (first > last / 2) ? last : last * 2;
+			double[] starts = new double[length];
+			double[] ends = new double[length];
+			System.arraycopy(slotStarts[vm], first, starts, 0, last - first);
+			System.arraycopy(slotEnds[vm], first, ends, 0, last - first);
+			slotStarts[vm] = starts;
+			slotEnds[vm] = ends;
+			last -= first;
+			first = 0;
+			firstSlots[vm] = first;
+		}
+
+		double[] starts = slotStarts[vm];
+		double[] ends = slotEnds[vm];
+		int low = first;
+		int high = last;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(starts[mid] <= start)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		System.arraycopy(starts, low, starts, low + 1, last - low);
+		System.arraycopy(ends, low, ends, low + 1, last - low);
+		starts[low] = start;
+		ends[low] = end;
+		lastSlots[vm] = last + 1;
+	}
+
+	/*
+	 * releases the slots which are over, updates the transfer delays if
+	 * the update interval is passed and grows the work arrays
+	 */
+	private void prepare(int numOfSubtasks, double time) {
+		for(int vm=0; vm<vms.length; vm++){
+			int first = firstSlots[vm];
+			int last = lastSlots[vm];
+			while(first < last && slotEnds[vm][first] <= time)
+				first++;
+			firstSlots[vm] = (first == last) ? 0 : first;
+			lastSlots[vm] = (first == last) ? 0 : last;
+		}
+
+		if(time >= costUpdateTime + COST_UPDATE_INTERVAL || time < costUpdateTime)
+			updateCosts(time);
+
+		if(ranks.length < numOfSubtasks){
+			ranks = new double[numOfSubtasks];
+			order = new int[numOfSubtasks];
+			finishTimes = new double[numOfSubtasks];
+			selectedVms = new int[numOfSubtasks];
+		}
+	}
+
+	/*
+	 * the delays are linear in the data size except the latencies of the
+	 * MAN, so they are estimated for empty data and for 1 KB
+	 */
+	private void updateCosts(double time) {
+		SampleNetworkModel networkModel = (SampleNetworkModel)SimManager.getInstance().getNetworkModel();
+		costUpdateTime = time;
+
+		for(int wlanId=0; wlanId<numOfEdgeSites; wlanId++){
+			double wlanFixedCost = networkModel.estimateWlanDelay(wlanId, 0);
+			double wlanCostPerKb = networkModel.estimateWlanDelay(wlanId, 1) - wlanFixedCost;
+
+			double totalFixedCost = 0;
+			double totalCostPerKb = 0;
+			int numOfReachableVms = 0;
+			for(int site=0; site<=numOfEdgeSites; site++){
+				double fixedCost;
+				double costPerKb;
+				if(site == numOfEdgeSites){
+					fixedCost = networkModel.estimateWanDelay(wlanId, 0);
+					costPerKb = networkModel.estimateWanDelay(wlanId, 1) - fixedCost;
+				}
+				else if(site == wlanId){
+					fixedCost = wlanFixedCost;
+					costPerKb = wlanCostPerKb;
+				}
+				else{
+					double manFixedCost = networkModel.estimateManDelay(wlanId, site, 0);
+					fixedCost = wlanFixedCost + manFixedCost;
+					costPerKb = wlanCostPerKb + networkModel.estimateManDelay(wlanId, site, 1) - manFixedCost;
+				}
+
+				//the VMs on the sites which cannot be reached are never selected
+				if(fixedCost == Double.POSITIVE_INFINITY){
+					costPerKb = 0;
+				}
+				else{
+					int numOfVms = siteOffsets[site + 1] - siteOffsets[site];
+					totalFixedCost += fixedCost * numOfVms;
+					totalCostPerKb += costPerKb * numOfVms;
+					numOfReachableVms += numOfVms;
+				}
+				fixedCosts[wlanId][site] = fixedCost;
+				costsPerKb[wlanId][site] = costPerKb;
+			}
+
+			avgFixedCosts[wlanId] = (numOfReachableVms == 0) ? 0 : totalFixedCost / numOfReachableVms;
+			avgCostsPerKb[wlanId] = (numOfReachableVms == 0) ? 0 : totalCostPerKb / numOfReachableVms;
+		}
+	}
+
+	public int getNumOfGraphs() {
+		return numOfGraphs;
+	}
+
+	public int getNumOfScheduledSubtasks() {
+		return numOfScheduledSubtasks;
+	}
+
+	/**
+	 * returns the total wall clock time spent to schedule the graphs (ns)
+	 */
+	public long getTotalSchedulingTime() {
+		return totalSchedulingTime;
+	}
+}
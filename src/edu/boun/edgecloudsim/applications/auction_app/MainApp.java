@@ -9,23 +9,42 @@
 
 package edu.boun.edgecloudsim.applications.auction_app;
 
+import edu.boun.edgecloudsim.core.ParameterSearch;
 import edu.boun.edgecloudsim.core.ScenarioFactory;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationCell;
+import edu.boun.edgecloudsim.core.SimulationExecutor;
+import edu.boun.edgecloudsim.core.SimulationSnapshot;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimLogger;
 import edu.boun.edgecloudsim.utils.SimUtils;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 
+import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 public class MainApp {
 
 	/**
 	 * Creates main() to run this example
+	 * 
+	 * Optional arguments after the iteration number:
+	 * - number of parallel cells: the (devices, scenario, policy) cells
+	 *   are executed concurrently in this JVM by SimulationExecutor
+	 * - number of iterations: iterations starting from the iteration
+	 *   number are executed as cells as well, the results of iteration
+	 *   i are saved to the ite<i> folder under the output folder
+	 * 
+	 * If share_warm_up is enabled in the configuration file, the policies
+	 * of the sequential runs continue from a snapshot of a single warm up
+	 * period; the parallel cells always run their own warm up periods.
 	 */
 	public static void main(String[] args) {
 		//disable console output of cloudsim library
@@ -35,16 +54,22 @@ public class MainApp {
 		SimLogger.enablePrintLog();
 
 		int iterationNumber = 1;
+		int numOfParallelCells = 1;
+		int numOfIterations = 1;
 		String configFile = "";
 		String outputFolder = "";
 		String edgeDevicesFile = "";
 		String applicationsFile = "";
-		if (args.length == 5){
+		if (args.length >= 5 && args.length <= 7){
 			configFile = args[0];
 			edgeDevicesFile = args[1];
 			applicationsFile = args[2];
 			outputFolder = args[3];
 			iterationNumber = Integer.parseInt(args[4]);
+			if(args.length >= 6)
+				numOfParallelCells = Integer.parseInt(args[5]);
+			if(args.length == 7)
+				numOfIterations = Integer.parseInt(args[6]);
 		}
 		else{
 			SimLogger.printLine("Simulation setting file, output folder and iteration number are not provided! Using default ones...");
@@ -72,59 +97,199 @@ public class MainApp {
 		SimLogger.printLine("Simulation started at " + now);
 		SimLogger.printLine("----------------------------------------------------------------------");
 
-		for(int j=SS.getMinNumOfMobileDev(); j<=SS.getMaxNumOfMobileDev(); j+=SS.getMobileDevCounterSize())
-		{
-			for(int k=0; k<SS.getSimulationScenarios().length; k++)
-			{
-				for(int i=0; i<SS.getOrchestratorPolicies().length; i++)
-				{
-					String simScenario = SS.getSimulationScenarios()[k];
-					String orchestratorPolicy = SS.getOrchestratorPolicies()[i];
-					Date ScenarioStartDate = Calendar.getInstance().getTime();
-					now = df.format(ScenarioStartDate);
-
-					SimLogger.printLine("Scenario started at " + now);
-					SimLogger.printLine("Scenario: " + simScenario + " - Policy: " + orchestratorPolicy + " - #iteration: " + iterationNumber);
-					SimLogger.printLine("Duration: " + SS.getSimulationTime()/60 + " min (warm up period: "+ SS.getWarmUpPeriod()/60 +" min) - #devices: " + j);
-					SimLogger.getInstance().simStarted(outputFolder,"SIMRESULT_" + simScenario + "_"  + orchestratorPolicy + "_" + j + "DEVICES");
-
-					try
-					{
-						// First step: Initialize the CloudSim package. It should be called
-						// before creating any entities.
-						int num_user = 2;   // number of grid users
-						Calendar calendar = Calendar.getInstance();
-						boolean trace_flag = false;  // mean trace events
-
-						// Initialize the CloudSim library
-						CloudSim.init(num_user, calendar, trace_flag, 0.01);
-
-						// Generate EdgeCloudsim Scenario Factory
-						ScenarioFactory sampleFactory = new SampleScenarioFactory(j,SS.getSimulationTime(), orchestratorPolicy, simScenario);
-
-						// Generate EdgeCloudSim Simulation Manager
-						SimManager manager = new SimManager(sampleFactory, j, simScenario, orchestratorPolicy);
-
-						// Start simulation
-						manager.startSimulation();
-					}
-					catch (Exception e)
-					{
-						SimLogger.printLine("The simulation has been terminated due to an unexpected error");
-						e.printStackTrace();
-						System.exit(0);
-					}
-
-					Date ScenarioEndDate = Calendar.getInstance().getTime();
-					now = df.format(ScenarioEndDate);
-					SimLogger.printLine("Scenario finished at " + now +  ". It took " + SimUtils.getTimeDifference(ScenarioStartDate,ScenarioEndDate));
-					SimLogger.printLine("----------------------------------------------------------------------");
-				}//End of orchestrators loop
-			}//End of scenarios loop
-		}//End of mobile devices loop
+		if(numOfParallelCells > 1 || numOfIterations > 1){
+			List<SimulationCell> cells = new ArrayList<SimulationCell>();
+			for(int ite=iterationNumber; ite<iterationNumber+numOfIterations; ite++){
+				String iterationOutputFolder = outputFolder;
+				if(args.length == 7){
+					iterationOutputFolder = outputFolder + File.separator + "ite" + ite;
+					new File(iterationOutputFolder).mkdirs();
+					if(SS.getFileLoggingEnabled())
+						SimUtils.cleanOutputFolder(iterationOutputFolder);
+				}
+				cells.addAll(SimulationCell.createCells(SS, configFile, edgeDevicesFile, applicationsFile, iterationOutputFolder, ite));
+			}
+			
+			SimLogger.printLine(cells.size() + " cells are executed on " + numOfParallelCells + " threads");
+			SimLogger.printLine("----------------------------------------------------------------------");
+			if(new SimulationExecutor(MainApp.class, numOfParallelCells).run(cells) == false)
+				SimLogger.printLine("Some of the cells have been terminated due to an unexpected error!");
+		}
+		else if(SS.getWarmUpSharingEnabled()){
+			//the cells of the policies are consecutive, they share a single warm up period
+			List<SimulationCell> cells = SimulationCell.createCells(SS, configFile, edgeDevicesFile, applicationsFile, outputFolder, iterationNumber);
+			int numOfPolicies = SS.getOrchestratorPolicies().length;
+			for(int i=0; i<cells.size(); i+=numOfPolicies)
+				runScenarioWithSharedWarmUp(cells.subList(i, i+numOfPolicies));
+		}
+		else{
+			for(SimulationCell cell : SimulationCell.createCells(SS, configFile, edgeDevicesFile, applicationsFile, outputFolder, iterationNumber))
+				runScenario(cell);
+		}
 
 		Date SimulationEndDate = Calendar.getInstance().getTime();
 		now = df.format(SimulationEndDate);
 		SimLogger.printLine("Simulation finished at " + now +  ". It took " + SimUtils.getTimeDifference(SimulationStartDate,SimulationEndDate));
 	}
+	
+	/**
+	 * Entry point of SimulationExecutor, runs a single cell
+	 * in the class loader of the cell
+	 */
+	public static void runSimulationCell(String[] cellArgs) {
+		SimulationCell cell = SimulationCell.fromArgs(cellArgs);
+		
+		Log.disable();
+		SimLogger.enablePrintLog();
+		
+		SimSettings SS = SimSettings.getInstance();
+		if(SS.initialize(cell.getConfigFile(), cell.getEdgeDevicesFile(), cell.getApplicationsFile()) == false)
+			throw new IllegalArgumentException("cannot initialize simulation settings from " + cell.getConfigFile());
+		
+		//the output folder is cleaned before the cells are started
+		if(SS.getFileLoggingEnabled())
+			SimLogger.enableFileLog();
+		
+		runScenario(cell);
+	}
+	
+	/**
+	 * Entry point of ParameterSearch, runs a single cell without any
+	 * output and returns its results in the order of ParameterSearch
+	 */
+	public static double[] evaluateSimulationCell(String[] cellArgs) {
+		SimulationCell cell = SimulationCell.fromArgs(cellArgs);
+		
+		Log.disable();
+		SimLogger.disablePrintLog();
+		
+		SimSettings SS = SimSettings.getInstance();
+		if(SS.initialize(cell.getConfigFile(), cell.getEdgeDevicesFile(), cell.getApplicationsFile()) == false)
+			throw new IllegalArgumentException("cannot initialize simulation settings from " + cell.getConfigFile());
+		
+		runScenario(cell);
+		
+		SimLogger logger = SimLogger.getInstance();
+		double[] results = new double[3];
+		results[ParameterSearch.COMPLETED_TASKS] = logger.getNumOfCompletedTasks();
+		results[ParameterSearch.FAILED_TASKS] = logger.getNumOfFailedTasks();
+		results[ParameterSearch.AVG_SERVICE_TIME] = logger.getAverageServiceTime();
+		return results;
+	}
+	
+	private static void runScenario(SimulationCell cell) {
+		SimSettings SS = SimSettings.getInstance();
+		DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+		String simScenario = cell.getSimScenario();
+		String orchestratorPolicy = cell.getOrchestratorPolicy();
+		String outputFolder = cell.getOutputFolder();
+		int j = cell.getNumOfMobileDevices();
+		
+		Date ScenarioStartDate = Calendar.getInstance().getTime();
+		String now = df.format(ScenarioStartDate);
+
+		SimLogger.printLine("Scenario started at " + now);
+		SimLogger.printLine("Scenario: " + simScenario + " - Policy: " + orchestratorPolicy + " - #iteration: " + cell.getIterationNumber());
+		SimLogger.printLine("Duration: " + SS.getSimulationTime()/60 + " min (warm up period: "+ SS.getWarmUpPeriod()/60 +" min) - #devices: " + j);
+		String filePrefix = cell.getFilePrefix();
+		RandomStreams.getInstance().initialize(SS.getRandomSeed(), cell.getIterationNumber());
+		SimLogger.getInstance().simStarted(outputFolder, filePrefix);
+
+		try
+		{
+			// First step: Initialize the CloudSim package. It should be called
+			// before creating any entities.
+			int num_user = 2;   // number of grid users
+			Calendar calendar = Calendar.getInstance();
+			boolean trace_flag = false;  // mean trace events
+
+			// Initialize the CloudSim library
+			CloudSim.init(num_user, calendar, trace_flag, 0.01);
+
+			// Generate EdgeCloudsim Scenario Factory
+			ScenarioFactory sampleFactory = new SampleScenarioFactory(j,SS.getSimulationTime(), orchestratorPolicy, simScenario);
+
+			// Generate EdgeCloudSim Simulation Manager
+			SimManager manager = new SimManager(sampleFactory, j, simScenario, orchestratorPolicy);
+
+			// Start simulation
+			manager.startSimulation();
+			
+			// Save application level results of the task graphs
+			((SampleMobileDeviceManager)manager.getMobileDeviceManager()).getTaskGraphLogger().simStopped(outputFolder, filePrefix);
+		}
+		catch (Exception e)
+		{
+			// the error is reported by the caller, so the other cells of SimulationExecutor are not terminated
+			SimLogger.printLine("The simulation has been terminated due to an unexpected error");
+			throw new RuntimeException(e);
+		}
+
+		Date ScenarioEndDate = Calendar.getInstance().getTime();
+		now = df.format(ScenarioEndDate);
+		SimLogger.printLine("Scenario finished at " + now +  ". It took " + SimUtils.getTimeDifference(ScenarioStartDate,ScenarioEndDate));
+		SimLogger.printLine("----------------------------------------------------------------------");
+	}
+
+	/**
+	 * runs the warm up period of the given cells, which differ only in the
+	 * orchestrator policy, once and continues it with each policy
+	 */
+	private static void runScenarioWithSharedWarmUp(List<SimulationCell> cells) {
+		SimSettings SS = SimSettings.getInstance();
+		DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+		SimulationCell firstCell = cells.get(0);
+		String simScenario = firstCell.getSimScenario();
+		String outputFolder = firstCell.getOutputFolder();
+		int j = firstCell.getNumOfMobileDevices();
+		
+		Date ScenarioStartDate = Calendar.getInstance().getTime();
+		String now = df.format(ScenarioStartDate);
+
+		SimLogger.printLine("Scenario started at " + now);
+		SimLogger.printLine("Scenario: " + simScenario + " - Policy: WARM_UP (" + firstCell.getOrchestratorPolicy() + ") - #iteration: " + firstCell.getIterationNumber());
+		SimLogger.printLine("Duration: " + SS.getSimulationTime()/60 + " min (warm up period: "+ SS.getWarmUpPeriod()/60 +" min) - #devices: " + j);
+		RandomStreams.getInstance().initialize(SS.getRandomSeed(), firstCell.getIterationNumber());
+		
+		//the files of the warm up period are deleted after the last policy
+		SimLogger.getInstance().simStarted(outputFolder, "SIMRESULT_" + simScenario + "_WARM_UP_" + j + "DEVICES");
+
+		try
+		{
+			CloudSim.init(2, Calendar.getInstance(), false, 0.01);
+
+			// The warm up period is simulated with the first policy
+			ScenarioFactory sampleFactory = new SampleScenarioFactory(j,SS.getSimulationTime(), firstCell.getOrchestratorPolicy(), simScenario);
+			SimManager manager = new SimManager(sampleFactory, j, simScenario, firstCell.getOrchestratorPolicy());
+			SimulationSnapshot snapshot = manager.runWarmUpPeriod();
+			SimLogger.printLine(" warm up period is completed at " + snapshot.getTime());
+
+			for(SimulationCell cell : cells) {
+				Date forkStartDate = Calendar.getInstance().getTime();
+				SimLogger.printLine("Scenario: " + simScenario + " - Policy: " + cell.getOrchestratorPolicy() + " - #iteration: " + cell.getIterationNumber());
+				
+				sampleFactory = new SampleScenarioFactory(j,SS.getSimulationTime(), cell.getOrchestratorPolicy(), simScenario);
+				snapshot.fork(sampleFactory, cell.getOrchestratorPolicy(), cell.getFilePrefix());
+				
+				// the manager of the fork is a copy of the one above
+				((SampleMobileDeviceManager)SimManager.getInstance().getMobileDeviceManager()).getTaskGraphLogger().simStopped(outputFolder, cell.getFilePrefix());
+				
+				SimLogger.printLine("Policy " + cell.getOrchestratorPolicy() + " (" + snapshot.getNumOfObjects() + " objects restored) took " +
+						SimUtils.getTimeDifference(forkStartDate, Calendar.getInstance().getTime()));
+			}
+
+			// the time series of the warm up period are already copied to the files of each policy
+			SimLogger.getInstance().deleteSuspendedFiles();
+		}
+		catch (Exception e)
+		{
+			SimLogger.printLine("The simulation has been terminated due to an unexpected error");
+			throw new RuntimeException(e);
+		}
+
+		Date ScenarioEndDate = Calendar.getInstance().getTime();
+		now = df.format(ScenarioEndDate);
+		SimLogger.printLine("Scenario finished at " + now +  ". It took " + SimUtils.getTimeDifference(ScenarioStartDate,ScenarioEndDate));
+		SimLogger.printLine("----------------------------------------------------------------------");
+	}
 }
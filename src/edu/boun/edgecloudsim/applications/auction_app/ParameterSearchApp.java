@@ -0,0 +1,83 @@
+/*
+ * Title:        EdgeCloudSim - Parameter Search Application
+ * 
+ * Description:  ParameterSearchApp explores the parameters listed in
+ *               search_parameters of the configuration file (e.g. the
+ *               orchestrator thresholds) via ParameterSearch, where the
+ *               candidates are simulated by the MainApp of this application
+ *               in parallel.
+ *               
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import edu.boun.edgecloudsim.core.ParameterSearch;
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+public class ParameterSearchApp {
+
+	/**
+	 * Creates main() to run the search
+	 * 
+	 * Arguments: configuration file, edge devices file, applications
+	 * file, output folder, number of parallel cells and optionally the
+	 * iteration number, which selects the random seed of the candidates
+	 */
+	public static void main(String[] args) {
+		SimLogger.enablePrintLog();
+
+		if (args.length < 5 || args.length > 6){
+			SimLogger.printLine("Usage: ParameterSearchApp <config file> <edge devices file> <applications file> <output folder> <# of parallel cells> [iteration number]");
+			System.exit(0);
+		}
+
+		String configFile = args[0];
+		String edgeDevicesFile = args[1];
+		String applicationsFile = args[2];
+		String outputFolder = args[3];
+		int numOfParallelCells = Integer.parseInt(args[4]);
+		int iterationNumber = (args.length == 6) ? Integer.parseInt(args[5]) : 1;
+
+		//load settings from configuration file
+		SimSettings SS = SimSettings.getInstance();
+		if(SS.initialize(configFile, edgeDevicesFile, applicationsFile) == false){
+			SimLogger.printLine("cannot initialize simulation settings!");
+			System.exit(0);
+		}
+
+		if(SS.getSearchParameters().length == 0){
+			SimLogger.printLine("No parameter is given in search_parameters! Terminating search...");
+			System.exit(0);
+		}
+
+		new File(outputFolder).mkdirs();
+
+		DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+		Date SearchStartDate = Calendar.getInstance().getTime();
+		SimLogger.printLine("Parameter search started at " + df.format(SearchStartDate));
+		SimLogger.printLine("----------------------------------------------------------------------");
+
+		try {
+			new ParameterSearch(MainApp.class, numOfParallelCells).run(configFile, edgeDevicesFile,
+					applicationsFile, outputFolder, iterationNumber);
+		} catch (IOException e) {
+			SimLogger.printLine("The parameter search has been terminated due to an I/O error");
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		Date SearchEndDate = Calendar.getInstance().getTime();
+		SimLogger.printLine("Parameter search finished at " + df.format(SearchEndDate) +  ". It took " + SimUtils.getTimeDifference(SearchStartDate,SearchEndDate));
+	}
+}
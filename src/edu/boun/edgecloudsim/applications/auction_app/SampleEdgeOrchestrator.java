@@ -6,6 +6,17 @@
  * by considering WAN bandwidth and edge server utilization.
  * After the target server is decided, the least loaded VM is selected.
  * If the target server is a remote edge server, MAN is used.
+ * The subtasks on the critical path of a task graph are kept on
+ * the edge servers unless the edge servers are overloaded.
+ * 
+ * In AUCTION policy, the tasks bid for the edge VMs and the bids are
+ * cleared by the AuctionEngine in batched rounds. The tasks losing
+ * the auction are offloaded to the cloud.
+ * 
+ * In HEFT policy, which is a list scheduling baseline for the AUCTION
+ * policy, each task graph is scheduled when it arrives by HeftScheduler,
+ * and its subtasks are sent to the scheduled VMs. The least loaded VM is
+ * selected if the scheduled VM does not have enough capacity.
  * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -19,19 +30,34 @@ import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
+import edu.boun.edgecloudsim.edge_orchestrator.TaskPlacement;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
+import edu.boun.edgecloudsim.edge_server.EdgeVmCapacityIndex;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimProfiler;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEvent;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SampleEdgeOrchestrator extends EdgeOrchestrator {
+	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
+	private static final int CLEAR_AUCTION_ROUND = BASE + 1;
 	
 	private int numberOfHost; //used by load balancer
+	
+	private AuctionEngine auctionEngine;
+	private double auctionRoundInterval;
+	private List<Task> pendingBids;
+	private List<EdgeVM> edgeVmList;
+	private HeftScheduler heftScheduler;
 
 	public SampleEdgeOrchestrator(String _policy, String _simScenario) {
 		super(_policy, _simScenario);
@@ -40,6 +66,17 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 	@Override
 	public void initialize() {
 		numberOfHost=SimSettings.getInstance().getNumOfEdgeHosts();
+		
+		if(policy.equals("AUCTION")){
+			try {
+				auctionEngine = new AuctionEngine(AuctionEngine.AUCTION_TYPES.valueOf(SimSettings.getInstance().getAuctionType()));
+			}
+			catch (IllegalArgumentException e) {
+				throw new IllegalStateException("Unknown auction type", e);
+			}
+			auctionRoundInterval = SimSettings.getInstance().getAuctionRoundInterval();
+			pendingBids = new ArrayList<Task>();
+		}
 	}
 
 	/*
@@ -50,7 +87,30 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 	 */
 	@Override
 	public int getDeviceToOffload(Task task) {
+		if(policy.equals("HEFT"))
+			return (getHeftScheduler().getPlannedVm(task) instanceof CloudVM) ? SimSettings.CLOUD_DATACENTER_ID : SimSettings.GENERIC_EDGE_DEVICE_ID;
+		if(simScenario.equals("TWO_TIER_WITH_EO"))
+			return getDeviceToOffload(task, getWanBandwidth(task), SimManager.getInstance().getEdgeServerManager().getAvgUtilization());
+		return getDeviceToOffload(task, 0, 0);
+	}
+	
+	/*
+	 * estimates the WAN bandwidth (Mbps) of the mobile device of the task
+	 */
+	private double getWanBandwidth(Task task) {
+		//dummy task to simulate a task with 1 Mbit file size to upload and download 
+		Task dummyTask = new Task(0, 0, 0, 0, 128, 128, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		
+		double wanDelay = SimManager.getInstance().getNetworkModel().getUploadDelay(task.getMobileDeviceId(),
+				SimSettings.CLOUD_DATACENTER_ID, dummyTask /* 1 Mbit */);
+		
+		return (wanDelay == 0) ? 0 : (1 / wanDelay); /* Mbps */
+	}
+	
+	private int getDeviceToOffload(Task task, double wanBW, double edgeUtilization) {
 		int result = 0;
+		double wanBwThreshold = SimSettings.getInstance().getOrchestratorWanBandwidthThreshold(); /* Mbps */
+		double utilizationThreshold = SimSettings.getInstance().getOrchestratorEdgeUtilizationThreshold();
 		
 		//RODO: return proper host ID
 		
@@ -58,45 +118,43 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 			result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 		}
 		else if(simScenario.equals("TWO_TIER_WITH_EO")){
-			//dummy task to simulate a task with 1 Mbit file size to upload and download 
-			Task dummyTask = new Task(0, 0, 0, 0, 128, 128, new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
-			
-			double wanDelay = SimManager.getInstance().getNetworkModel().getUploadDelay(task.getMobileDeviceId(),
-					SimSettings.CLOUD_DATACENTER_ID, dummyTask /* 1 Mbit */);
-			
-			double wanBW = (wanDelay == 0) ? 0 : (1 / wanDelay); /* Mbps */
-			
-			double edgeUtilization = SimManager.getInstance().getEdgeServerManager().getAvgUtilization();
-			
-
 			if(policy.equals("NETWORK_BASED")){
-				if(wanBW > 6)
+				if(wanBW > wanBwThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			}
 			else if(policy.equals("UTILIZATION_BASED")){
 				double utilization = edgeUtilization;
-				if(utilization > 80)
+				if(utilization > utilizationThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			}
 			else if(policy.equals("HYBRID")){
 				double utilization = edgeUtilization;
-				if(wanBW > 6 && utilization > 80)
+				if(wanBW > wanBwThreshold && utilization > utilizationThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			}
+			else if(policy.equals("AUCTION")){
+				//the tasks losing the auction are sent to the cloud later
+				result = SimSettings.GENERIC_EDGE_DEVICE_ID;
+			}
 			else {
-				SimLogger.printLine("Unknown edge orchestrator policy! Terminating simulation...");
-				System.exit(0);
+				throw new IllegalStateException("Unknown edge orchestrator policy");
 			}
+			
+			//do not delay the whole task graph by sending a critical subtask over WAN
+			if(result == SimSettings.CLOUD_DATACENTER_ID &&
+					task instanceof SubTask &&
+					((SubTask)task).isOnCriticalPath() &&
+					edgeUtilization <= utilizationThreshold)
+				result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 		}
 		else {
-			SimLogger.printLine("Unknown simulation scenario! Terminating simulation...");
-			System.exit(0);
+			throw new IllegalStateException("Unknown simulation scenario");
 		}
 		return result;
 	}
@@ -105,6 +163,17 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 	public Vm getVmToOffload(Task task, int deviceId) {
 		Vm selectedVM = null;
 		
+		if(policy.equals("HEFT")){
+			Vm plannedVM = getHeftScheduler().getPlannedVm(task);
+			if(plannedVM != null && (plannedVM instanceof CloudVM) == (deviceId == SimSettings.CLOUD_DATACENTER_ID)){
+				SimSettings.VM_TYPES vmType = (plannedVM instanceof CloudVM) ? SimSettings.VM_TYPES.CLOUD_VM : SimSettings.VM_TYPES.EDGE_VM;
+				double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(vmType);
+				double targetVmCapacity = (double)100 - plannedVM.getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+				if(requiredCapacity <= targetVmCapacity)
+					return plannedVM;
+			}
+		}
+		
 		if(deviceId == SimSettings.CLOUD_DATACENTER_ID){
 			//Select VM on cloud devices via Least Loaded algorithm!
 			double selectedVmCapacity = 0; //start with min value
@@ -123,6 +192,12 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 		}
 		else if(deviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
 			//Select VM on edge devices via Least Loaded algorithm!
+			EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+			if(capacityIndex != null){
+				double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
+				return capacityIndex.getLeastLoadedVm(requiredCapacity);
+			}
+			
 			double selectedVmCapacity = 0; //start with min value
 			for(int hostIndex=0; hostIndex<numberOfHost; hostIndex++){
 				List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex);
@@ -137,21 +212,292 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 			}
 		}
 		else{
-			SimLogger.printLine("Unknown device id! The simulation has been terminated.");
-			System.exit(0);
+			throw new IllegalStateException("Unknown device id");
 		}
 		
 		return selectedVM;
 	}
 
+	/*
+	 * the scheduler is created when it is used first, since
+	 * the VMs are placed on the hosts after the initialization
+	 */
+	private HeftScheduler getHeftScheduler() {
+		if(heftScheduler == null){
+			List<Vm> vmList = new ArrayList<Vm>();
+			for(int hostIndex=0; hostIndex<numberOfHost; hostIndex++)
+				vmList.addAll(SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex));
+			
+			if(!simScenario.equals("SINGLE_TIER")){
+				List<Host> list = SimManager.getInstance().getCloudServerManager().getDatacenter().getHostList();
+				for (int hostIndex=0; hostIndex < list.size(); hostIndex++)
+					vmList.addAll(SimManager.getInstance().getCloudServerManager().getVmList(hostIndex));
+			}
+			heftScheduler = new HeftScheduler(vmList, SimSettings.getInstance().getNumOfEdgeDatacenters());
+		}
+		return heftScheduler;
+	}
+
+	/**
+	 * submits a bid for the edge VMs on behalf of the task if AUCTION
+	 * policy is used. The task is offloaded by the mobile device manager
+	 * when the auction round is cleared. Returns false if the VM should
+	 * be selected via getVmToOffload
+	 */
+	public boolean submitBid(Task task) {
+		if(auctionEngine == null)
+			return false;
+		
+		pendingBids.add(task);
+		
+		if(auctionRoundInterval <= 0)
+			clearAuctionRound();
+		else if(pendingBids.size() == 1)
+			schedule(getId(), auctionRoundInterval, CLEAR_AUCTION_ROUND);
+		
+		return true;
+	}
+	
+	private void clearAuctionRound() {
+		List<Task> tasks = pendingBids;
+		pendingBids = new ArrayList<Task>();
+		
+		SampleMobileDeviceManager mobileDeviceManager = (SampleMobileDeviceManager)SimManager.getInstance().getMobileDeviceManager();
+		for(TaskPlacement placement : runAuctionRound(tasks))
+			mobileDeviceManager.offloadTask(placement.getTask(), placement.getDeviceId(), placement.getVm());
+	}
+	
+	/*
+	 * the tasks bid for the edge VMs together, the tasks
+	 * losing the auction are placed on the cloud VMs
+	 */
+	private List<TaskPlacement> runAuctionRound(List<Task> tasks) {
+		if(edgeVmList == null){
+			edgeVmList = new ArrayList<EdgeVM>();
+			for(int hostIndex=0; hostIndex<numberOfHost; hostIndex++)
+				edgeVmList.addAll(SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex));
+		}
+		
+		long clearingTime = auctionEngine.getTotalClearingTime();
+		
+		//edge VMs publish their reserve prices via their utilization
+		//the capacity index lists the VMs in the same order with edgeVmList
+		EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+		auctionEngine.startRound();
+		for(int i=0; i<edgeVmList.size(); i++){
+			if(capacityIndex != null)
+				auctionEngine.addAsk((double)100 - capacityIndex.getFreeCapacity(i));
+			else
+				auctionEngine.addAsk(edgeVmList.get(i).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock()));
+		}
+		
+		for(int i=0; i<tasks.size(); i++){
+			Task task = tasks.get(i);
+			double demand = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
+			auctionEngine.addBid(getBidPrice(task), demand);
+		}
+		
+		auctionEngine.clear();
+		
+		double overhead = (double)(auctionEngine.getTotalClearingTime() - clearingTime) / tasks.size();
+		List<TaskPlacement> placements = new ArrayList<TaskPlacement>(tasks.size());
+		for(int i=0; i<tasks.size(); i++){
+			Task task = tasks.get(i);
+			SimLogger.getInstance().setOrchestratorOverhead(task.getCloudletId(), overhead);
+			
+			int vmIndex = auctionEngine.getAllocation(i);
+			if(vmIndex != -1)
+				placements.add(new TaskPlacement(task, SimSettings.GENERIC_EDGE_DEVICE_ID, edgeVmList.get(vmIndex)));
+			else
+				placements.add(new TaskPlacement(task, SimSettings.CLOUD_DATACENTER_ID, getVmToOffload(task, SimSettings.CLOUD_DATACENTER_ID)));
+		}
+		return placements;
+	}
+	
+	/*
+	 * The edge utilization is read once and the WAN bandwidth once for each
+	 * access point in the batch. The VMs are selected via Least Loaded
+	 * algorithm as in getVmToOffload, but the capacity required by the
+	 * previous tasks of the batch is reserved so that the tasks are spread
+	 * over the VMs. In AUCTION policy the batch is cleared as a single
+	 * auction round.
+	 */
 	@Override
-	public void processEvent(SimEvent arg0) {
-		// Nothing to do!
+	public List<TaskPlacement> getPlacements(List<Task> tasks) {
+		//the task graphs are already scheduled as a whole
+		if(policy.equals("HEFT"))
+			return super.getPlacements(tasks);
+		
+		TaskPlacement[] placements = new TaskPlacement[tasks.size()];
+		List<Task> edgeTasks = new ArrayList<Task>();
+		int[] edgeTaskIndices = new int[tasks.size()];
+		
+		double edgeUtilization = SimManager.getInstance().getEdgeServerManager().getAvgUtilization();
+		Map<Integer, Double> wanBandwidths = new HashMap<Integer, Double>();
+		
+		for(int i=0; i<tasks.size(); i++){
+			Task task = tasks.get(i);
+			double wanBW = 0;
+			if(simScenario.equals("TWO_TIER_WITH_EO")){
+				int wlanId = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(), CloudSim.clock()).getServingWlanId();
+				Double bandwidth = wanBandwidths.get(wlanId);
+				if(bandwidth == null){
+					bandwidth = getWanBandwidth(task);
+					wanBandwidths.put(wlanId, bandwidth);
+				}
+				wanBW = bandwidth;
+			}
+			
+			int deviceId = getDeviceToOffload(task, wanBW, edgeUtilization);
+			if(deviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
+				edgeTaskIndices[edgeTasks.size()] = i;
+				edgeTasks.add(task);
+			}
+			else{
+				placements[i] = new TaskPlacement(task, deviceId, null);
+			}
+		}
+		
+		if(!edgeTasks.isEmpty()){
+			List<TaskPlacement> edgePlacements = (auctionEngine != null) ? runAuctionRound(edgeTasks) : placeOnEdgeVms(edgeTasks);
+			for(int i=0; i<edgeTasks.size(); i++)
+				placements[edgeTaskIndices[i]] = edgePlacements.get(i);
+		}
+		
+		List<TaskPlacement> result = Arrays.asList(placements);
+		placeOnCloudVms(result);
+		return result;
+	}
+	
+	private List<TaskPlacement> placeOnEdgeVms(List<Task> tasks) {
+		List<TaskPlacement> placements = new ArrayList<TaskPlacement>(tasks.size());
+		EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+		if(capacityIndex == null){
+			for(int i=0; i<tasks.size(); i++)
+				placements.add(new TaskPlacement(tasks.get(i), SimSettings.GENERIC_EDGE_DEVICE_ID, getVmToOffload(tasks.get(i), SimSettings.GENERIC_EDGE_DEVICE_ID)));
+			return placements;
+		}
+		
+		//the reservations are applied to the index and reverted after the batch
+		int[] reservedVms = new int[tasks.size()];
+		double[] freeCapacities = new double[tasks.size()];
+		int numOfReservations = 0;
+		for(int i=0; i<tasks.size(); i++){
+			Task task = tasks.get(i);
+			double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
+			int index = capacityIndex.getLeastLoadedVmIndex(requiredCapacity);
+			if(index != -1){
+				reservedVms[numOfReservations] = index;
+				freeCapacities[numOfReservations] = capacityIndex.getFreeCapacity(index);
+				capacityIndex.update(index, freeCapacities[numOfReservations] - requiredCapacity);
+				numOfReservations++;
+			}
+			placements.add(new TaskPlacement(task, SimSettings.GENERIC_EDGE_DEVICE_ID, (index == -1) ? null : capacityIndex.getVm(index)));
+		}
+		
+		for(int i=numOfReservations-1; i>=0; i--)
+			capacityIndex.update(reservedVms[i], freeCapacities[i]);
+		
+		return placements;
+	}
+	
+	/*
+	 * selects the cloud VMs of the placements which are sent to the cloud
+	 */
+	private void placeOnCloudVms(List<TaskPlacement> placements) {
+		List<CloudVM> vmList = null;
+		double[] freeCapacities = null;
+		
+		for(int i=0; i<placements.size(); i++){
+			TaskPlacement placement = placements.get(i);
+			if(placement.getDeviceId() != SimSettings.CLOUD_DATACENTER_ID || placement.getVm() != null)
+				continue;
+			
+			if(vmList == null){
+				vmList = new ArrayList<CloudVM>();
+				List<Host> list = SimManager.getInstance().getCloudServerManager().getDatacenter().getHostList();
+				for (int hostIndex=0; hostIndex < list.size(); hostIndex++)
+					vmList.addAll(SimManager.getInstance().getCloudServerManager().getVmList(hostIndex));
+				
+				freeCapacities = new double[vmList.size()];
+				for(int vmIndex=0; vmIndex<vmList.size(); vmIndex++)
+					freeCapacities[vmIndex] = (double)100 - vmList.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+			}
+			
+			Task task = placement.getTask();
+			CloudVM selectedVM = null;
+			int selectedVmIndex = -1;
+			double selectedVmCapacity = 0; //start with min value
+			for(int vmIndex=0; vmIndex<vmList.size(); vmIndex++){
+				double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(vmList.get(vmIndex).getVmType());
+				if(requiredCapacity <= freeCapacities[vmIndex] && freeCapacities[vmIndex] > selectedVmCapacity){
+					selectedVM = vmList.get(vmIndex);
+					selectedVmIndex = vmIndex;
+					selectedVmCapacity = freeCapacities[vmIndex];
+				}
+			}
+			
+			if(selectedVM != null){
+				freeCapacities[selectedVmIndex] -= ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(selectedVM.getVmType());
+				placements.set(i, new TaskPlacement(task, SimSettings.CLOUD_DATACENTER_ID, selectedVM));
+			}
+		}
+	}
+	
+	/*
+	 * The bid price for a unit of CPU capacity is the value of the
+	 * application normalized by the average task length of its type.
+	 * Delay sensitive applications and the subtasks on the critical
+	 * path bid higher.
+	 */
+	private double getBidPrice(Task task) {
+		double[] taskProperties = SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()];
+		
+		//each subtask is worth the whole application since the graph fails with it
+		long length = task.getCloudletLength();
+		if(task instanceof SubTask)
+			length = ((SubTask)task).getTaskGraph().getLength();
+		
+		double price = (1 + taskProperties[12]) * length / taskProperties[7];
+		if(task instanceof SubTask && ((SubTask)task).isOnCriticalPath())
+			price *= 2;
+		
+		return price;
+	}
+
+	@Override
+	public void processEvent(SimEvent ev) {
+		switch (ev.getTag()) {
+		case CLEAR_AUCTION_ROUND:
+			SimProfiler.getInstance().begin();
+			clearAuctionRound();
+			SimProfiler.getInstance().end(getName(), "CLEAR_AUCTION_ROUND");
+			break;
+		default:
+			SimLogger.printLine(getName() + ": unknown event type");
+			break;
+		}
 	}
 
 	@Override
 	public void shutdownEntity() {
-		// Nothing to do!
+		if(auctionEngine != null && auctionEngine.getNumOfRounds() > 0){
+			SimLogger.printLine("# of auction rounds/bids/winners (" + auctionEngine.getAuctionType() + "): "
+					+ auctionEngine.getNumOfRounds() + "/"
+					+ auctionEngine.getTotalNumOfBids() + "/"
+					+ auctionEngine.getTotalNumOfWinners());
+			SimLogger.printLine("average payment: "
+					+ String.format("%.6f", auctionEngine.getTotalPayment() / Math.max(1, auctionEngine.getTotalNumOfWinners()))
+					+ " - average clearing time per round: "
+					+ auctionEngine.getTotalClearingTime() / auctionEngine.getNumOfRounds() + " ns");
+		}
+		if(heftScheduler != null && heftScheduler.getNumOfGraphs() > 0){
+			SimLogger.printLine("# of HEFT scheduled graphs/subtasks: "
+					+ heftScheduler.getNumOfGraphs() + "/"
+					+ heftScheduler.getNumOfScheduledSubtasks()
+					+ " - average scheduling time per graph: "
+					+ heftScheduler.getTotalSchedulingTime() / heftScheduler.getNumOfGraphs() + " ns");
+		}
 	}
 
 	@Override
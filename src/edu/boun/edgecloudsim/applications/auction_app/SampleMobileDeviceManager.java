@@ -21,6 +21,41 @@
  * If you want to use different topology, you should modify
  * the flow implemented in this class.
  * 
+ * Task graphs are submitted subtask by subtask. Only the entry
+ * subtasks are submitted when the application arrives; the others
+ * are released when the response of their last predecessor is
+ * received by the mobile device. If a subtask fails, the rest of
+ * its task graph is abandoned.
+ * 
+ * If orchestrator_batch_window is set, the tasks are not sent to the
+ * edge orchestrator one by one; the tasks arriving in the window are
+ * placed together at the end of the window.
+ * 
+ * If migration_interval is set, the running tasks are migrated from
+ * the overloaded edge VMs by the TaskRebalancer periodically. The state
+ * of a task is transferred via MAN, or via the WAN of its edge site to
+ * the cloud (the WAN of the mobile device is not used), and the
+ * remaining length of the task is resumed on the new VM.
+ * 
+ * If edge_cache_capacity is set, the content of each request of the
+ * apps with cache_content_count is drawn from a Zipf distribution, and
+ * its result is looked up in the cache of the edge host at the access
+ * point of the mobile device (the contents are shared by the hosts of
+ * an edge site). A cached result is downloaded via WLAN without
+ * executing the request; otherwise the result is added to the cache
+ * when it is received by the mobile device. A task graph is looked up
+ * as a whole, so the graphs which are served from the cache are not
+ * logged by the TaskGraphLogger.
+ * 
+ * The deadline of a request is its arrival time plus the
+ * max_delay_requirement of its app; the deadline of a subtask leaves
+ * enough time for the longest path of its successors. If
+ * deadline_admission_control is set, a task is offloaded to an edge VM
+ * only if the EdfAdmissionController of the VM accepts it, before its
+ * input is uploaded. A task which is not admitted is sent to the cloud
+ * if deadline_redirect_to_cloud is set and it can meet its deadline
+ * there, otherwise it is rejected.
+ * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
  */
@@ -33,12 +68,22 @@ import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.edge_orchestrator.TaskMigration;
+import edu.boun.edgecloudsim.edge_orchestrator.TaskPlacement;
+import edu.boun.edgecloudsim.edge_orchestrator.TaskRebalancer;
+import edu.boun.edgecloudsim.edge_server.EdfAdmissionController;
+import edu.boun.edgecloudsim.edge_server.EdgeCloudletScheduler;
 import edu.boun.edgecloudsim.edge_server.EdgeHost;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimProfiler;
 import edu.boun.edgecloudsim.utils.TaskProperty;
+import edu.boun.edgecloudsim.utils.ZipfDistr;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
@@ -46,6 +91,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SampleMobileDeviceManager extends MobileDeviceManager {
 	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
 	
@@ -56,16 +104,82 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 	private static final int REQUEST_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_NEIGHBOR = BASE + 5;
 	private static final int RESPONSE_RECEIVED_BY_MOBILE_DEVICE = BASE + 6;
 	private static final int RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE = BASE + 7;
+	private static final int DISPATCH_BATCH = BASE + 8;
+	private static final int MIGRATE_TASKS = BASE + 9;
+	private static final int MIGRATION_RECEIVED_BY_EDGE_DEVICE = BASE + 10;
+	private static final int MIGRATION_RECEIVED_BY_CLOUD = BASE + 11;
+	private static final int MIGRATION_RECEIVED_BY_LOCAL_VM = BASE + 12;
 
 	private static final double MM1_QUEUE_MODEL_UPDATE_INTEVAL = 5; //seconds
 	
 	private int taskIdCounter=0;
+	private TaskGraphLogger taskGraphLogger;
+	
+	//tasks waiting for the end of the batch window
+	private List<Task> pendingTasks = new ArrayList<Task>();
+	private int numOfBatches = 0;
+	private int numOfBatchedTasks = 0;
+	
+	private TaskRebalancer rebalancer;
+	
+	//content popularity of each app type, null if the results are not cached
+	private ZipfDistr[] contentDistributions;
+	//edge hosts of each edge site (wlan id), created when they are used first
+	private EdgeHost[][] cacheHosts;
+	
+	//tasks which are not admitted by the edge VMs due to their deadlines
+	private int numOfDeadlineRejections = 0;
+	private int numOfDeadlineRedirections = 0;
 	
 	public SampleMobileDeviceManager() throws Exception{
 	}
 
 	@Override
 	public void initialize() {
+		taskGraphLogger = new TaskGraphLogger();
+		
+		if(SimSettings.getInstance().getMigrationInterval() > 0)
+			rebalancer = new TaskRebalancer(SimSettings.getInstance().getMigrationHotspotThreshold(),
+					SimSettings.getInstance().getMigrationToCloudEnabled());
+		
+		if(SimSettings.getInstance().getEdgeCacheCapacity() > 0){
+			double[][] taskLookUpTable = SimSettings.getInstance().getTaskLookUpTable();
+			contentDistributions = new ZipfDistr[taskLookUpTable.length];
+			for(int i=0; i<taskLookUpTable.length; i++){
+				if(taskLookUpTable[i][14] > 0)
+					contentDistributions[i] = new ZipfDistr((int)taskLookUpTable[i][14], taskLookUpTable[i][15],
+							RandomStreams.getInstance().getStream("edge_cache", i));
+			}
+		}
+	}
+	
+	public TaskGraphLogger getTaskGraphLogger() {
+		return taskGraphLogger;
+	}
+	
+	@Override
+	public void shutdownEntity() {
+		super.shutdownEntity();
+		if(numOfBatches > 0){
+			SimLogger.printLine("# of orchestrator batches/tasks: " + numOfBatches + "/" + numOfBatchedTasks
+					+ " - average batch size: " + String.format("%.2f", (double)numOfBatchedTasks / numOfBatches));
+		}
+		if(cacheHosts != null){
+			long numOfEvictions = 0;
+			long numOfRejections = 0;
+			for(EdgeHost[] hosts : cacheHosts){
+				for(EdgeHost host : hosts){
+					numOfEvictions += host.getResultCache().getNumOfEvictions();
+					numOfRejections += host.getResultCache().getNumOfRejections();
+				}
+			}
+			SimLogger.printLine("# of edge cache evictions/rejected results (" + SimSettings.getInstance().getEdgeCachePolicy() + "): "
+					+ numOfEvictions + "/" + numOfRejections);
+		}
+		if(SimSettings.getInstance().getDeadlineAdmissionControlEnabled()){
+			SimLogger.printLine("# of tasks not admitted by the edge VMs due to deadline (rejected/redirected to cloud): "
+					+ numOfDeadlineRejections + "/" + numOfDeadlineRedirections);
+		}
 	}
 	
 	@Override
@@ -78,6 +192,29 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		super.startEntity();
 		schedule(getId(), SimSettings.CLIENT_ACTIVITY_START_TIME +
 				MM1_QUEUE_MODEL_UPDATE_INTEVAL, UPDATE_MM1_QUEUE_MODEL);
+		
+		if(rebalancer != null)
+			schedule(getId(), SimSettings.CLIENT_ACTIVITY_START_TIME +
+					SimSettings.getInstance().getMigrationInterval(), MIGRATE_TASKS);
+	}
+	
+	@Override
+	protected String getEventName(int tag) {
+		switch (tag) {
+			case UPDATE_MM1_QUEUE_MODEL: return "UPDATE_MM1_QUEUE_MODEL";
+			case REQUEST_RECEIVED_BY_CLOUD: return "REQUEST_RECEIVED_BY_CLOUD";
+			case REQUEST_RECEIVED_BY_EDGE_DEVICE: return "REQUEST_RECEIVED_BY_EDGE_DEVICE";
+			case REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE: return "REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE";
+			case REQUEST_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_NEIGHBOR: return "REQUEST_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_NEIGHBOR";
+			case RESPONSE_RECEIVED_BY_MOBILE_DEVICE: return "RESPONSE_RECEIVED_BY_MOBILE_DEVICE";
+			case RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE: return "RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE";
+			case DISPATCH_BATCH: return "DISPATCH_BATCH";
+			case MIGRATE_TASKS: return "MIGRATE_TASKS";
+			case MIGRATION_RECEIVED_BY_EDGE_DEVICE: return "MIGRATION_RECEIVED_BY_EDGE_DEVICE";
+			case MIGRATION_RECEIVED_BY_CLOUD: return "MIGRATION_RECEIVED_BY_CLOUD";
+			case MIGRATION_RECEIVED_BY_LOCAL_VM: return "MIGRATION_RECEIVED_BY_LOCAL_VM";
+			default: return super.getEventName(tag);
+		}
 	}
 	
 	/**
@@ -118,14 +255,18 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				else
 				{
 					SimLogger.getInstance().failedDueToMobility(task.getCloudletId(), CloudSim.clock());
+					taskFailed(task);
 				}
 			}
 			else
 			{
 				SimLogger.getInstance().failedDueToBandwidth(task.getCloudletId(), CloudSim.clock(), NETWORK_DELAY_TYPES.WAN_DELAY);
+				taskFailed(task);
 			}
 		}
 		else{
+			releaseFromEdgeVm(task);
+			
 			int nextEvent = RESPONSE_RECEIVED_BY_MOBILE_DEVICE;
 			int nextDeviceForNetworkModel = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			NETWORK_DELAY_TYPES delayType = NETWORK_DELAY_TYPES.WLAN_DELAY;
@@ -140,7 +281,8 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			//if neighbor edge device is selected
 			if(host.getLocation().getServingWlanId() != task.getSubmittedLocation().getServingWlanId())
 			{
-				delay = networkModel.getDownloadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+				delay = ((SampleNetworkModel)networkModel).getManDownloadDelay(
+						host.getLocation().getServingWlanId(), task.getSubmittedLocation().getServingWlanId(), task);
 				nextEvent = RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE;
 				nextDeviceForNetworkModel = SimSettings.GENERIC_EDGE_DEVICE_ID + 1;
 				delayType = NETWORK_DELAY_TYPES.MAN_DELAY;
@@ -159,20 +301,20 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				else
 				{
 					SimLogger.getInstance().failedDueToMobility(task.getCloudletId(), CloudSim.clock());
+					taskFailed(task);
 				}
 			}
 			else
 			{
 				SimLogger.getInstance().failedDueToBandwidth(task.getCloudletId(), CloudSim.clock(), delayType);
+				taskFailed(task);
 			}
 		}
 	}
 	
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
-			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(0);
-			return;
+			throw new IllegalStateException(getName() + ".processOtherEvent(): " + "Error - an event is null");
 		}
 		
 		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
@@ -185,6 +327,43 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 	
 				break;
 			}
+			case DISPATCH_BATCH:
+			{
+				dispatchBatch();
+				break;
+			}
+			case MIGRATE_TASKS:
+			{
+				SimProfiler profiler = SimProfiler.getInstance();
+				profiler.begin();
+				List<TaskMigration> migrations = rebalancer.getMigrations();
+				profiler.end(SimProfiler.EDGE_ORCHESTRATOR, "getMigrations");
+				
+				for(TaskMigration migration : migrations)
+					migrateTask(migration);
+				schedule(getId(), SimSettings.getInstance().getMigrationInterval(), MIGRATE_TASKS);
+				
+				break;
+			}
+			case MIGRATION_RECEIVED_BY_EDGE_DEVICE:
+			{
+				Task task = (Task) ev.getData();
+				networkModel.uploadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+				submitTaskToVm(task, SimSettings.VM_TYPES.EDGE_VM);
+				break;
+			}
+			case MIGRATION_RECEIVED_BY_LOCAL_VM:
+			{
+				Task task = (Task) ev.getData();
+				submitTaskToVm(task, SimSettings.VM_TYPES.EDGE_VM);
+				break;
+			}
+			case MIGRATION_RECEIVED_BY_CLOUD:
+			{
+				Task task = (Task) ev.getData();
+				submitTaskToVm(task, SimSettings.VM_TYPES.CLOUD_VM);
+				break;
+			}
 			case REQUEST_RECEIVED_BY_CLOUD:
 			{
 				Task task = (Task) ev.getData();
@@ -212,7 +391,14 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				Task task = (Task) ev.getData();
 				networkModel.uploadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID);
 				
-				double manDelay =  networkModel.getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+				EdgeHost host = (EdgeHost)(SimManager.
+						getInstance().
+						getEdgeServerManager().
+						getDatacenterList().get(task.getAssociatedHostId()).
+						getHostList().get(0));
+				
+				double manDelay = ((SampleNetworkModel)networkModel).getManUploadDelay(
+						task.getSubmittedLocation().getServingWlanId(), host.getLocation().getServingWlanId(), task);
 				if(manDelay>0){
 					networkModel.uploadStarted(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
 					SimLogger.getInstance().setUploadDelay(task.getCloudletId(), manDelay, NETWORK_DELAY_TYPES.MAN_DELAY);
@@ -221,11 +407,13 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				else
 				{
 					//SimLogger.printLine("Task #" + task.getCloudletId() + " cannot assign to any VM");
+					releaseFromEdgeVm(task);
 					SimLogger.getInstance().rejectedDueToBandwidth(
 							task.getCloudletId(),
 							CloudSim.clock(),
 							SimSettings.VM_TYPES.EDGE_VM.ordinal(),
 							NETWORK_DELAY_TYPES.MAN_DELAY);
+					taskFailed(task);
 				}
 				
 				break;
@@ -250,11 +438,13 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 					else
 					{
 						SimLogger.getInstance().failedDueToMobility(task.getCloudletId(), CloudSim.clock());
+						taskFailed(task);
 					}
 				}
 				else
 				{
 					SimLogger.getInstance().failedDueToBandwidth(task.getCloudletId(), CloudSim.clock(), NETWORK_DELAY_TYPES.WLAN_DELAY);
+					taskFailed(task);
 				}
 				
 				break;
@@ -269,26 +459,153 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 					networkModel.downloadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID);
 				
 				SimLogger.getInstance().taskEnded(task.getCloudletId(), CloudSim.clock());
+				
+				if(task instanceof SubTask)
+					subtaskCompleted((SubTask)task);
+				else if(task.getCacheKey() != -1)
+					cacheableRequestCompleted(task.getCacheKey(), task.getTaskType(),
+							task.getCreationTime(), task.getSubmittedLocation(), task.isServedFromCache());
 				break;
 			}
 			default:
-				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(0);
-				break;
+				throw new IllegalStateException(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker");
 		}
 	}
 
 	public void submitTask(TaskProperty edgeTask) {
-		int vmType=0;
-		int nextEvent=0;
-		int nextDeviceForNetworkModel;
-		NETWORK_DELAY_TYPES delayType;
-		double delay=0;
+		long cacheKey = getCacheKey(edgeTask);
+		if(cacheKey != -1 && lookUpCache(edgeTask, cacheKey))
+			return;
 		
-		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(edgeTask instanceof TaskGraph){
+			TaskGraph taskGraph = (TaskGraph)edgeTask;
+			TaskGraphExecution execution = new TaskGraphExecution(taskGraph);
+			execution.setCacheKey(cacheKey);
+			taskGraphLogger.graphStarted(taskGraph);
+			
+			//only the entry subtasks are ready when the application arrives
+			for(int i=0; i<taskGraph.getNumOfSubtasks(); i++){
+				if(taskGraph.isEntrySubtask(i))
+					submitTask(createSubTask(execution, i));
+			}
+		}
+		else{
+			Task task = createTask(edgeTask);
+			task.setCacheKey(cacheKey);
+			submitTask(task);
+		}
+	}
+	
+	/*
+	 * returns the key of the content of the request, which is drawn from
+	 * the content popularity of its app type, or -1 if it is not cacheable
+	 */
+	private long getCacheKey(TaskProperty edgeTask) {
+		if(contentDistributions == null || contentDistributions[edgeTask.getTaskType()] == null)
+			return -1;
+		
+		return ((long)edgeTask.getTaskType() << 32) | contentDistributions[edgeTask.getTaskType()].sample();
+	}
+	
+	/*
+	 * returns the edge host of the given edge site which caches the
+	 * result of the given key, null if there is no edge host at the site
+	 */
+	private EdgeHost getCacheHost(int wlanId, long cacheKey) {
+		if(cacheHosts == null){
+			List<List<EdgeHost>> hostsOfSites = new ArrayList<List<EdgeHost>>();
+			for(Datacenter datacenter : SimManager.getInstance().getEdgeServerManager().getDatacenterList()){
+				for(Host host : datacenter.getHostList()){
+					int siteId = ((EdgeHost)host).getLocation().getServingWlanId();
+					while(hostsOfSites.size() <= siteId)
+						hostsOfSites.add(new ArrayList<EdgeHost>());
+					hostsOfSites.get(siteId).add((EdgeHost)host);
+				}
+			}
+			cacheHosts = new EdgeHost[hostsOfSites.size()][];
+			for(int i=0; i<cacheHosts.length; i++)
+				cacheHosts[i] = hostsOfSites.get(i).toArray(new EdgeHost[0]);
+		}
+		
+		if(wlanId < 0 || wlanId >= cacheHosts.length || cacheHosts[wlanId].length == 0)
+			return null;
+		return cacheHosts[wlanId][(int)(cacheKey % cacheHosts[wlanId].length)];
+	}
+	
+	/*
+	 * looks up the result of the request in the cache of the edge host at
+	 * the access point of the mobile device; if it is cached, the result
+	 * is downloaded via WLAN and the request is not executed
+	 */
+	private boolean lookUpCache(TaskProperty edgeTask, long cacheKey) {
+		Location currentLocation = SimManager.getInstance().getMobilityModel().
+				getLocation(edgeTask.getMobileDeviceId(), CloudSim.clock());
+		EdgeHost host = getCacheHost(currentLocation.getServingWlanId(), cacheKey);
+		boolean hit = host != null && host.getResultCache().lookup(cacheKey);
+		SimLogger.getInstance().edgeCacheLookedUp(edgeTask.getTaskType(), CloudSim.clock(), hit);
+		if(!hit)
+			return false;
 		
-		//create a task
 		Task task = createTask(edgeTask);
+		task.setCacheKey(cacheKey);
+		task.setServedFromCache();
+		task.setSubmittedLocation(currentLocation);
+		task.setAssociatedDatacenterId(SimSettings.GENERIC_EDGE_DEVICE_ID);
+		task.setAssociatedHostId(host.getId());
+		task.setAssociatedVmId(-1);
+		
+		SimLogger.getInstance().addLog(task.getMobileDeviceId(),
+				task.getCloudletId(),
+				task.getTaskType(),
+				(int)task.getCloudletLength(),
+				(int)task.getCloudletFileSize(),
+				(int)task.getCloudletOutputSize());
+		setDeadline(task);
+		SimLogger.getInstance().taskStarted(task.getCloudletId(), CloudSim.clock());
+		SimLogger.getInstance().taskAssigned(task.getCloudletId(), SimSettings.GENERIC_EDGE_DEVICE_ID,
+				host.getId(), -1, SimSettings.VM_TYPES.EDGE_VM.ordinal());
+		
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		double delay = networkModel.getDownloadDelay(host.getId(), task.getMobileDeviceId(), task);
+		if(delay > 0)
+		{
+			Location nextLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+delay);
+			if(currentLocation.getServingWlanId() == nextLocation.getServingWlanId())
+			{
+				networkModel.downloadStarted(currentLocation, SimSettings.GENERIC_EDGE_DEVICE_ID);
+				SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, NETWORK_DELAY_TYPES.WLAN_DELAY);
+				schedule(getId(), delay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
+			}
+			else
+			{
+				SimLogger.getInstance().failedDueToMobility(task.getCloudletId(), CloudSim.clock());
+			}
+		}
+		else
+		{
+			SimLogger.getInstance().failedDueToBandwidth(task.getCloudletId(), CloudSim.clock(), NETWORK_DELAY_TYPES.WLAN_DELAY);
+		}
+		return true;
+	}
+	
+	/*
+	 * the result of a cacheable request is received by the mobile device,
+	 * it is added to the cache of the edge host at its access point if
+	 * it is not served from the cache
+	 */
+	private void cacheableRequestCompleted(long cacheKey, int taskType, double lookupTime, Location location, boolean servedFromCache) {
+		SimLogger.getInstance().edgeCacheRequestCompleted(taskType, lookupTime, CloudSim.clock(), servedFromCache);
+		if(servedFromCache)
+			return;
+		
+		EdgeHost host = getCacheHost(location.getServingWlanId(), cacheKey);
+		if(host != null)
+			host.getResultCache().add(cacheKey);
+	}
+	
+	private void submitTask(Task task) {
+		if(task instanceof SubTask)
+			((SubTask)task).getExecution().subtaskReleased(((SubTask)task).getSubtaskIndex(), CloudSim.clock());
 		
 		Location currentLocation = SimManager.getInstance().getMobilityModel().
 				getLocation(task.getMobileDeviceId(), CloudSim.clock());
@@ -303,8 +620,69 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				(int)task.getCloudletLength(),
 				(int)task.getCloudletFileSize(),
 				(int)task.getCloudletOutputSize());
+		setDeadline(task);
 
+		//the tasks arriving in the batch window are placed together
+		double batchWindow = SimSettings.getInstance().getOrchestratorBatchWindow();
+		if(batchWindow > 0){
+			if(pendingTasks.isEmpty())
+				schedule(getId(), batchWindow, DISPATCH_BATCH);
+			pendingTasks.add(task);
+			return;
+		}
+
+		SimProfiler profiler = SimProfiler.getInstance();
+		profiler.begin();
 		int nextHopId = SimManager.getInstance().getEdgeOrchestrator().getDeviceToOffload(task);
+		profiler.end(SimProfiler.EDGE_ORCHESTRATOR, "getDeviceToOffload");
+		
+		//in AUCTION policy the task waits for the end of the auction round
+		if(nextHopId == SimSettings.GENERIC_EDGE_DEVICE_ID &&
+				((SampleEdgeOrchestrator)SimManager.getInstance().getEdgeOrchestrator()).submitBid(task))
+			return;
+		
+		profiler.begin();
+		Vm selectedVM = SimManager.getInstance().getEdgeOrchestrator().getVmToOffload(task, nextHopId);
+		profiler.end(SimProfiler.EDGE_ORCHESTRATOR, "getVmToOffload");
+		
+		offloadTask(task, nextHopId, selectedVM);
+	}
+	
+	/*
+	 * the orchestrator decides for all tasks of the batch at once, the
+	 * decision time is shared by the tasks as the orchestrator overhead
+	 */
+	private void dispatchBatch() {
+		List<Task> tasks = pendingTasks;
+		pendingTasks = new ArrayList<Task>();
+		
+		SimProfiler.getInstance().begin();
+		long startTime = System.nanoTime();
+		List<TaskPlacement> placements = SimManager.getInstance().getEdgeOrchestrator().getPlacements(tasks);
+		double overhead = (double)(System.nanoTime() - startTime) / tasks.size();
+		SimProfiler.getInstance().end(SimProfiler.EDGE_ORCHESTRATOR, "getPlacements");
+		
+		numOfBatches++;
+		numOfBatchedTasks += tasks.size();
+		
+		for(TaskPlacement placement : placements){
+			SimLogger.getInstance().setOrchestratorOverhead(placement.getTask().getCloudletId(), overhead);
+			offloadTask(placement.getTask(), placement.getDeviceId(), placement.getVm());
+		}
+	}
+	
+	/**
+	 * sends the task to the selected VM on the given device
+	 * or rejects it if the VM is null or the network is not available
+	 */
+	public void offloadTask(Task task, int nextHopId, Vm selectedVM) {
+		int vmType=0;
+		int nextEvent=0;
+		int nextDeviceForNetworkModel;
+		NETWORK_DELAY_TYPES delayType;
+		double delay=0;
+		
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
 		
 		if(nextHopId == SimSettings.CLOUD_DATACENTER_ID){
 			delay = networkModel.getUploadDelay(task.getMobileDeviceId(), SimSettings.CLOUD_DATACENTER_ID, task);
@@ -323,9 +701,12 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		
 		if(delay>0){
 			
-			Vm selectedVM = SimManager.getInstance().getEdgeOrchestrator().getVmToOffload(task, nextHopId);
-			
 			if(selectedVM != null){
+				//the task may be redirected to the cloud or rejected before its upload
+				if(selectedVM instanceof EdgeVM && SimSettings.getInstance().getDeadlineAdmissionControlEnabled() &&
+						!admitToEdgeVm(task, (EdgeVM)selectedVM, delay))
+					return;
+				
 				//set related host id
 				task.setAssociatedDatacenterId(nextHopId);
 
@@ -347,7 +728,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 						nextEvent = REQUEST_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_NEIGHBOR;
 					}
 				}
-				networkModel.uploadStarted(currentLocation, nextDeviceForNetworkModel);
+				networkModel.uploadStarted(task.getSubmittedLocation(), nextDeviceForNetworkModel);
 				
 				SimLogger.getInstance().taskStarted(task.getCloudletId(), CloudSim.clock());
 				SimLogger.getInstance().setUploadDelay(task.getCloudletId(), delay, delayType);
@@ -357,12 +738,216 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			else{
 				//SimLogger.printLine("Task #" + task.getCloudletId() + " cannot assign to any VM");
 				SimLogger.getInstance().rejectedDueToVMCapacity(task.getCloudletId(), CloudSim.clock(), vmType);
+				taskFailed(task);
 			}
 		}
 		else
 		{
 			//SimLogger.printLine("Task #" + task.getCloudletId() + " cannot assign to any VM");
 			SimLogger.getInstance().rejectedDueToBandwidth(task.getCloudletId(), CloudSim.clock(), vmType, delayType);
+			taskFailed(task);
+		}
+	}
+	
+	/*
+	 * the task is removed from its edge VM and its state is transferred
+	 * to the target VM via MAN (or WAN for the cloud), where the remaining
+	 * length of the task is resumed; the task stays on its VM if the
+	 * network is not available
+	 */
+	private void migrateTask(TaskMigration migration) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		Task task = migration.getTask();
+		Vm targetVM = migration.getVm();
+		EdgeVM sourceVM = migration.getSourceVm();
+		
+		double delay;
+		int nextEvent;
+		int nextDeviceForNetworkModel;
+		SimSettings.VM_TYPES vmType;
+		
+		if(migration.getDeviceId() == SimSettings.CLOUD_DATACENTER_ID){
+			//the state is sent by the edge host, not by the mobile device
+			delay = ((SampleNetworkModel)networkModel).getEdgeToCloudDelay(
+					((EdgeHost)sourceVM.getHost()).getLocation().getServingWlanId(), task);
+			nextEvent = MIGRATION_RECEIVED_BY_CLOUD;
+			nextDeviceForNetworkModel = -1;
+			vmType = SimSettings.VM_TYPES.CLOUD_VM;
+		}
+		else if(targetVM.getHost() == sourceVM.getHost()){
+			//the VMs on the same host do not use the MAN
+			delay = SimSettings.getInstance().getInternalLanDelay();
+			nextEvent = MIGRATION_RECEIVED_BY_LOCAL_VM;
+			nextDeviceForNetworkModel = -1;
+			vmType = SimSettings.VM_TYPES.EDGE_VM;
+		}
+		else{
+			delay = ((SampleNetworkModel)networkModel).getManUploadDelay(
+					((EdgeHost)sourceVM.getHost()).getLocation().getServingWlanId(),
+					((EdgeHost)targetVM.getHost()).getLocation().getServingWlanId(), task);
+			nextEvent = MIGRATION_RECEIVED_BY_EDGE_DEVICE;
+			nextDeviceForNetworkModel = SimSettings.GENERIC_EDGE_DEVICE_ID+1;
+			vmType = SimSettings.VM_TYPES.EDGE_VM;
+		}
+		
+		if(delay <= 0)
+			return;
+		
+		EdgeCloudletScheduler scheduler = (EdgeCloudletScheduler)sourceVM.getCloudletScheduler();
+		if(scheduler.cloudletMigrate(task.getCloudletId()) == null)
+			return;
+		
+		//the remaining length is admitted to the target VM without a test, the rebalancer has decided
+		if(SimSettings.getInstance().getDeadlineAdmissionControlEnabled()){
+			sourceVM.getAdmissionController().release(task.getCloudletId());
+			if(targetVM instanceof EdgeVM)
+				((EdgeVM)targetVM).getAdmissionController().admit(task.getCloudletId(),
+						task.getCloudletLength(), task.getNumberOfPes(),
+						CloudSim.clock() + delay, getDeadline(task), CloudSim.clock());
+		}
+		
+		//the remaining tasks on the source VM finish earlier now
+		double nextFinishTime = scheduler.getNextFinishTime();
+		if(nextFinishTime != Double.MAX_VALUE){
+			schedule(getVmsToDatacentersMap().get(sourceVM.getId()),
+					Math.max(nextFinishTime - CloudSim.clock(), CloudSim.getMinTimeBetweenEvents() + 0.01),
+					CloudSimTags.VM_DATACENTER_EVENT);
+		}
+		
+		task.setAssociatedDatacenterId(migration.getDeviceId());
+		task.setAssociatedHostId(targetVM.getHost().getId());
+		task.setAssociatedVmId(targetVM.getId());
+		task.setVmId(targetVM.getId());
+		task.migrated();
+		
+		if(nextDeviceForNetworkModel != -1)
+			networkModel.uploadStarted(task.getSubmittedLocation(), nextDeviceForNetworkModel);
+		SimLogger.getInstance().taskMigrated(task.getCloudletId(), delay, vmType.ordinal());
+		
+		schedule(getId(), delay, nextEvent, task);
+	}
+	
+	/*
+	 * returns the time until which the task should be completed, infinity
+	 * if its app has no max_delay_requirement
+	 */
+	private double getDeadline(Task task) {
+		double maxDelay = SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][13];
+		if(maxDelay <= 0)
+			return Double.POSITIVE_INFINITY;
+		
+		if(task instanceof SubTask){
+			SubTask subtask = (SubTask)task;
+			return subtask.getTaskGraph().getStartTime() + maxDelay -
+					subtask.getTaskGraph().getSuccessorPathLength(subtask.getSubtaskIndex());
+		}
+		return task.getCreationTime() + maxDelay;
+	}
+	
+	private void setDeadline(Task task) {
+		double deadline = getDeadline(task);
+		if(deadline != Double.POSITIVE_INFINITY)
+			SimLogger.getInstance().setDeadline(task.getCloudletId(), deadline);
+	}
+	
+	/*
+	 * returns true if the edge VM admits the task; otherwise the task is
+	 * offloaded to the cloud if it can meet its deadline there, or it is
+	 * rejected. The input of the task arrives at the VM after the WLAN
+	 * upload delay, and after the MAN delay if the VM is at another site
+	 */
+	private boolean admitToEdgeVm(Task task, EdgeVM selectedVM, double uploadDelay) {
+		SampleNetworkModel networkModel = (SampleNetworkModel)SimManager.getInstance().getNetworkModel();
+		int wlanId = task.getSubmittedLocation().getServingWlanId();
+		double deadline = getDeadline(task);
+		
+		double releaseTime = CloudSim.clock() + uploadDelay;
+		int hostWlanId = ((EdgeHost)selectedVM.getHost()).getLocation().getServingWlanId();
+		if(hostWlanId != wlanId)
+			releaseTime += networkModel.estimateManDelay(wlanId, hostWlanId, task.getCloudletFileSize());
+		
+		EdfAdmissionController admissionController = selectedVM.getAdmissionController();
+		if(admissionController.isFeasible(task.getCloudletLength(), task.getNumberOfPes(), releaseTime, deadline, CloudSim.clock())){
+			admissionController.admit(task.getCloudletId(), task.getCloudletLength(), task.getNumberOfPes(),
+					releaseTime, deadline, CloudSim.clock());
+			return true;
+		}
+		
+		if(SimSettings.getInstance().getDeadlineRedirectToCloudEnabled() &&
+				!SimManager.getInstance().getSimulationScenario().equals("SINGLE_TIER")){
+			Vm cloudVM = SimManager.getInstance().getEdgeOrchestrator().getVmToOffload(task, SimSettings.CLOUD_DATACENTER_ID);
+			if(cloudVM != null){
+				double finishTime = CloudSim.clock() + networkModel.estimateWanDelay(wlanId, task.getCloudletFileSize()) +
+						task.getCloudletLength() * task.getNumberOfPes() / (cloudVM.getMips() * Math.max(1, Math.min(task.getNumberOfPes(), cloudVM.getNumberOfPes())));
+				if(finishTime <= deadline){
+					numOfDeadlineRedirections++;
+					offloadTask(task, SimSettings.CLOUD_DATACENTER_ID, cloudVM);
+					return false;
+				}
+			}
+		}
+		
+		numOfDeadlineRejections++;
+		SimLogger.getInstance().rejectedDueToDeadline(task.getCloudletId(), CloudSim.clock(), SimSettings.VM_TYPES.EDGE_VM.ordinal());
+		taskFailed(task);
+		return false;
+	}
+	
+	/*
+	 * the task leaves its edge VM, so it is removed from the admitted tasks
+	 */
+	private void releaseFromEdgeVm(Task task) {
+		if(!SimSettings.getInstance().getDeadlineAdmissionControlEnabled())
+			return;
+		
+		for(EdgeVM vm : SimManager.getInstance().getEdgeServerManager().getVmList(task.getAssociatedHostId())){
+			if(vm.getId() == task.getAssociatedVmId()){
+				vm.getAdmissionController().release(task.getCloudletId());
+				return;
+			}
+		}
+	}
+	
+	private void subtaskCompleted(SubTask subtask) {
+		TaskGraphExecution execution = subtask.getExecution();
+		TaskGraph taskGraph = execution.getTaskGraph();
+		int subtaskIndex = subtask.getSubtaskIndex();
+		
+		//the other branches of a failed graph are not taken into account
+		if(execution.isFailed())
+			return;
+		
+		//upload of the intermediate data from the predecessors
+		if(!taskGraph.isEntrySubtask(subtaskIndex))
+			execution.addTransferDelay(subtask.getExecStartTime() - execution.getReleaseTime(subtaskIndex));
+		
+		//download of the intermediate data for the successors
+		if(!taskGraph.isExitSubtask(subtaskIndex))
+			execution.addTransferDelay(CloudSim.clock() - subtask.getFinishTime());
+		
+		int[] readySubtasks = execution.subtaskCompleted(subtaskIndex, CloudSim.clock());
+		
+		if(execution.isCompleted()){
+			taskGraphLogger.graphCompleted(execution);
+			if(execution.getCacheKey() != -1)
+				cacheableRequestCompleted(execution.getCacheKey(), taskGraph.getTaskType(),
+						taskGraph.getStartTime(), subtask.getSubmittedLocation(), false);
+		}
+		else{
+			for(int i=0; i<readySubtasks.length; i++)
+				submitTask(createSubTask(execution, readySubtasks[i]));
+		}
+	}
+	
+	private void taskFailed(Task task) {
+		if(!(task instanceof SubTask))
+			return;
+		
+		//the rest of the task graph is abandoned
+		TaskGraphExecution execution = ((SubTask)task).getExecution();
+		if(!execution.isFailed()){
+			execution.setFailed();
+			taskGraphLogger.graphFailed(execution);
 		}
 	}
 	
@@ -396,4 +981,22 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		
 		return task;
 	}
+	
+	private Task createSubTask(TaskGraphExecution execution, int subtaskIndex){
+		UtilizationModel utilizationModel = new UtilizationModelFull(); /*UtilizationModelStochastic*/
+		UtilizationModel utilizationModelCPU = getCpuUtilizationModel();
+
+		Task task = new SubTask(execution, subtaskIndex, ++taskIdCounter,
+				utilizationModelCPU, utilizationModel, utilizationModel);
+		
+		//set the owner of this task
+		task.setUserId(this.getId());
+		task.setTaskType(execution.getTaskGraph().getTaskType());
+		
+		if (utilizationModelCPU instanceof CpuUtilizationModel_Custom) {
+			((CpuUtilizationModel_Custom)utilizationModelCPU).setTask(task);
+		}
+		
+		return task;
+	}
 }
@@ -11,6 +11,11 @@
  * MAN delay is observed via a single server queue model with
  * Markov-modulated Poisson process (MMPP) arrivals.
  *   
+ * -> M/M/1 queue model for each MAN link if man_topology_file is given
+ * The MAN delay between two edge sites is the sum of the queueing delays
+ * and the latencies of the links on the route (see ManTopology). The
+ * utilization of each link is observed during the last update interval.
+ *   
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
  */
@@ -20,9 +25,12 @@ package edu.boun.edgecloudsim.applications.auction_app;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.network.ManTopology;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.MetricsRegistry;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimProfiler;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 public class SampleNetworkModel extends NetworkModel {
@@ -48,6 +56,11 @@ public class SampleNetworkModel extends NetworkModel {
 	private double numOfManTaskForDownload;
 	private double numOfManTaskForUpload;
 	
+	//queue of each MAN link, the topology is null if the MAN is a single queue
+	private ManTopology manTopology;
+	private double[] manLinkLoads; //Kb sent on each link since the last update
+	private double[] manLinkUtilizations; //utilization of each link in the last interval
+	
 	public static final double[] experimentalWlanDelay = {
 		/*1 Client*/ 88040.279 /*(Kbps)*/,
 		/*2 Clients*/ 45150.982 /*(Kbps)*/,
@@ -193,8 +206,7 @@ public class SampleNetworkModel extends NetworkModel {
 		SimSettings SS = SimSettings.getInstance();
 		for(int taskIndex=0; taskIndex<numOfApp; taskIndex++) {
 			if(SS.getTaskLookUpTable()[taskIndex][0] == 0) {
-				SimLogger.printLine("Usage percentage of task " + taskIndex + " is 0! Terminating simulation...");
-				System.exit(0);
+				throw new IllegalStateException("Usage percentage of task " + taskIndex + " is 0");
 			}
 			else{
 				double weight = SS.getTaskLookUpTable()[taskIndex][0]/(double)100;
@@ -218,6 +230,12 @@ public class SampleNetworkModel extends NetworkModel {
 		numOfManTaskForDownload = 0;
 		totalManTaskInputSize = 0;
 		numOfManTaskForUpload = 0;
+		
+		manTopology = SS.getManTopology();
+		if(manTopology != null){
+			manLinkLoads = new double[manTopology.getNumOfLinks()];
+			manLinkUtilizations = new double[manTopology.getNumOfLinks()];
+		}
 	}
 
     /**
@@ -226,23 +244,27 @@ public class SampleNetworkModel extends NetworkModel {
 	@Override
 	public double getUploadDelay(int sourceDeviceId, int destDeviceId, Task task) {
 		double delay = 0;
+		SimProfiler.getInstance().begin();
 		
 		//special case for man communication
 		if(sourceDeviceId == destDeviceId && sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
-			return delay = getManUploadDelay();
+			delay = getManUploadDelay();
 		}
-		
-		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(sourceDeviceId,CloudSim.clock());
+		else {
+			Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(sourceDeviceId,CloudSim.clock());
 
-		//mobile device to cloud server
-		if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID){
-			delay = getWanUploadDelay(accessPointLocation, task.getCloudletFileSize());
-		}
-		//mobile device to edge device (wifi access point)
-		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			delay = getWlanUploadDelay(accessPointLocation, task.getCloudletFileSize());
+			//mobile device to cloud server
+			if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID){
+				delay = getWanUploadDelay(accessPointLocation, task.getCloudletFileSize());
+			}
+			//mobile device to edge device (wifi access point)
+			else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
+				delay = getWlanUploadDelay(accessPointLocation, task.getCloudletFileSize());
+				MetricsRegistry.getInstance().getHistogram(SimLogger.AP_UPLOAD_DELAY_METRIC, accessPointLocation.getServingWlanId()).record(delay);
+			}
 		}
 		
+		SimProfiler.getInstance().end(SimProfiler.NETWORK_MODEL, "getUploadDelay");
 		return delay;
 	}
 
@@ -252,26 +274,135 @@ public class SampleNetworkModel extends NetworkModel {
 	@Override
 	public double getDownloadDelay(int sourceDeviceId, int destDeviceId, Task task) {
 		double delay = 0;
+		SimProfiler.getInstance().begin();
 		
 		//special case for man communication
 		if(sourceDeviceId == destDeviceId && sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
-			return delay = getManDownloadDelay();
+			delay = getManDownloadDelay();
+		}
+		else {
+			Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(destDeviceId,CloudSim.clock());
+			
+			//cloud server to mobile device
+			if(sourceDeviceId == SimSettings.CLOUD_DATACENTER_ID){
+				delay = getWanDownloadDelay(accessPointLocation, task.getCloudletOutputSize());
+			}
+			//edge device (wifi access point) to mobile device
+			else{
+				delay = getWlanDownloadDelay(accessPointLocation, task.getCloudletOutputSize());
+				MetricsRegistry.getInstance().getHistogram(SimLogger.AP_DOWNLOAD_DELAY_METRIC, accessPointLocation.getServingWlanId()).record(delay);
+			}
 		}
 		
-		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(destDeviceId,CloudSim.clock());
+		SimProfiler.getInstance().end(SimProfiler.NETWORK_MODEL, "getDownloadDelay");
+		return delay;
+	}
+
+	/**
+	 * calculates the MAN delay of the input of the task from the source
+	 * edge site to the destination edge site (wlan ids); the single MAN
+	 * queue is used if there is no MAN topology
+	 */
+	public double getManUploadDelay(int sourceWlanId, int destWlanId, Task task) {
+		if(manTopology == null)
+			return getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
 		
-		//cloud server to mobile device
-		if(sourceDeviceId == SimSettings.CLOUD_DATACENTER_ID){
-			delay = getWanDownloadDelay(accessPointLocation, task.getCloudletOutputSize());
-		}
-		//edge device (wifi access point) to mobile device
-		else{
-			delay = getWlanDownloadDelay(accessPointLocation, task.getCloudletOutputSize());
-		}
+		SimProfiler.getInstance().begin();
+		double delay = getManRouteDelay(sourceWlanId, destWlanId, task.getCloudletFileSize());
+		SimProfiler.getInstance().end(SimProfiler.NETWORK_MODEL, "getManUploadDelay");
+		return delay;
+	}
+
+	/**
+	 * calculates the MAN delay of the output of the task from the source
+	 * edge site to the destination edge site (wlan ids); the single MAN
+	 * queue is used if there is no MAN topology
+	 */
+	public double getManDownloadDelay(int sourceWlanId, int destWlanId, Task task) {
+		if(manTopology == null)
+			return getDownloadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
 		
+		SimProfiler.getInstance().begin();
+		double delay = getManRouteDelay(sourceWlanId, destWlanId, task.getCloudletOutputSize());
+		SimProfiler.getInstance().end(SimProfiler.NETWORK_MODEL, "getManDownloadDelay");
 		return delay;
 	}
 
+	/**
+	 * calculates the WAN delay of the state of a task which is migrated
+	 * from the edge host at the given edge site (wlan id) to the cloud.
+	 * The transfer shares the WAN of the edge site, but it is not added
+	 * to the WAN clients since it does not use the access point of any
+	 * mobile device; zero if the WAN is not available
+	 */
+	public double getEdgeToCloudDelay(int sourceWlanId, Task task) {
+		SimProfiler.getInstance().begin();
+		int numOfWanUser = wanClients[sourceWlanId];
+		double delay = 0;
+		if(numOfWanUser < experimentalWanDelay.length)
+			delay = task.getCloudletFileSize() * (double)8 / experimentalWanDelay[numOfWanUser]; //KB to Kb
+		SimProfiler.getInstance().end(SimProfiler.NETWORK_MODEL, "getEdgeToCloudDelay");
+		return delay;
+	}
+
+	/**
+	 * estimates the WLAN delay of the given data (KB) at the access point
+	 * without updating the model, infinity if the WLAN is not available
+	 */
+	public double estimateWlanDelay(int wlanId, double dataSize) {
+		int numOfWlanUser = wlanClients[wlanId];
+		if(numOfWlanUser >= experimentalWlanDelay.length)
+			return Double.POSITIVE_INFINITY;
+		
+		return dataSize * (double)8 / (experimentalWlanDelay[numOfWlanUser] * (double) 3 );
+	}
+	
+	/**
+	 * estimates the WAN delay of the given data (KB) at the access point
+	 * without updating the model, infinity if the WAN is not available
+	 */
+	public double estimateWanDelay(int wlanId, double dataSize) {
+		int numOfWanUser = wanClients[wlanId];
+		if(numOfWanUser >= experimentalWanDelay.length)
+			return Double.POSITIVE_INFINITY;
+		
+		return dataSize * (double)8 / experimentalWanDelay[numOfWanUser];
+	}
+	
+	/**
+	 * estimates the MAN delay of the given data (KB) between the edge sites
+	 * without adding it to the load of the MAN, infinity if the MAN is not
+	 * available. The single MAN queue does not depend on the data size
+	 */
+	public double estimateManDelay(int sourceWlanId, int destWlanId, double dataSize) {
+		double result = 0;
+		if(manTopology == null){
+			result = calculateMM1(SimSettings.getInstance().getInternalLanDelay(),
+					MAN_BW,
+					ManPoissonMeanForUpload,
+					avgManTaskInputSize,
+					numberOfMobileDevices);
+			return (result == 0) ? Double.POSITIVE_INFINITY : result;
+		}
+		
+		if(sourceWlanId == destWlanId)
+			return SimSettings.getInstance().getInternalLanDelay();
+		
+		if(!manTopology.isReachable(sourceWlanId, destWlanId))
+			return Double.POSITIVE_INFINITY;
+		
+		int start = manTopology.getPathStart(sourceWlanId, destWlanId);
+		int end = manTopology.getPathEnd(sourceWlanId, destWlanId);
+		for(int i=start; i<end; i++){
+			int link = manTopology.getPathLink(i);
+			if(manLinkUtilizations[link] >= 1)
+				return Double.POSITIVE_INFINITY;
+			result += dataSize * 8 / manTopology.getLinkBandwidth(link) / (1 - manLinkUtilizations[link]);
+			result += manTopology.getLinkLatency(link);
+		}
+		return result;
+	}
+
 	@Override
 	public void uploadStarted(Location accessPointLocation, int destDeviceId) {
 		if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID)
@@ -281,8 +412,7 @@ public class SampleNetworkModel extends NetworkModel {
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients++;
 		else {
-			SimLogger.printLine("Error - unknown device id in uploadStarted(). Terminating simulation...");
-			System.exit(0);
+			throw new IllegalStateException("Error - unknown device id in uploadStarted()");
 		}
 	}
 
@@ -295,8 +425,7 @@ public class SampleNetworkModel extends NetworkModel {
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients--;
 		else {
-			SimLogger.printLine("Error - unknown device id in uploadFinished(). Terminating simulation...");
-			System.exit(0);
+			throw new IllegalStateException("Error - unknown device id in uploadFinished()");
 		}
 	}
 
@@ -309,8 +438,7 @@ public class SampleNetworkModel extends NetworkModel {
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients++;
 		else {
-			SimLogger.printLine("Error - unknown device id in downloadStarted(). Terminating simulation...");
-			System.exit(0);
+			throw new IllegalStateException("Error - unknown device id in downloadStarted()");
 		}
 	}
 
@@ -323,8 +451,7 @@ public class SampleNetworkModel extends NetworkModel {
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients--;
 		else {
-			SimLogger.printLine("Error - unknown device id in downloadFinished(). Terminating simulation...");
-			System.exit(0);
+			throw new IllegalStateException("Error - unknown device id in downloadFinished()");
 		}
 	}
 
@@ -380,6 +507,40 @@ public class SampleNetworkModel extends NetworkModel {
 		return (result > 15) ? 0 : result;
 	}
 	
+	/*
+	 * each link on the route is an M/M/1 queue, the data is added to the
+	 * load of the links only if it can be sent
+	 */
+	private double getManRouteDelay(int sourceWlanId, int destWlanId, double dataSize /*KB*/) {
+		//the edge hosts of the same site do not use the MAN
+		if(sourceWlanId == destWlanId)
+			return SimSettings.getInstance().getInternalLanDelay();
+		
+		if(!manTopology.isReachable(sourceWlanId, destWlanId))
+			return 0;
+		
+		dataSize = dataSize * 8; //convert from KB to Kb
+		int start = manTopology.getPathStart(sourceWlanId, destWlanId);
+		int end = manTopology.getPathEnd(sourceWlanId, destWlanId);
+		
+		double result = 0;
+		for(int i=start; i<end; i++){
+			int link = manTopology.getPathLink(i);
+			if(manLinkUtilizations[link] >= 1)
+				return 0;
+			result += dataSize / manTopology.getLinkBandwidth(link) / (1 - manLinkUtilizations[link]);
+			result += manTopology.getLinkLatency(link);
+		}
+		
+		if(result > 15)
+			return 0;
+		
+		for(int i=start; i<end; i++)
+			manLinkLoads[manTopology.getPathLink(i)] += dataSize;
+		
+		return result;
+	}
+	
 	private double getManDownloadDelay() {
 		double result = calculateMM1(SimSettings.getInstance().getInternalLanDelay(),
 				MAN_BW,
@@ -427,5 +588,13 @@ public class SampleNetworkModel extends NetworkModel {
 		numOfManTaskForDownload = 0;
 		totalManTaskInputSize = 0;
 		numOfManTaskForUpload = 0;
+		
+		if(manTopology != null){
+			for(int link=0; link<manLinkLoads.length; link++){
+				if(lastInterval > 0)
+					manLinkUtilizations[link] = manLinkLoads[link] / (lastInterval * manTopology.getLinkBandwidth(link));
+				manLinkLoads[link] = 0;
+			}
+		}
 	}
 }
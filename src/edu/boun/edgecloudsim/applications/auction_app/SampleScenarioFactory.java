@@ -22,7 +22,6 @@ import edu.boun.edgecloudsim.edge_server.EdgeServerManager;
 import edu.boun.edgecloudsim.mobility.MobilityModel;
 import edu.boun.edgecloudsim.mobility.NomadicMobility;
 import edu.boun.edgecloudsim.network.NetworkModel;
-import edu.boun.edgecloudsim.task_generator.IdleActiveLoadGenerator;
 import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
 
 public class SampleScenarioFactory implements ScenarioFactory {
@@ -31,7 +30,7 @@ public class SampleScenarioFactory implements ScenarioFactory {
 	private String orchestratorPolicy;
 	private String simScenario;
 	
-	SampleScenarioFactory(int _numOfMobileDevice,
+	public SampleScenarioFactory(int _numOfMobileDevice,
 			double _simulationTime,
 			String _orchestratorPolicy,
 			String _simScenario){
@@ -43,7 +42,7 @@ public class SampleScenarioFactory implements ScenarioFactory {
 	
 	@Override
 	public LoadGeneratorModel getLoadGeneratorModel() {
-		return new IdleActiveLoadGenerator(numOfMobileDevice, simulationTime, simScenario);
+		return new TaskGraphLoadGenerator(numOfMobileDevice, simulationTime, simScenario);
 	}
 
 	@Override
@@ -0,0 +1,54 @@
+/*
+ * Title:        EdgeCloudSim - Sub Task
+ *
+ * Description:
+ * SubTask is a Task which is a node of a task graph. It keeps the
+ * execution state of the graph it belongs to, so that the mobile
+ * device manager can release the successors when it is finished and
+ * the edge orchestrator can check whether it is on the critical path.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+
+import edu.boun.edgecloudsim.edge_client.Task;
+
+public class SubTask extends Task {
+	private TaskGraphExecution execution;
+	private int subtaskIndex;
+
+	public SubTask(TaskGraphExecution _execution, int _subtaskIndex, int cloudletId,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		super(_execution.getTaskGraph().getMobileDeviceId(), cloudletId,
+				_execution.getTaskGraph().getSubtaskLength(_subtaskIndex),
+				_execution.getTaskGraph().getPesNumber(),
+				_execution.getTaskGraph().getSubtaskInputSize(_subtaskIndex),
+				_execution.getTaskGraph().getSubtaskOutputSize(_subtaskIndex),
+				utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+
+		execution = _execution;
+		subtaskIndex = _subtaskIndex;
+	}
+
+	public TaskGraphExecution getExecution(){
+		return execution;
+	}
+
+	public TaskGraph getTaskGraph(){
+		return execution.getTaskGraph();
+	}
+
+	public int getSubtaskIndex(){
+		return subtaskIndex;
+	}
+
+	public boolean isOnCriticalPath(){
+		return execution.getTaskGraph().isOnCriticalPath(subtaskIndex);
+	}
+}
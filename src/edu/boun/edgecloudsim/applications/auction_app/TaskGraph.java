@@ -0,0 +1,228 @@
+/*
+ * Title:        EdgeCloudSim - Task Graph
+ *
+ * Description:
+ * TaskGraph describes an application instance as a directed acyclic
+ * graph of dependent subtasks. The TaskProperty part keeps the values
+ * of the application as a whole (arrival time, mobile device, app type
+ * and the sampled input/output/length), and the graph splits them to
+ * the subtasks. A subtask sends its whole output to each successor,
+ * so the input of a non-entry subtask is the sum of the outputs of
+ * its predecessors.
+ *
+ * The subtasks are numbered in a topological order; subtask 0 is the
+ * single entry and the last subtask is the single exit of the graph.
+ * Upward and downward ranks are calculated once with reference MIPS
+ * and bandwidth values, and used to find the critical path. The
+ * longest path after a subtask is also used to derive the deadline of
+ * the subtask from the deadline of the graph.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class TaskGraph extends TaskProperty {
+	private static final double EPSILON = 1e-9;
+
+	private int numOfSubtasks;
+	private long[] subtaskLength; //MI
+	private long[] subtaskInputSize; //KB
+	private long[] subtaskOutputSize; //KB
+	private int[][] successors;
+	private int[][] predecessors;
+
+	private double[] upwardRank; //seconds
+	private double[] downwardRank; //seconds
+	private double[] successorPathLength; //seconds
+	private double criticalPathLength; //seconds
+
+	public TaskGraph(double _startTime, int _mobileDeviceId, int _taskType, int _pesNumber,
+			long _length, long _inputFileSize, long _outputFileSize, int _numOfSubtasks,
+			double _dependencyProbability, double _referenceMips, double _referenceBandwidth,
+			RandomStream rng) {
+		super(_startTime, _mobileDeviceId, _taskType, _pesNumber, _length, _inputFileSize, _outputFileSize);
+		numOfSubtasks = Math.max(1, _numOfSubtasks);
+
+		createDependencies(_dependencyProbability, rng);
+		createSubtasks(rng);
+		calculateRanks(_referenceMips, _referenceBandwidth);
+	}
+
+	private void createDependencies(double dependencyProbability, RandomStream rng) {
+		boolean[][] edges = new boolean[numOfSubtasks][numOfSubtasks];
+		int[] numOfSuccessors = new int[numOfSubtasks];
+		int[] numOfPredecessors = new int[numOfSubtasks];
+
+		//each subtask depends on at least one earlier subtask
+		for(int j=1; j<numOfSubtasks; j++){
+			int i = SimUtils.getRandomNumber(rng, 0, j-1);
+			edges[i][j] = true;
+			for(int k=0; k<j; k++){
+				if(!edges[k][j] && SimUtils.getRandomDoubleNumber(rng, 0, 1) < dependencyProbability)
+					edges[k][j] = true;
+			}
+		}
+
+		//dangling subtasks are connected to the exit subtask
+		for(int i=0; i<numOfSubtasks-1; i++){
+			boolean hasSuccessor = false;
+			for(int j=i+1; j<numOfSubtasks && !hasSuccessor; j++)
+				hasSuccessor = edges[i][j];
+			if(!hasSuccessor)
+				edges[i][numOfSubtasks-1] = true;
+		}
+
+		for(int i=0; i<numOfSubtasks; i++){
+			for(int j=i+1; j<numOfSubtasks; j++){
+				if(edges[i][j]){
+					numOfSuccessors[i]++;
+					numOfPredecessors[j]++;
+				}
+			}
+		}
+
+		successors = new int[numOfSubtasks][];
+		predecessors = new int[numOfSubtasks][];
+		for(int i=0; i<numOfSubtasks; i++){
+			successors[i] = new int[numOfSuccessors[i]];
+			predecessors[i] = new int[numOfPredecessors[i]];
+		}
+
+		int[] succIndex = new int[numOfSubtasks];
+		int[] predIndex = new int[numOfSubtasks];
+		for(int i=0; i<numOfSubtasks; i++){
+			for(int j=i+1; j<numOfSubtasks; j++){
+				if(edges[i][j]){
+					successors[i][succIndex[i]++] = j;
+					predecessors[j][predIndex[j]++] = i;
+				}
+			}
+		}
+	}
+
+	private void createSubtasks(RandomStream rng) {
+		subtaskLength = new long[numOfSubtasks];
+		subtaskInputSize = new long[numOfSubtasks];
+		subtaskOutputSize = new long[numOfSubtasks];
+
+		//split the length of the application to the subtasks randomly
+		double[] weights = new double[numOfSubtasks];
+		double totalWeight = 0;
+		for(int i=0; i<numOfSubtasks; i++){
+			weights[i] = SimUtils.getRandomDoubleNumber(rng, 0.5, 1.5);
+			totalWeight += weights[i];
+		}
+		for(int i=0; i<numOfSubtasks; i++)
+			subtaskLength[i] = Math.max(1, (long)(getLength() * weights[i] / totalWeight));
+
+		//intermediate data size is between the input and output size of the application
+		long minDataSize = Math.max(1, Math.min(getInputFileSize(), getOutputFileSize()));
+		long maxDataSize = Math.max(minDataSize, Math.max(getInputFileSize(), getOutputFileSize()));
+		for(int i=0; i<numOfSubtasks-1; i++)
+			subtaskOutputSize[i] = SimUtils.getRandomLongNumber(rng, minDataSize, maxDataSize);
+		subtaskOutputSize[numOfSubtasks-1] = getOutputFileSize();
+
+		subtaskInputSize[0] = getInputFileSize();
+		for(int j=1; j<numOfSubtasks; j++)
+			for(int i : predecessors[j])
+				subtaskInputSize[j] += subtaskOutputSize[i];
+	}
+
+	private void calculateRanks(double referenceMips, double referenceBandwidth) {
+		upwardRank = new double[numOfSubtasks];
+		downwardRank = new double[numOfSubtasks];
+		successorPathLength = new double[numOfSubtasks];
+
+		//subtasks are already in topological order
+		for(int i=numOfSubtasks-1; i>=0; i--){
+			double maxSuccessorCost = 0;
+			for(int j : successors[i])
+				maxSuccessorCost = Math.max(maxSuccessorCost,
+						getTransferCost(i, referenceBandwidth) + upwardRank[j]);
+			successorPathLength[i] = maxSuccessorCost;
+			upwardRank[i] = getComputationCost(i, referenceMips) + maxSuccessorCost;
+		}
+
+		for(int j=0; j<numOfSubtasks; j++){
+			for(int i : predecessors[j])
+				downwardRank[j] = Math.max(downwardRank[j], downwardRank[i] +
+						getComputationCost(i, referenceMips) + getTransferCost(i, referenceBandwidth));
+		}
+
+		criticalPathLength = upwardRank[0];
+	}
+
+	private double getComputationCost(int subtask, double referenceMips) {
+		return (referenceMips > 0) ? subtaskLength[subtask] / referenceMips : 0;
+	}
+
+	private double getTransferCost(int subtask, double referenceBandwidth) {
+		return (referenceBandwidth > 0) ? subtaskOutputSize[subtask] * (double)8 / referenceBandwidth : 0; //KB to Kbit
+	}
+
+	public int getNumOfSubtasks(){
+		return numOfSubtasks;
+	}
+
+	public long getSubtaskLength(int subtask){
+		return subtaskLength[subtask];
+	}
+
+	public long getSubtaskInputSize(int subtask){
+		return subtaskInputSize[subtask];
+	}
+
+	public long getSubtaskOutputSize(int subtask){
+		return subtaskOutputSize[subtask];
+	}
+
+	public int[] getSuccessors(int subtask){
+		return successors[subtask];
+	}
+
+	public int[] getPredecessors(int subtask){
+		return predecessors[subtask];
+	}
+
+	public boolean isEntrySubtask(int subtask){
+		return predecessors[subtask].length == 0;
+	}
+
+	public boolean isExitSubtask(int subtask){
+		return successors[subtask].length == 0;
+	}
+
+	/**
+	 * returns the longest remaining path from the subtask to the exit
+	 * including the subtask itself (in seconds unit)
+	 */
+	public double getUpwardRank(int subtask){
+		return upwardRank[subtask];
+	}
+
+	/**
+	 * returns the longest remaining path after the subtask is finished,
+	 * i.e. the upward rank without the subtask itself (in seconds unit)
+	 */
+	public double getSuccessorPathLength(int subtask){
+		return successorPathLength[subtask];
+	}
+
+	/**
+	 * returns the estimated length of the critical path (in seconds unit)
+	 */
+	public double getCriticalPathLength(){
+		return criticalPathLength;
+	}
+
+	public boolean isOnCriticalPath(int subtask){
+		return Math.abs(upwardRank[subtask] + downwardRank[subtask] - criticalPathLength)
+				<= EPSILON * Math.max(1, criticalPathLength);
+	}
+}
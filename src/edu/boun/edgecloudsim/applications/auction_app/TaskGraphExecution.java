@@ -0,0 +1,136 @@
+/*
+ * Title:        EdgeCloudSim - Task Graph Execution
+ *
+ * Description:
+ * TaskGraphExecution keeps the runtime state of a task graph, i.e.
+ * the number of unfinished predecessors of each subtask, the release
+ * times of the subtasks and the network delay spent to move data
+ * between the dependent stages. The graph fails as soon as one of
+ * its subtasks fails, and the remaining subtasks are not released.
+ * The VMs of the subtasks are kept if the whole graph is scheduled
+ * when it arrives (see HeftScheduler), and the key of the result of
+ * the whole graph is kept if it can be cached on the edge hosts.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import org.cloudbus.cloudsim.Vm;
+
+public class TaskGraphExecution {
+	private TaskGraph taskGraph;
+	private int[] pendingPredecessors;
+	private double[] releaseTime;
+	private int numOfCompletedSubtasks;
+	private boolean failed;
+	private double transferDelay;
+	private double finishTime;
+	private Vm[] plannedVms;
+	private long cacheKey = -1;
+
+	public TaskGraphExecution(TaskGraph _taskGraph) {
+		taskGraph = _taskGraph;
+		pendingPredecessors = new int[taskGraph.getNumOfSubtasks()];
+		releaseTime = new double[taskGraph.getNumOfSubtasks()];
+		for(int i=0; i<pendingPredecessors.length; i++)
+			pendingPredecessors[i] = taskGraph.getPredecessors(i).length;
+	}
+
+	public TaskGraph getTaskGraph(){
+		return taskGraph;
+	}
+
+	public void subtaskReleased(int subtask, double time){
+		releaseTime[subtask] = time;
+	}
+
+	public double getReleaseTime(int subtask){
+		return releaseTime[subtask];
+	}
+
+	/**
+	 * marks the subtask as completed and returns the successors
+	 * whose predecessors are all completed
+	 */
+	public int[] subtaskCompleted(int subtask, double time){
+		numOfCompletedSubtasks++;
+		if(isCompleted())
+			finishTime = time;
+
+		int[] successors = taskGraph.getSuccessors(subtask);
+		int numOfReadySubtasks = 0;
+		for(int j : successors)
+			if(--pendingPredecessors[j] == 0)
+				numOfReadySubtasks++;
+
+		int[] readySubtasks = new int[numOfReadySubtasks];
+		int index = 0;
+		for(int j : successors)
+			if(pendingPredecessors[j] == 0)
+				readySubtasks[index++] = j;
+
+		return readySubtasks;
+	}
+
+	public void addTransferDelay(double delay){
+		transferDelay += delay;
+	}
+
+	/**
+	 * returns the network delay spent to send the intermediate
+	 * data between the dependent subtasks (in seconds unit)
+	 */
+	public double getTransferDelay(){
+		return transferDelay;
+	}
+
+	public void setPlannedVms(Vm[] vms){
+		plannedVms = vms;
+	}
+
+	/**
+	 * returns the VM selected for the subtask when the graph is
+	 * scheduled, null if the graph is not scheduled in advance
+	 */
+	public Vm getPlannedVm(int subtask){
+		return (plannedVms == null) ? null : plannedVms[subtask];
+	}
+
+	public boolean isPlanned(){
+		return plannedVms != null;
+	}
+
+	public void setCacheKey(long _cacheKey){
+		cacheKey = _cacheKey;
+	}
+
+	/**
+	 * returns the key of the result of the graph in the edge result
+	 * caches, -1 if the result is not cacheable
+	 */
+	public long getCacheKey(){
+		return cacheKey;
+	}
+
+	public void setFailed(){
+		failed = true;
+	}
+
+	public boolean isFailed(){
+		return failed;
+	}
+
+	public boolean isCompleted(){
+		return !failed && numOfCompletedSubtasks == taskGraph.getNumOfSubtasks();
+	}
+
+	/**
+	 * returns the time between the arrival of the application and
+	 * the completion of its exit subtask (in seconds unit)
+	 */
+	public double getMakespan(){
+		return finishTime - taskGraph.getStartTime();
+	}
+}
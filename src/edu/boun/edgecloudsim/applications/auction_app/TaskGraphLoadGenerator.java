@@ -0,0 +1,121 @@
+/*
+ * Title:        EdgeCloudSim - Task Graph Load Generator
+ *
+ * Description:
+ * TaskGraphLoadGenerator uses the idle/active load generation model
+ * of IdleActiveLoadGenerator, but each generated application instance
+ * is a task graph of dependent subtasks instead of a single task.
+ * The number of subtasks and the dependency probability are defined
+ * in the configuration file; the critical path of each graph is
+ * estimated with the average edge VM MIPS and the MAN bandwidth.
+ * The task trace keeps the values of the application instances, and
+ * the task graphs are created when the instances are scheduled.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
+import edu.boun.edgecloudsim.task_generator.TaskTrace;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.RandomStreams;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class TaskGraphLoadGenerator extends LoadGeneratorModel{
+	int taskTypeOfDevices[];
+	private int minNumOfSubtasks;
+	private int maxNumOfSubtasks;
+	private double dependencyProbability;
+	private double referenceMips;
+	private double referenceBandwidth;
+
+	public TaskGraphLoadGenerator(int _numberOfMobileDevices, double _simulationTime, String _simScenario) {
+		super(_numberOfMobileDevices, _simulationTime, _simScenario);
+	}
+
+	@Override
+	public void initializeModel() {
+		taskTrace = new TaskTrace();
+
+		SimSettings SS = SimSettings.getInstance();
+		minNumOfSubtasks = SS.getMinNumOfSubtasks();
+		maxNumOfSubtasks = Math.max(minNumOfSubtasks, SS.getMaxNumOfSubtasks());
+		dependencyProbability = SS.getSubtaskDependencyProbability();
+		referenceMips = SS.getEdgeTopology().getAvgVmMips();
+		referenceBandwidth = SampleNetworkModel.MAN_BW;
+
+		//Each mobile device utilizes an app type (task type)
+		taskTypeOfDevices = new int[numberOfMobileDevices];
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			RandomStream rng = RandomStreams.getInstance().getStream("load_generator", i);
+
+			int randomTaskType = -1;
+			double taskTypeSelector = SimUtils.getRandomDoubleNumber(rng, 0,100);
+			double taskTypePercentage = 0;
+			for (int j=0; j<SS.getTaskLookUpTable().length; j++) {
+				taskTypePercentage += SS.getTaskLookUpTable()[j][0];
+				if(taskTypeSelector <= taskTypePercentage){
+					randomTaskType = j;
+					break;
+				}
+			}
+			if(randomTaskType == -1){
+				SimLogger.printLine("Impossible is occurred! no random task type!");
+				continue;
+			}
+
+			taskTypeOfDevices[i] = randomTaskType;
+
+			double poissonMean = SS.getTaskLookUpTable()[randomTaskType][2];
+			double activePeriod = SS.getTaskLookUpTable()[randomTaskType][3];
+			double idlePeriod = SS.getTaskLookUpTable()[randomTaskType][4];
+			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(rng,
+					SimSettings.CLIENT_ACTIVITY_START_TIME,
+					SimSettings.CLIENT_ACTIVITY_START_TIME + activePeriod);  //active period starts shortly after the simulation started (e.g. 10 seconds)
+			double virtualTime = activePeriodStartTime;
+
+			while(virtualTime < simulationTime) {
+				double interval = rng.nextExponential(poissonMean);
+
+				if(interval <= 0){
+					SimLogger.printLine("Impossible is occurred! interval is " + interval + " for device " + i + " time " + virtualTime);
+					continue;
+				}
+				virtualTime += interval;
+
+				if(virtualTime > activePeriodStartTime + activePeriod){
+					activePeriodStartTime = activePeriodStartTime + activePeriod + idlePeriod;
+					virtualTime = activePeriodStartTime;
+					continue;
+				}
+
+				taskTrace.add(i, randomTaskType, virtualTime, rng);
+			}
+		}
+		taskTrace.trimToSize();
+	}
+
+	/**
+	 * creates the task graph of the application instance at the given index,
+	 * the graph of an index is the same whenever it is created
+	 */
+	@Override
+	public TaskProperty getTaskProperty(int index) {
+		RandomStream rng = RandomStreams.getInstance().getStream("task_graph", index);
+		int numOfSubtasks = SimUtils.getRandomNumber(rng, minNumOfSubtasks, maxNumOfSubtasks);
+		return new TaskGraph(taskTrace.getStartTime(index), taskTrace.getMobileDeviceId(index),
+				taskTrace.getTaskType(index), taskTrace.getPesNumber(index), taskTrace.getLength(index),
+				taskTrace.getInputFileSize(index), taskTrace.getOutputFileSize(index),
+				numOfSubtasks, dependencyProbability, referenceMips, referenceBandwidth, rng);
+	}
+
+	@Override
+	public int getTaskTypeOfDevice(int deviceId) {
+		return taskTypeOfDevices[deviceId];
+	}
+}
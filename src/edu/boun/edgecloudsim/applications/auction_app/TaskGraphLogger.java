@@ -0,0 +1,137 @@
+/*
+ * Title:        EdgeCloudSim - Task Graph Logger
+ *
+ * Description:
+ * TaskGraphLogger collects application level statistics of the task
+ * graphs, i.e. makespan, critical path length and the network delay
+ * spent between the dependent subtasks. The subtasks are still logged
+ * by SimLogger one by one; this logger only keeps the graph level
+ * results for each app type and saves them to _TASK_GRAPH.log file.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.auction_app;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class TaskGraphLogger {
+	private int numOfAppTypes;
+
+	// last index is the total of all app types
+	private int[] startedGraph;
+	private int[] completedGraph;
+	private int[] failedGraph;
+	private int[] completedSubtask;
+	private double[] makespan;
+	private double[] criticalPathLength;
+	private double[] transferDelay;
+
+	public TaskGraphLogger() {
+		numOfAppTypes = SimSettings.getInstance().getTaskLookUpTable().length;
+
+		startedGraph = new int[numOfAppTypes + 1];
+		completedGraph = new int[numOfAppTypes + 1];
+		failedGraph = new int[numOfAppTypes + 1];
+		completedSubtask = new int[numOfAppTypes + 1];
+		makespan = new double[numOfAppTypes + 1];
+		criticalPathLength = new double[numOfAppTypes + 1];
+		transferDelay = new double[numOfAppTypes + 1];
+	}
+
+	private boolean isInWarmUpPeriod(TaskGraph taskGraph) {
+		return taskGraph.getStartTime() < SimSettings.getInstance().getWarmUpPeriod();
+	}
+
+	public void graphStarted(TaskGraph taskGraph) {
+		if(isInWarmUpPeriod(taskGraph))
+			return;
+
+		startedGraph[taskGraph.getTaskType()]++;
+	}
+
+	public void graphCompleted(TaskGraphExecution execution) {
+		TaskGraph taskGraph = execution.getTaskGraph();
+		if(isInWarmUpPeriod(taskGraph))
+			return;
+
+		int appType = taskGraph.getTaskType();
+		completedGraph[appType]++;
+		completedSubtask[appType] += taskGraph.getNumOfSubtasks();
+		makespan[appType] += execution.getMakespan();
+		criticalPathLength[appType] += taskGraph.getCriticalPathLength();
+		transferDelay[appType] += execution.getTransferDelay();
+	}
+
+	public void graphFailed(TaskGraphExecution execution) {
+		if(isInWarmUpPeriod(execution.getTaskGraph()))
+			return;
+
+		failedGraph[execution.getTaskGraph().getTaskType()]++;
+	}
+
+	public void simStopped(String outputFolder, String filePrefix) throws IOException {
+		// the totals exclude the last index, so they are not counted twice if it is called again
+		startedGraph[numOfAppTypes] = IntStream.of(startedGraph).limit(numOfAppTypes).sum();
+		completedGraph[numOfAppTypes] = IntStream.of(completedGraph).limit(numOfAppTypes).sum();
+		failedGraph[numOfAppTypes] = IntStream.of(failedGraph).limit(numOfAppTypes).sum();
+		completedSubtask[numOfAppTypes] = IntStream.of(completedSubtask).limit(numOfAppTypes).sum();
+		makespan[numOfAppTypes] = DoubleStream.of(makespan).limit(numOfAppTypes).sum();
+		criticalPathLength[numOfAppTypes] = DoubleStream.of(criticalPathLength).limit(numOfAppTypes).sum();
+		transferDelay[numOfAppTypes] = DoubleStream.of(transferDelay).limit(numOfAppTypes).sum();
+
+		if (SimLogger.isFileLogEnabled()) {
+			File graphFile = new File(outputFolder, filePrefix + "_TASK_GRAPH.log");
+			BufferedWriter graphBW = new BufferedWriter(new FileWriter(graphFile, false));
+			graphBW.write("#auto generated file!");
+			graphBW.newLine();
+
+			for (int i = 0; i < numOfAppTypes + 1; i++) {
+				String appName = "ALL_APPS";
+				if (i < numOfAppTypes) {
+					// if related app is not used in this simulation, just discard it
+					if (SimSettings.getInstance().getTaskLookUpTable()[i][0] == 0)
+						continue;
+
+					appName = SimSettings.getInstance().getTaskName(i);
+				}
+
+				int completed = completedGraph[i];
+				String line = appName + SimSettings.DELIMITER
+						+ Integer.toString(completed) + SimSettings.DELIMITER
+						+ Integer.toString(failedGraph[i]) + SimSettings.DELIMITER
+						+ Integer.toString(startedGraph[i] - completed - failedGraph[i]) + SimSettings.DELIMITER
+						+ Double.toString((completed == 0) ? 0.0 : (double)completedSubtask[i] / completed) + SimSettings.DELIMITER
+						+ Double.toString((completed == 0) ? 0.0 : makespan[i] / completed) + SimSettings.DELIMITER
+						+ Double.toString((completed == 0) ? 0.0 : criticalPathLength[i] / completed) + SimSettings.DELIMITER
+						+ Double.toString((completed == 0) ? 0.0 : transferDelay[i] / completed);
+
+				graphBW.write(line);
+				graphBW.newLine();
+			}
+			graphBW.close();
+		}
+
+		int total = numOfAppTypes;
+		SimLogger.printLine("# of task graphs (completed/failed/uncompleted): "
+				+ completedGraph[total] + "/" + failedGraph[total] + "/"
+				+ (startedGraph[total] - completedGraph[total] - failedGraph[total]));
+
+		SimLogger.printLine("average makespan: "
+				+ String.format("%.6f", (completedGraph[total] == 0) ? 0.0 : makespan[total] / completedGraph[total])
+				+ " seconds. (critical path estimate: "
+				+ String.format("%.6f", (completedGraph[total] == 0) ? 0.0 : criticalPathLength[total] / completedGraph[total])
+				+ ", inter-stage transfer: "
+				+ String.format("%.6f", (completedGraph[total] == 0) ? 0.0 : transferDelay[total] / completedGraph[total])
+				+ ")");
+	}
+}
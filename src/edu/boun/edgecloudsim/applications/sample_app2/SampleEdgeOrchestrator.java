@@ -26,6 +26,7 @@ import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
+import edu.boun.edgecloudsim.edge_server.EdgeVmCapacityIndex;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.utils.SimLogger;
@@ -68,24 +69,26 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 			double wanBW = (wanDelay == 0) ? 0 : (1 / wanDelay); /* Mbps */
 			
 			double edgeUtilization = SimManager.getInstance().getEdgeServerManager().getAvgUtilization();
+			double wanBwThreshold = SimSettings.getInstance().getOrchestratorWanBandwidthThreshold(); /* Mbps */
+			double utilizationThreshold = SimSettings.getInstance().getOrchestratorEdgeUtilizationThreshold();
 			
 
 			if(policy.equals("NETWORK_BASED")){
-				if(wanBW > 6)
+				if(wanBW > wanBwThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			}
 			else if(policy.equals("UTILIZATION_BASED")){
 				double utilization = edgeUtilization;
-				if(utilization > 80)
+				if(utilization > utilizationThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 			}
 			else if(policy.equals("HYBRID")){
 				double utilization = edgeUtilization;
-				if(wanBW > 6 && utilization > 80)
+				if(wanBW > wanBwThreshold && utilization > utilizationThreshold)
 					result = SimSettings.CLOUD_DATACENTER_ID;
 				else
 					result = SimSettings.GENERIC_EDGE_DEVICE_ID;
@@ -124,6 +127,12 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 		}
 		else if(deviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
 			//Select VM on edge devices via Least Loaded algorithm!
+			EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+			if(capacityIndex != null){
+				double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
+				return capacityIndex.getLeastLoadedVm(requiredCapacity);
+			}
+			
 			double selectedVmCapacity = 0; //start with min value
 			for(int hostIndex=0; hostIndex<numberOfHost; hostIndex++){
 				List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex);
@@ -1,12 +1,10 @@
 package edu.boun.edgecloudsim.applications.sample_app5;
 
-import java.util.ArrayList;
-
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
-import edu.boun.edgecloudsim.utils.TaskProperty;
+import edu.boun.edgecloudsim.task_generator.TaskTrace;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimLogger;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
@@ -20,13 +18,15 @@ public class VehicularLoadGenerator extends LoadGeneratorModel{
 
 	@Override
 	public void initializeModel() {
-		taskList = new ArrayList<TaskProperty>();
+		taskTrace = new TaskTrace();
 
 		//Each mobile device utilizes an app type (task type)
 		taskTypeOfDevices = new int[numberOfMobileDevices];
 		for(int i=0; i<numberOfMobileDevices; i++) {
+			RandomStream rng = RandomStreams.getInstance().getStream("load_generator", i);
+
 			int randomTaskType = -1;
-			double taskTypeSelector = SimUtils.getRandomDoubleNumber(0,100);
+			double taskTypeSelector = SimUtils.getRandomDoubleNumber(rng, 0,100);
 			double taskTypePercentage = 0;
 			for (int j=0; j<SimSettings.getInstance().getTaskLookUpTable().length; j++) {
 				taskTypePercentage += SimSettings.getInstance().getTaskLookUpTable()[j][0];
@@ -45,12 +45,11 @@ public class VehicularLoadGenerator extends LoadGeneratorModel{
 			double poissonMean = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][2];
 			double activePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][3];
 			double idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][4];
-			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(
+			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(rng,
 					SimSettings.CLIENT_ACTIVITY_START_TIME, 
 					SimSettings.CLIENT_ACTIVITY_START_TIME * 2);  //active period starts shortly after the simulation started (e.g. 10 seconds)
 			double virtualTime = activePeriodStartTime;
 
-			ExponentialDistribution rng = new ExponentialDistribution(poissonMean);
 			//ExponentialDistribution rng[] = new ExponentialDistribution[10];
 			//for(int j=0; j<10; j++)
 			//	rng[j] = new ExponentialDistribution(poissonMean * ((double)1 + (double)j * (double) 0.12));
@@ -58,7 +57,7 @@ public class VehicularLoadGenerator extends LoadGeneratorModel{
 			while(virtualTime < simulationTime) {
 				//int index = Math.min(9, (int)virtualTime / 15);
 				//double interval = rng[9-index].sample();
-				double interval = rng.sample();
+				double interval = rng.nextExponential(poissonMean);
 
 				if(interval <= 0){
 					SimLogger.printLine("Impossible is occurred! interval is " + interval + " for device " + i + " time " + virtualTime);
@@ -84,13 +83,14 @@ public class VehicularLoadGenerator extends LoadGeneratorModel{
 
 				int pesNumber = (int)SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][8];
 
-				inputFileSize = SimUtils.getRandomLongNumber(inputFileSize - inputFileSizeBias, inputFileSize + inputFileSizeBias);
-				outputFileSize = SimUtils.getRandomLongNumber(outputFileSize - outputFileSizeBias, outputFileSize + outputFileSizeBias);
-				length = SimUtils.getRandomLongNumber(length - lengthBias, length + lengthBias);
+				inputFileSize = SimUtils.getRandomLongNumber(rng, inputFileSize - inputFileSizeBias, inputFileSize + inputFileSizeBias);
+				outputFileSize = SimUtils.getRandomLongNumber(rng, outputFileSize - outputFileSizeBias, outputFileSize + outputFileSizeBias);
+				length = SimUtils.getRandomLongNumber(rng, length - lengthBias, length + lengthBias);
 
-				taskList.add(new TaskProperty(virtualTime, i, randomTaskType, pesNumber, length, inputFileSize, outputFileSize));
+				taskTrace.add(virtualTime, i, randomTaskType, pesNumber, length, inputFileSize, outputFileSize);
 			}
 		}
+		taskTrace.trimToSize();
 	}
 
 	@Override
@@ -15,7 +15,6 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Host;
@@ -34,6 +33,7 @@ import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileHost;
 import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileServerManager;
 import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileVM;
 import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileVmAllocationPolicy_Custom;
+import edu.boun.edgecloudsim.edge_server.ProcessorSharingCloudletScheduler;
 
 public class VehicularMobileServerManager extends MobileServerManager{
 	private int numOfMobileDevices=0;
@@ -82,7 +82,7 @@ public class VehicularMobileServerManager extends MobileServerManager{
 			long bandwidth = 0;
 
 			//VM Parameters		
-			MobileVM vm = new MobileVM(vmCounter, brockerId, mips, numOfCores, ram, bandwidth, storage, vmm, new CloudletSchedulerTimeShared());
+			MobileVM vm = new MobileVM(vmCounter, brockerId, mips, numOfCores, ram, bandwidth, storage, vmm, new ProcessorSharingCloudletScheduler());
 			vmList.get(i).add(vm);
 			vmCounter++;
 		}
@@ -10,11 +10,7 @@
 
 package edu.boun.edgecloudsim.applications.sample_app5;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.mobility.MobilityModel;
 import edu.boun.edgecloudsim.utils.Location;
@@ -43,21 +39,17 @@ public class VehicularMobilityModel extends MobilityModel {
 	@Override
 	public void initialize() {
 		//Find total length of the road
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		Element location = (Element)((Element)datacenterList.item(0)).getElementsByTagName("location").item(0);
-		int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		int numOfDatacenters = topology.getNumOfDatacenters();
+		int x_pos = topology.getLocation(0).getXPos();
 		lengthOfSegment = x_pos * 2; //assume that all segments have the same length
-		int totalLengthOfRoad = lengthOfSegment * datacenterList.getLength();
+		int totalLengthOfRoad = lengthOfSegment * numOfDatacenters;
 
 		//prepare locationTypes array to store attractiveness level of the locations
-		locationTypes = new int[datacenterList.getLength()];
-		timeToDriveLocationArray = new double[datacenterList.getLength()];
-		for(int i=0; i<datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			Element locationElement = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			locationTypes[i] = Integer.parseInt(locationElement.getElementsByTagName("attractiveness").item(0).getTextContent());
+		locationTypes = new int[numOfDatacenters];
+		timeToDriveLocationArray = new double[numOfDatacenters];
+		for(int i=0; i<numOfDatacenters; i++) {
+			locationTypes[i] = topology.getLocation(i).getPlaceTypeIndex();
 
 			//(3600 * lengthOfSegment) / (SPEED_FOR_PLACES[x] * 1000);
 			timeToDriveLocationArray[i] = ((double)3.6 * (double)lengthOfSegment) /
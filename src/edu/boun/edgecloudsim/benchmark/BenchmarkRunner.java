@@ -0,0 +1,227 @@
+/*
+ * Title:        EdgeCloudSim - Benchmark Runner
+ *
+ * Description:
+ * BenchmarkRunner measures the average execution time of the registered
+ * operations in the same way as JMH does in its average time mode: each
+ * benchmark is executed for a number of timed warm up iterations, whose
+ * results are discarded, followed by the timed measurement iterations.
+ * The score is the mean of the measurement iterations in nanoseconds per
+ * operation, and the error is the half width of its 99.9% confidence
+ * interval.
+ *
+ * The results can be saved to a CSV file and compared with the results
+ * of a previous run, e.g. the last commit, in order to detect the
+ * performance regressions.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class BenchmarkRunner {
+	public interface Benchmark {
+		/**
+		 * runs the benchmarked operation once, i is the number of the
+		 * operation in the current iteration, which can be used to select
+		 * the input of the operation; the result must be consumed by the
+		 * blackhole
+		 */
+		void run(int i, Blackhole blackhole);
+	}
+
+	private static final double CONFIDENCE_LEVEL = 0.999;
+
+	//number of operations between two reads of the timer
+	private static final int BATCH_SIZE = 64;
+
+	private int warmUpIterations;
+	private int measurementIterations;
+	private long iterationTime;
+	private Blackhole blackhole;
+	private Map<String, Benchmark> benchmarks;
+
+	/**
+	 * iteration time is in seconds
+	 */
+	public BenchmarkRunner(int _warmUpIterations, int _measurementIterations, double _iterationTime) {
+		warmUpIterations = _warmUpIterations;
+		measurementIterations = _measurementIterations;
+		iterationTime = (long)(_iterationTime * 1000000000L);
+		blackhole = new Blackhole();
+		benchmarks = new LinkedHashMap<String, Benchmark>();
+	}
+
+	public void add(String name, Benchmark benchmark) {
+		benchmarks.put(name, benchmark);
+	}
+
+	/**
+	 * runs the benchmarks in the order they are added
+	 */
+	public List<BenchmarkResult> run() {
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for(Map.Entry<String, Benchmark> entry : benchmarks.entrySet()){
+			for(int i=0; i<warmUpIterations; i++)
+				runIteration(entry.getValue());
+
+			double[] scores = new double[measurementIterations];
+			for(int i=0; i<measurementIterations; i++)
+				scores[i] = runIteration(entry.getValue());
+
+			BenchmarkResult result = new BenchmarkResult(entry.getKey(), getMean(scores), getError(scores));
+			SimLogger.printLine(result.toString());
+			results.add(result);
+		}
+		return results;
+	}
+
+	/*
+	 * returns the average execution time of an operation in nanoseconds
+	 */
+	private double runIteration(Benchmark benchmark) {
+		long numOfOperations = 0;
+		int i = 0;
+		long startTime = System.nanoTime();
+		long endTime = startTime + iterationTime;
+		long currentTime;
+		do{
+			for(int j=0; j<BATCH_SIZE; j++)
+				benchmark.run(i++, blackhole);
+			numOfOperations += BATCH_SIZE;
+			currentTime = System.nanoTime();
+		}while(currentTime < endTime);
+
+		return (double)(currentTime - startTime) / (double)numOfOperations;
+	}
+
+	private double getMean(double[] values) {
+		double sum = 0;
+		for(int i=0; i<values.length; i++)
+			sum += values[i];
+		return sum / values.length;
+	}
+
+	private double getError(double[] values) {
+		if(values.length < 2)
+			return Double.NaN;
+
+		double mean = getMean(values);
+		double sum = 0;
+		for(int i=0; i<values.length; i++)
+			sum += (values[i] - mean) * (values[i] - mean);
+		double standardDeviation = Math.sqrt(sum / (values.length - 1));
+
+		TDistribution tDistribution = new TDistribution(values.length - 1);
+		double t = tDistribution.inverseCumulativeProbability(1 - (1 - CONFIDENCE_LEVEL) / 2);
+		return t * standardDeviation / Math.sqrt(values.length);
+	}
+
+	public static void writeResults(File file, List<BenchmarkResult> results) throws IOException {
+		try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
+			bw.write("benchmark;score;error;unit");
+			bw.newLine();
+			for(BenchmarkResult result : results){
+				bw.write(result.getName() + ";" + result.getScore() + ";" + result.getError() + ";ns/op");
+				bw.newLine();
+			}
+		}
+	}
+
+	public static Map<String, BenchmarkResult> readResults(File file) throws IOException {
+		Map<String, BenchmarkResult> results = new LinkedHashMap<String, BenchmarkResult>();
+		try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+			String line = br.readLine(); //skip header
+			while((line = br.readLine()) != null){
+				String[] values = line.split(";");
+				if(values.length < 3)
+					continue;
+				results.put(values[0], new BenchmarkResult(values[0],
+						Double.parseDouble(values[1]), Double.parseDouble(values[2])));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * prints the relative change of the scores with respect to the baseline
+	 * results, and returns the number of regressions. A benchmark regresses
+	 * if it is slower than the baseline by more than the given tolerance
+	 * (0.1 means 10%) and the confidence intervals do not overlap.
+	 */
+	public static int compare(List<BenchmarkResult> results, Map<String, BenchmarkResult> baseline, double tolerance) {
+		int numOfRegressions = 0;
+		for(BenchmarkResult result : results){
+			BenchmarkResult base = baseline.get(result.getName());
+			if(base == null){
+				SimLogger.printLine(String.format("%-72s %12s", result.getName(), "new"));
+				continue;
+			}
+
+			double change = (result.getScore() - base.getScore()) / base.getScore();
+			boolean regression = change > tolerance &&
+					result.getScore() - getErrorOrZero(result) > base.getScore() + getErrorOrZero(base);
+			if(regression)
+				numOfRegressions++;
+
+			SimLogger.printLine(String.format("%-72s %+11.1f%%%s", result.getName(), change * 100,
+					regression ? "  REGRESSION" : ""));
+		}
+		return numOfRegressions;
+	}
+
+	private static double getErrorOrZero(BenchmarkResult result) {
+		return Double.isNaN(result.getError()) ? 0 : result.getError();
+	}
+
+	public static class BenchmarkResult {
+		private String name;
+		private double score;
+		private double error;
+
+		public BenchmarkResult(String _name, double _score, double _error) {
+			name = _name;
+			score = _score;
+			error = _error;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * returns the average execution time in nanoseconds per operation
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * returns the half width of the 99.9% confidence interval of the score
+		 */
+		public double getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-72s %12.1f +- %9.1f ns/op", name, score, error);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Title:        EdgeCloudSim - Blackhole
+ *
+ * Description:
+ * Blackhole consumes the results of the benchmarked operations so that
+ * the JIT compiler cannot remove the computation of an unused result.
+ * The consumed values are compared with volatile fields, which are never
+ * equal to them, but the compiler cannot prove it.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.benchmark;
+
+public class Blackhole {
+	private volatile int intBait1 = 1;
+	private volatile int intBait2 = 2;
+	private volatile double doubleBait1 = 1;
+	private volatile double doubleBait2 = 2;
+	private volatile Object objectBait = new Object();
+
+	public void consume(int value) {
+		if(value == intBait1 & value == intBait2)
+			throw new IllegalStateException("the blackhole is broken");
+	}
+
+	public void consume(double value) {
+		if(value == doubleBait1 & value == doubleBait2)
+			throw new IllegalStateException("the blackhole is broken");
+	}
+
+	public void consume(Object value) {
+		if(value == objectBait)
+			throw new IllegalStateException("the blackhole is broken");
+	}
+}
@@ -0,0 +1,444 @@
+/*
+ * Title:        EdgeCloudSim - Hot Path Benchmarks
+ *
+ * Description:
+ * HotPathBenchmarks measures the operations which are executed for each
+ * task in isolation:
+ * - getDeviceToOffload and getVmToOffload of the edge orchestrators
+ *   (BasicEdgeOrchestrator, sample_app2 and auction_app orchestrators)
+ * - scheduling a task graph of 50 subtasks via the HEFT scheduler of
+ *   auction_app, with a graph arriving every second
+ * - getUploadDelay and getDownloadDelay of MM1Queue and auction_app
+ *   SampleNetworkModel
+ * - getLocation and getDeviceCount of the mobility model
+ * - updateVmProcessing of the time shared cloudlet scheduler of CloudSim
+ *   and ProcessorSharingCloudletScheduler with many running cloudlets
+ * - the SimLogger calls from addLog to taskEnded
+ * - looking up (and adding on a miss) the results of the requests in
+ *   EdgeResultCache with each eviction policy, the contents of the
+ *   requests are drawn from a Zipf distribution
+ *
+ * The fixture is a regular auction_app simulation with the settings of
+ * the benchmark configuration file. The benchmarks are executed within
+ * the simulation at the end of the warm up period, so the VMs, the
+ * network model and the logger are in a realistic state, and the
+ * simulation is terminated afterwards. The inputs of the operations are
+ * selected from the generated tasks with a fixed seed.
+ *
+ * The orchestrators of sample_app3, sample_app4 and sample_app5 are not
+ * benchmarked, since they need mobile VMs or the external libraries and
+ * trained models of those applications.
+ *
+ * Usage (the arguments are optional):
+ *   HotPathBenchmarks <config file> <edge devices file> <applications file>
+ *                     [result file] [baseline result file]
+ * The results are saved to the result file in CSV format. If a baseline
+ * result file is provided, the results are compared with the baseline
+ * and the application exits with status 1 if there is a regression.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import edu.boun.edgecloudsim.applications.auction_app.HeftScheduler;
+import edu.boun.edgecloudsim.applications.auction_app.SampleNetworkModel;
+import edu.boun.edgecloudsim.applications.auction_app.SampleScenarioFactory;
+import edu.boun.edgecloudsim.applications.auction_app.TaskGraph;
+import edu.boun.edgecloudsim.benchmark.BenchmarkRunner.BenchmarkResult;
+import edu.boun.edgecloudsim.core.ScenarioFactory;
+import edu.boun.edgecloudsim.core.SimManager;
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
+import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.edge_orchestrator.BasicEdgeOrchestrator;
+import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
+import edu.boun.edgecloudsim.edge_server.EdgeResultCache;
+import edu.boun.edgecloudsim.edge_server.ProcessorSharingCloudletScheduler;
+import edu.boun.edgecloudsim.mobility.MobilityModel;
+import edu.boun.edgecloudsim.network.MM1Queue;
+import edu.boun.edgecloudsim.network.NetworkModel;
+import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
+import edu.boun.edgecloudsim.utils.RandomStreams;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+import edu.boun.edgecloudsim.utils.ZipfDistr;
+
+public class HotPathBenchmarks extends SimEntity {
+	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
+	private static final int RUN_BENCHMARKS = BASE + 1;
+
+	private static final int WARM_UP_ITERATIONS = 3;
+	private static final int MEASUREMENT_ITERATIONS = 5;
+	private static final double ITERATION_TIME = 0.5; //seconds
+
+	//a benchmark regresses if it is 10% slower than the baseline
+	private static final double REGRESSION_TOLERANCE = 0.1;
+
+	private static final long INPUT_SEED = 1;
+	private static final int NUM_OF_INPUTS = 1024;
+
+	//the tasks of the logger benchmark should not conflict with the tasks of the simulation
+	private static final int LOGGER_TASK_ID_BASE = Integer.MAX_VALUE / 2;
+
+	//number of the running cloudlets in the scheduler benchmarks
+	private static final int[] NUM_OF_RUNNING_CLOUDLETS = {10, 100, 500};
+	private static final int SCHEDULER_TASK_ID_BASE = LOGGER_TASK_ID_BASE / 2;
+
+	//size and arrival interval (seconds) of the task graphs in the HEFT benchmark
+	private static final int NUM_OF_GRAPH_SUBTASKS = 50;
+	private static final int NUM_OF_GRAPHS = 64;
+	private static final double GRAPH_INTERVAL = 1;
+
+	//capacity of the edge result caches and the popularity of the contents of the requests
+	private static final int CACHE_CAPACITY = 1000;
+	private static final int NUM_OF_CONTENTS = 100000;
+	private static final double ZIPF_EXPONENT = 0.8;
+	private static final int NUM_OF_CACHE_REQUESTS = 65536; //power of two
+
+	private static final String[] BASIC_POLICIES = {"RANDOM_FIT", "WORST_FIT", "BEST_FIT", "FIRST_FIT", "NEXT_FIT"};
+	private static final String[] SAMPLE_APP2_POLICIES = {"NETWORK_BASED", "UTILIZATION_BASED", "HYBRID"};
+	private static final String[] AUCTION_APP_POLICIES = {"NETWORK_BASED", "UTILIZATION_BASED", "HYBRID", "AUCTION"};
+
+	private Map<String, EdgeOrchestrator> orchestrators;
+	private List<BenchmarkResult> results;
+
+	private Task[] tasks;
+	private int[] servingWlanIds;
+	private double[] times;
+
+	public HotPathBenchmarks() {
+		super("HotPathBenchmarks");
+
+		//orchestrators are simulation entities, so they are created before the simulation is started
+		orchestrators = new LinkedHashMap<String, EdgeOrchestrator>();
+		for(String policy : BASIC_POLICIES)
+			orchestrators.put("BasicEdgeOrchestrator[TWO_TIER," + policy + "]",
+					new BasicEdgeOrchestrator(policy, "TWO_TIER"));
+		for(String policy : BASIC_POLICIES)
+			orchestrators.put("BasicEdgeOrchestrator[TWO_TIER_WITH_EO," + policy + "]",
+					new BasicEdgeOrchestrator(policy, "TWO_TIER_WITH_EO"));
+		for(String policy : SAMPLE_APP2_POLICIES)
+			orchestrators.put("sample_app2.SampleEdgeOrchestrator[" + policy + "]",
+					new edu.boun.edgecloudsim.applications.sample_app2.SampleEdgeOrchestrator(policy, "TWO_TIER_WITH_EO"));
+		for(String policy : AUCTION_APP_POLICIES)
+			orchestrators.put("auction_app.SampleEdgeOrchestrator[" + policy + "]",
+					new edu.boun.edgecloudsim.applications.auction_app.SampleEdgeOrchestrator(policy, "TWO_TIER_WITH_EO"));
+	}
+
+	public static void main(String[] args) {
+		//disable console output of cloudsim library
+		Log.disable();
+
+		//enable console output of this application, file output is not used
+		SimLogger.enablePrintLog();
+
+		String configFile = "scripts/benchmark/config/benchmark_config.properties";
+		String edgeDevicesFile = "scripts/auction_app/config/edge_devices.xml";
+		String applicationsFile = "scripts/auction_app/config/applications.xml";
+		String resultFile = null;
+		String baselineFile = null;
+		if (args.length >= 3 && args.length <= 5){
+			configFile = args[0];
+			edgeDevicesFile = args[1];
+			applicationsFile = args[2];
+			if(args.length >= 4)
+				resultFile = args[3];
+			if(args.length == 5)
+				baselineFile = args[4];
+		}
+		else{
+			SimLogger.printLine("Benchmark setting files are not provided! Using default ones...");
+		}
+
+		//load settings from configuration file
+		SimSettings SS = SimSettings.getInstance();
+		if(SS.initialize(configFile, edgeDevicesFile, applicationsFile) == false){
+			SimLogger.printLine("cannot initialize simulation settings!");
+			System.exit(0);
+		}
+
+		int numOfMobileDevices = SS.getMinNumOfMobileDev();
+		String simScenario = SS.getSimulationScenarios()[0];
+		String orchestratorPolicy = SS.getOrchestratorPolicies()[0];
+		SimLogger.printLine("Fixture: " + simScenario + " - " + orchestratorPolicy + " - #devices: " + numOfMobileDevices);
+		SimLogger.getInstance().simStarted("", "BENCHMARK");
+
+		HotPathBenchmarks benchmarks = null;
+		try
+		{
+			CloudSim.init(2, Calendar.getInstance(), false, 0.01);
+
+			ScenarioFactory sampleFactory = new SampleScenarioFactory(numOfMobileDevices, SS.getSimulationTime(), orchestratorPolicy, simScenario);
+			SimManager manager = new SimManager(sampleFactory, numOfMobileDevices, simScenario, orchestratorPolicy);
+			benchmarks = new HotPathBenchmarks();
+
+			manager.startSimulation();
+		}
+		catch (Exception e)
+		{
+			SimLogger.printLine("The benchmark has been terminated due to an unexpected error");
+			e.printStackTrace();
+			System.exit(0);
+		}
+
+		if(benchmarks.results == null){
+			SimLogger.printLine("The simulation is finished before the benchmarks are executed!");
+			System.exit(1);
+		}
+
+		int numOfRegressions = 0;
+		try {
+			if(resultFile != null)
+				BenchmarkRunner.writeResults(new File(resultFile), benchmarks.results);
+
+			if(baselineFile != null){
+				SimLogger.printLine("----------------------------------------------------------------------");
+				SimLogger.printLine("Comparison with " + baselineFile);
+				numOfRegressions = BenchmarkRunner.compare(benchmarks.results,
+						BenchmarkRunner.readResults(new File(baselineFile)), REGRESSION_TOLERANCE);
+				SimLogger.printLine("# of regressions: " + numOfRegressions);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(numOfRegressions > 0 ? 1 : 0);
+	}
+
+	@Override
+	public void startEntity() {
+		schedule(getId(), SimSettings.getInstance().getWarmUpPeriod(), RUN_BENCHMARKS);
+	}
+
+	@Override
+	public void processEvent(SimEvent ev) {
+		switch (ev.getTag()) {
+		case RUN_BENCHMARKS:
+			SimLogger.printLine("Running benchmarks at " + CloudSim.clock() + " sec...");
+			createInputs();
+			BenchmarkRunner runner = new BenchmarkRunner(WARM_UP_ITERATIONS, MEASUREMENT_ITERATIONS, ITERATION_TIME);
+			addOrchestratorBenchmarks(runner);
+			addHeftSchedulerBenchmarks(runner);
+			addNetworkModelBenchmarks(runner);
+			addMobilityModelBenchmarks(runner);
+			addCloudletSchedulerBenchmarks(runner);
+			addLoggerBenchmarks(runner);
+			addEdgeCacheBenchmarks(runner);
+			results = runner.run();
+			CloudSim.terminateSimulation();
+			break;
+		default:
+			SimLogger.printLine(getName() + ": unknown event type");
+			break;
+		}
+	}
+
+	@Override
+	public void shutdownEntity() {
+		// Nothing to do!
+	}
+
+	private void createInputs() {
+		Random random = new Random(INPUT_SEED);
+		LoadGeneratorModel loadGeneratorModel = SimManager.getInstance().getLoadGeneratorModel();
+		MobilityModel mobilityModel = SimManager.getInstance().getMobilityModel();
+		double simulationTime = SimSettings.getInstance().getSimulationTime();
+
+		tasks = new Task[NUM_OF_INPUTS];
+		servingWlanIds = new int[NUM_OF_INPUTS];
+		times = new double[NUM_OF_INPUTS];
+		for(int i=0; i<NUM_OF_INPUTS; i++){
+			TaskProperty taskProperty = loadGeneratorModel.getTaskProperty(random.nextInt(loadGeneratorModel.getTaskTrace().size()));
+			CpuUtilizationModel_Custom utilizationModelCPU = new CpuUtilizationModel_Custom();
+			tasks[i] = new Task(taskProperty.getMobileDeviceId(), LOGGER_TASK_ID_BASE - i - 1,
+					taskProperty.getLength(), taskProperty.getPesNumber(),
+					taskProperty.getInputFileSize(), taskProperty.getOutputFileSize(),
+					utilizationModelCPU, new UtilizationModelFull(), new UtilizationModelFull());
+			tasks[i].setTaskType(taskProperty.getTaskType());
+			utilizationModelCPU.setTask(tasks[i]);
+
+			servingWlanIds[i] = mobilityModel.getLocation(taskProperty.getMobileDeviceId(), CloudSim.clock()).getServingWlanId();
+			times[i] = SimSettings.CLIENT_ACTIVITY_START_TIME +
+					random.nextDouble() * (simulationTime - SimSettings.CLIENT_ACTIVITY_START_TIME);
+		}
+	}
+
+	private void addOrchestratorBenchmarks(BenchmarkRunner runner) {
+		for(Map.Entry<String, EdgeOrchestrator> entry : orchestrators.entrySet()){
+			EdgeOrchestrator orchestrator = entry.getValue();
+			orchestrator.initialize();
+
+			runner.add(entry.getKey() + ".getDeviceToOffload", (i, blackhole) ->
+				blackhole.consume(orchestrator.getDeviceToOffload(tasks[i % NUM_OF_INPUTS])));
+			runner.add(entry.getKey() + ".getVmToOffload", (i, blackhole) ->
+				blackhole.consume(orchestrator.getVmToOffload(tasks[i % NUM_OF_INPUTS], SimSettings.GENERIC_EDGE_DEVICE_ID)));
+		}
+	}
+
+	/*
+	 * the graphs are scheduled at increasing times, so the slots of the
+	 * previous graphs are released as in the simulation
+	 */
+	private void addHeftSchedulerBenchmarks(BenchmarkRunner runner) {
+		List<Vm> vmList = new ArrayList<Vm>();
+		for(int hostIndex=0; hostIndex<SimSettings.getInstance().getNumOfEdgeHosts(); hostIndex++)
+			vmList.addAll(SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex));
+		List<Host> hostList = SimManager.getInstance().getCloudServerManager().getDatacenter().getHostList();
+		for(int hostIndex=0; hostIndex<hostList.size(); hostIndex++)
+			vmList.addAll(SimManager.getInstance().getCloudServerManager().getVmList(hostIndex));
+		HeftScheduler scheduler = new HeftScheduler(vmList, SimSettings.getInstance().getNumOfEdgeDatacenters());
+
+		TaskGraph[] graphs = new TaskGraph[NUM_OF_GRAPHS];
+		for(int i=0; i<NUM_OF_GRAPHS; i++){
+			Task task = tasks[i];
+			graphs[i] = new TaskGraph(CloudSim.clock(), task.getMobileDeviceId(), task.getTaskType(), task.getNumberOfPes(),
+					task.getCloudletLength(), task.getCloudletFileSize(), task.getCloudletOutputSize(),
+					NUM_OF_GRAPH_SUBTASKS, SimSettings.getInstance().getSubtaskDependencyProbability(),
+					SimSettings.getInstance().getEdgeTopology().getAvgVmMips(), SampleNetworkModel.MAN_BW,
+					RandomStreams.getInstance().getStream("benchmark_task_graph", i));
+		}
+
+		double[] time = {CloudSim.clock()};
+		runner.add("auction_app.HeftScheduler.schedule[" + NUM_OF_GRAPH_SUBTASKS + "]", (i, blackhole) -> {
+			time[0] += GRAPH_INTERVAL;
+			blackhole.consume(scheduler.schedule(graphs[i % NUM_OF_GRAPHS], servingWlanIds[i % NUM_OF_INPUTS], time[0]));
+		});
+	}
+
+	private void addNetworkModelBenchmarks(BenchmarkRunner runner) {
+		NetworkModel mm1Queue = new MM1Queue(SimManager.getInstance().getNumOfMobileDevice(), "TWO_TIER_WITH_EO");
+		mm1Queue.initialize();
+		addNetworkModelBenchmarks(runner, "MM1Queue", mm1Queue);
+
+		//the network model of the fixture keeps the state of the ongoing transfers
+		addNetworkModelBenchmarks(runner, "auction_app.SampleNetworkModel", SimManager.getInstance().getNetworkModel());
+	}
+
+	private void addNetworkModelBenchmarks(BenchmarkRunner runner, String name, NetworkModel networkModel) {
+		runner.add(name + ".getUploadDelay[WLAN]", (i, blackhole) -> {
+			Task task = tasks[i % NUM_OF_INPUTS];
+			blackhole.consume(networkModel.getUploadDelay(task.getMobileDeviceId(), SimSettings.GENERIC_EDGE_DEVICE_ID, task));
+		});
+		runner.add(name + ".getUploadDelay[WAN]", (i, blackhole) -> {
+			Task task = tasks[i % NUM_OF_INPUTS];
+			blackhole.consume(networkModel.getUploadDelay(task.getMobileDeviceId(), SimSettings.CLOUD_DATACENTER_ID, task));
+		});
+		runner.add(name + ".getDownloadDelay[WLAN]", (i, blackhole) -> {
+			Task task = tasks[i % NUM_OF_INPUTS];
+			blackhole.consume(networkModel.getDownloadDelay(servingWlanIds[i % NUM_OF_INPUTS], task.getMobileDeviceId(), task));
+		});
+		runner.add(name + ".getDownloadDelay[WAN]", (i, blackhole) -> {
+			Task task = tasks[i % NUM_OF_INPUTS];
+			blackhole.consume(networkModel.getDownloadDelay(SimSettings.CLOUD_DATACENTER_ID, task.getMobileDeviceId(), task));
+		});
+	}
+
+	private void addMobilityModelBenchmarks(BenchmarkRunner runner) {
+		MobilityModel mobilityModel = SimManager.getInstance().getMobilityModel();
+		String name = mobilityModel.getClass().getSimpleName();
+
+		runner.add(name + ".getLocation", (i, blackhole) ->
+			blackhole.consume(mobilityModel.getLocation(tasks[i % NUM_OF_INPUTS].getMobileDeviceId(), times[i % NUM_OF_INPUTS])));
+		runner.add(name + ".getDeviceCount", (i, blackhole) ->
+			blackhole.consume(mobilityModel.getDeviceCount(servingWlanIds[i % NUM_OF_INPUTS], times[i % NUM_OF_INPUTS])));
+	}
+
+	private void addCloudletSchedulerBenchmarks(BenchmarkRunner runner) {
+		for(int numOfCloudlets : NUM_OF_RUNNING_CLOUDLETS){
+			addCloudletSchedulerBenchmark(runner, "CloudletSchedulerTimeShared", new CloudletSchedulerTimeShared(), numOfCloudlets);
+			addCloudletSchedulerBenchmark(runner, "ProcessorSharingCloudletScheduler", new ProcessorSharingCloudletScheduler(), numOfCloudlets);
+		}
+	}
+
+	/*
+	 * the cloudlets are long enough not to finish during the benchmark,
+	 * so each update processes the same number of running cloudlets
+	 */
+	private void addCloudletSchedulerBenchmark(BenchmarkRunner runner, String name, CloudletScheduler scheduler, int numOfCloudlets) {
+		List<Double> mipsShare = new ArrayList<Double>();
+		mipsShare.add(10000.0);
+		mipsShare.add(10000.0);
+		double[] time = {CloudSim.clock()};
+		scheduler.updateVmProcessing(time[0], mipsShare);
+
+		for(int i=0; i<numOfCloudlets; i++){
+			Task task = tasks[i % NUM_OF_INPUTS];
+			Cloudlet cloudlet = new Cloudlet(SCHEDULER_TASK_ID_BASE + i, Long.MAX_VALUE / 1000000000L, 1,
+					task.getCloudletFileSize(), task.getCloudletOutputSize(),
+					task.getUtilizationModelCpu(), new UtilizationModelFull(), new UtilizationModelFull());
+			cloudlet.setResourceParameter(0, 0, 0);
+			scheduler.cloudletSubmit(cloudlet);
+		}
+
+		runner.add(name + ".updateVmProcessing[" + numOfCloudlets + "]", (i, blackhole) -> {
+			time[0] += 0.001;
+			blackhole.consume(scheduler.updateVmProcessing(time[0], mipsShare));
+			blackhole.consume(scheduler.getTotalUtilizationOfCpu(time[0]));
+		});
+	}
+
+	private void addLoggerBenchmarks(BenchmarkRunner runner) {
+		SimLogger logger = SimLogger.getInstance();
+		double time = CloudSim.clock();
+
+		runner.add("SimLogger.addLog-taskEnded", (i, blackhole) -> {
+			Task task = tasks[i % NUM_OF_INPUTS];
+			int taskId = LOGGER_TASK_ID_BASE + i;
+			logger.addLog(task.getMobileDeviceId(), taskId, task.getTaskType(),
+					(int)task.getCloudletLength(), (int)task.getCloudletFileSize(), (int)task.getCloudletOutputSize());
+			logger.taskStarted(taskId, time);
+			logger.setUploadDelay(taskId, 0.1, NETWORK_DELAY_TYPES.WLAN_DELAY);
+			logger.taskAssigned(taskId, servingWlanIds[i % NUM_OF_INPUTS], 0, 0, SimSettings.VM_TYPES.EDGE_VM.ordinal());
+			logger.setDownloadDelay(taskId, 0.1, NETWORK_DELAY_TYPES.WLAN_DELAY);
+			logger.taskExecuted(taskId);
+			logger.taskEnded(taskId, time + 1);
+		});
+	}
+
+	/*
+	 * the result of each request is added to the cache if it is missed,
+	 * as in auction_app
+	 */
+	private void addEdgeCacheBenchmarks(BenchmarkRunner runner) {
+		ZipfDistr contentDistribution = new ZipfDistr(NUM_OF_CONTENTS, ZIPF_EXPONENT,
+				RandomStreams.getInstance().getStream("benchmark_edge_cache"));
+		long[] keys = new long[NUM_OF_CACHE_REQUESTS];
+		for(int i=0; i<NUM_OF_CACHE_REQUESTS; i++)
+			keys[i] = contentDistribution.sample();
+
+		for(EdgeResultCache.EVICTION_POLICIES policy : EdgeResultCache.EVICTION_POLICIES.values()){
+			EdgeResultCache cache = new EdgeResultCache(policy, CACHE_CAPACITY);
+			runner.add("EdgeResultCache.lookup-add[" + policy + "]", (i, blackhole) -> {
+				long key = keys[i & (NUM_OF_CACHE_REQUESTS - 1)];
+				boolean hit = cache.lookup(key);
+				if(!hit)
+					cache.add(key);
+				blackhole.consume(hit ? 1 : 0);
+			});
+		}
+	}
+}
@@ -14,7 +14,6 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Host;
@@ -29,6 +28,7 @@ import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.edge_server.ProcessorSharingCloudletScheduler;
 
 public class DefaultCloudServerManager extends CloudServerManager{
 
@@ -69,7 +69,7 @@ public class DefaultCloudServerManager extends CloudServerManager{
 				long bandwidth = 0;
 				
 				//VM Parameters		
-				CloudVM vm = new CloudVM(vmCounter, brokerId, mips, numOfCores, ram, bandwidth, storage, vmm, new CloudletSchedulerTimeShared());
+				CloudVM vm = new CloudVM(vmCounter, brokerId, mips, numOfCores, ram, bandwidth, storage, vmm, new ProcessorSharingCloudletScheduler());
 				vmList.get(i).add(vm);
 				vmCounter++;
 			}
@@ -0,0 +1,69 @@
+/*
+ * Title:        EdgeCloudSim - Counting Future Queue
+ *
+ * Description:
+ * CountingFutureQueue is the future event queue of CloudSim which counts
+ * the scheduled events in the "events" counter of the MetricsRegistry,
+ * so the event rate of a running simulation can be watched via JMX.
+ * CloudSim does not count the processed events, but each scheduled
+ * event is processed unless the simulation ends before it.
+ *
+ * The queue is installed by the SimManager; the counter itself is not
+ * kept in the queue, since the queue is a part of the simulation state
+ * which is copied by the snapshots.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import edu.boun.edgecloudsim.utils.MetricsRegistry;
+
+public class CountingFutureQueue extends FutureQueue {
+	public static final String EVENT_COUNTER = "events";
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		MetricsRegistry.getInstance().getCounter(EVENT_COUNTER).increment();
+		super.addEvent(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		MetricsRegistry.getInstance().getCounter(EVENT_COUNTER).increment();
+		super.addEventFirst(newEvent);
+	}
+
+	/**
+	 * replaces the future queue of CloudSim with a counting one, the
+	 * events which are already scheduled are moved in the same order
+	 */
+	static void install() throws ReflectiveOperationException {
+		Field field = CloudSim.class.getDeclaredField("future");
+		field.setAccessible(true);
+		FutureQueue future = (FutureQueue)field.get(null);
+		if(future instanceof CountingFutureQueue)
+			return;
+
+		List<SimEvent> events = new ArrayList<SimEvent>();
+		if(future != null) {
+			for(Iterator<SimEvent> it = future.iterator(); it.hasNext();)
+				events.add(it.next());
+		}
+
+		FutureQueue queue = new CountingFutureQueue();
+		for(SimEvent event : events)
+			queue.addEvent(event);
+		field.set(null, queue);
+	}
+}
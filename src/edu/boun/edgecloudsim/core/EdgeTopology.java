@@ -0,0 +1,440 @@
+/*
+ * Title:        EdgeCloudSim - Edge Topology
+ *
+ * Description:
+ * EdgeTopology is the typed and immutable form of edge_devices.xml. It is
+ * created once by SimSettings, so the edge server managers, VM allocation
+ * policies and mobility models read the datacenters, hosts and VMs from
+ * plain objects instead of walking the XML document again.
+ *
+ * The topology can be written to and read from a binary cache file. The
+ * cache file starts with the SHA-256 hash of the XML file, therefore an
+ * outdated cache is detected and recreated automatically.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import edu.boun.edgecloudsim.utils.Location;
+
+public class EdgeTopology {
+	private static final int CACHE_MAGIC = 0x45544f50; //"ETOP"
+	private static final int CACHE_VERSION = 1;
+
+	private final List<EdgeDatacenterInfo> datacenters;
+	private final int numOfHosts;
+	private final int numOfVms;
+	private final int numOfPlaceTypes;
+	private final int[] hostOffsets; //index of the first host of each datacenter
+	private final int[] datacenterIndexOfVm;
+	private final int[] hostIndexOfVm; //host index in the datacenter
+
+	public EdgeTopology(List<EdgeDatacenterInfo> _datacenters) {
+		datacenters = Collections.unmodifiableList(new ArrayList<EdgeDatacenterInfo>(_datacenters));
+
+		int hostCounter = 0;
+		int vmCounter = 0;
+		int placeTypes = 0;
+		hostOffsets = new int[datacenters.size() + 1];
+		for(int i=0; i<datacenters.size(); i++){
+			hostOffsets[i] = hostCounter;
+			EdgeDatacenterInfo datacenter = datacenters.get(i);
+			placeTypes = Math.max(placeTypes, datacenter.getLocation().getPlaceTypeIndex() + 1);
+			hostCounter += datacenter.getHostList().size();
+			for(EdgeHostInfo host : datacenter.getHostList())
+				vmCounter += host.getVmList().size();
+		}
+		hostOffsets[datacenters.size()] = hostCounter;
+		numOfHosts = hostCounter;
+		numOfVms = vmCounter;
+		numOfPlaceTypes = placeTypes;
+
+		datacenterIndexOfVm = new int[numOfVms];
+		hostIndexOfVm = new int[numOfVms];
+		int vmId = 0;
+		for(int i=0; i<datacenters.size(); i++){
+			List<EdgeHostInfo> hostList = datacenters.get(i).getHostList();
+			for(int j=0; j<hostList.size(); j++){
+				for(int k=0; k<hostList.get(j).getVmList().size(); k++){
+					datacenterIndexOfVm[vmId] = i;
+					hostIndexOfVm[vmId] = j;
+					vmId++;
+				}
+			}
+		}
+	}
+
+	public List<EdgeDatacenterInfo> getDatacenterList() {
+		return datacenters;
+	}
+
+	public EdgeDatacenterInfo getDatacenter(int datacenterIndex) {
+		return datacenters.get(datacenterIndex);
+	}
+
+	public int getNumOfDatacenters() {
+		return datacenters.size();
+	}
+
+	public int getNumOfHosts() {
+		return numOfHosts;
+	}
+
+	public int getNumOfVms() {
+		return numOfVms;
+	}
+
+	public int getNumOfPlaceTypes() {
+		return numOfPlaceTypes;
+	}
+
+	/**
+	 * returns the location of the datacenter, the same object is
+	 * returned for each call
+	 */
+	public Location getLocation(int datacenterIndex) {
+		return datacenters.get(datacenterIndex).getLocation();
+	}
+
+	/**
+	 * returns the global index of the first host of the datacenter,
+	 * the hosts are numbered in the order of edge_devices.xml
+	 */
+	public int getHostOffset(int datacenterIndex) {
+		return hostOffsets[datacenterIndex];
+	}
+
+	/**
+	 * returns the host offsets of all datacenters, the last item
+	 * is the number of hosts
+	 */
+	public int[] getHostOffsets() {
+		return Arrays.copyOf(hostOffsets, hostOffsets.length);
+	}
+
+	/**
+	 * returns the datacenter index of the VM with the given id,
+	 * the VMs are numbered in the order of edge_devices.xml
+	 */
+	public int getDatacenterIndexOfVm(int vmId) {
+		return datacenterIndexOfVm[vmId];
+	}
+
+	/**
+	 * returns the index of the host of the VM in its datacenter
+	 */
+	public int getHostIndexOfVm(int vmId) {
+		return hostIndexOfVm[vmId];
+	}
+
+	/**
+	 * returns the average MIPS of the edge VMs
+	 */
+	public double getAvgVmMips() {
+		double totalMips = 0;
+		for(EdgeDatacenterInfo datacenter : datacenters)
+			for(EdgeHostInfo host : datacenter.getHostList())
+				for(EdgeVmInfo vm : host.getVmList())
+					totalMips += vm.getMips();
+		return (numOfVms == 0) ? 0 : totalMips / numOfVms;
+	}
+
+	/**
+	 * creates the topology from a validated edge_devices.xml document
+	 */
+	public static EdgeTopology fromDocument(Document doc) {
+		List<EdgeDatacenterInfo> datacenters = new ArrayList<EdgeDatacenterInfo>();
+
+		NodeList datacenterList = doc.getElementsByTagName("datacenter");
+		for (int i = 0; i < datacenterList.getLength(); i++) {
+			Element datacenterElement = (Element) datacenterList.item(i);
+			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
+
+			List<EdgeHostInfo> hosts = new ArrayList<EdgeHostInfo>();
+			NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
+			for (int j = 0; j < hostNodeList.getLength(); j++) {
+				Element hostElement = (Element) hostNodeList.item(j);
+
+				List<EdgeVmInfo> vms = new ArrayList<EdgeVmInfo>();
+				NodeList vmNodeList = hostElement.getElementsByTagName("VM");
+				for (int k = 0; k < vmNodeList.getLength(); k++) {
+					Element vmElement = (Element) vmNodeList.item(k);
+					vms.add(new EdgeVmInfo(
+							vmElement.getAttribute("vmm"),
+							Integer.parseInt(getText(vmElement, "core")),
+							Double.parseDouble(getText(vmElement, "mips")),
+							Integer.parseInt(getText(vmElement, "ram")),
+							Long.parseLong(getText(vmElement, "storage"))));
+				}
+
+				hosts.add(new EdgeHostInfo(
+						Integer.parseInt(getText(hostElement, "core")),
+						Double.parseDouble(getText(hostElement, "mips")),
+						Integer.parseInt(getText(hostElement, "ram")),
+						Long.parseLong(getText(hostElement, "storage")),
+						vms));
+			}
+
+			datacenters.add(new EdgeDatacenterInfo(
+					datacenterElement.getAttribute("arch"),
+					datacenterElement.getAttribute("os"),
+					datacenterElement.getAttribute("vmm"),
+					Double.parseDouble(getText(datacenterElement, "costPerBw")),
+					Double.parseDouble(getText(datacenterElement, "costPerSec")),
+					Double.parseDouble(getText(datacenterElement, "costPerMem")),
+					Double.parseDouble(getText(datacenterElement, "costPerStorage")),
+					new Location(
+							Integer.parseInt(getText(location, "attractiveness")),
+							Integer.parseInt(getText(location, "wlan_id")),
+							Integer.parseInt(getText(location, "x_pos")),
+							Integer.parseInt(getText(location, "y_pos"))),
+					hosts));
+		}
+
+		return new EdgeTopology(datacenters);
+	}
+
+	/**
+	 * writes the topology and the hash of the XML file it is created from
+	 */
+	public void write(DataOutputStream out, byte[] sourceHash) throws IOException {
+		out.writeInt(CACHE_MAGIC);
+		out.writeInt(CACHE_VERSION);
+		out.writeInt(sourceHash.length);
+		out.write(sourceHash);
+
+		out.writeInt(datacenters.size());
+		for(EdgeDatacenterInfo datacenter : datacenters){
+			out.writeUTF(datacenter.getArch());
+			out.writeUTF(datacenter.getOs());
+			out.writeUTF(datacenter.getVmm());
+			out.writeDouble(datacenter.getCostPerBw());
+			out.writeDouble(datacenter.getCostPerSec());
+			out.writeDouble(datacenter.getCostPerMem());
+			out.writeDouble(datacenter.getCostPerStorage());
+			Location location = datacenter.getLocation();
+			out.writeInt(location.getPlaceTypeIndex());
+			out.writeInt(location.getServingWlanId());
+			out.writeInt(location.getXPos());
+			out.writeInt(location.getYPos());
+
+			out.writeInt(datacenter.getHostList().size());
+			for(EdgeHostInfo host : datacenter.getHostList()){
+				out.writeInt(host.getNumOfCores());
+				out.writeDouble(host.getMips());
+				out.writeInt(host.getRam());
+				out.writeLong(host.getStorage());
+
+				out.writeInt(host.getVmList().size());
+				for(EdgeVmInfo vm : host.getVmList()){
+					out.writeUTF(vm.getVmm());
+					out.writeInt(vm.getNumOfCores());
+					out.writeDouble(vm.getMips());
+					out.writeInt(vm.getRam());
+					out.writeLong(vm.getStorage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * reads a topology written by write(); returns null if the stream
+	 * is not a topology cache or it is created from another XML file
+	 */
+	public static EdgeTopology read(DataInputStream in, byte[] sourceHash) throws IOException {
+		if(in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION)
+			return null;
+		byte[] hash = new byte[in.readInt()];
+		in.readFully(hash);
+		if(!Arrays.equals(hash, sourceHash))
+			return null;
+
+		int numOfDatacenters = in.readInt();
+		List<EdgeDatacenterInfo> datacenters = new ArrayList<EdgeDatacenterInfo>(numOfDatacenters);
+		for(int i=0; i<numOfDatacenters; i++){
+			String arch = in.readUTF();
+			String os = in.readUTF();
+			String vmm = in.readUTF();
+			double costPerBw = in.readDouble();
+			double costPerSec = in.readDouble();
+			double costPerMem = in.readDouble();
+			double costPerStorage = in.readDouble();
+			int placeTypeIndex = in.readInt();
+			int wlanId = in.readInt();
+			int xPos = in.readInt();
+			int yPos = in.readInt();
+
+			int numOfHosts = in.readInt();
+			List<EdgeHostInfo> hosts = new ArrayList<EdgeHostInfo>(numOfHosts);
+			for(int j=0; j<numOfHosts; j++){
+				int hostCores = in.readInt();
+				double hostMips = in.readDouble();
+				int hostRam = in.readInt();
+				long hostStorage = in.readLong();
+
+				int numOfVms = in.readInt();
+				List<EdgeVmInfo> vms = new ArrayList<EdgeVmInfo>(numOfVms);
+				for(int k=0; k<numOfVms; k++)
+					vms.add(new EdgeVmInfo(in.readUTF(), in.readInt(), in.readDouble(), in.readInt(), in.readLong()));
+
+				hosts.add(new EdgeHostInfo(hostCores, hostMips, hostRam, hostStorage, vms));
+			}
+
+			datacenters.add(new EdgeDatacenterInfo(arch, os, vmm, costPerBw, costPerSec, costPerMem, costPerStorage,
+					new Location(placeTypeIndex, wlanId, xPos, yPos), hosts));
+		}
+
+		return new EdgeTopology(datacenters);
+	}
+
+	private static String getText(Element element, String key) {
+		return element.getElementsByTagName(key).item(0).getTextContent();
+	}
+
+	public static class EdgeDatacenterInfo {
+		private final String arch;
+		private final String os;
+		private final String vmm;
+		private final double costPerBw;
+		private final double costPerSec;
+		private final double costPerMem;
+		private final double costPerStorage;
+		private final Location location;
+		private final List<EdgeHostInfo> hosts;
+
+		public EdgeDatacenterInfo(String _arch, String _os, String _vmm, double _costPerBw, double _costPerSec,
+				double _costPerMem, double _costPerStorage, Location _location, List<EdgeHostInfo> _hosts) {
+			arch = _arch;
+			os = _os;
+			vmm = _vmm;
+			costPerBw = _costPerBw;
+			costPerSec = _costPerSec;
+			costPerMem = _costPerMem;
+			costPerStorage = _costPerStorage;
+			location = _location;
+			hosts = Collections.unmodifiableList(new ArrayList<EdgeHostInfo>(_hosts));
+		}
+
+		public String getArch() {
+			return arch;
+		}
+
+		public String getOs() {
+			return os;
+		}
+
+		public String getVmm() {
+			return vmm;
+		}
+
+		public double getCostPerBw() {
+			return costPerBw;
+		}
+
+		public double getCostPerSec() {
+			return costPerSec;
+		}
+
+		public double getCostPerMem() {
+			return costPerMem;
+		}
+
+		public double getCostPerStorage() {
+			return costPerStorage;
+		}
+
+		public Location getLocation() {
+			return location;
+		}
+
+		public List<EdgeHostInfo> getHostList() {
+			return hosts;
+		}
+	}
+
+	public static class EdgeHostInfo {
+		private final int numOfCores;
+		private final double mips;
+		private final int ram; //MB
+		private final long storage; //MB
+		private final List<EdgeVmInfo> vms;
+
+		public EdgeHostInfo(int _numOfCores, double _mips, int _ram, long _storage, List<EdgeVmInfo> _vms) {
+			numOfCores = _numOfCores;
+			mips = _mips;
+			ram = _ram;
+			storage = _storage;
+			vms = Collections.unmodifiableList(new ArrayList<EdgeVmInfo>(_vms));
+		}
+
+		public int getNumOfCores() {
+			return numOfCores;
+		}
+
+		public double getMips() {
+			return mips;
+		}
+
+		public int getRam() {
+			return ram;
+		}
+
+		public long getStorage() {
+			return storage;
+		}
+
+		public List<EdgeVmInfo> getVmList() {
+			return vms;
+		}
+	}
+
+	public static class EdgeVmInfo {
+		private final String vmm;
+		private final int numOfCores;
+		private final double mips;
+		private final int ram; //MB
+		private final long storage; //MB
+
+		public EdgeVmInfo(String _vmm, int _numOfCores, double _mips, int _ram, long _storage) {
+			vmm = _vmm;
+			numOfCores = _numOfCores;
+			mips = _mips;
+			ram = _ram;
+			storage = _storage;
+		}
+
+		public String getVmm() {
+			return vmm;
+		}
+
+		public int getNumOfCores() {
+			return numOfCores;
+		}
+
+		public double getMips() {
+			return mips;
+		}
+
+		public int getRam() {
+			return ram;
+		}
+
+		public long getStorage() {
+			return storage;
+		}
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * Title:        EdgeCloudSim - Parameter Search
+ *
+ * Description:
+ * ParameterSearch explores the numeric parameters of the properties file
+ * (e.g. the thresholds of the orchestrator policies) by successive
+ * halving. The parameters are given as name:min:max in search_parameters;
+ * the values are rounded to integers if both limits are integers.
+ *
+ * The first round samples search_number_of_candidates configurations via
+ * Latin hypercube sampling, so each parameter covers its range evenly.
+ * In each round all candidates are simulated in parallel by
+ * SimulationExecutor, and only the best 1/search_reduction_factor of
+ * them are kept for the next round. The measured period (simulation time
+ * after the warm up period) of the rounds grows by the same factor, so
+ * the poor configurations are pruned by short simulations and only the
+ * last round is simulated for the whole simulation time.
+ *
+ * A candidate is evaluated on all device count, scenario and policy
+ * combinations in the properties file, and its score is the average of
+ * the search_objective over them:
+ * -> THROUGHPUT is the number of completed tasks per second
+ * -> SERVICE_TIME is the average service time of the completed tasks
+ * All candidates use the same random seed, so they are compared under
+ * the same workload and mobility.
+ *
+ * The entry class provides evaluateSimulationCell (see SimulationExecutor)
+ * which returns the results of a cell in the order of the indexes below.
+ * The scores of all rounds are saved to PARAMETER_SEARCH.log in the
+ * output folder.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class ParameterSearch {
+	public static enum SEARCH_OBJECTIVES { THROUGHPUT, SERVICE_TIME }
+
+	//indexes of the results returned by evaluateSimulationCell
+	public static final int COMPLETED_TASKS = 0;
+	public static final int FAILED_TASKS = 1;
+	public static final int AVG_SERVICE_TIME = 2;
+
+	private SimulationExecutor executor;
+	private SEARCH_OBJECTIVES objective;
+	private int numOfCandidates;
+	private int reductionFactor;
+
+	private String[] names;
+	private double[] minValues;
+	private double[] maxValues;
+	private boolean[] integerValues;
+
+	public ParameterSearch(Class<?> _entryClass, int _parallelism) {
+		executor = new SimulationExecutor(_entryClass, _parallelism);
+
+		SimSettings SS = SimSettings.getInstance();
+		objective = SEARCH_OBJECTIVES.valueOf(SS.getSearchObjective());
+		numOfCandidates = SS.getSearchNumOfCandidates();
+		reductionFactor = SS.getSearchReductionFactor();
+		if(numOfCandidates < 1 || reductionFactor < 2){
+			SimLogger.printLine("Invalid number of candidates or reduction factor for the parameter search! Terminating simulation...");
+			System.exit(1);
+		}
+
+		String[] parameters = SS.getSearchParameters();
+		names = new String[parameters.length];
+		minValues = new double[parameters.length];
+		maxValues = new double[parameters.length];
+		integerValues = new boolean[parameters.length];
+		for(int i=0; i<parameters.length; i++){
+			String[] fields = parameters[i].trim().split(":");
+			boolean isValid = (fields.length == 3);
+			if(isValid){
+				try {
+					names[i] = fields[0];
+					minValues[i] = Double.parseDouble(fields[1]);
+					maxValues[i] = Double.parseDouble(fields[2]);
+					integerValues[i] = !fields[1].contains(".") && !fields[2].contains(".");
+					isValid = (minValues[i] <= maxValues[i]);
+				} catch (NumberFormatException e) {
+					isValid = false;
+				}
+			}
+			if(!isValid){
+				SimLogger.printLine("Invalid search parameter '" + parameters[i] + "', it must be name:min:max! Terminating simulation...");
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * runs the search on the given configuration files, returns the
+	 * parameter values of the best candidate
+	 */
+	public double[] run(String configFile, String edgeDevicesFile, String applicationsFile,
+			String outputFolder, int iterationNumber) throws IOException {
+		SimSettings SS = SimSettings.getInstance();
+		Properties baseProperties = new Properties();
+		try (InputStream input = new FileInputStream(configFile)) {
+			baseProperties.load(input);
+		}
+
+		//a random seed is selected once, so the candidates are simulated with the same seed
+		long seed = SS.getRandomSeed();
+		if(seed == 0)
+			seed = RandomStream.mix(System.nanoTime() ^ System.currentTimeMillis()) & Long.MAX_VALUE;
+
+		List<Candidate> candidates = createCandidates(new RandomStream(seed));
+
+		int numOfRounds = 1;
+		for(int n=numOfCandidates; n>=reductionFactor; n/=reductionFactor)
+			numOfRounds++;
+
+		double warmUpPeriod = SS.getWarmUpPeriod();
+		double measuredPeriod = SS.getSimulationTime() - warmUpPeriod;
+
+		File logFile = new File(outputFolder, "PARAMETER_SEARCH.log");
+		try (BufferedWriter logWriter = new BufferedWriter(new FileWriter(logFile))) {
+			logWriter.write("round" + SimSettings.DELIMITER + "candidate" + SimSettings.DELIMITER + "simulation_time");
+			for(String name : names)
+				logWriter.write(SimSettings.DELIMITER + name);
+			logWriter.write(SimSettings.DELIMITER + objective);
+			logWriter.newLine();
+
+			for(int round=0; round<numOfRounds; round++){
+				double period = measuredPeriod * Math.pow(reductionFactor, round - (numOfRounds - 1));
+				double simulationTime = warmUpPeriod + period; //seconds
+
+				SimLogger.printLine("Round " + (round + 1) + "/" + numOfRounds + ": " + candidates.size() + " candidates, " +
+						String.format("%.2f", simulationTime / 60) + " min simulation time");
+
+				evaluateCandidates(candidates, baseProperties, seed, simulationTime, period,
+						edgeDevicesFile, applicationsFile, outputFolder, iterationNumber);
+
+				for(Candidate candidate : candidates){
+					logWriter.write((round + 1) + SimSettings.DELIMITER + candidate.id + SimSettings.DELIMITER + (simulationTime / 60));
+					for(int i=0; i<names.length; i++)
+						logWriter.write(SimSettings.DELIMITER + format(i, candidate.values[i]));
+					logWriter.write(SimSettings.DELIMITER + candidate.score);
+					logWriter.newLine();
+				}
+				logWriter.flush();
+
+				//the candidates without a result are placed at the end; the score is NaN if a cell
+				//fails, or for SERVICE_TIME if a cell completes no task (see getAverageServiceTime)
+				candidates.sort(new Comparator<Candidate>() {
+					@Override
+					public int compare(Candidate first, Candidate second) {
+						return Double.compare(first.getRank(), second.getRank());
+					}
+				});
+
+				SimLogger.printLine(" best candidate #" + candidates.get(0).id + ": " + candidates.get(0) +
+						" - " + objective + ": " + String.format("%.6f", candidates.get(0).score));
+
+				if(round < numOfRounds - 1)
+					candidates = new ArrayList<Candidate>(candidates.subList(0, Math.max(1, candidates.size() / reductionFactor)));
+			}
+		}
+
+		Candidate best = candidates.get(0);
+		SimLogger.printLine("Best parameters (" + objective + ": " + String.format("%.6f", best.score) + "):");
+		for(int i=0; i<names.length; i++)
+			SimLogger.printLine(names[i] + "=" + format(i, best.values[i]));
+		return best.values;
+	}
+
+	/*
+	 * Latin hypercube sampling: the range of each parameter is divided to
+	 * numOfCandidates strata and each stratum is sampled once
+	 */
+	private List<Candidate> createCandidates(RandomStream rng) {
+		double[][] values = new double[numOfCandidates][names.length];
+		int[] strata = new int[numOfCandidates];
+		for(int p=0; p<names.length; p++){
+			for(int i=0; i<numOfCandidates; i++)
+				strata[i] = i;
+			for(int i=numOfCandidates-1; i>0; i--){
+				int j = rng.nextInt(i + 1);
+				int temp = strata[i];
+				strata[i] = strata[j];
+				strata[j] = temp;
+			}
+			for(int i=0; i<numOfCandidates; i++){
+				double value = minValues[p] + (strata[i] + rng.nextDouble()) / numOfCandidates * (maxValues[p] - minValues[p]);
+				values[i][p] = integerValues[p] ? Math.round(value) : value;
+			}
+		}
+
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		for(int i=0; i<numOfCandidates; i++)
+			candidates.add(new Candidate(i, values[i]));
+		return candidates;
+	}
+
+	/*
+	 * the cells of all candidates are evaluated at once, each candidate
+	 * is simulated with its own copy of the properties file
+	 */
+	private void evaluateCandidates(List<Candidate> candidates, Properties baseProperties, long seed,
+			double simulationTime, double measuredPeriod, String edgeDevicesFile, String applicationsFile,
+			String outputFolder, int iterationNumber) throws IOException {
+		SimSettings SS = SimSettings.getInstance();
+		List<SimulationCell> cells = new ArrayList<SimulationCell>();
+		List<File> configFiles = new ArrayList<File>();
+		int numOfCells = 0;
+
+		for(Candidate candidate : candidates){
+			Properties properties = new Properties();
+			properties.putAll(baseProperties);
+			for(int i=0; i<names.length; i++)
+				properties.setProperty(names[i], format(i, candidate.values[i]));
+			properties.setProperty("simulation_time", Double.toString(simulationTime / 60));
+			properties.setProperty("random_seed", Long.toString(seed));
+
+			//the candidates do not write any file and do not register any MBean
+			properties.setProperty("file_log_enabled", "false");
+			properties.setProperty("deep_file_log_enabled", "false");
+			properties.setProperty("metrics_jmx_enabled", "false");
+			properties.setProperty("profiler_enabled", "false");
+
+			File configFile = new File(outputFolder, "SEARCH_CANDIDATE_" + candidate.id + ".properties");
+			try (OutputStream output = new FileOutputStream(configFile)) {
+				properties.store(output, "candidate #" + candidate.id + " of the parameter search");
+			}
+			configFiles.add(configFile);
+
+			List<SimulationCell> candidateCells = SimulationCell.createCells(SS, configFile.getPath(),
+					edgeDevicesFile, applicationsFile, outputFolder, iterationNumber);
+			numOfCells = candidateCells.size();
+			cells.addAll(candidateCells);
+		}
+
+		double[][] results = executor.evaluate(cells);
+
+		for(int c=0; c<candidates.size(); c++){
+			double sum = 0;
+			for(int i=c*numOfCells; i<(c+1)*numOfCells; i++){
+				if(results[i] == null){
+					sum = Double.NaN;
+					break;
+				}
+				if(objective == SEARCH_OBJECTIVES.THROUGHPUT)
+					sum += results[i][COMPLETED_TASKS] / measuredPeriod;
+				else
+					sum += results[i][AVG_SERVICE_TIME]; //NaN if no task is completed
+			}
+			candidates.get(c).score = sum / numOfCells;
+		}
+
+		for(File configFile : configFiles)
+			configFile.delete();
+	}
+
+	private String format(int parameter, double value) {
+		return integerValues[parameter] ? Long.toString((long)value) : Double.toString(value);
+	}
+
+	private class Candidate {
+		private int id;
+		private double[] values;
+		private double score;
+
+		private Candidate(int _id, double[] _values) {
+			id = _id;
+			values = _values;
+		}
+
+		/*
+		 * the candidates are sorted by their ranks in ascending order, the
+		 * rank of a candidate without a result is positive infinity
+		 */
+		private double getRank() {
+			if(Double.isNaN(score))
+				return Double.POSITIVE_INFINITY;
+			return (objective == SEARCH_OBJECTIVES.THROUGHPUT) ? -score : score;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			for(int i=0; i<names.length; i++){
+				if(i > 0)
+					result.append(", ");
+				result.append(names[i]).append("=").append(format(i, values[i]));
+			}
+			return result.toString();
+		}
+	}
+}
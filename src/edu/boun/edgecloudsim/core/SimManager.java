@@ -13,6 +13,7 @@
 package edu.boun.edgecloudsim.core;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Host;
@@ -28,9 +29,11 @@ import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileServerManager;
 import edu.boun.edgecloudsim.mobility.MobilityModel;
 import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
+import edu.boun.edgecloudsim.task_generator.TaskTrace;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimProfiler;
 
 public class SimManager extends SimEntity {
 	private static final int CREATE_TASK = 0;
@@ -38,6 +41,15 @@ public class SimManager extends SimEntity {
 	private static final int GET_LOAD_LOG = 2;
 	private static final int PRINT_PROGRESS = 3;
 	private static final int STOP_SIMULATION = 4;
+	private static final int SCHEDULE_TASKS = 5;
+	
+	//names of the events for the profiler, indexed by the event tags
+	private static final String[] EVENT_NAMES = {"CREATE_TASK", "CHECK_ALL_VM",
+			"GET_LOAD_LOG", "PRINT_PROGRESS", "STOP_SIMULATION", "SCHEDULE_TASKS"};
+	
+	//the creation of the tasks is scheduled in windows of this length (in seconds)
+	//so that only the tasks of the next window are kept in the event queue
+	private static final double TASK_SCHEDULING_WINDOW = 10;
 	
 	private String simScenario;
 	private String orchestratorPolicy;
@@ -51,6 +63,7 @@ public class SimManager extends SimEntity {
 	private MobileServerManager mobileServerManager;
 	private LoadGeneratorModel loadGeneratorModel;
 	private MobileDeviceManager mobileDeviceManager;
+	private int nextTaskIndex;
 	
 	private static SimManager instance = null;
 	
@@ -64,6 +77,7 @@ public class SimManager extends SimEntity {
 		SimLogger.print("Creating tasks...");
 		loadGeneratorModel = scenarioFactory.getLoadGeneratorModel();
 		loadGeneratorModel.initializeModel();
+		loadGeneratorModel.getTaskTrace().sortByStartTime();
 		SimLogger.printLine("Done, ");
 		
 		SimLogger.print("Creating device locations...");
@@ -106,9 +120,30 @@ public class SimManager extends SimEntity {
 	 * Triggering CloudSim to start simulation
 	 */
 	public void startSimulation() throws Exception{
+		createVms();
+		CloudSim.startSimulation();
+	}
+	
+	/**
+	 * Triggering CloudSim to start simulation, which is suspended at the
+	 * end of the warm up period. The returned snapshot is continued with
+	 * each orchestrator policy via SimulationSnapshot.fork
+	 */
+	public SimulationSnapshot runWarmUpPeriod(Class<?>... stateClasses) throws Exception{
+		createVms();
+		CloudSim.runStart();
+		SimulationSnapshot.runUntil(SimSettings.getInstance().getWarmUpPeriod());
+		SimLogger.getInstance().simSuspended();
+		return SimulationSnapshot.capture(stateClasses);
+	}
+	
+	private void createVms() throws Exception{
 		//Starts the simulation
 		SimLogger.print(super.getName()+" is starting...");
 		
+		//the scheduled events are counted for the metrics
+		CountingFutureQueue.install();
+		
 		//Start Edge Datacenters & Generate VMs
 		edgeServerManager.startDatacenters();
 		edgeServerManager.createVmList(mobileDeviceManager.getId());
@@ -120,8 +155,22 @@ public class SimManager extends SimEntity {
 		//Start Mobile Datacenters & Generate VMs
 		mobileServerManager.startDatacenters();
 		mobileServerManager.createVmList(mobileDeviceManager.getId());
-		
-		CloudSim.startSimulation();
+	}
+	
+	/**
+	 * replaces the edge orchestrator with the one of the given scenario
+	 * factory if the policy is changed, so that the forks of a simulation
+	 * snapshot continue with different policies. The events of the previous
+	 * orchestrator are still delivered to it, e.g. the pending auction
+	 * rounds of the warm up period are completed by the previous policy.
+	 */
+	public void setOrchestratorPolicy(ScenarioFactory _scenarioFactory, String _orchestratorPolicy){
+		scenarioFactory = _scenarioFactory;
+		if(!_orchestratorPolicy.equals(orchestratorPolicy)){
+			orchestratorPolicy = _orchestratorPolicy;
+			edgeOrchestrator = scenarioFactory.getEdgeOrchestrator();
+			edgeOrchestrator.initialize();
+		}
 	}
 
 	public String getSimulationScenario(){
@@ -194,8 +243,8 @@ public class SimManager extends SimEntity {
 		}
 		
 		//Creation of tasks are scheduled here!
-		for(int i=0; i< loadGeneratorModel.getTaskList().size(); i++)
-			schedule(getId(), loadGeneratorModel.getTaskList().get(i).getStartTime(), CREATE_TASK, loadGeneratorModel.getTaskList().get(i));
+		nextTaskIndex = 0;
+		scheduleTasks();
 		
 		//Periodic event loops starts from here!
 		schedule(getId(), 5, CHECK_ALL_VM);
@@ -208,6 +257,8 @@ public class SimManager extends SimEntity {
 
 	@Override
 	public void processEvent(SimEvent ev) {
+		SimProfiler profiler = SimProfiler.getInstance();
+		profiler.begin();
 		synchronized(this){
 			switch (ev.getTag()) {
 			case CREATE_TASK:
@@ -215,15 +266,16 @@ public class SimManager extends SimEntity {
 					TaskProperty edgeTask = (TaskProperty) ev.getData();
 					mobileDeviceManager.submitTask(edgeTask);						
 				} catch (Exception e) {
-					e.printStackTrace();
-					System.exit(1);
+					throw new IllegalStateException("Task cannot be submitted", e);
 				}
 				break;
+			case SCHEDULE_TASKS:
+				scheduleTasks();
+				break;
 			case CHECK_ALL_VM:
 				int totalNumOfVm = SimSettings.getInstance().getNumOfEdgeVMs();
 				if(EdgeVmAllocationPolicy_Custom.getCreatedVmNum() != totalNumOfVm){
-					SimLogger.printLine("All VMs cannot be created! Terminating simulation...");
-					System.exit(1);
+					throw new IllegalStateException("All VMs cannot be created");
 				}
 				break;
 			case GET_LOAD_LOG:
@@ -251,8 +303,7 @@ public class SimManager extends SimEntity {
 				try {
 					SimLogger.getInstance().simStopped();
 				} catch (IOException e) {
-					e.printStackTrace();
-					System.exit(1);
+					throw new UncheckedIOException(e);
 				}
 				break;
 			default:
@@ -260,6 +311,23 @@ public class SimManager extends SimEntity {
 				break;
 			}
 		}
+		profiler.end(getName(), (ev.getTag() >= 0 && ev.getTag() < EVENT_NAMES.length) ? EVENT_NAMES[ev.getTag()] : profiler.getTagName(ev.getTag()));
+	}
+
+	/*
+	 * schedules the creation of the tasks which start before the end of
+	 * the next window, and the next window if there are remaining tasks
+	 */
+	private void scheduleTasks() {
+		TaskTrace taskTrace = loadGeneratorModel.getTaskTrace();
+		double windowEndTime = CloudSim.clock() + TASK_SCHEDULING_WINDOW;
+		while(nextTaskIndex < taskTrace.size() && taskTrace.getStartTime(nextTaskIndex) < windowEndTime){
+			schedule(getId(), taskTrace.getStartTime(nextTaskIndex) - CloudSim.clock(), CREATE_TASK, loadGeneratorModel.getTaskProperty(nextTaskIndex));
+			nextTaskIndex++;
+		}
+		
+		if(nextTaskIndex < taskTrace.size())
+			schedule(getId(), TASK_SCHEDULING_WINDOW, SCHEDULE_TASKS);
 	}
 
 	@Override
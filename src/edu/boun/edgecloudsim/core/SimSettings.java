@@ -13,10 +13,18 @@
 
 package edu.boun.edgecloudsim.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.Properties;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -27,11 +35,15 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import edu.boun.edgecloudsim.network.ManTopology;
 import edu.boun.edgecloudsim.utils.SimLogger;
 
 public class SimSettings {
 	private static SimSettings instance = null;
 	private Document edgeDevicesDoc = null;
+	private String edgeDevicesFile = null;
+	private EdgeTopology edgeTopology = null;
+	private ManTopology manTopology = null;
 
 	public static final double CLIENT_ACTIVITY_START_TIME = 10;
 
@@ -57,6 +69,13 @@ public class SimSettings {
 	private double INTERVAL_TO_GET_AP_DELAY_LOG; //minutes unit in properties file
 	private boolean FILE_LOG_ENABLED; //boolean to check file logging option
 	private boolean DEEP_FILE_LOG_ENABLED; //boolean to check deep file logging option
+	private boolean BINARY_LOG_ENABLED; //boolean to check columnar binary logging option
+	private long RANDOM_SEED; //master seed of the random streams, zero means a new seed for each run
+	private String TOPOLOGY_CACHE_FILE; //binary cache of edge_devices.xml, empty means no cache
+	private String MAN_TOPOLOGY_FILE; //links between the edge sites, empty means a single MAN queue
+	private boolean SHARE_WARM_UP; //boolean to run the warm up period once for all policies
+	private boolean METRICS_JMX_ENABLED; //boolean to expose the metrics of the running simulation via JMX
+	private boolean PROFILER_ENABLED; //boolean to measure the wall clock time of the events
 
 	private int MIN_NUM_OF_MOBILE_DEVICES;
 	private int MAX_NUM_OF_MOBILE_DEVICES;
@@ -96,6 +115,32 @@ public class SimSettings {
 	private double SOUTHERN_BOUND;
 	private double WESTERN_BOUND;
 
+	private int MIN_NUM_OF_SUBTASKS; //per application instance
+	private int MAX_NUM_OF_SUBTASKS; //per application instance
+	private double SUBTASK_DEPENDENCY_PROBABILITY; //[0-1]
+
+	private double ORCHESTRATOR_WAN_BW_THRESHOLD; //Mbps, the tasks are offloaded to the cloud above it
+	private double ORCHESTRATOR_EDGE_UTILIZATION_THRESHOLD; //utilization (%) of the edge VMs, the tasks are offloaded to the cloud above it
+
+	private String AUCTION_TYPE;
+	private double AUCTION_ROUND_INTERVAL; //seconds unit in properties file
+	private double ORCHESTRATOR_BATCH_WINDOW; //seconds unit in properties file
+
+	private double MIGRATION_INTERVAL; //seconds unit in properties file
+	private double MIGRATION_HOTSPOT_THRESHOLD; //utilization (%) of an edge VM
+	private boolean MIGRATION_TO_CLOUD; //boolean to migrate tasks from edge to cloud
+
+	private int EDGE_CACHE_CAPACITY; //number of results cached on each edge host, zero means no cache
+	private String EDGE_CACHE_POLICY; //eviction policy of the edge result caches
+
+	private boolean DEADLINE_ADMISSION_CONTROL; //boolean to admit the tasks to the edge VMs by an EDF feasibility test
+	private boolean DEADLINE_REDIRECT_TO_CLOUD; //boolean to send the tasks which are not admitted by the edge VMs to the cloud
+
+	private String[] SEARCH_PARAMETERS; //name:min:max of the parameters explored by ParameterSearch
+	private int SEARCH_NUM_OF_CANDIDATES; //number of configurations evaluated in the first round
+	private int SEARCH_REDUCTION_FACTOR; //1/factor of the configurations are kept after each round
+	private String SEARCH_OBJECTIVE; //metric optimized by ParameterSearch
+
 	// mean waiting time (minute) is stored for each place types
 	private double[] mobilityLookUpTable;
 
@@ -113,6 +158,9 @@ public class SimSettings {
 	// [10] vm utilization on cloud (%)
 	// [11] vm utilization on mobile (%)
 	// [12] delay sensitivity [0-1]
+	// [13] maximum delay requirement (sec)
+	// [14] # of distinct contents for the edge result cache
+	// [15] zipf exponent of the content popularity
 	private double[][] taskLookUpTable = null;
 
 	private String[] taskNames = null;
@@ -150,6 +198,13 @@ public class SimSettings {
 			INTERVAL_TO_GET_AP_DELAY_LOG = (double)60 * Double.parseDouble(prop.getProperty("ap_delay_check_interval", "0")); //seconds		
 			FILE_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("file_log_enabled"));
 			DEEP_FILE_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("deep_file_log_enabled"));
+			BINARY_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("binary_log_enabled", "false"));
+			RANDOM_SEED = Long.parseLong(prop.getProperty("random_seed", "0"));
+			TOPOLOGY_CACHE_FILE = prop.getProperty("topology_cache_file", "").trim();
+			MAN_TOPOLOGY_FILE = prop.getProperty("man_topology_file", "").trim();
+			SHARE_WARM_UP = Boolean.parseBoolean(prop.getProperty("share_warm_up", "false"));
+			METRICS_JMX_ENABLED = Boolean.parseBoolean(prop.getProperty("metrics_jmx_enabled", "true"));
+			PROFILER_ENABLED = Boolean.parseBoolean(prop.getProperty("profiler_enabled", "false"));
 
 			MIN_NUM_OF_MOBILE_DEVICES = Integer.parseInt(prop.getProperty("min_number_of_mobile_devices"));
 			MAX_NUM_OF_MOBILE_DEVICES = Integer.parseInt(prop.getProperty("max_number_of_mobile_devices"));
@@ -185,6 +240,42 @@ public class SimSettings {
 			EASTERN_BOUND = Double.parseDouble(prop.getProperty("eastern_bound", "0"));
 			WESTERN_BOUND = Double.parseDouble(prop.getProperty("western_bound", "0"));
 
+			//task graph settings, a single subtask means independent tasks
+			MIN_NUM_OF_SUBTASKS = Integer.parseInt(prop.getProperty("min_number_of_subtasks", "1"));
+			MAX_NUM_OF_SUBTASKS = Integer.parseInt(prop.getProperty("max_number_of_subtasks", "1"));
+			SUBTASK_DEPENDENCY_PROBABILITY = Double.parseDouble(prop.getProperty("subtask_dependency_probability", "0"));
+
+			//thresholds of the NETWORK_BASED, UTILIZATION_BASED and HYBRID policies
+			ORCHESTRATOR_WAN_BW_THRESHOLD = Double.parseDouble(prop.getProperty("orchestrator_wan_bandwidth_threshold", "6"));
+			ORCHESTRATOR_EDGE_UTILIZATION_THRESHOLD = Double.parseDouble(prop.getProperty("orchestrator_edge_utilization_threshold", "80"));
+
+			//auction settings, bids are cleared one by one if the interval is zero
+			AUCTION_TYPE = prop.getProperty("auction_type", "FIRST_PRICE");
+			AUCTION_ROUND_INTERVAL = Double.parseDouble(prop.getProperty("auction_round_interval", "0"));
+
+			//the tasks are sent to the orchestrator one by one if the window is zero
+			ORCHESTRATOR_BATCH_WINDOW = Double.parseDouble(prop.getProperty("orchestrator_batch_window", "0"));
+
+			//the running tasks are not migrated if the interval is zero
+			MIGRATION_INTERVAL = Double.parseDouble(prop.getProperty("migration_interval", "0"));
+			MIGRATION_HOTSPOT_THRESHOLD = Double.parseDouble(prop.getProperty("migration_hotspot_threshold", "80"));
+			MIGRATION_TO_CLOUD = Boolean.parseBoolean(prop.getProperty("migration_to_cloud", "false"));
+
+			//the results are not cached on the edge hosts if the capacity is zero
+			EDGE_CACHE_CAPACITY = Integer.parseInt(prop.getProperty("edge_cache_capacity", "0"));
+			EDGE_CACHE_POLICY = prop.getProperty("edge_cache_policy", "LRU");
+
+			//the deadlines (max_delay_requirement) are not checked before offloading if disabled
+			DEADLINE_ADMISSION_CONTROL = Boolean.parseBoolean(prop.getProperty("deadline_admission_control", "false"));
+			DEADLINE_REDIRECT_TO_CLOUD = Boolean.parseBoolean(prop.getProperty("deadline_redirect_to_cloud", "true"));
+
+			//only used by ParameterSearch, no parameter is explored if the list is empty
+			String searchParameters = prop.getProperty("search_parameters", "").trim();
+			SEARCH_PARAMETERS = searchParameters.isEmpty() ? new String[0] : searchParameters.split(",");
+			SEARCH_NUM_OF_CANDIDATES = Integer.parseInt(prop.getProperty("search_number_of_candidates", "27"));
+			SEARCH_REDUCTION_FACTOR = Integer.parseInt(prop.getProperty("search_reduction_factor", "3"));
+			SEARCH_OBJECTIVE = prop.getProperty("search_objective", "THROUGHPUT");
+
 			//avg waiting time in a place (min)
 			double place1_mean_waiting_time = Double.parseDouble(prop.getProperty("attractiveness_L1_mean_waiting_time"));
 			double place2_mean_waiting_time = Double.parseDouble(prop.getProperty("attractiveness_L2_mean_waiting_time"));
@@ -212,17 +303,42 @@ public class SimSettings {
 		}
 		parseApplicationsXML(applicationsFile);
 		parseEdgeDevicesXML(edgeDevicesFile);
+		parseManTopologyXML(MAN_TOPOLOGY_FILE);
 
 		return result;
 	}
 
 	/**
-	 * returns the parsed XML document for edge_devices.xml
+	 * returns the parsed XML document for edge_devices.xml; the document
+	 * is parsed on the first call if the topology is read from the cache,
+	 * use getEdgeTopology() to read the datacenters, hosts and VMs
 	 */
 	public Document getEdgeDevicesDocument(){
+		if(edgeDevicesDoc == null && edgeDevicesFile != null){
+			try {
+				edgeDevicesDoc = parseXML(edgeDevicesFile);
+			} catch (Exception e) {
+				throw new IllegalStateException("Edge Devices XML cannot be parsed", e);
+			}
+		}
 		return edgeDevicesDoc;
 	}
 
+	/**
+	 * returns the datacenters, hosts and VMs defined in edge_devices.xml
+	 */
+	public EdgeTopology getEdgeTopology(){
+		return edgeTopology;
+	}
+
+	/**
+	 * returns the links and the routes between the edge sites, null if
+	 * man_topology_file is not set in properties file
+	 */
+	public ManTopology getManTopology(){
+		return manTopology;
+	}
+
 
 	/**
 	 * returns simulation time (in seconds unit) from properties file
@@ -280,6 +396,50 @@ public class SimSettings {
 		return FILE_LOG_ENABLED; 
 	}
 
+	/**
+	 * returns columnar binary logging status from properties file
+	 */
+	public boolean getBinaryLoggingEnabled()
+	{
+		return FILE_LOG_ENABLED && BINARY_LOG_ENABLED; 
+	}
+
+	/**
+	 * returns the master seed of the random streams from properties file,
+	 * zero means that the seed is selected randomly for each run
+	 */
+	public long getRandomSeed()
+	{
+		return RANDOM_SEED;
+	}
+
+	/**
+	 * returns true if the policies continue from a snapshot of a single
+	 * warm up period instead of running their own warm up periods
+	 */
+	public boolean getWarmUpSharingEnabled()
+	{
+		return SHARE_WARM_UP;
+	}
+
+	/**
+	 * returns true if the metrics of the running simulation are
+	 * registered as an MBean (see MetricsRegistry)
+	 */
+	public boolean getMetricsJmxEnabled()
+	{
+		return METRICS_JMX_ENABLED;
+	}
+
+	/**
+	 * returns true if the events are profiled and the _PROFILE.log
+	 * file is saved (see SimProfiler)
+	 */
+	public boolean getProfilerEnabled()
+	{
+		return PROFILER_ENABLED;
+	}
+
 	/**
 	 * returns WAN propagation delay (in second unit) from properties file
 	 */
@@ -522,6 +682,161 @@ public class SimSettings {
 		return WESTERN_BOUND;
 	}
 
+	/**
+	 * returns minimum number of subtasks in a task graph
+	 */
+	public int getMinNumOfSubtasks()
+	{
+		return MIN_NUM_OF_SUBTASKS;
+	}
+
+	/**
+	 * returns maximum number of subtasks in a task graph
+	 */
+	public int getMaxNumOfSubtasks()
+	{
+		return MAX_NUM_OF_SUBTASKS;
+	}
+
+	/**
+	 * returns the probability of adding an extra dependency
+	 * between two subtasks of a task graph
+	 */
+	public double getSubtaskDependencyProbability()
+	{
+		return SUBTASK_DEPENDENCY_PROBABILITY;
+	}
+
+	/**
+	 * returns auction type as string
+	 */
+	public String getAuctionType()
+	{
+		return AUCTION_TYPE;
+	}
+
+	/**
+	 * returns the interval between two auction rounds (in seconds unit)
+	 */
+	public double getAuctionRoundInterval()
+	{
+		return AUCTION_ROUND_INTERVAL;
+	}
+
+	/**
+	 * returns the length of the window (in seconds unit) in which the
+	 * tasks are collected to be placed by the orchestrator as a batch
+	 */
+	public double getOrchestratorBatchWindow()
+	{
+		return ORCHESTRATOR_BATCH_WINDOW;
+	}
+
+	/**
+	 * returns the interval of the task migration checks (seconds),
+	 * zero if the tasks are not migrated
+	 */
+	public double getMigrationInterval()
+	{
+		return MIGRATION_INTERVAL;
+	}
+
+	/**
+	 * returns the utilization (%) above which an edge VM is a hotspot
+	 */
+	public double getMigrationHotspotThreshold()
+	{
+		return MIGRATION_HOTSPOT_THRESHOLD;
+	}
+
+	/**
+	 * returns true if the tasks can be migrated from edge to cloud
+	 */
+	public boolean getMigrationToCloudEnabled()
+	{
+		return MIGRATION_TO_CLOUD;
+	}
+
+	/**
+	 * returns the number of results which can be cached on each edge
+	 * host, zero if the results are not cached
+	 */
+	public int getEdgeCacheCapacity()
+	{
+		return EDGE_CACHE_CAPACITY;
+	}
+
+	/**
+	 * returns the eviction policy of the edge result caches as string
+	 */
+	public String getEdgeCachePolicy()
+	{
+		return EDGE_CACHE_POLICY;
+	}
+
+	/**
+	 * returns true if the tasks are admitted to the edge VMs only if
+	 * they can meet their deadlines (see EdfAdmissionController)
+	 */
+	public boolean getDeadlineAdmissionControlEnabled()
+	{
+		return DEADLINE_ADMISSION_CONTROL;
+	}
+
+	/**
+	 * returns true if the tasks which are not admitted by the edge VMs
+	 * are sent to the cloud if they can meet their deadlines there
+	 */
+	public boolean getDeadlineRedirectToCloudEnabled()
+	{
+		return DEADLINE_REDIRECT_TO_CLOUD;
+	}
+
+	/**
+	 * returns the WAN bandwidth (Mbps) above which the network based
+	 * policies offload the tasks to the cloud
+	 */
+	public double getOrchestratorWanBandwidthThreshold()
+	{
+		return ORCHESTRATOR_WAN_BW_THRESHOLD;
+	}
+
+	/**
+	 * returns the average utilization (%) of the edge VMs above which the
+	 * utilization based policies offload the tasks to the cloud
+	 */
+	public double getOrchestratorEdgeUtilizationThreshold()
+	{
+		return ORCHESTRATOR_EDGE_UTILIZATION_THRESHOLD;
+	}
+
+	/**
+	 * returns the parameters explored by ParameterSearch, each of them
+	 * is given as name:min:max
+	 */
+	public String[] getSearchParameters()
+	{
+		return SEARCH_PARAMETERS;
+	}
+
+	public int getSearchNumOfCandidates()
+	{
+		return SEARCH_NUM_OF_CANDIDATES;
+	}
+
+	public int getSearchReductionFactor()
+	{
+		return SEARCH_REDUCTION_FACTOR;
+	}
+
+	/**
+	 * returns the metric optimized by ParameterSearch as string
+	 */
+	public String getSearchObjective()
+	{
+		return SEARCH_OBJECTIVE;
+	}
+
 	/**
 	 * returns mobility characteristic within an array
 	 * the result includes mean waiting time (minute) or each place type
@@ -548,6 +863,8 @@ public class SimSettings {
 	 * [11] vm utilization on mobile (%)
 	 * [12] delay sensitivity [0-1]
 	 * [13] maximum delay requirement (sec)
+	 * [14] # of distinct contents for the edge result cache
+	 * [15] zipf exponent of the content popularity
 	 */ 
 	public double[][] getTaskLookUpTable()
 	{
@@ -633,7 +950,9 @@ public class SimSettings {
 			"delay_sensitivity"}; //delay_sensitivity [0-1]
 
 			String optionalAttributes[] = {
-			"max_delay_requirement"}; //maximum delay requirement (sec)
+					"max_delay_requirement", //maximum delay requirement (sec)
+					"cache_content_count", //# of distinct contents, zero means the results are not cached
+			"cache_zipf_exponent"}; //zipf exponent of the content popularity
 
 			NodeList appList = doc.getElementsByTagName("application");
 			taskLookUpTable = new double[appList.getLength()]
@@ -663,76 +982,141 @@ public class SimSettings {
 				}
 			}
 		} catch (Exception e) {
-			SimLogger.printLine("Edge Devices XML cannot be parsed! Terminating simulation...");
-			e.printStackTrace();
-			System.exit(1);
+			throw new IllegalStateException("Edge Devices XML cannot be parsed", e);
 		}
 	}
 
 	private void parseEdgeDevicesXML(String filePath)
 	{
-		try {	
-			File devicesFile = new File(filePath);
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			edgeDevicesDoc = dBuilder.parse(devicesFile);
-			edgeDevicesDoc.getDocumentElement().normalize();
-
-			NodeList datacenterList = edgeDevicesDoc.getElementsByTagName("datacenter");
-			for (int i = 0; i < datacenterList.getLength(); i++) {
-				NUM_OF_EDGE_DATACENTERS++;
-				Node datacenterNode = datacenterList.item(i);
-
-				Element datacenterElement = (Element) datacenterNode;
-				isAttributePresent(datacenterElement, "arch");
-				isAttributePresent(datacenterElement, "os");
-				isAttributePresent(datacenterElement, "vmm");
-				isElementPresent(datacenterElement, "costPerBw");
-				isElementPresent(datacenterElement, "costPerSec");
-				isElementPresent(datacenterElement, "costPerMem");
-				isElementPresent(datacenterElement, "costPerStorage");
-
-				Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-				isElementPresent(location, "attractiveness");
-				isElementPresent(location, "wlan_id");
-				isElementPresent(location, "x_pos");
-				isElementPresent(location, "y_pos");
-
-				String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-				int placeTypeIndex = Integer.parseInt(attractiveness);
-				if(NUM_OF_PLACE_TYPES < placeTypeIndex+1)
-					NUM_OF_PLACE_TYPES = placeTypeIndex+1;
-
-				NodeList hostList = datacenterElement.getElementsByTagName("host");
-				for (int j = 0; j < hostList.getLength(); j++) {
-					NUM_OF_EDGE_HOSTS++;
-					Node hostNode = hostList.item(j);
-
-					Element hostElement = (Element) hostNode;
-					isElementPresent(hostElement, "core");
-					isElementPresent(hostElement, "mips");
-					isElementPresent(hostElement, "ram");
-					isElementPresent(hostElement, "storage");
-
-					NodeList vmList = hostElement.getElementsByTagName("VM");
-					for (int k = 0; k < vmList.getLength(); k++) {
-						NUM_OF_EDGE_VMS++;
-						Node vmNode = vmList.item(k);
-
-						Element vmElement = (Element) vmNode;
-						isAttributePresent(vmElement, "vmm");
-						isElementPresent(vmElement, "core");
-						isElementPresent(vmElement, "mips");
-						isElementPresent(vmElement, "ram");
-						isElementPresent(vmElement, "storage");
-					}
-				}
+		edgeDevicesFile = filePath;
+		edgeDevicesDoc = null;
+		edgeTopology = null;
+		try {
+			//the validated topology is read from the cache if the XML file is not changed
+			byte[] fileHash = null;
+			if(!TOPOLOGY_CACHE_FILE.isEmpty()){
+				fileHash = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(new File(filePath).toPath()));
+				edgeTopology = readTopologyCache(fileHash);
+			}
+
+			if(edgeTopology == null){
+				edgeDevicesDoc = parseXML(filePath);
+				validateEdgeDevicesXML(edgeDevicesDoc);
+				edgeTopology = EdgeTopology.fromDocument(edgeDevicesDoc);
+				if(fileHash != null)
+					writeTopologyCache(fileHash);
 			}
 
+			NUM_OF_EDGE_DATACENTERS = edgeTopology.getNumOfDatacenters();
+			NUM_OF_EDGE_HOSTS = edgeTopology.getNumOfHosts();
+			NUM_OF_EDGE_VMS = edgeTopology.getNumOfVms();
+			NUM_OF_PLACE_TYPES = edgeTopology.getNumOfPlaceTypes();
 		} catch (Exception e) {
-			SimLogger.printLine("Edge Devices XML cannot be parsed! Terminating simulation...");
-			e.printStackTrace();
-			System.exit(1);
+			throw new IllegalStateException("Edge Devices XML cannot be parsed", e);
+		}
+	}
+
+	private void parseManTopologyXML(String filePath)
+	{
+		manTopology = null;
+		if(filePath.isEmpty())
+			return;
+
+		try {
+			manTopology = ManTopology.fromDocument(parseXML(filePath), NUM_OF_EDGE_DATACENTERS);
+		} catch (Exception e) {
+			throw new IllegalStateException("MAN Topology XML cannot be parsed", e);
+		}
+	}
+
+	private Document parseXML(String filePath) throws Exception
+	{
+		File devicesFile = new File(filePath);
+		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+		DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+		Document doc = dBuilder.parse(devicesFile);
+		doc.getDocumentElement().normalize();
+		return doc;
+	}
+
+	private void validateEdgeDevicesXML(Document doc)
+	{
+		NodeList datacenterList = doc.getElementsByTagName("datacenter");
+		for (int i = 0; i < datacenterList.getLength(); i++) {
+			Node datacenterNode = datacenterList.item(i);
+
+			Element datacenterElement = (Element) datacenterNode;
+			isAttributePresent(datacenterElement, "arch");
+			isAttributePresent(datacenterElement, "os");
+			isAttributePresent(datacenterElement, "vmm");
+			isElementPresent(datacenterElement, "costPerBw");
+			isElementPresent(datacenterElement, "costPerSec");
+			isElementPresent(datacenterElement, "costPerMem");
+			isElementPresent(datacenterElement, "costPerStorage");
+
+			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
+			isElementPresent(location, "attractiveness");
+			isElementPresent(location, "wlan_id");
+			isElementPresent(location, "x_pos");
+			isElementPresent(location, "y_pos");
+
+			NodeList hostList = datacenterElement.getElementsByTagName("host");
+			for (int j = 0; j < hostList.getLength(); j++) {
+				Node hostNode = hostList.item(j);
+
+				Element hostElement = (Element) hostNode;
+				isElementPresent(hostElement, "core");
+				isElementPresent(hostElement, "mips");
+				isElementPresent(hostElement, "ram");
+				isElementPresent(hostElement, "storage");
+
+				NodeList vmList = hostElement.getElementsByTagName("VM");
+				for (int k = 0; k < vmList.getLength(); k++) {
+					Node vmNode = vmList.item(k);
+
+					Element vmElement = (Element) vmNode;
+					isAttributePresent(vmElement, "vmm");
+					isElementPresent(vmElement, "core");
+					isElementPresent(vmElement, "mips");
+					isElementPresent(vmElement, "ram");
+					isElementPresent(vmElement, "storage");
+				}
+			}
+		}
+	}
+
+	/**
+	 * returns null if there is no valid cache for the given XML hash
+	 */
+	private EdgeTopology readTopologyCache(byte[] fileHash)
+	{
+		File cacheFile = new File(TOPOLOGY_CACHE_FILE);
+		if(!cacheFile.isFile())
+			return null;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			return EdgeTopology.read(in, fileHash);
+		} catch (IOException e) {
+			SimLogger.printLine("Topology cache '" + TOPOLOGY_CACHE_FILE + "' cannot be read, it will be recreated");
+			return null;
+		}
+	}
+
+	/**
+	 * the cache is written to a temporary file and moved, so the
+	 * simulations started in parallel never read a partial file
+	 */
+	private void writeTopologyCache(byte[] fileHash)
+	{
+		File cacheFile = new File(TOPOLOGY_CACHE_FILE).getAbsoluteFile();
+		try {
+			File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				edgeTopology.write(out, fileHash);
+			}
+			Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			SimLogger.printLine("Topology cache '" + TOPOLOGY_CACHE_FILE + "' cannot be written: " + e.getMessage());
 		}
 	}
 }
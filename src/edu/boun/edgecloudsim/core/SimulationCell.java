@@ -0,0 +1,115 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Cell
+ *
+ * Description:
+ * SimulationCell keeps the parameters of a single simulation run, i.e.
+ * the number of mobile devices, the simulation scenario, the orchestrator
+ * policy and the iteration number, together with the configuration files
+ * and the output folder. The cells of an experiment are independent of
+ * each other and can be executed in parallel by SimulationExecutor.
+ *
+ * Since each cell is executed in its own class loader, it is passed to
+ * the cell as a string array which contains only the standard types.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulationCell {
+	private String configFile;
+	private String edgeDevicesFile;
+	private String applicationsFile;
+	private String outputFolder;
+	private int iterationNumber;
+	private int numOfMobileDevices;
+	private String simScenario;
+	private String orchestratorPolicy;
+
+	public SimulationCell(String _configFile, String _edgeDevicesFile, String _applicationsFile,
+			String _outputFolder, int _iterationNumber, int _numOfMobileDevices,
+			String _simScenario, String _orchestratorPolicy) {
+		configFile = _configFile;
+		edgeDevicesFile = _edgeDevicesFile;
+		applicationsFile = _applicationsFile;
+		outputFolder = _outputFolder;
+		iterationNumber = _iterationNumber;
+		numOfMobileDevices = _numOfMobileDevices;
+		simScenario = _simScenario;
+		orchestratorPolicy = _orchestratorPolicy;
+	}
+
+	/**
+	 * creates the cells of all device count, scenario and policy combinations
+	 * in the settings, in the same order with the loops of the main applications
+	 */
+	public static List<SimulationCell> createCells(SimSettings SS, String configFile, String edgeDevicesFile,
+			String applicationsFile, String outputFolder, int iterationNumber) {
+		List<SimulationCell> cells = new ArrayList<SimulationCell>();
+		for(int j=SS.getMinNumOfMobileDev(); j<=SS.getMaxNumOfMobileDev(); j+=SS.getMobileDevCounterSize())
+			for(int k=0; k<SS.getSimulationScenarios().length; k++)
+				for(int i=0; i<SS.getOrchestratorPolicies().length; i++)
+					cells.add(new SimulationCell(configFile, edgeDevicesFile, applicationsFile, outputFolder,
+							iterationNumber, j, SS.getSimulationScenarios()[k], SS.getOrchestratorPolicies()[i]));
+		return cells;
+	}
+
+	public static SimulationCell fromArgs(String[] args) {
+		return new SimulationCell(args[0], args[1], args[2], args[3],
+				Integer.parseInt(args[4]), Integer.parseInt(args[5]), args[6], args[7]);
+	}
+
+	public String[] toArgs() {
+		return new String[] {configFile, edgeDevicesFile, applicationsFile, outputFolder,
+				Integer.toString(iterationNumber), Integer.toString(numOfMobileDevices),
+				simScenario, orchestratorPolicy};
+	}
+
+	public String getConfigFile() {
+		return configFile;
+	}
+
+	public String getEdgeDevicesFile() {
+		return edgeDevicesFile;
+	}
+
+	public String getApplicationsFile() {
+		return applicationsFile;
+	}
+
+	public String getOutputFolder() {
+		return outputFolder;
+	}
+
+	public int getIterationNumber() {
+		return iterationNumber;
+	}
+
+	public int getNumOfMobileDevices() {
+		return numOfMobileDevices;
+	}
+
+	public String getSimScenario() {
+		return simScenario;
+	}
+
+	public String getOrchestratorPolicy() {
+		return orchestratorPolicy;
+	}
+
+	/**
+	 * returns the prefix of the result files of the cell
+	 */
+	public String getFilePrefix() {
+		return "SIMRESULT_" + simScenario + "_"  + orchestratorPolicy + "_" + numOfMobileDevices + "DEVICES";
+	}
+
+	@Override
+	public String toString() {
+		return simScenario + " - " + orchestratorPolicy + " - #devices: " + numOfMobileDevices + " - #iteration: " + iterationNumber;
+	}
+}
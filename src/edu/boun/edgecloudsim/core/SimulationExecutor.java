@@ -0,0 +1,232 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Executor
+ *
+ * Description:
+ * SimulationExecutor runs independent simulation cells concurrently in
+ * a single JVM by using a ForkJoinPool.
+ *
+ * SimManager, SimSettings, SimLogger and the CloudSim library keep their
+ * state in static fields, so two simulations cannot share the same
+ * classes. Therefore each cell is executed in a fresh class loader which
+ * loads the simulator and the libraries from the class path, and every
+ * cell gets its own copy of the singletons. The cell is started by
+ * calling the static method below of the entry class via reflection:
+ *
+ *   public static void runSimulationCell(String[] cellArgs)
+ *
+ * where cellArgs is created by SimulationCell.toArgs().
+ *
+ * The cells can be evaluated as well; then the entry class provides
+ *
+ *   public static double[] evaluateSimulationCell(String[] cellArgs)
+ *
+ * which returns the results of the cell as standard types (see
+ * ParameterSearch), since the classes of the cell are not visible here.
+ *
+ * The console output of each cell is buffered and printed when the cell
+ * is finished, so the outputs of the parallel cells are not mixed.
+ * The simulator reports its errors by exceptions, so a failed cell is
+ * reported and the other cells continue; please note that the System.exit
+ * calls of the other sample applications still terminate all cells.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimUtils;
+
+public class SimulationExecutor {
+	public static final String CELL_METHOD_NAME = "runSimulationCell";
+	public static final String CELL_EVALUATION_METHOD_NAME = "evaluateSimulationCell";
+
+	private String entryClassName;
+	private int parallelism;
+	private URL[] classPath;
+
+	public SimulationExecutor(Class<?> _entryClass, int _parallelism) {
+		entryClassName = _entryClass.getName();
+		parallelism = _parallelism;
+
+		String[] paths = System.getProperty("java.class.path").split(File.pathSeparator);
+		classPath = new URL[paths.length];
+		try {
+			for(int i=0; i<paths.length; i++)
+				classPath[i] = new File(paths[i]).toURI().toURL();
+		} catch (MalformedURLException e) {
+			SimLogger.printLine("Invalid class path entry! The simulation has been terminated.");
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * runs the cells and waits until all of them are finished,
+	 * returns false if any cell is terminated due to an error
+	 */
+	public boolean run(List<SimulationCell> cells) {
+		PrintStream console = System.out;
+		CellOutputStream cellOutput = new CellOutputStream(console);
+		System.setOut(new PrintStream(cellOutput, true));
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		List<ForkJoinTask<?>> futures = new ArrayList<ForkJoinTask<?>>();
+		for(int i=0; i<cells.size(); i++){
+			final SimulationCell cell = cells.get(i);
+			futures.add(pool.submit(() -> {
+				Date startDate = Calendar.getInstance().getTime();
+				cellOutput.startBuffering();
+				try{
+					runCell(cell, CELL_METHOD_NAME);
+				}
+				finally{
+					cellOutput.stopBuffering();
+					Date endDate = Calendar.getInstance().getTime();
+					synchronized(console){
+						console.println("Cell finished: " + cell + ". It took " + SimUtils.getTimeDifference(startDate, endDate));
+					}
+				}
+				return null;
+			}));
+		}
+
+		boolean result = true;
+		for(int i=0; i<futures.size(); i++){
+			try {
+				futures.get(i).get();
+			} catch (InterruptedException | ExecutionException e) {
+				Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+				synchronized(console){
+					console.println("The cell has been terminated due to an unexpected error: " + cells.get(i));
+					cause.printStackTrace(console);
+				}
+				result = false;
+			}
+		}
+
+		pool.shutdown();
+		System.setOut(console);
+		return result;
+	}
+
+	/**
+	 * evaluates the cells and waits until all of them are finished, the
+	 * result of a cell which is terminated due to an error is null
+	 */
+	public double[][] evaluate(List<SimulationCell> cells) {
+		PrintStream console = System.out;
+		CellOutputStream cellOutput = new CellOutputStream(console);
+		System.setOut(new PrintStream(cellOutput, true));
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		List<ForkJoinTask<double[]>> futures = new ArrayList<ForkJoinTask<double[]>>();
+		for(int i=0; i<cells.size(); i++){
+			final SimulationCell cell = cells.get(i);
+			futures.add(pool.submit(() -> {
+				cellOutput.startBuffering();
+				try{
+					return (double[])runCell(cell, CELL_EVALUATION_METHOD_NAME);
+				}
+				finally{
+					cellOutput.stopBuffering();
+				}
+			}));
+		}
+
+		double[][] results = new double[cells.size()][];
+		for(int i=0; i<futures.size(); i++){
+			try {
+				results[i] = futures.get(i).get();
+			} catch (InterruptedException | ExecutionException e) {
+				Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+				synchronized(console){
+					console.println("The cell has been terminated due to an unexpected error: " + cells.get(i));
+					cause.printStackTrace(console);
+				}
+			}
+		}
+
+		pool.shutdown();
+		System.setOut(console);
+		return results;
+	}
+
+	private Object runCell(SimulationCell cell, String methodName) throws Exception {
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+		//the parent does not see the application classes, so all of them are loaded again
+		try (URLClassLoader classLoader = new URLClassLoader(classPath, ClassLoader.getSystemClassLoader().getParent())) {
+			thread.setContextClassLoader(classLoader);
+			Class<?> entryClass = Class.forName(entryClassName, true, classLoader);
+			return entryClass.getMethod(methodName, String[].class).invoke(null, (Object)cell.toArgs());
+		} catch (InvocationTargetException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e;
+		} finally {
+			thread.setContextClassLoader(contextClassLoader);
+		}
+	}
+
+	/*
+	 * routes the console output of the cell threads to per thread buffers,
+	 * the buffer is written to the console at once when the cell is finished
+	 */
+	private static class CellOutputStream extends OutputStream {
+		private PrintStream console;
+		private ThreadLocal<ByteArrayOutputStream> buffer = new ThreadLocal<ByteArrayOutputStream>();
+
+		public CellOutputStream(PrintStream _console) {
+			console = _console;
+		}
+
+		public void startBuffering() {
+			buffer.set(new ByteArrayOutputStream());
+		}
+
+		public void stopBuffering() throws IOException {
+			ByteArrayOutputStream out = buffer.get();
+			buffer.remove();
+			synchronized(console){
+				out.writeTo(console);
+				console.flush();
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ByteArrayOutputStream out = buffer.get();
+			if(out != null)
+				out.write(b);
+			else
+				synchronized(console){ console.write(b); }
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ByteArrayOutputStream out = buffer.get();
+			if(out != null)
+				out.write(b, off, len);
+			else
+				synchronized(console){ console.write(b, off, len); }
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Snapshot
+ *
+ * Description:
+ * SimulationSnapshot keeps the state of a simulation which is suspended,
+ * e.g. at the end of the warm up period, so that the simulation can be
+ * continued many times from the same state with different orchestrator
+ * policies. The policies are compared under exactly the same conditions
+ * and the warm up period is simulated only once.
+ *
+ * The state of a simulation consists of the static fields of CloudSim
+ * (the event queues, the entities and the clock) and of the singletons of
+ * EdgeCloudSim, and of all objects reachable from them, e.g. the VMs, the
+ * cloudlets, the queues of the network model and the statistics of the
+ * SimLogger. Each fork works on a deep copy of this state which is created
+ * by ObjectGraphCopier, so the snapshot itself is never changed. The
+ * settings, the load generator and the mobility model are not changed
+ * after they are initialized, therefore they are shared by the forks.
+ *
+ * The snapshot is kept in the memory; the CloudSim classes cannot be
+ * serialized, so the snapshot cannot be saved to a file.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueue;
+
+import edu.boun.edgecloudsim.cloud_server.CloudVmAllocationPolicy_Custom;
+import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileVmAllocationPolicy_Custom;
+import edu.boun.edgecloudsim.edge_server.EdgeVmAllocationPolicy_Custom;
+import edu.boun.edgecloudsim.utils.ObjectGraphCopier;
+import edu.boun.edgecloudsim.utils.RandomStreams;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class SimulationSnapshot {
+	//the classes keeping the state of the simulation in their static fields
+	private static final Class<?>[] STATE_CLASSES = {
+			CloudSim.class, SimManager.class, SimLogger.class, RandomStreams.class,
+			EdgeVmAllocationPolicy_Custom.class, CloudVmAllocationPolicy_Custom.class,
+			MobileVmAllocationPolicy_Custom.class };
+
+	private double time;
+	private List<Field> stateFields;
+	private List<Object> stateValues;
+	private List<Object> sharedObjects;
+	private int numOfObjects;
+
+	private SimulationSnapshot(double _time) {
+		time = _time;
+		stateFields = new ArrayList<Field>();
+		stateValues = new ArrayList<Object>();
+		sharedObjects = new ArrayList<Object>();
+	}
+
+	/*
+	 * processes the events of the started simulation until the given time,
+	 * the events at or after the given time are left in the event queue
+	 */
+	static void runUntil(double time) throws ReflectiveOperationException {
+		Field field = CloudSim.class.getDeclaredField("future");
+		field.setAccessible(true);
+		FutureQueue future = (FutureQueue)field.get(null);
+
+		while(CloudSim.running() && future.size() > 0 && future.iterator().next().eventTime() < time)
+			CloudSim.runClockTick();
+	}
+
+	/*
+	 * takes a snapshot of the current simulation; the application specific
+	 * classes which keep the state in static fields should be given as well
+	 */
+	static SimulationSnapshot capture(Class<?>... additionalStateClasses) throws ReflectiveOperationException {
+		SimulationSnapshot snapshot = new SimulationSnapshot(CloudSim.clock());
+
+		for(Class<?> stateClass : STATE_CLASSES)
+			snapshot.addStaticFields(stateClass);
+		for(Class<?> stateClass : additionalStateClasses)
+			snapshot.addStaticFields(stateClass);
+
+		snapshot.sharedObjects.add(SimSettings.getInstance());
+		snapshot.sharedObjects.add(SimManager.getInstance().getLoadGeneratorModel());
+		snapshot.sharedObjects.add(SimManager.getInstance().getMobilityModel());
+		return snapshot;
+	}
+
+	private void addStaticFields(Class<?> stateClass) throws ReflectiveOperationException {
+		for(Field field : stateClass.getDeclaredFields()) {
+			int modifiers = field.getModifiers();
+			if(Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+				field.setAccessible(true);
+				stateFields.add(field);
+				stateValues.add(field.get(null));
+			}
+		}
+	}
+
+	/**
+	 * returns the simulation time of the snapshot
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * returns the number of objects copied by the last restore
+	 */
+	public int getNumOfObjects() {
+		return numOfObjects;
+	}
+
+	/**
+	 * replaces the current simulation state with a new copy of the
+	 * snapshot; the snapshot can be restored any number of times
+	 */
+	public void restore() throws ReflectiveOperationException {
+		ObjectGraphCopier copier = new ObjectGraphCopier();
+		for(Object sharedObject : sharedObjects)
+			copier.share(sharedObject);
+
+		//a single copier is used, so the references between the fields are kept
+		for(int i=0; i<stateFields.size(); i++)
+			stateFields.get(i).set(null, copier.copy(stateValues.get(i)));
+
+		numOfObjects = copier.getNumOfCopies();
+	}
+
+	/**
+	 * restores a copy of the snapshot and runs it until the end of the
+	 * simulation with the edge orchestrator of the given scenario factory;
+	 * the results are saved to the files with the given prefix
+	 */
+	public void fork(ScenarioFactory scenarioFactory, String orchestratorPolicy, String filePrefix) throws Exception {
+		restore();
+		SimManager.getInstance().setOrchestratorPolicy(scenarioFactory, orchestratorPolicy);
+		SimLogger.getInstance().simForked(filePrefix);
+		CloudSim.startSimulation();
+	}
+}
@@ -19,7 +19,6 @@ package edu.boun.edgecloudsim.edge_client;
 import org.cloudbus.cloudsim.UtilizationModel;
 
 import edu.boun.edgecloudsim.core.SimSettings;
-import edu.boun.edgecloudsim.utils.SimLogger;
 
 public class CpuUtilizationModel_Custom implements UtilizationModel {
 	private Task task;
@@ -55,8 +54,7 @@ public class CpuUtilizationModel_Custom implements UtilizationModel {
 		else if(_vmType == SimSettings.VM_TYPES.MOBILE_VM)
 			index = 11;
 		else{
-			SimLogger.printLine("Unknown VM Type! Terminating simulation...");
-			System.exit(1);
+			throw new IllegalStateException("Unknown VM Type");
 		}
 		return SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][index];
 	}
@@ -120,9 +120,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 	
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
-			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(1);
-			return;
+			throw new IllegalStateException(getName() + ".processOtherEvent(): " + "Error - an event is null");
 		}
 		
 		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
@@ -161,9 +159,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 				break;
 			}
 			default:
-				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(1);
-				break;
+				throw new IllegalStateException(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker");
 		}
 	}
 
@@ -226,8 +222,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			}
 		}
 		else {
-			SimLogger.printLine("Unknown nextHopId! Terminating simulation...");
-			System.exit(1);
+			throw new IllegalStateException("Unknown nextHopId");
 		}
 	}
 	
@@ -2,7 +2,9 @@ package edu.boun.edgecloudsim.edge_client;
 
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.core.SimEvent;
 
+import edu.boun.edgecloudsim.utils.SimProfiler;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 
 public abstract class MobileDeviceManager  extends DatacenterBroker {
@@ -22,4 +24,25 @@ public abstract class MobileDeviceManager  extends DatacenterBroker {
 	public abstract UtilizationModel getCpuUtilizationModel();
 	
 	public abstract void submitTask(TaskProperty edgeTask);
+	
+	@Override
+	public void processEvent(SimEvent ev) {
+		SimProfiler profiler = SimProfiler.getInstance();
+		if(!profiler.isEnabled()) {
+			super.processEvent(ev);
+			return;
+		}
+		
+		profiler.begin();
+		super.processEvent(ev);
+		profiler.end(getName(), getEventName(ev.getTag()));
+	}
+	
+	/*
+	 * returns the name of the event tag for the profiler, the mobile device
+	 * managers should return the names of their own event tags
+	 */
+	protected String getEventName(int tag) {
+		return SimProfiler.getInstance().getTagName(tag);
+	}
 }
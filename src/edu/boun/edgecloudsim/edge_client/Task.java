@@ -25,6 +25,10 @@ public class Task extends Cloudlet {
 	private int hostIndex;
 	private int vmIndex;
 	private int datacenterId;
+	private int numOfMigrations;
+	private double initialExecStartTime;
+	private long cacheKey = -1;
+	private boolean servedFromCache;
 
 	public Task(int _mobileDeviceId, int cloudletId, long cloudletLength, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize,
@@ -87,4 +91,53 @@ public class Task extends Cloudlet {
 	public double getCreationTime() {
 		return creationTime;
 	}
+	
+	/**
+	 * the task is removed from its VM to be resumed on another VM,
+	 * the execution start time on the first VM is kept
+	 */
+	public void migrated() {
+		if(numOfMigrations == 0)
+			initialExecStartTime = super.getExecStartTime();
+		numOfMigrations++;
+	}
+	
+	public int getNumOfMigrations() {
+		return numOfMigrations;
+	}
+	
+	/**
+	 * sets the key of the result of the task in the edge result caches
+	 */
+	public void setCacheKey(long _cacheKey) {
+		cacheKey = _cacheKey;
+	}
+	
+	/**
+	 * returns the key of the result of the task in the edge result
+	 * caches, -1 if the result is not cacheable
+	 */
+	public long getCacheKey() {
+		return cacheKey;
+	}
+	
+	public void setServedFromCache() {
+		servedFromCache = true;
+	}
+	
+	/**
+	 * returns true if the result of the task is downloaded from an edge
+	 * result cache instead of executing the task
+	 */
+	public boolean isServedFromCache() {
+		return servedFromCache;
+	}
+	
+	/**
+	 * returns the time when the task started to execute on its first VM
+	 */
+	@Override
+	public double getExecStartTime() {
+		return (numOfMigrations == 0) ? super.getExecStartTime() : initialExecStartTime;
+	}
 }
@@ -23,15 +23,19 @@ import edu.boun.edgecloudsim.cloud_server.CloudVM;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
+import edu.boun.edgecloudsim.edge_server.EdgeVmCapacityIndex;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
 public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 	private int numberOfHost; //used by load balancer
 	private int lastSelectedHostIndex; //used by load balancer
 	private int[] lastSelectedVmIndexes; //used by each host individually
+	private RandomStream rng; //used by random selections
 	
 	public BasicEdgeOrchestrator(String _policy, String _simScenario) {
 		super(_policy, _simScenario);
@@ -45,6 +49,8 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 		lastSelectedVmIndexes = new int[numberOfHost];
 		for(int i=0; i<numberOfHost; i++)
 			lastSelectedVmIndexes[i] = -1;
+		
+		rng = RandomStreams.getInstance().getStream("edge_orchestrator");
 	}
 
 	@Override
@@ -52,7 +58,7 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 		int result = SimSettings.GENERIC_EDGE_DEVICE_ID;
 		if(!simScenario.equals("SINGLE_TIER")){
 			//decide to use cloud or Edge VM
-			int CloudVmPicker = SimUtils.getRandomNumber(0, 100);
+			int CloudVmPicker = SimUtils.getRandomNumber(rng, 0, 100);
 			
 			if(CloudVmPicker <= SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][1])
 				result = SimSettings.CLOUD_DATACENTER_ID;
@@ -99,14 +105,19 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 		//because there is only one host in one place
 		int relatedHostId=deviceLocation.getServingWlanId();
 		List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(relatedHostId);
+		EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+		double requiredEdgeCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
 		
 		if(policy.equalsIgnoreCase("RANDOM_FIT")){
-			int randomIndex = SimUtils.getRandomNumber(0, vmArray.size()-1);
+			int randomIndex = SimUtils.getRandomNumber(rng, 0, vmArray.size()-1);
 			double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(vmArray.get(randomIndex).getVmType());
 			double targetVmCapacity = (double)100 - vmArray.get(randomIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
 			if(requiredCapacity <= targetVmCapacity)
 				selectedVM = vmArray.get(randomIndex);
 		}
+		else if(policy.equalsIgnoreCase("WORST_FIT") && capacityIndex != null){
+			selectedVM = capacityIndex.getLeastLoadedVm(relatedHostId, requiredEdgeCapacity);
+		}
 		else if(policy.equalsIgnoreCase("WORST_FIT")){
 			double selectedVmCapacity = 0; //start with min value
 			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
@@ -129,6 +140,9 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 				}
 			}
 		}
+		else if(policy.equalsIgnoreCase("FIRST_FIT") && capacityIndex != null){
+			selectedVM = capacityIndex.getFirstFitVm(relatedHostId, requiredEdgeCapacity);
+		}
 		else if(policy.equalsIgnoreCase("FIRST_FIT")){
 			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
 				double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(vmArray.get(vmIndex).getVmType());
@@ -158,17 +172,22 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 
 	public EdgeVM selectVmOnLoadBalancer(Task task){
 		EdgeVM selectedVM = null;
+		EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
 		
 		if(policy.equalsIgnoreCase("RANDOM_FIT")){
-			int randomHostIndex = SimUtils.getRandomNumber(0, numberOfHost-1);
+			int randomHostIndex = SimUtils.getRandomNumber(rng, 0, numberOfHost-1);
 			List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(randomHostIndex);
-			int randomIndex = SimUtils.getRandomNumber(0, vmArray.size()-1);
+			int randomIndex = SimUtils.getRandomNumber(rng, 0, vmArray.size()-1);
 			
 			double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(vmArray.get(randomIndex).getVmType());
 			double targetVmCapacity = (double)100 - vmArray.get(randomIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
 			if(requiredCapacity <= targetVmCapacity)
 				selectedVM = vmArray.get(randomIndex);
 		}
+		else if(policy.equalsIgnoreCase("WORST_FIT") && capacityIndex != null){
+			double requiredCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.EDGE_VM);
+			selectedVM = capacityIndex.getLeastLoadedVm(requiredCapacity);
+		}
 		else if(policy.equalsIgnoreCase("WORST_FIT")){
 			double selectedVmCapacity = 0; //start with min value
 			for(int hostIndex=0; hostIndex<numberOfHost; hostIndex++){
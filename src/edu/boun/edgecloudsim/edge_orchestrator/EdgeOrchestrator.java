@@ -13,6 +13,9 @@
 
 package edu.boun.edgecloudsim.edge_orchestrator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.SimEntity;
 
@@ -49,4 +52,21 @@ public abstract class EdgeOrchestrator extends SimEntity{
 	 * returns proper VM from the edge orchestrator point of view
 	 */
 	public abstract Vm getVmToOffload(Task task, int deviceId);
+	
+	/*
+	 * decides where to offload the tasks which are collected in a batching
+	 * window; a placement with a null VM means that the task is rejected.
+	 * The tasks are placed one by one by default, the orchestrators may
+	 * override it to share the state queries among the tasks or to match
+	 * the tasks and the VMs together
+	 */
+	public List<TaskPlacement> getPlacements(List<Task> tasks) {
+		List<TaskPlacement> placements = new ArrayList<TaskPlacement>(tasks.size());
+		for(int i=0; i<tasks.size(); i++){
+			Task task = tasks.get(i);
+			int deviceId = getDeviceToOffload(task);
+			placements.add(new TaskPlacement(task, deviceId, getVmToOffload(task, deviceId)));
+		}
+		return placements;
+	}
 }
@@ -0,0 +1,33 @@
+/*
+ * Title:        EdgeCloudSim - Task Migration
+ *
+ * Description:
+ * TaskMigration is the decision of moving a running task from its
+ * edge VM to another edge VM or to a cloud VM.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_orchestrator;
+
+import org.cloudbus.cloudsim.Vm;
+
+import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.edge_server.EdgeVM;
+
+public class TaskMigration extends TaskPlacement {
+	private EdgeVM sourceVm;
+
+	public TaskMigration(Task _task, EdgeVM _sourceVm, int _deviceId, Vm _vm) {
+		super(_task, _deviceId, _vm);
+		sourceVm = _sourceVm;
+	}
+
+	/**
+	 * returns the VM which the task is running on
+	 */
+	public EdgeVM getSourceVm() {
+		return sourceVm;
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Title:        EdgeCloudSim - Task Placement
+ *
+ * Description:
+ * TaskPlacement is the decision of the edge orchestrator for a task
+ * of a batch, i.e. the device and the VM which the task is offloaded.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_orchestrator;
+
+import org.cloudbus.cloudsim.Vm;
+
+import edu.boun.edgecloudsim.edge_client.Task;
+
+public class TaskPlacement {
+	private Task task;
+	private int deviceId;
+	private Vm vm;
+
+	public TaskPlacement(Task _task, int _deviceId, Vm _vm) {
+		task = _task;
+		deviceId = _deviceId;
+		vm = _vm;
+	}
+
+	public Task getTask() {
+		return task;
+	}
+
+	public int getDeviceId() {
+		return deviceId;
+	}
+
+	/**
+	 * returns the selected VM, null if the task is rejected
+	 */
+	public Vm getVm() {
+		return vm;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Title:        EdgeCloudSim - Task Rebalancer
+ *
+ * Description:
+ * TaskRebalancer finds the edge VMs whose utilization is above the
+ * hotspot threshold and selects running tasks to be migrated from them
+ * until their utilization falls below the threshold. The tasks with
+ * the longest remaining length are moved first.
+ *
+ * A task is moved to the least loaded edge VM if that VM stays below
+ * the threshold after the move; otherwise it is moved to a cloud VM
+ * if the migration to cloud is enabled. The VMs share their capacity
+ * among the running tasks, so a task is moved only if its remaining
+ * length is expected to finish earlier on the new VM. The state
+ * transfer delay is not known before the migration, it is charged by
+ * the mobile device manager which performs the migration.
+ *
+ * A task is migrated at most once, so the tasks do not move back and
+ * forth between the hotspots.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_orchestrator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import edu.boun.edgecloudsim.core.SimManager;
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
+import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.edge_server.EdgeCloudletScheduler;
+import edu.boun.edgecloudsim.edge_server.EdgeVM;
+import edu.boun.edgecloudsim.edge_server.EdgeVmCapacityIndex;
+
+public class TaskRebalancer {
+	private double hotspotThreshold;
+	private boolean migrationToCloudEnabled;
+
+	public TaskRebalancer(double _hotspotThreshold, boolean _migrationToCloudEnabled) {
+		hotspotThreshold = _hotspotThreshold;
+		migrationToCloudEnabled = _migrationToCloudEnabled;
+	}
+
+	/**
+	 * returns the migrations which bring the edge VMs below the hotspot
+	 * threshold, the capacity index of the edge server manager is required
+	 */
+	public List<TaskMigration> getMigrations() {
+		List<TaskMigration> result = new ArrayList<TaskMigration>();
+		EdgeVmCapacityIndex capacityIndex = SimManager.getInstance().getEdgeServerManager().getCapacityIndex();
+		if(capacityIndex == null)
+			return result;
+
+		double time = CloudSim.clock();
+		double minFreeCapacity = (double)100 - hotspotThreshold;
+		int[] numOfIncomingTasks = new int[capacityIndex.getNumOfVMs()];
+		Map<Vm, Double> cloudVmUtilizations = new HashMap<Vm, Double>();
+
+		//the planned migrations are reserved in the index and reverted at the end
+		List<Integer> reservedIndices = new ArrayList<Integer>();
+		List<Double> previousCapacities = new ArrayList<Double>();
+
+		for(int index=0; index<capacityIndex.getNumOfVMs(); index++){
+			if(capacityIndex.getFreeCapacity(index) >= minFreeCapacity)
+				continue;
+
+			EdgeVM sourceVm = capacityIndex.getVm(index);
+			List<ResCloudlet> cloudlets = new ArrayList<ResCloudlet>(
+					((EdgeCloudletScheduler)sourceVm.getCloudletScheduler()).getCloudletExecList());
+			Collections.sort(cloudlets, new Comparator<ResCloudlet>() {
+				@Override
+				public int compare(ResCloudlet first, ResCloudlet second) {
+					return Long.compare(second.getRemainingCloudletLength(), first.getRemainingCloudletLength());
+				}
+			});
+
+			int numOfRunningTasks = cloudlets.size();
+			for(ResCloudlet cloudlet : cloudlets){
+				if(capacityIndex.getFreeCapacity(index) >= minFreeCapacity)
+					break;
+
+				Task task = (Task)cloudlet.getCloudlet();
+				long remainingLength = cloudlet.getRemainingCloudletLength();
+				if(task.getNumOfMigrations() > 0 || remainingLength == 0)
+					continue;
+
+				double requiredCapacity = task.getUtilizationOfCpu(time);
+				double remainingTime = getExecutionTime(sourceVm, remainingLength, numOfRunningTasks);
+				TaskMigration migration = null;
+
+				//the least loaded edge VM should stay below the threshold
+				int targetIndex = capacityIndex.getLeastLoadedVmIndex(requiredCapacity + minFreeCapacity);
+				if(targetIndex != -1){
+					EdgeVM targetVm = capacityIndex.getVm(targetIndex);
+					int numOfTasks = targetVm.getCloudletScheduler().runningCloudlets() + numOfIncomingTasks[targetIndex] + 1;
+					if(getExecutionTime(targetVm, remainingLength, numOfTasks) < remainingTime){
+						migration = new TaskMigration(task, sourceVm, SimSettings.GENERIC_EDGE_DEVICE_ID, targetVm);
+						reserve(capacityIndex, targetIndex, -requiredCapacity, reservedIndices, previousCapacities);
+						numOfIncomingTasks[targetIndex]++;
+					}
+				}
+				else if(migrationToCloudEnabled){
+					Vm targetVm = SimManager.getInstance().getEdgeOrchestrator().getVmToOffload(task, SimSettings.CLOUD_DATACENTER_ID);
+					if(targetVm != null){
+						double cloudCapacity = ((CpuUtilizationModel_Custom)task.getUtilizationModelCpu()).predictUtilization(SimSettings.VM_TYPES.CLOUD_VM);
+						Double plannedUtilization = cloudVmUtilizations.get(targetVm);
+						if(plannedUtilization == null)
+							plannedUtilization = targetVm.getCloudletScheduler().getTotalUtilizationOfCpu(time);
+
+						int numOfTasks = targetVm.getCloudletScheduler().runningCloudlets() + 1;
+						if(plannedUtilization + cloudCapacity <= 100 &&
+								getExecutionTime(targetVm, remainingLength, numOfTasks) < remainingTime){
+							migration = new TaskMigration(task, sourceVm, SimSettings.CLOUD_DATACENTER_ID, targetVm);
+							cloudVmUtilizations.put(targetVm, plannedUtilization + cloudCapacity);
+						}
+					}
+				}
+
+				if(migration != null){
+					result.add(migration);
+					reserve(capacityIndex, index, requiredCapacity, reservedIndices, previousCapacities);
+					numOfRunningTasks--;
+				}
+			}
+		}
+
+		for(int i=reservedIndices.size()-1; i>=0; i--)
+			capacityIndex.update(reservedIndices.get(i), previousCapacities.get(i));
+
+		return result;
+	}
+
+	private static void reserve(EdgeVmCapacityIndex capacityIndex, int index, double capacity,
+			List<Integer> reservedIndices, List<Double> previousCapacities) {
+		reservedIndices.add(index);
+		previousCapacities.add(capacityIndex.getFreeCapacity(index));
+		capacityIndex.update(index, capacityIndex.getFreeCapacity(index) + capacity);
+	}
+
+	/*
+	 * estimated execution time of the given length if the VM is time
+	 * shared by the given number of tasks
+	 */
+	private static double getExecutionTime(Vm vm, long length, int numOfTasks) {
+		double capacity = vm.getMips() * vm.getNumberOfPes() / Math.max(numOfTasks, vm.getNumberOfPes());
+		return length / capacity;
+	}
+}
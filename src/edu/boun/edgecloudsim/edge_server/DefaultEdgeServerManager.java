@@ -16,7 +16,6 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Host;
@@ -24,18 +23,15 @@ import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.VmSchedulerSpaceShared;
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import edu.boun.edgecloudsim.core.SimManager;
+import edu.boun.edgecloudsim.core.EdgeTopology;
+import edu.boun.edgecloudsim.core.EdgeTopology.EdgeDatacenterInfo;
+import edu.boun.edgecloudsim.core.EdgeTopology.EdgeHostInfo;
+import edu.boun.edgecloudsim.core.EdgeTopology.EdgeVmInfo;
 import edu.boun.edgecloudsim.core.SimSettings;
-import edu.boun.edgecloudsim.utils.Location;
 
 public class DefaultEdgeServerManager extends EdgeServerManager{
 	private int hostIdCounter;
@@ -54,12 +50,9 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 	}
 	
 	public void startDatacenters() throws Exception{
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			localDatacenters.add(createDatacenter(i, datacenterElement));
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		for (int i = 0; i < topology.getNumOfDatacenters(); i++) {
+			localDatacenters.add(createDatacenter(i, topology.getDatacenter(i)));
 		}
 	}
 
@@ -68,32 +61,18 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 		int vmCounter=0;
 		
 		//Create VMs for each hosts
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
-			for (int j = 0; j < hostNodeList.getLength(); j++) {
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		for (EdgeDatacenterInfo datacenter : topology.getDatacenterList()) {
+			List<EdgeHostInfo> hostInfoList = datacenter.getHostList();
+			for (EdgeHostInfo hostInfo : hostInfoList) {
 				
 				vmList.add(hostCounter, new ArrayList<EdgeVM>());
 				
-				Node hostNode = hostNodeList.item(j);
-				Element hostElement = (Element) hostNode;
-				NodeList vmNodeList = hostElement.getElementsByTagName("VM");
-				for (int k = 0; k < vmNodeList.getLength(); k++) {
-					Node vmNode = vmNodeList.item(k);					
-					Element vmElement = (Element) vmNode;
-
-					String vmm = vmElement.getAttribute("vmm");
-					int numOfCores = Integer.parseInt(vmElement.getElementsByTagName("core").item(0).getTextContent());
-					double mips = Double.parseDouble(vmElement.getElementsByTagName("mips").item(0).getTextContent());
-					int ram = Integer.parseInt(vmElement.getElementsByTagName("ram").item(0).getTextContent());
-					long storage = Long.parseLong(vmElement.getElementsByTagName("storage").item(0).getTextContent());
-					long bandwidth = SimSettings.getInstance().getWlanBandwidth() / (hostNodeList.getLength()+vmNodeList.getLength());
+				for (EdgeVmInfo vmInfo : hostInfo.getVmList()) {
+					long bandwidth = SimSettings.getInstance().getWlanBandwidth() / (hostInfoList.size()+hostInfo.getVmList().size());
 					
 					//VM Parameters		
-					EdgeVM vm = new EdgeVM(vmCounter, brokerId, mips, numOfCores, ram, bandwidth, storage, vmm, new CloudletSchedulerTimeShared());
+					EdgeVM vm = new EdgeVM(vmCounter, brokerId, vmInfo.getMips(), vmInfo.getNumOfCores(), vmInfo.getRam(), bandwidth, vmInfo.getStorage(), vmInfo.getVmm(), new EdgeCloudletScheduler());
 					vmList.get(hostCounter).add(vm);
 					vmCounter++;
 				}
@@ -101,6 +80,17 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 				hostCounter++;
 			}
 		}
+		
+		int[] datacenterHostOffsets = topology.getHostOffsets();
+		
+		//free capacity and utilization of the VMs are tracked by their cloudlet schedulers
+		capacityIndex = new EdgeVmCapacityIndex(vmList, datacenterHostOffsets);
+		for(int hostIndex=0; hostIndex<vmList.size(); hostIndex++){
+			for(int vmIndex=0; vmIndex<vmList.get(hostIndex).size(); vmIndex++){
+				EdgeCloudletScheduler scheduler = (EdgeCloudletScheduler)vmList.get(hostIndex).get(vmIndex).getCloudletScheduler();
+				scheduler.setCapacityIndex(capacityIndex, capacityIndex.getIndex(hostIndex, vmIndex));
+			}
+		}
 	}
 	
 	public void terminateDatacenters(){
@@ -111,36 +101,19 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 
 	//average utilization of all VMs
 	public double getAvgUtilization(){
-		double totalUtilization = 0;
-		double vmCounter = 0;
-		
-		// for each datacenter...
-		for(int i= 0; i<localDatacenters.size(); i++) {
-			List<? extends Host> list = localDatacenters.get(i).getHostList();
-			// for each host...
-			for (int j=0; j < list.size(); j++) {
-				Host host = list.get(j);
-				List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(host.getId());
-				//for each vm...
-				for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
-					totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
-					vmCounter++;
-				}
-			}
-		}
-		return totalUtilization / vmCounter;
+		return capacityIndex.getAvgUtilization();
 	}
 
-	private Datacenter createDatacenter(int index, Element datacenterElement) throws Exception{
-		String arch = datacenterElement.getAttribute("arch");
-		String os = datacenterElement.getAttribute("os");
-		String vmm = datacenterElement.getAttribute("vmm");
-		double costPerBw = Double.parseDouble(datacenterElement.getElementsByTagName("costPerBw").item(0).getTextContent());
-		double costPerSec = Double.parseDouble(datacenterElement.getElementsByTagName("costPerSec").item(0).getTextContent());
-		double costPerMem = Double.parseDouble(datacenterElement.getElementsByTagName("costPerMem").item(0).getTextContent());
-		double costPerStorage = Double.parseDouble(datacenterElement.getElementsByTagName("costPerStorage").item(0).getTextContent());
+	private Datacenter createDatacenter(int index, EdgeDatacenterInfo datacenterInfo) throws Exception{
+		String arch = datacenterInfo.getArch();
+		String os = datacenterInfo.getOs();
+		String vmm = datacenterInfo.getVmm();
+		double costPerBw = datacenterInfo.getCostPerBw();
+		double costPerSec = datacenterInfo.getCostPerSec();
+		double costPerMem = datacenterInfo.getCostPerMem();
+		double costPerStorage = datacenterInfo.getCostPerStorage();
 		
-		List<EdgeHost> hostList=createHosts(datacenterElement);
+		List<EdgeHost> hostList=createHosts(datacenterInfo);
 		
 		String name = "Datacenter_" + Integer.toString(index);
 		double time_zone = 3.0;         // time zone this resource located
@@ -163,29 +136,19 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 		return datacenter;
 	}
 	
-	private List<EdgeHost> createHosts(Element datacenterElement){
+	private List<EdgeHost> createHosts(EdgeDatacenterInfo datacenterInfo){
 
 		// Here are the steps needed to create a PowerDatacenter:
 		// 1. We need to create a list to store one or more Machines
 		List<EdgeHost> hostList = new ArrayList<EdgeHost>();
 		
-		Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-		String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-		int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-		int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-		int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-		int placeTypeIndex = Integer.parseInt(attractiveness);
-
-		NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
-		for (int j = 0; j < hostNodeList.getLength(); j++) {
-			Node hostNode = hostNodeList.item(j);
-			
-			Element hostElement = (Element) hostNode;
-			int numOfCores = Integer.parseInt(hostElement.getElementsByTagName("core").item(0).getTextContent());
-			double mips = Double.parseDouble(hostElement.getElementsByTagName("mips").item(0).getTextContent());
-			int ram = Integer.parseInt(hostElement.getElementsByTagName("ram").item(0).getTextContent());
-			long storage = Long.parseLong(hostElement.getElementsByTagName("storage").item(0).getTextContent());
-			long bandwidth = SimSettings.getInstance().getWlanBandwidth() / hostNodeList.getLength();
+		List<EdgeHostInfo> hostInfoList = datacenterInfo.getHostList();
+		for (EdgeHostInfo hostInfo : hostInfoList) {
+			int numOfCores = hostInfo.getNumOfCores();
+			double mips = hostInfo.getMips();
+			int ram = hostInfo.getRam();
+			long storage = hostInfo.getStorage();
+			long bandwidth = SimSettings.getInstance().getWlanBandwidth() / hostInfoList.size();
 			
 			// 2. A Machine contains one or more PEs or CPUs/Cores. Therefore, should
 			//    create a list to store these PEs before creating
@@ -208,7 +171,11 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 					new VmSchedulerSpaceShared(peList)
 				);
 			
-			host.setPlace(new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
+			host.setPlace(datacenterInfo.getLocation());
+			if(SimSettings.getInstance().getEdgeCacheCapacity() > 0)
+				host.setResultCache(new EdgeResultCache(
+						EdgeResultCache.EVICTION_POLICIES.valueOf(SimSettings.getInstance().getEdgeCachePolicy()),
+						SimSettings.getInstance().getEdgeCacheCapacity()));
 			hostList.add(host);
 			hostIdCounter++;
 		}
@@ -0,0 +1,202 @@
+/*
+ * Title:        EdgeCloudSim - EDF Admission Controller
+ *
+ * Description:
+ * EdfAdmissionController decides whether a task can be admitted to an
+ * edge VM without missing its deadline or the deadlines of the tasks
+ * which are already admitted to the VM. It is consulted before the input
+ * of the task is uploaded, so a task which cannot meet its deadline does
+ * not waste the network and the VM.
+ *
+ * The controller keeps the admitted tasks of the VM ordered by their
+ * deadlines, with their release times (when their input is expected to
+ * arrive at the VM) and their remaining lengths. The remaining lengths
+ * are advanced as if the VM executes the admitted tasks in the earliest
+ * deadline first (EDF) order with its whole capacity; the tasks whose
+ * remaining lengths reach zero are dropped. The feasibility test checks
+ * each task of the EDF order of the admitted tasks and the new task
+ * against two lower bounds of its finish time: the work of the task and
+ * the tasks with earlier deadlines cannot be processed faster than the
+ * capacity of all PEs of the VM, and the task itself cannot be processed
+ * faster than the PEs it can use after its release time. Since the
+ * bounds hold for any schedule, a task which fails the test cannot meet
+ * its deadline with the time shared schedulers either. The admitted
+ * tasks whose deadlines have already passed are not checked, but their
+ * remaining work is still taken into account. The tasks without a
+ * deadline are admitted with an infinite deadline, so they use the
+ * capacity after the other tasks.
+ *
+ * As in CloudSim, the length of a task is processed by each of its PEs,
+ * so the total work of a task is its length times its number of PEs.
+ *
+ * The tasks are removed from the controller when they leave the VM,
+ * i.e. when they are finished, failed or migrated.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_server;
+
+import java.util.Arrays;
+
+public class EdfAdmissionController {
+	private EdgeVM vm;
+
+	//admitted tasks ordered by deadline, the arrays are ordered together
+	private int[] taskIds;
+	private double[] deadlines; //seconds
+	private double[] releaseTimes; //seconds
+	private double[] remainingLengths; //MI of all PEs of the task
+	private double[] taskCapacities; //MIPS of the PEs used by the task
+	private int size;
+	private double lastUpdateTime;
+
+	public EdfAdmissionController(EdgeVM _vm) {
+		vm = _vm;
+		taskIds = new int[16];
+		deadlines = new double[16];
+		releaseTimes = new double[16];
+		remainingLengths = new double[16];
+		taskCapacities = new double[16];
+	}
+
+	/**
+	 * returns true if a task with the given length (MI per PE) and number of PEs,
+	 * whose input arrives at the release time, can finish before its
+	 * deadline without causing an admitted task to miss its deadline
+	 */
+	public boolean isFeasible(double length, int pesNumber, double releaseTime, double deadline, double time) {
+		advance(time);
+
+		double capacity = getCapacity();
+		double taskCapacity = getTaskCapacity(pesNumber);
+		double cumulativeWork = 0;
+		boolean added = false;
+		for(int i=0; i<=size; i++) {
+			//the new task is processed after the admitted tasks with the same deadline
+			if(!added && (i == size || deadline < deadlines[i])) {
+				cumulativeWork += length * pesNumber;
+				if(getFinishTime(time, cumulativeWork, length * pesNumber, releaseTime, capacity, taskCapacity) > deadline)
+					return false;
+				added = true;
+			}
+			if(i < size) {
+				cumulativeWork += remainingLengths[i];
+				//the tasks which have already missed their deadlines do not block the others
+				if(deadlines[i] >= time &&
+						getFinishTime(time, cumulativeWork, remainingLengths[i], releaseTimes[i], capacity, taskCapacities[i]) > deadlines[i])
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * adds the task to the admitted tasks of the VM, the deadline is
+	 * infinite if the task has no deadline
+	 */
+	public void admit(int taskId, double length, int pesNumber, double releaseTime, double deadline, double time) {
+		advance(time);
+
+		if(size == taskIds.length) {
+			taskIds = Arrays.copyOf(taskIds, size * 2);
+			deadlines = Arrays.copyOf(deadlines, size * 2);
+			releaseTimes = Arrays.copyOf(releaseTimes, size * 2);
+			remainingLengths = Arrays.copyOf(remainingLengths, size * 2);
+			taskCapacities = Arrays.copyOf(taskCapacities, size * 2);
+		}
+
+		int index = size;
+		while(index > 0 && deadlines[index - 1] > deadline)
+			index--;
+		move(index, index + 1, size - index);
+
+		taskIds[index] = taskId;
+		deadlines[index] = deadline;
+		releaseTimes[index] = releaseTime;
+		remainingLengths[index] = length * pesNumber;
+		taskCapacities[index] = getTaskCapacity(pesNumber);
+		size++;
+	}
+
+	/**
+	 * removes the task which leaves the VM, returns false if the task
+	 * is not admitted to this VM or it is already dropped as finished
+	 */
+	public boolean release(int taskId) {
+		for(int i=0; i<size; i++) {
+			if(taskIds[i] == taskId) {
+				move(i + 1, i, size - i - 1);
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * returns the number of the tasks which are admitted and not released
+	 */
+	public int getNumOfAdmittedTasks() {
+		return size;
+	}
+
+	private double getCapacity() {
+		return vm.getMips() * vm.getNumberOfPes();
+	}
+
+	private double getTaskCapacity(int pesNumber) {
+		return vm.getMips() * Math.max(1, Math.min(pesNumber, vm.getNumberOfPes()));
+	}
+
+	/*
+	 * returns the lower bound of the finish time of a task, where the
+	 * cumulative work is the work of the task and the tasks before it
+	 * in the EDF order
+	 */
+	private static double getFinishTime(double time, double cumulativeWork, double length, double releaseTime,
+			double capacity, double taskCapacity) {
+		return Math.max(time + cumulativeWork / capacity, Math.max(time, releaseTime) + length / taskCapacity);
+	}
+
+	/*
+	 * processes the released tasks in EDF order until the given time
+	 */
+	private void advance(double time) {
+		if(time <= lastUpdateTime)
+			return;
+
+		double capacity = getCapacity();
+		double available = (time - lastUpdateTime) * capacity;
+		for(int i=0; i<size && available > 0; i++) {
+			double startTime = Math.max(lastUpdateTime, releaseTimes[i]);
+			if(startTime >= time)
+				continue;
+
+			double processed = Math.min(remainingLengths[i], Math.min(available, (time - startTime) * taskCapacities[i]));
+			remainingLengths[i] -= processed;
+			available -= processed;
+		}
+		lastUpdateTime = time;
+
+		//the finished tasks do not use the VM anymore
+		int newSize = 0;
+		for(int i=0; i<size; i++) {
+			if(remainingLengths[i] > 0) {
+				if(newSize != i)
+					move(i, newSize, 1);
+				newSize++;
+			}
+		}
+		size = newSize;
+	}
+
+	private void move(int from, int to, int length) {
+		System.arraycopy(taskIds, from, taskIds, to, length);
+		System.arraycopy(deadlines, from, deadlines, to, length);
+		System.arraycopy(releaseTimes, from, releaseTimes, to, length);
+		System.arraycopy(remainingLengths, from, remainingLengths, to, length);
+		System.arraycopy(taskCapacities, from, taskCapacities, to, length);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Title:        EdgeCloudSim - Edge Cloudlet Scheduler
+ * 
+ * Description: 
+ * EdgeCloudletScheduler is the processor sharing cloudlet scheduler of
+ * the edge VMs (see ProcessorSharingCloudletScheduler). It refreshes the
+ * free capacity of its VM in the capacity index of the edge server
+ * manager whenever the set of the running cloudlets changes, i.e. when a
+ * cloudlet is submitted, finished or canceled.
+ * 
+ * A running cloudlet can be migrated to another VM. The progress of the
+ * cloudlets is brought up to date before the cloudlet is removed, and
+ * the length of the cloudlet is reduced to its remaining length, so it
+ * is resumed instead of restarted on the new VM.
+ * 
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_server;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+public class EdgeCloudletScheduler extends ProcessorSharingCloudletScheduler {
+	private EdgeVmCapacityIndex capacityIndex;
+	private int indexOfVm;
+	private int numOfRunningCloudlets;
+
+	public EdgeCloudletScheduler() {
+		super();
+	}
+
+	public void setCapacityIndex(EdgeVmCapacityIndex _capacityIndex, int _indexOfVm) {
+		capacityIndex = _capacityIndex;
+		indexOfVm = _indexOfVm;
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		double result = super.cloudletSubmit(cloudlet, fileTransferTime);
+		updateCapacityIndex();
+		return result;
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		Cloudlet result = super.cloudletCancel(cloudletId);
+		updateCapacityIndex();
+		return result;
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		double result = super.updateVmProcessing(currentTime, mipsShare);
+		if(runningCloudlets() != numOfRunningCloudlets)
+			updateCapacityIndex();
+		return result;
+	}
+
+	/**
+	 * removes the running cloudlet from the VM to resume it on another VM,
+	 * returns null if the cloudlet is not running on this VM
+	 */
+	public Cloudlet cloudletMigrate(int cloudletId) {
+		//the cloudlets are processed until now before the cloudlet is removed
+		updateVmProcessing(CloudSim.clock(), getCurrentMipsShare());
+		
+		ResCloudlet resCloudlet = getRunningCloudlet(cloudletId);
+		
+		//finished cloudlets are returned by the datacenter
+		if(resCloudlet == null || resCloudlet.getRemainingCloudletLength() == 0)
+			return null;
+		
+		long remainingLength = resCloudlet.getRemainingCloudletLength() / resCloudlet.getNumberOfPes();
+		Cloudlet cloudlet = cloudletCancel(cloudletId);
+		cloudlet.setCloudletLength(Math.max(1, remainingLength));
+		return cloudlet;
+	}
+	
+	private void updateCapacityIndex() {
+		numOfRunningCloudlets = runningCloudlets();
+		if(capacityIndex != null)
+			capacityIndex.update(indexOfVm, (double)100 - getTotalUtilizationOfCpu(CloudSim.clock()));
+	}
+}
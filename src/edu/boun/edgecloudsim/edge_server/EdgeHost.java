@@ -3,6 +3,9 @@
  * 
  * Description: 
  * EdgeHost adds location information over CloudSim's Host class
+ * 
+ * If edge_cache_capacity is set, each edge host keeps the results of
+ * the recent requests in an EdgeResultCache.
  *               
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -22,6 +25,7 @@ import edu.boun.edgecloudsim.utils.Location;
 
 public class EdgeHost extends Host {
 	private Location location;
+	private EdgeResultCache resultCache;
 	
 	public EdgeHost(int id, RamProvisioner ramProvisioner,
 			BwProvisioner bwProvisioner, long storage,
@@ -37,4 +41,15 @@ public class EdgeHost extends Host {
 	public Location getLocation(){
 		return location;
 	}
+	
+	public void setResultCache(EdgeResultCache _resultCache){
+		resultCache=_resultCache;
+	}
+	
+	/**
+	 * returns the result cache of the host, null if the results are not cached
+	 */
+	public EdgeResultCache getResultCache(){
+		return resultCache;
+	}
 }
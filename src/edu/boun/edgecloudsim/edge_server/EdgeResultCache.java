@@ -0,0 +1,349 @@
+/*
+ * Title:        EdgeCloudSim - Edge Result Cache
+ *
+ * Description:
+ * EdgeResultCache keeps the results of the recent requests on an edge
+ * host, so a request whose result is cached is served without executing
+ * it on a VM. The results are identified by a key (e.g. the app type and
+ * the content of the request), and the cache holds a fixed number of
+ * results; when it is full, a result is evicted with respect to the
+ * eviction policy:
+ * -> LRU evicts the least recently used result
+ * -> LFU evicts the least frequently used result, the least recently
+ *    used one if the frequencies are equal
+ * -> TINY_LFU evicts the least recently used result, but only if the
+ *    new result is requested more frequently than it; the frequencies
+ *    of all requests (not only the cached ones) are estimated by a
+ *    count-min sketch of 4 bit counters, which are halved periodically
+ *    so the old requests are forgotten (Einziger et al., TinyLFU)
+ *
+ * The entries are kept in flat primitive arrays; the keys are found via
+ * an open addressing hash table of entry indexes, the recency order is
+ * a doubly linked list of the entry indexes and the frequency order of
+ * LFU is a binary min heap, so a lookup costs O(1) for LRU and TINY_LFU
+ * and O(log n) for LFU without creating any objects.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_server;
+
+public class EdgeResultCache {
+	public static enum EVICTION_POLICIES { LRU, LFU, TINY_LFU }
+
+	private static final int EMPTY = -1;
+	private static final int SKETCH_DEPTH = 4;
+	private static final int MAX_SKETCH_COUNT = 15;
+	private static final int SAMPLE_SIZE_FACTOR = 10; //requests per cached result before the counters are halved
+
+	private final EVICTION_POLICIES policy;
+	private final int capacity;
+	private int size;
+	private long[] keys;
+
+	//entry index of each slot, EMPTY if the slot is free
+	private int[] table;
+	private int tableMask;
+
+	//recency list (LRU and TINY_LFU), the head is the most recently used entry
+	private int[] previous;
+	private int[] next;
+	private int head;
+	private int tail;
+
+	//min heap of the entries (LFU) ordered by frequency and last access
+	private int[] heap;
+	private int[] heapPositions;
+	private long[] frequencies;
+	private long[] accessTimes;
+	private long accessCounter;
+
+	//frequency sketch (TINY_LFU), SKETCH_DEPTH rows of sketchWidth counters
+	private byte[] sketch;
+	private int sketchMask;
+	private int sampleSize;
+	private int numOfSamples;
+
+	private long numOfEvictions;
+	private long numOfRejections;
+
+	public EdgeResultCache(EVICTION_POLICIES _policy, int _capacity) {
+		if(_capacity <= 0)
+			throw new IllegalArgumentException("capacity of the edge result cache must be positive");
+
+		policy = _policy;
+		capacity = _capacity;
+		keys = new long[capacity];
+
+		int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+		table = new int[tableSize];
+		tableMask = tableSize - 1;
+		for(int i=0; i<tableSize; i++)
+			table[i] = EMPTY;
+
+		if(policy == EVICTION_POLICIES.LFU) {
+			heap = new int[capacity];
+			heapPositions = new int[capacity];
+			frequencies = new long[capacity];
+			accessTimes = new long[capacity];
+		}
+		else {
+			previous = new int[capacity];
+			next = new int[capacity];
+			head = tail = EMPTY;
+		}
+
+		if(policy == EVICTION_POLICIES.TINY_LFU) {
+			int sketchWidth = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+			sketch = new byte[SKETCH_DEPTH * sketchWidth];
+			sketchMask = sketchWidth - 1;
+			sampleSize = SAMPLE_SIZE_FACTOR * capacity;
+		}
+	}
+
+	/**
+	 * returns true if the result of the given key is cached, the access
+	 * is recorded for the eviction policy
+	 */
+	public boolean lookup(long key) {
+		if(sketch != null)
+			recordRequest(key);
+
+		int slot = findSlot(key);
+		if(table[slot] == EMPTY)
+			return false;
+
+		accessed(table[slot]);
+		return true;
+	}
+
+	/**
+	 * adds the result of the given key to the cache, another result is
+	 * evicted if the cache is full; returns false if the result is not
+	 * admitted by TINY_LFU
+	 */
+	public boolean add(long key) {
+		int slot = findSlot(key);
+		if(table[slot] != EMPTY) {
+			accessed(table[slot]);
+			return true;
+		}
+
+		int entry;
+		if(size < capacity) {
+			entry = size++;
+			keys[entry] = key;
+			table[slot] = entry;
+			if(heap != null) {
+				heap[entry] = entry;
+				heapPositions[entry] = entry;
+				frequencies[entry] = 1;
+				accessTimes[entry] = ++accessCounter;
+				siftUp(entry);
+			}
+			else {
+				addToHead(entry);
+			}
+			return true;
+		}
+
+		entry = (heap != null) ? heap[0] : tail;
+		if(sketch != null && estimateFrequency(key) <= estimateFrequency(keys[entry])) {
+			numOfRejections++;
+			return false;
+		}
+
+		//the entry of the victim is reused for the new result
+		removeSlot(findSlot(keys[entry]));
+		numOfEvictions++;
+		keys[entry] = key;
+		table[findSlot(key)] = entry;
+		if(heap != null) {
+			frequencies[entry] = 1;
+			accessTimes[entry] = ++accessCounter;
+			siftDown(heapPositions[entry]);
+		}
+		else {
+			moveToHead(entry);
+		}
+		return true;
+	}
+
+	public boolean contains(long key) {
+		return table[findSlot(key)] != EMPTY;
+	}
+
+	public EVICTION_POLICIES getPolicy() {
+		return policy;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * returns the number of cached results
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public long getNumOfEvictions() {
+		return numOfEvictions;
+	}
+
+	/**
+	 * returns the number of results which are not admitted by TINY_LFU
+	 */
+	public long getNumOfRejections() {
+		return numOfRejections;
+	}
+
+	private void accessed(int entry) {
+		if(heap != null) {
+			frequencies[entry]++;
+			accessTimes[entry] = ++accessCounter;
+			siftDown(heapPositions[entry]);
+		}
+		else if(entry != head) {
+			moveToHead(entry);
+		}
+	}
+
+	private static long hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	/*
+	 * returns the slot of the key, or the free slot where it can be added
+	 */
+	private int findSlot(long key) {
+		int slot = (int)hash(key) & tableMask;
+		while(table[slot] != EMPTY && keys[table[slot]] != key)
+			slot = (slot + 1) & tableMask;
+		return slot;
+	}
+
+	/*
+	 * frees the slot and moves the following entries back, so the
+	 * probe sequences are not broken
+	 */
+	private void removeSlot(int slot) {
+		int hole = slot;
+		int current = (slot + 1) & tableMask;
+		while(table[current] != EMPTY) {
+			int home = (int)hash(keys[table[current]]) & tableMask;
+			if(((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+				table[hole] = table[current];
+				hole = current;
+			}
+			current = (current + 1) & tableMask;
+		}
+		table[hole] = EMPTY;
+	}
+
+	private void addToHead(int entry) {
+		previous[entry] = EMPTY;
+		next[entry] = head;
+		if(head != EMPTY)
+			previous[head] = entry;
+		head = entry;
+		if(tail == EMPTY)
+			tail = entry;
+	}
+
+	private void moveToHead(int entry) {
+		if(entry == head)
+			return;
+
+		next[previous[entry]] = next[entry];
+		if(entry == tail)
+			tail = previous[entry];
+		else
+			previous[next[entry]] = previous[entry];
+		addToHead(entry);
+	}
+
+	private boolean isBefore(int first, int second) {
+		if(frequencies[first] != frequencies[second])
+			return frequencies[first] < frequencies[second];
+		return accessTimes[first] < accessTimes[second];
+	}
+
+	private void siftUp(int position) {
+		int entry = heap[position];
+		while(position > 0) {
+			int parent = (position - 1) / 2;
+			if(!isBefore(entry, heap[parent]))
+				break;
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+	private void siftDown(int position) {
+		int entry = heap[position];
+		while(true) {
+			int child = 2 * position + 1;
+			if(child >= size)
+				break;
+			if(child + 1 < size && isBefore(heap[child + 1], heap[child]))
+				child++;
+			if(!isBefore(heap[child], entry))
+				break;
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+	/*
+	 * increments the smallest counters of the key (conservative update),
+	 * all counters are halved after sampleSize requests
+	 */
+	private void recordRequest(long key) {
+		long hash = hash(key);
+		int minCount = MAX_SKETCH_COUNT;
+		for(int row=0; row<SKETCH_DEPTH; row++)
+			minCount = Math.min(minCount, sketch[sketchIndex(hash, row)]);
+
+		if(minCount < MAX_SKETCH_COUNT) {
+			for(int row=0; row<SKETCH_DEPTH; row++) {
+				int index = sketchIndex(hash, row);
+				if(sketch[index] == minCount)
+					sketch[index]++;
+			}
+		}
+
+		if(++numOfSamples >= sampleSize) {
+			for(int i=0; i<sketch.length; i++)
+				sketch[i] >>= 1;
+			numOfSamples /= 2;
+		}
+	}
+
+	private int estimateFrequency(long key) {
+		long hash = hash(key);
+		int count = MAX_SKETCH_COUNT;
+		for(int row=0; row<SKETCH_DEPTH; row++)
+			count = Math.min(count, sketch[sketchIndex(hash, row)]);
+		return count;
+	}
+
+	private int sketchIndex(long hash, int row) {
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32) | 1;
+		return row * (sketchMask + 1) + ((h1 + row * h2) & sketchMask);
+	}
+}
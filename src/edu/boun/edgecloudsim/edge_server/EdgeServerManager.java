@@ -5,7 +5,8 @@
  * EdgeServerManager is responsible for creating and terminating
  * the edge datacenters which operates the hosts and VMs.
  * It also provides the list of VMs running on the hosts and
- * the average utilization of all VMs.
+ * the average utilization of all VMs, of each datacenter and
+ * of each host.
  *
  * Please note that, EdgeCloudSim is built on top of CloudSim
  * Therefore, all the computational units are handled by CloudSim
@@ -22,10 +23,12 @@ import java.util.List;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
 
 public abstract class EdgeServerManager {
 	protected List<Datacenter> localDatacenters;
 	protected List<List<EdgeVM>> vmList;
+	protected EdgeVmCapacityIndex capacityIndex;
 
 	public EdgeServerManager() {
 		localDatacenters=new ArrayList<Datacenter>();
@@ -40,6 +43,14 @@ public abstract class EdgeServerManager {
 		return localDatacenters;
 	}
 	
+	/*
+	 * returns the free capacity index of the VMs,
+	 * null if the edge server manager does not maintain it
+	 */
+	public EdgeVmCapacityIndex getCapacityIndex(){
+		return capacityIndex;
+	}
+	
 	/*
 	 * initialize edge server manager if needed
 	 */
@@ -68,4 +79,38 @@ public abstract class EdgeServerManager {
 	 * returns average utilization of all VMs
 	 */
 	public abstract double getAvgUtilization();
+	
+	/*
+	 * returns average utilization of the VMs on the datacenter
+	 */
+	public double getAvgUtilizationOfDatacenter(int datacenterIndex){
+		if(capacityIndex != null)
+			return capacityIndex.getAvgUtilizationOfDatacenter(datacenterIndex);
+		
+		double totalUtilization = 0;
+		double vmCounter = 0;
+		List<? extends Host> list = localDatacenters.get(datacenterIndex).getHostList();
+		for (int j=0; j < list.size(); j++) {
+			List<EdgeVM> vmArray = getVmList(list.get(j).getId());
+			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
+				totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+				vmCounter++;
+			}
+		}
+		return totalUtilization / vmCounter;
+	}
+	
+	/*
+	 * returns average utilization of the VMs on the host
+	 */
+	public double getAvgUtilizationOfHost(int hostId){
+		if(capacityIndex != null)
+			return capacityIndex.getAvgUtilizationOfHost(hostId);
+		
+		double totalUtilization = 0;
+		List<EdgeVM> vmArray = getVmList(hostId);
+		for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++)
+			totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+		return totalUtilization / vmArray.size();
+	}
 }
\ No newline at end of file
@@ -3,6 +3,9 @@
  * 
  * Description: 
  * EdgeVM adds vm type information over CloudSim's VM class
+ * 
+ * If deadline_admission_control is set, the tasks are admitted to
+ * the VM by its EdfAdmissionController.
  *               
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -20,6 +23,7 @@ import edu.boun.edgecloudsim.core.SimSettings;
 
 public class EdgeVM extends Vm {
 	private SimSettings.VM_TYPES type;
+	private EdfAdmissionController admissionController;
 	
 	public EdgeVM(int id, int userId, double mips, int numberOfPes, int ram,
 			long bw, long size, String vmm, CloudletScheduler cloudletScheduler) {
@@ -32,6 +36,16 @@ public class EdgeVM extends Vm {
 		return type;
 	}
 
+	/**
+	 * returns the admission controller of the VM, it is created when
+	 * it is used first
+	 */
+	public EdfAdmissionController getAdmissionController(){
+		if(admissionController == null)
+			admissionController = new EdfAdmissionController(this);
+		return admissionController;
+	}
+
 	/**
 	 *  dynamically reconfigures the mips value of a  VM in CloudSim
 	 * 
@@ -0,0 +1,217 @@
+/*
+ * Title:        EdgeCloudSim - Edge VM Capacity Index
+ * 
+ * Description: 
+ * EdgeVmCapacityIndex keeps the free CPU capacity (%) of each edge VM
+ * in a max segment tree. The VMs are indexed host by host, so the VMs
+ * of a host form a contiguous range in the tree. The index is updated
+ * by EdgeCloudletScheduler when a cloudlet is submitted to or removed
+ * from a VM, and the orchestrators query the least loaded (worst fit)
+ * or the first fitting VM in logarithmic time instead of scanning all
+ * hosts and VMs for each task.
+ * 
+ * Ties are broken in favor of the VM with the lower index, which gives
+ * the same result with the linear scan used by the orchestrators.
+ * 
+ * The index also keeps the running sum of the VM utilizations for all
+ * VMs, for each host and for each datacenter. The sums are updated by
+ * the difference of the old and the new utilization of the VM, so the
+ * average utilization is available in constant time.
+ * 
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_server;
+
+import java.util.List;
+
+public class EdgeVmCapacityIndex {
+	private static final double MAX_CAPACITY = 100;
+
+	private int numOfVMs;
+	private int size; //number of leaves, power of two
+	private double[] tree;
+	private EdgeVM[] vms;
+	private int[] hostOffsets;
+
+	private int[] hostOfVm;
+	private int[] datacenterOfHost;
+	private int[] numOfVMsOnDatacenter;
+	private double totalUtilization;
+	private double[] hostUtilization;
+	private double[] datacenterUtilization;
+
+	/**
+	 * creates the index of the VMs in vmList, the hosts of datacenter i
+	 * are the hosts in [datacenterHostOffsets[i], datacenterHostOffsets[i+1])
+	 */
+	public EdgeVmCapacityIndex(List<List<EdgeVM>> vmList, int[] datacenterHostOffsets) {
+		hostOffsets = new int[vmList.size() + 1];
+		for(int hostIndex=0; hostIndex<vmList.size(); hostIndex++)
+			hostOffsets[hostIndex+1] = hostOffsets[hostIndex] + vmList.get(hostIndex).size();
+
+		numOfVMs = hostOffsets[vmList.size()];
+		vms = new EdgeVM[numOfVMs];
+		for(int hostIndex=0; hostIndex<vmList.size(); hostIndex++)
+			for(int vmIndex=0; vmIndex<vmList.get(hostIndex).size(); vmIndex++)
+				vms[hostOffsets[hostIndex] + vmIndex] = vmList.get(hostIndex).get(vmIndex);
+
+		size = 1;
+		while(size < numOfVMs)
+			size <<= 1;
+
+		//unused leaves never fit any task
+		tree = new double[2 * size];
+		for(int i=0; i<size; i++)
+			tree[size + i] = (i < numOfVMs) ? MAX_CAPACITY : Double.NEGATIVE_INFINITY;
+		for(int i=size-1; i>0; i--)
+			tree[i] = Math.max(tree[2*i], tree[2*i+1]);
+
+		int numOfDatacenters = datacenterHostOffsets.length - 1;
+		hostOfVm = new int[numOfVMs];
+		datacenterOfHost = new int[vmList.size()];
+		numOfVMsOnDatacenter = new int[numOfDatacenters];
+		hostUtilization = new double[vmList.size()];
+		datacenterUtilization = new double[numOfDatacenters];
+		for(int datacenterIndex=0; datacenterIndex<numOfDatacenters; datacenterIndex++){
+			for(int hostIndex=datacenterHostOffsets[datacenterIndex]; hostIndex<datacenterHostOffsets[datacenterIndex+1]; hostIndex++){
+				datacenterOfHost[hostIndex] = datacenterIndex;
+				numOfVMsOnDatacenter[datacenterIndex] += hostOffsets[hostIndex+1] - hostOffsets[hostIndex];
+				for(int index=hostOffsets[hostIndex]; index<hostOffsets[hostIndex+1]; index++)
+					hostOfVm[index] = hostIndex;
+			}
+		}
+	}
+
+	public int getNumOfVMs() {
+		return numOfVMs;
+	}
+
+	/**
+	 * returns the index of the VM in the capacity index
+	 */
+	public int getIndex(int hostIndex, int vmIndex) {
+		return hostOffsets[hostIndex] + vmIndex;
+	}
+
+	public EdgeVM getVm(int index) {
+		return vms[index];
+	}
+
+	public double getFreeCapacity(int index) {
+		return tree[size + index];
+	}
+
+	public void update(int index, double freeCapacity) {
+		int position = size + index;
+
+		//utilization is the complement of the free capacity
+		double delta = tree[position] - freeCapacity;
+		if(delta != 0){
+			int hostIndex = hostOfVm[index];
+			totalUtilization += delta;
+			hostUtilization[hostIndex] += delta;
+			datacenterUtilization[datacenterOfHost[hostIndex]] += delta;
+		}
+
+		tree[position] = freeCapacity;
+		for(position >>= 1; position > 0; position >>= 1)
+			tree[position] = Math.max(tree[2*position], tree[2*position+1]);
+	}
+
+	/**
+	 * returns average utilization of all VMs
+	 */
+	public double getAvgUtilization() {
+		return totalUtilization / numOfVMs;
+	}
+
+	/**
+	 * returns average utilization of the VMs on the host
+	 */
+	public double getAvgUtilizationOfHost(int hostIndex) {
+		return hostUtilization[hostIndex] / (hostOffsets[hostIndex+1] - hostOffsets[hostIndex]);
+	}
+
+	/**
+	 * returns average utilization of the VMs on the datacenter
+	 */
+	public double getAvgUtilizationOfDatacenter(int datacenterIndex) {
+		return datacenterUtilization[datacenterIndex] / numOfVMsOnDatacenter[datacenterIndex];
+	}
+
+	/**
+	 * returns the VM with the maximum free capacity among all VMs,
+	 * null if the required capacity does not fit any VM
+	 */
+	public EdgeVM getLeastLoadedVm(double requiredCapacity) {
+		return getLeastLoadedVm(0, numOfVMs, requiredCapacity);
+	}
+
+	/**
+	 * returns the index of the VM with the maximum free capacity among
+	 * all VMs, -1 if the required capacity does not fit any VM
+	 */
+	public int getLeastLoadedVmIndex(double requiredCapacity) {
+		return getLeastLoadedVmIndex(0, numOfVMs, requiredCapacity);
+	}
+
+	/**
+	 * returns the VM with the maximum free capacity on the host,
+	 * null if the required capacity does not fit any VM on the host
+	 */
+	public EdgeVM getLeastLoadedVm(int hostIndex, double requiredCapacity) {
+		return getLeastLoadedVm(hostOffsets[hostIndex], hostOffsets[hostIndex+1], requiredCapacity);
+	}
+
+	/**
+	 * returns the first VM on the host which has enough free capacity
+	 */
+	public EdgeVM getFirstFitVm(int hostIndex, double requiredCapacity) {
+		int index = findFirst(1, 0, size, hostOffsets[hostIndex], hostOffsets[hostIndex+1], requiredCapacity);
+		return (index == -1) ? null : vms[index];
+	}
+
+	private EdgeVM getLeastLoadedVm(int from, int to, double requiredCapacity) {
+		int index = getLeastLoadedVmIndex(from, to, requiredCapacity);
+		return (index == -1) ? null : vms[index];
+	}
+
+	private int getLeastLoadedVmIndex(int from, int to, double requiredCapacity) {
+		double maxCapacity = getMaxCapacity(from, to);
+		if(maxCapacity <= 0 || maxCapacity < requiredCapacity)
+			return -1;
+
+		return findFirst(1, 0, size, from, to, maxCapacity);
+	}
+
+	private double getMaxCapacity(int from, int to) {
+		double result = Double.NEGATIVE_INFINITY;
+		for(from += size, to += size; from < to; from >>= 1, to >>= 1){
+			if((from & 1) == 1)
+				result = Math.max(result, tree[from++]);
+			if((to & 1) == 1)
+				result = Math.max(result, tree[--to]);
+		}
+		return result;
+	}
+
+	/*
+	 * returns the leftmost index in [from, to) whose capacity is at least
+	 * the threshold, the node covers the leaves in [nodeFrom, nodeTo)
+	 */
+	private int findFirst(int node, int nodeFrom, int nodeTo, int from, int to, double threshold) {
+		if(nodeTo <= from || to <= nodeFrom || tree[node] < threshold)
+			return -1;
+
+		if(nodeTo - nodeFrom == 1)
+			return nodeFrom;
+
+		int middle = (nodeFrom + nodeTo) >>> 1;
+		int result = findFirst(2*node, nodeFrom, middle, from, to, threshold);
+		if(result == -1)
+			result = findFirst(2*node+1, middle, nodeTo, from, to, threshold);
+		return result;
+	}
+}
@@ -0,0 +1,390 @@
+/*
+ * Title:        EdgeCloudSim - Processor Sharing Cloudlet Scheduler
+ *
+ * Description:
+ * ProcessorSharingCloudletScheduler is a time shared cloudlet scheduler
+ * which shares the capacity of the VM equally between the PEs of the
+ * running cloudlets, like CloudletSchedulerTimeShared of CloudSim, but
+ * its cost does not grow with the number of running cloudlets.
+ *
+ * Since every PE is processed at the same rate, the scheduler keeps a
+ * virtual time, i.e. the MI processed by a single PE since the VM was
+ * last idle, and each cloudlet finishes when the virtual time reaches
+ * its virtual finish time. The running cloudlets are kept in a min heap
+ * of their virtual finish times, so
+ * -> updating the VM only advances the virtual time, O(1)
+ * -> the next finish time is read from the top of the heap, O(1)
+ * -> submitting or finishing a cloudlet costs O(log n)
+ * The heap index of each cloudlet is kept by its id and the position of
+ * each cloudlet in the list of the running cloudlets by its heap index,
+ * so a cloudlet is found in O(1) and removed from the list by moving the
+ * last cloudlet of the list to its position.
+ * The total CPU utilization is updated when the cloudlets are submitted
+ * and removed; the utilization of a cloudlet is read once when it is
+ * submitted, so the utilization models should not depend on the time.
+ *
+ * The finished length of the running cloudlets (ResCloudlet) is brought
+ * up to date only when the list of the running cloudlets is read.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.edge_server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+public class ProcessorSharingCloudletScheduler extends CloudletSchedulerTimeShared {
+	//min heap of the running cloudlets, the arrays are ordered together
+	private ResCloudlet[] heapCloudlets;
+	private double[] finishTimes; //virtual finish time (MI per PE)
+	private double[] utilizations; //CPU utilization when submitted
+	private long[] reportedLengths; //finished length reported to the ResCloudlet (instructions)
+	private int[] listIndexes; //position in the list of the running cloudlets
+	private int heapSize;
+	private Map<Integer, Integer> heapIndexes; //heap index by cloudlet id
+
+	private double virtualTime;
+	private int pesInUse;
+	private double totalUtilization;
+	private boolean lengthsReported;
+
+	public ProcessorSharingCloudletScheduler() {
+		super();
+		heapCloudlets = new ResCloudlet[16];
+		finishTimes = new double[16];
+		utilizations = new double[16];
+		reportedLengths = new long[16];
+		listIndexes = new int[16];
+		heapIndexes = new HashMap<Integer, Integer>();
+		lengthsReported = true;
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		advance(currentTime);
+
+		if(heapSize == 0)
+			return 0;
+
+		//a cloudlet is finished if less than one MI is left, as in CloudSim
+		while(heapSize > 0 && (finishTimes[0] - virtualTime) * heapCloudlets[0].getNumberOfPes() < 1) {
+			ResCloudlet rcl = heapCloudlets[0];
+			rcl.updateCloudletFinishedSoFar(rcl.getCloudletTotalLength() * Consts.MILLION - reportedLengths[0]);
+			remove(0);
+			cloudletFinish(rcl);
+		}
+
+		if(heapSize == 0)
+			return Double.MAX_VALUE;
+
+		double delay = (finishTimes[0] - virtualTime) / getCapacity(getCurrentMipsShare());
+		return currentTime + Math.max(delay, CloudSim.getMinTimeBetweenEvents());
+	}
+
+	/**
+	 * returns the estimated time when the first running cloudlet finishes,
+	 * Double.MAX_VALUE if there is no running cloudlet
+	 */
+	public double getNextFinishTime() {
+		if(heapSize == 0)
+			return Double.MAX_VALUE;
+
+		return getPreviousTime() + (finishTimes[0] - virtualTime) / getCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	protected double getCapacity(List<Double> mipsShare) {
+		return getCapacity(mipsShare, 0);
+	}
+
+	/*
+	 * returns the capacity of each PE if the given PEs are added to the
+	 * PEs of the running cloudlets
+	 */
+	private double getCapacity(List<Double> mipsShare, int extraPes) {
+		double capacity = 0;
+		int cpus = 0;
+		for(Double mips : mipsShare) {
+			capacity += mips;
+			if(mips > 0)
+				cpus++;
+		}
+		currentCPUs = cpus;
+
+		return capacity / Math.max(pesInUse + extraPes, currentCPUs);
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		//the running cloudlets are processed until now with the previous capacity
+		advance(CloudSim.clock());
+
+		ResCloudlet rcl = new ResCloudlet(cloudlet);
+		rcl.setCloudletStatus(Cloudlet.INEXEC);
+		for(int i=0; i<cloudlet.getNumberOfPes(); i++)
+			rcl.setMachineAndPeId(0, i);
+
+		//the capacity is used to estimate the extra length for the file transfer
+		if(fileTransferTime > 0) {
+			double extraSize = getCapacity(getCurrentMipsShare(), cloudlet.getNumberOfPes()) * fileTransferTime;
+			cloudlet.setCloudletLength((long)(cloudlet.getCloudletLength() + extraSize));
+		}
+		add(rcl, 0);
+
+		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet) {
+		return cloudletSubmit(cloudlet, 0);
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		int index = indexOf(cloudletId);
+		if(index == -1)
+			return super.cloudletCancel(cloudletId); //finished or paused cloudlets
+
+		ResCloudlet rcl = heapCloudlets[index];
+		reportLength(index);
+		remove(index);
+
+		if(rcl.getRemainingCloudletLength() == 0)
+			cloudletFinish(rcl);
+		else
+			rcl.setCloudletStatus(Cloudlet.CANCELED);
+
+		return rcl.getCloudlet();
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		int index = indexOf(cloudletId);
+		if(index == -1)
+			return super.cloudletPause(cloudletId);
+
+		ResCloudlet rcl = heapCloudlets[index];
+		reportLength(index);
+		remove(index);
+
+		if(rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		}
+		else {
+			rcl.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletPausedList().add(rcl);
+		}
+		return true;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		advance(CloudSim.clock());
+
+		List<ResCloudlet> pausedList = getCloudletPausedList();
+		for(int i=0; i<pausedList.size(); i++) {
+			ResCloudlet rcl = pausedList.get(i);
+			if(rcl.getCloudletId() == cloudletId) {
+				pausedList.remove(i);
+				rcl.setCloudletStatus(Cloudlet.INEXEC);
+
+				//the finished length below one MI is not known, it is reported again
+				long remainingLength = rcl.getRemainingCloudletLength();
+				add(rcl, (rcl.getCloudletTotalLength() - remainingLength) * Consts.MILLION);
+
+				return CloudSim.clock() + remainingLength / (getCapacity(getCurrentMipsShare()) * rcl.getNumberOfPes());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * returns the running cloudlets; their finished lengths are brought
+	 * up to date when the list is read
+	 */
+	@Override
+	public <T extends ResCloudlet> List<T> getCloudletExecList() {
+		if(!lengthsReported) {
+			for(int i=0; i<heapSize; i++)
+				reportLength(i);
+			lengthsReported = true;
+		}
+		return super.getCloudletExecList();
+	}
+
+	@Override
+	public int runningCloudlets() {
+		return heapSize;
+	}
+
+	@Override
+	public double getTotalUtilizationOfCpu(double time) {
+		return totalUtilization;
+	}
+
+	/*
+	 * advances the virtual time until the given time with the current capacity
+	 */
+	private void advance(double currentTime) {
+		double timeSpan = currentTime - getPreviousTime();
+		if(timeSpan > 0 && heapSize > 0) {
+			virtualTime += getCapacity(getCurrentMipsShare()) * timeSpan;
+			lengthsReported = false;
+		}
+		setPreviousTime(currentTime);
+	}
+
+	/*
+	 * reports the finished length of the cloudlet at the given heap index,
+	 * it is rounded down so an unfinished cloudlet is never reported as finished
+	 */
+	private void reportLength(int index) {
+		ResCloudlet rcl = heapCloudlets[index];
+		double remaining = Math.max(0, finishTimes[index] - virtualTime) * rcl.getNumberOfPes() * Consts.MILLION;
+		long finishedLength = rcl.getCloudletTotalLength() * Consts.MILLION - (long)Math.ceil(remaining);
+		if(finishedLength > reportedLengths[index]) {
+			rcl.updateCloudletFinishedSoFar(finishedLength - reportedLengths[index]);
+			reportedLengths[index] = finishedLength;
+		}
+	}
+
+	/**
+	 * returns the running cloudlet with its finished length brought up to
+	 * date, null if the cloudlet is not running on this VM
+	 */
+	protected ResCloudlet getRunningCloudlet(int cloudletId) {
+		int index = indexOf(cloudletId);
+		if(index == -1)
+			return null;
+
+		reportLength(index);
+		return heapCloudlets[index];
+	}
+
+	private int indexOf(int cloudletId) {
+		Integer index = heapIndexes.get(cloudletId);
+		return (index == null) ? -1 : index;
+	}
+
+	/*
+	 * adds the running cloudlet whose given length is already reported
+	 */
+	private void add(ResCloudlet rcl, long reportedLength) {
+		if(heapSize == heapCloudlets.length) {
+			heapCloudlets = Arrays.copyOf(heapCloudlets, heapSize * 2);
+			finishTimes = Arrays.copyOf(finishTimes, heapSize * 2);
+			utilizations = Arrays.copyOf(utilizations, heapSize * 2);
+			reportedLengths = Arrays.copyOf(reportedLengths, heapSize * 2);
+			listIndexes = Arrays.copyOf(listIndexes, heapSize * 2);
+		}
+
+		double utilization = rcl.getCloudlet().getUtilizationOfCpu(CloudSim.clock());
+		int index = heapSize++;
+		heapCloudlets[index] = rcl;
+		finishTimes[index] = virtualTime + (double)(rcl.getCloudletTotalLength() * Consts.MILLION - reportedLength) / Consts.MILLION / rcl.getNumberOfPes();
+		utilizations[index] = utilization;
+		reportedLengths[index] = reportedLength;
+		List<ResCloudlet> execList = super.getCloudletExecList();
+		listIndexes[index] = execList.size();
+		execList.add(rcl);
+		heapIndexes.put(rcl.getCloudletId(), index);
+		siftUp(index);
+
+		pesInUse += rcl.getNumberOfPes();
+		totalUtilization += utilization;
+	}
+
+	private void remove(int index) {
+		ResCloudlet rcl = heapCloudlets[index];
+		List<ResCloudlet> execList = super.getCloudletExecList();
+		int last = execList.size() - 1;
+		if(listIndexes[index] != last) {
+			ResCloudlet movedRcl = execList.get(last);
+			execList.set(listIndexes[index], movedRcl);
+			listIndexes[heapIndexes.get(movedRcl.getCloudletId())] = listIndexes[index];
+		}
+		execList.remove(last);
+		heapIndexes.remove(rcl.getCloudletId());
+		pesInUse -= rcl.getNumberOfPes();
+		totalUtilization -= utilizations[index];
+
+		heapSize--;
+		if(index != heapSize) {
+			move(heapSize, index);
+			siftDown(index);
+			siftUp(index);
+		}
+		heapCloudlets[heapSize] = null;
+
+		//the rounding errors are cleared when the VM is idle
+		if(heapSize == 0) {
+			virtualTime = 0;
+			totalUtilization = 0;
+		}
+	}
+
+	private boolean isBefore(int first, int second) {
+		if(finishTimes[first] != finishTimes[second])
+			return finishTimes[first] < finishTimes[second];
+		return heapCloudlets[first].getCloudletId() < heapCloudlets[second].getCloudletId();
+	}
+
+	private void siftUp(int index) {
+		while(index > 0) {
+			int parent = (index - 1) / 2;
+			if(!isBefore(index, parent))
+				break;
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index) {
+		while(true) {
+			int child = 2 * index + 1;
+			if(child >= heapSize)
+				break;
+			if(child + 1 < heapSize && isBefore(child + 1, child))
+				child++;
+			if(!isBefore(child, index))
+				break;
+			swap(index, child);
+			index = child;
+		}
+	}
+
+	private void swap(int first, int second) {
+		ResCloudlet rcl = heapCloudlets[first];
+		double finishTime = finishTimes[first];
+		double utilization = utilizations[first];
+		long reportedLength = reportedLengths[first];
+		int listIndex = listIndexes[first];
+		move(second, first);
+		heapCloudlets[second] = rcl;
+		finishTimes[second] = finishTime;
+		utilizations[second] = utilization;
+		reportedLengths[second] = reportedLength;
+		listIndexes[second] = listIndex;
+		heapIndexes.put(rcl.getCloudletId(), second);
+	}
+
+	private void move(int from, int to) {
+		heapCloudlets[to] = heapCloudlets[from];
+		finishTimes[to] = finishTimes[from];
+		utilizations[to] = utilizations[from];
+		reportedLengths[to] = reportedLengths[from];
+		listIndexes[to] = listIndexes[from];
+		heapIndexes.put(heapCloudlets[to].getCloudletId(), to);
+	}
+}
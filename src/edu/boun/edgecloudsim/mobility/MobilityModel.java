@@ -39,4 +39,17 @@ public abstract class MobilityModel {
 	 * returns location of a device at a certain time
 	 */
 	public abstract Location getLocation(int deviceId, double time);
+	
+	/*
+	 * returns the number of devices served by the access point at a certain time
+	 * mobility models keeping an occupancy index should override this method
+	 */
+	public int getDeviceCount(int wlanId, double time) {
+		int deviceCount = 0;
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			if(getLocation(i, time).getServingWlanId() == wlanId)
+				deviceCount++;
+		}
+		return deviceCount;
+	}
 }
@@ -1,123 +1,293 @@
 /*
  * Title:        EdgeCloudSim - Nomadic Mobility model implementation
- * 
- * Description: 
+ *
+ * Description:
  * MobilityModel implements basic nomadic mobility model where the
  * place of the devices are changed from time to time instead of a
  * continuous location update.
- * 
+ *
+ * The timelines of all devices are kept in shared primitive arrays: the
+ * transitions of a device are stored consecutively, sorted by time, as
+ * the time of the transition and the index of the new datacenter. The
+ * location of a device is found by binary search, or in amortized
+ * constant time by a LocationCursor if the queries are in time order.
+ * The Location objects are the ones of the edge topology, so there is
+ * a single Location object for each access point.
+ *
+ * The number of devices at each access point is also kept in time
+ * ordered arrays, so the device count of an access point is found
+ * without checking the location of all devices.
+ *
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
  */
 
 package edu.boun.edgecloudsim.mobility;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
-import java.util.Map.Entry;
-
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import java.util.Arrays;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.utils.Location;
-import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
 public class NomadicMobility extends MobilityModel {
-	private List<TreeMap<Double, Location>> treeMapArray;
-	
+	private Location[] locations; //location of each datacenter
+
+	//timelines of the devices, the transitions of device i are in [deviceOffsets[i], deviceOffsets[i+1])
+	private int[] deviceOffsets;
+	private double[] transitionTimes;
+	private int[] transitionDatacenters;
+	private int[] lastPositions; //position of the last query of each device
+
+	//number of devices at each access point, indexed by wlan id
+	private double[][] occupancyTimes;
+	private int[][] occupancyCounts;
+
 	public NomadicMobility(int _numberOfMobileDevices, double _simulationTime) {
 		super(_numberOfMobileDevices, _simulationTime);
 		// TODO Auto-generated constructor stub
 	}
-	
+
 	@Override
 	public void initialize() {
-		treeMapArray = new ArrayList<TreeMap<Double, Location>>();
-		
-		ExponentialDistribution[] expRngList = new ExponentialDistribution[SimSettings.getInstance().getNumOfEdgeDatacenters()];
-
-		//create random number generator for each place
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			
-			expRngList[i] = new ExponentialDistribution(SimSettings.getInstance().getMobilityLookUpTable()[placeTypeIndex]);
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		int numOfDatacenters = topology.getNumOfDatacenters();
+		double[] waitingTimeMeans = new double[numOfDatacenters];
+		locations = new Location[numOfDatacenters];
+
+		//find the location and the mean waiting time of each place
+		for (int i = 0; i < numOfDatacenters; i++) {
+			locations[i] = topology.getLocation(i);
+			int placeTypeIndex = locations[i].getPlaceTypeIndex();
+			waitingTimeMeans[i] = SimSettings.getInstance().getMobilityLookUpTable()[placeTypeIndex];
 		}
-		
-		//initialize tree maps and position of mobile devices
+
+		deviceOffsets = new int[numberOfMobileDevices + 1];
+		lastPositions = new int[numberOfMobileDevices];
+		int capacity = Math.max(16, numberOfMobileDevices * 4);
+		transitionTimes = new double[capacity];
+		transitionDatacenters = new int[capacity];
+		int size = 0;
+
 		for(int i=0; i<numberOfMobileDevices; i++) {
-			treeMapArray.add(i, new TreeMap<Double, Location>());
-			
-			int randDatacenterId = SimUtils.getRandomNumber(0, SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
-			Node datacenterNode = datacenterList.item(randDatacenterId);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-			int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-			int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
+			//each device has its own random stream
+			RandomStream rng = RandomStreams.getInstance().getStream("mobility", i);
+			deviceOffsets[i] = size;
+			lastPositions[i] = size;
 
 			//start locating user shortly after the simulation started (e.g. 10 seconds)
-			treeMapArray.get(i).put(SimSettings.CLIENT_ACTIVITY_START_TIME, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
-		}
-		
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			TreeMap<Double, Location> treeMap = treeMapArray.get(i);
+			double time = SimSettings.CLIENT_ACTIVITY_START_TIME;
+			int datacenterId = SimUtils.getRandomNumber(rng, 0, numOfDatacenters-1);
+
+			while(true) {
+				if(size == transitionTimes.length){
+					transitionTimes = Arrays.copyOf(transitionTimes, size * 2);
+					transitionDatacenters = Arrays.copyOf(transitionDatacenters, size * 2);
+				}
+				transitionTimes[size] = time;
+				transitionDatacenters[size] = datacenterId;
+				size++;
+
+				if(time >= SimSettings.getInstance().getSimulationTime())
+					break;
+
+				int currentLocationId = locations[datacenterId].getServingWlanId();
+				double waitingTime = rng.nextExponential(waitingTimeMeans[currentLocationId]);
 
-			while(treeMap.lastKey() < SimSettings.getInstance().getSimulationTime()) {				
 				boolean placeFound = false;
-				int currentLocationId = treeMap.lastEntry().getValue().getServingWlanId();
-				double waitingTime = expRngList[currentLocationId].sample();
-				
 				while(placeFound == false){
-					int newDatacenterId = SimUtils.getRandomNumber(0,SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
+					int newDatacenterId = SimUtils.getRandomNumber(rng, 0,numOfDatacenters-1);
 					if(newDatacenterId != currentLocationId){
 						placeFound = true;
-						Node datacenterNode = datacenterList.item(newDatacenterId);
-						Element datacenterElement = (Element) datacenterNode;
-						Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-						String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-						int placeTypeIndex = Integer.parseInt(attractiveness);
-						int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-						int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-						int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-						
-						treeMap.put(treeMap.lastKey()+waitingTime, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
+						datacenterId = newDatacenterId;
+						time += waitingTime;
 					}
 				}
 				if(!placeFound){
-					SimLogger.printLine("impossible is occurred! location cannot be assigned to the device!");
-					System.exit(1);
+					throw new IllegalStateException("impossible is occurred! location cannot be assigned to the device");
 				}
 			}
 		}
+		deviceOffsets[numberOfMobileDevices] = size;
+		transitionTimes = Arrays.copyOf(transitionTimes, size);
+		transitionDatacenters = Arrays.copyOf(transitionDatacenters, size);
 
+		createOccupancyIndex();
+	}
+
+	private void createOccupancyIndex() {
+		int numOfAccessPoints = SimSettings.getInstance().getNumOfEdgeDatacenters();
+
+		//each location change leaves one access point and joins another one
+		int[] numOfJoins = new int[numOfAccessPoints];
+		int[] numOfLeaves = new int[numOfAccessPoints];
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			for(int j=deviceOffsets[i]; j<deviceOffsets[i+1]; j++) {
+				numOfJoins[getWlanId(j)]++;
+				if(j > deviceOffsets[i])
+					numOfLeaves[getWlanId(j-1)]++;
+			}
+		}
+
+		double[][] joinTimes = new double[numOfAccessPoints][];
+		double[][] leaveTimes = new double[numOfAccessPoints][];
+		for(int i=0; i<numOfAccessPoints; i++) {
+			joinTimes[i] = new double[numOfJoins[i]];
+			leaveTimes[i] = new double[numOfLeaves[i]];
+			numOfJoins[i] = 0;
+			numOfLeaves[i] = 0;
+		}
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			for(int j=deviceOffsets[i]; j<deviceOffsets[i+1]; j++) {
+				int wlanId = getWlanId(j);
+				joinTimes[wlanId][numOfJoins[wlanId]++] = transitionTimes[j];
+				if(j > deviceOffsets[i]) {
+					int previousWlanId = getWlanId(j-1);
+					leaveTimes[previousWlanId][numOfLeaves[previousWlanId]++] = transitionTimes[j];
+				}
+			}
+		}
+
+		//convert the changes to the number of devices
+		occupancyTimes = new double[numOfAccessPoints][];
+		occupancyCounts = new int[numOfAccessPoints][];
+		for(int i=0; i<numOfAccessPoints; i++) {
+			double[] joins = joinTimes[i];
+			double[] leaves = leaveTimes[i];
+			Arrays.sort(joins);
+			Arrays.sort(leaves);
+
+			double[] times = new double[joins.length + leaves.length];
+			int[] counts = new int[times.length];
+			int size = 0, deviceCount = 0, joinIndex = 0, leaveIndex = 0;
+			while(joinIndex < joins.length || leaveIndex < leaves.length) {
+				double time = Math.min(
+						joinIndex < joins.length ? joins[joinIndex] : Double.MAX_VALUE,
+						leaveIndex < leaves.length ? leaves[leaveIndex] : Double.MAX_VALUE);
+				while(joinIndex < joins.length && joins[joinIndex] == time) {
+					deviceCount++;
+					joinIndex++;
+				}
+				while(leaveIndex < leaves.length && leaves[leaveIndex] == time) {
+					deviceCount--;
+					leaveIndex++;
+				}
+				times[size] = time;
+				counts[size] = deviceCount;
+				size++;
+			}
+			occupancyTimes[i] = Arrays.copyOf(times, size);
+			occupancyCounts[i] = Arrays.copyOf(counts, size);
+		}
 	}
 
 	@Override
 	public Location getLocation(int deviceId, double time) {
-		TreeMap<Double, Location> treeMap = treeMapArray.get(deviceId);
-		
-		Entry<Double, Location> e = treeMap.floorEntry(time);
-	    
-	    if(e == null){
-	    	SimLogger.printLine("impossible is occurred! no location is found for the device '" + deviceId + "' at " + time);
-	    	System.exit(1);
-	    }
-	    
-		return e.getValue();
+		//the last position is checked first, since most of the queries are in time order
+		int position = lastPositions[deviceId];
+		int end = deviceOffsets[deviceId+1];
+		if(transitionTimes[position] > time || (position+1 < end && transitionTimes[position+1] <= time)) {
+			if(position+1 < end && transitionTimes[position+1] <= time && (position+2 == end || transitionTimes[position+2] > time))
+				position++;
+			else
+				position = findPosition(deviceId, time);
+			lastPositions[deviceId] = position;
+		}
+
+		return locations[transitionDatacenters[position]];
+	}
+
+	@Override
+	public int getDeviceCount(int wlanId, double time) {
+		double[] times = occupancyTimes[wlanId];
+		int index = floorIndex(times, 0, times.length, time);
+		return (index < 0) ? 0 : occupancyCounts[wlanId][index];
+	}
+
+	/**
+	 * returns a cursor which finds the location of the device in amortized
+	 * constant time if the queries are made in increasing time order
+	 */
+	public LocationCursor getLocationCursor(int deviceId) {
+		return new LocationCursor(deviceId);
+	}
+
+	private int getWlanId(int position) {
+		return locations[transitionDatacenters[position]].getServingWlanId();
+	}
+
+	private int findPosition(int deviceId, double time) {
+		int position = floorIndex(transitionTimes, deviceOffsets[deviceId], deviceOffsets[deviceId+1], time);
+		if(position < 0){
+			throw new IllegalStateException("impossible is occurred! no location is found for the device '" + deviceId + "' at " + time);
+		}
+		return position;
+	}
+
+	/**
+	 * returns the index of the last item which is not greater than the
+	 * key in the sorted range [from, to), or -1 if there is no such item
+	 */
+	private static int floorIndex(double[] array, int from, int to, double key) {
+		int low = from, high = to - 1, result = -1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(array[middle] <= key) {
+				result = middle;
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+		return result;
 	}
 
+	public class LocationCursor {
+		private final int deviceId;
+		private final int start;
+		private final int end;
+		private int position;
+
+		private LocationCursor(int _deviceId) {
+			deviceId = _deviceId;
+			start = deviceOffsets[deviceId];
+			end = deviceOffsets[deviceId+1];
+			position = start;
+		}
+
+		public int getDeviceId() {
+			return deviceId;
+		}
+
+		/**
+		 * returns the location of the device at the given time; moves
+		 * forward through the timeline, or searches it if the time
+		 * is earlier than the previous query
+		 */
+		public Location getLocation(double time) {
+			if(time < transitionTimes[position]) {
+				if(time < transitionTimes[start]) {
+					throw new IllegalStateException("impossible is occurred! no location is found for the device '" + deviceId + "' at " + time);
+				}
+				position = floorIndex(transitionTimes, start, position, time);
+			}
+			else {
+				while(position+1 < end && transitionTimes[position+1] <= time)
+					position++;
+			}
+			return locations[transitionDatacenters[position]];
+		}
+
+		/**
+		 * returns the time of the next location change after the
+		 * last query, or infinity if the device does not move anymore
+		 */
+		public double getNextTransitionTime() {
+			return (position+1 < end) ? transitionTimes[position+1] : Double.POSITIVE_INFINITY;
+		}
+	}
 }
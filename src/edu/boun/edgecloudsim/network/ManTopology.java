@@ -0,0 +1,277 @@
+/*
+ * Title:        EdgeCloudSim - MAN Topology
+ *
+ * Description:
+ * ManTopology keeps the metropolitan area network between the edge
+ * sites, which is read from the file given by man_topology_file. The
+ * nodes are the access points (wlan ids) of the edge datacenters; the
+ * links have a bandwidth and a propagation latency, and they are used
+ * in both directions, so each link of the file is two directed links.
+ *
+ * <man_topology>
+ *   <link>
+ *     <source>0</source>
+ *     <destination>1</destination>
+ *     <bandwidth>1000</bandwidth>   (Mbps)
+ *     <latency>0.001</latency>      (seconds)
+ *   </link>
+ *   ...
+ * </man_topology>
+ *
+ * The route of each pair of nodes is the path with the lowest latency
+ * (the path with less hops if the latencies are equal). The routes are
+ * found once when the file is read and kept in flat primitive arrays,
+ * so a route is read in O(path length) without creating any objects:
+ *
+ *   for(int i=getPathStart(src,dst); i<getPathEnd(src,dst); i++)
+ *     int link = getPathLink(i);
+ *
+ * The topology does not change during the simulation; the load of the
+ * links is kept by the network model which uses the topology.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.network;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class ManTopology {
+	private final int numOfNodes;
+
+	//directed links
+	private final int[] linkSources;
+	private final int[] linkDestinations;
+	private final double[] linkBandwidths; //Kbps
+	private final double[] linkLatencies; //seconds
+
+	//the links of the route from src to dst are pathLinks[pathOffsets[src*n+dst] .. pathOffsets[src*n+dst+1])
+	private final int[] pathOffsets;
+	private final int[] pathLinks;
+	private final double[] pathLatencies; //seconds, infinity if dst is not reachable
+
+	/**
+	 * creates the topology from the directed links and finds the routes
+	 * between all nodes
+	 */
+	public ManTopology(int _numOfNodes, int[] _linkSources, int[] _linkDestinations,
+			double[] _linkBandwidths, double[] _linkLatencies) {
+		numOfNodes = _numOfNodes;
+		linkSources = _linkSources;
+		linkDestinations = _linkDestinations;
+		linkBandwidths = _linkBandwidths;
+		linkLatencies = _linkLatencies;
+
+		for(int i=0; i<linkSources.length; i++){
+			if(linkSources[i] < 0 || linkSources[i] >= numOfNodes ||
+					linkDestinations[i] < 0 || linkDestinations[i] >= numOfNodes)
+				throw new IllegalArgumentException("MAN link " + linkSources[i] + "-" + linkDestinations[i] +
+						" connects an unknown edge site, the edge sites are 0.." + (numOfNodes-1));
+			if(linkBandwidths[i] <= 0 || linkLatencies[i] < 0)
+				throw new IllegalArgumentException("MAN link " + linkSources[i] + "-" + linkDestinations[i] +
+						" must have a positive bandwidth and a non negative latency");
+		}
+
+		pathOffsets = new int[numOfNodes * numOfNodes + 1];
+		pathLatencies = new double[numOfNodes * numOfNodes];
+		pathLinks = findRoutes();
+	}
+
+	/**
+	 * creates the topology from the MAN topology XML document, the
+	 * nodes are the wlan ids of the given number of edge datacenters
+	 */
+	public static ManTopology fromDocument(Document doc, int numOfNodes) {
+		NodeList linkList = doc.getElementsByTagName("link");
+		int numOfLinks = linkList.getLength();
+
+		int[] sources = new int[numOfLinks * 2];
+		int[] destinations = new int[numOfLinks * 2];
+		double[] bandwidths = new double[numOfLinks * 2];
+		double[] latencies = new double[numOfLinks * 2];
+
+		for (int i = 0; i < numOfLinks; i++) {
+			Element linkElement = (Element) linkList.item(i);
+			int source = Integer.parseInt(getText(linkElement, "source"));
+			int destination = Integer.parseInt(getText(linkElement, "destination"));
+			double bandwidth = 1000 * Double.parseDouble(getText(linkElement, "bandwidth")); //Mbps to Kbps
+			double latency = Double.parseDouble(getText(linkElement, "latency"));
+
+			//the links are used in both directions
+			sources[2*i] = source;
+			destinations[2*i] = destination;
+			sources[2*i+1] = destination;
+			destinations[2*i+1] = source;
+			bandwidths[2*i] = bandwidths[2*i+1] = bandwidth;
+			latencies[2*i] = latencies[2*i+1] = latency;
+		}
+
+		return new ManTopology(numOfNodes, sources, destinations, bandwidths, latencies);
+	}
+
+	private static String getText(Element element, String key) {
+		NodeList nodes = element.getElementsByTagName(key);
+		if(nodes.getLength() == 0 || nodes.item(0).getTextContent().trim().isEmpty())
+			throw new IllegalArgumentException("Element '" + key + "' is not found in '" + element.getNodeName() +"'");
+		return nodes.item(0).getTextContent().trim();
+	}
+
+	/*
+	 * runs Dijkstra from each node, the route to each destination is
+	 * written by following the previous links back from the destination
+	 */
+	private int[] findRoutes() {
+		//outgoing links of each node
+		int[] outOffsets = new int[numOfNodes + 1];
+		for(int i=0; i<linkSources.length; i++)
+			outOffsets[linkSources[i] + 1]++;
+		for(int i=0; i<numOfNodes; i++)
+			outOffsets[i + 1] += outOffsets[i];
+		int[] outLinks = new int[linkSources.length];
+		int[] next = Arrays.copyOf(outOffsets, numOfNodes);
+		for(int i=0; i<linkSources.length; i++)
+			outLinks[next[linkSources[i]]++] = i;
+
+		double[] latency = new double[numOfNodes];
+		int[] hops = new int[numOfNodes];
+		int[] previousLink = new int[numOfNodes];
+		boolean[] visited = new boolean[numOfNodes];
+		int[] route = new int[numOfNodes];
+		int[] links = new int[Math.max(16, numOfNodes * numOfNodes)];
+		int numOfPathLinks = 0;
+
+		//the queue entries are {latency, hops, node}, the stale entries are skipped
+		PriorityQueue<double[]> queue = new PriorityQueue<double[]>(new Comparator<double[]>() {
+			@Override
+			public int compare(double[] first, double[] second) {
+				int result = Double.compare(first[0], second[0]);
+				if(result == 0)
+					result = Double.compare(first[1], second[1]);
+				return (result == 0) ? Double.compare(first[2], second[2]) : result;
+			}
+		});
+
+		for(int src=0; src<numOfNodes; src++){
+			Arrays.fill(latency, Double.POSITIVE_INFINITY);
+			Arrays.fill(hops, Integer.MAX_VALUE);
+			Arrays.fill(previousLink, -1);
+			Arrays.fill(visited, false);
+			latency[src] = 0;
+			hops[src] = 0;
+
+			queue.clear();
+			queue.add(new double[] {0, 0, src});
+			while(!queue.isEmpty()){
+				int node = (int)queue.poll()[2];
+				if(visited[node])
+					continue;
+				visited[node] = true;
+
+				for(int i=outOffsets[node]; i<outOffsets[node + 1]; i++){
+					int link = outLinks[i];
+					int neighbor = linkDestinations[link];
+					double candidate = latency[node] + linkLatencies[link];
+					if(!visited[neighbor] && (candidate < latency[neighbor] ||
+							(candidate == latency[neighbor] && hops[node] + 1 < hops[neighbor]))){
+						latency[neighbor] = candidate;
+						hops[neighbor] = hops[node] + 1;
+						previousLink[neighbor] = link;
+						queue.add(new double[] {candidate, hops[neighbor], neighbor});
+					}
+				}
+			}
+
+			for(int dst=0; dst<numOfNodes; dst++){
+				int pair = src * numOfNodes + dst;
+				pathOffsets[pair] = numOfPathLinks;
+				pathLatencies[pair] = latency[dst];
+
+				int length = 0;
+				for(int node=dst; previousLink[node] != -1; node=linkSources[previousLink[node]])
+					route[length++] = previousLink[node];
+
+				if(numOfPathLinks + length > links.length)
+					links = Arrays.copyOf(links, Math.max(links.length * 2, numOfPathLinks + length));
+				for(int i=length-1; i>=0; i--)
+					links[numOfPathLinks++] = route[i];
+			}
+		}
+		pathOffsets[numOfNodes * numOfNodes] = numOfPathLinks;
+
+		return Arrays.copyOf(links, numOfPathLinks);
+	}
+
+	public int getNumOfNodes() {
+		return numOfNodes;
+	}
+
+	/**
+	 * returns the number of directed links
+	 */
+	public int getNumOfLinks() {
+		return linkSources.length;
+	}
+
+	public int getLinkSource(int link) {
+		return linkSources[link];
+	}
+
+	public int getLinkDestination(int link) {
+		return linkDestinations[link];
+	}
+
+	/**
+	 * returns the bandwidth of the link (in Kbps unit)
+	 */
+	public double getLinkBandwidth(int link) {
+		return linkBandwidths[link];
+	}
+
+	/**
+	 * returns the propagation latency of the link (in second unit)
+	 */
+	public double getLinkLatency(int link) {
+		return linkLatencies[link];
+	}
+
+	/**
+	 * returns the position of the first link of the route from src to
+	 * dst, the links of the route are read via getPathLink
+	 */
+	public int getPathStart(int src, int dst) {
+		return pathOffsets[src * numOfNodes + dst];
+	}
+
+	/**
+	 * returns the position after the last link of the route from src to dst
+	 */
+	public int getPathEnd(int src, int dst) {
+		return pathOffsets[src * numOfNodes + dst + 1];
+	}
+
+	/**
+	 * returns the link at the given position of a route
+	 */
+	public int getPathLink(int position) {
+		return pathLinks[position];
+	}
+
+	/**
+	 * returns the total propagation latency of the route from src to dst
+	 * (in second unit), infinity if dst is not reachable from src
+	 */
+	public double getPathLatency(int src, int dst) {
+		return pathLatencies[src * numOfNodes + dst];
+	}
+
+	public boolean isReachable(int src, int dst) {
+		return pathLatencies[src * numOfNodes + dst] != Double.POSITIVE_INFINITY;
+	}
+}
@@ -13,12 +13,9 @@
 
 package edu.boun.edgecloudsim.task_generator;
 
-import java.util.ArrayList;
-
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-
 import edu.boun.edgecloudsim.core.SimSettings;
-import edu.boun.edgecloudsim.utils.TaskProperty;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.SimLogger;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
@@ -30,26 +27,17 @@ public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 
 	@Override
 	public void initializeModel() {
-		taskList = new ArrayList<TaskProperty>();
-		
-		//exponential number generator for file input size, file output size and task length
-		ExponentialDistribution[][] expRngList = new ExponentialDistribution[SimSettings.getInstance().getTaskLookUpTable().length][3];
-		
-		//create random number generator for each place
-		for(int i=0; i<SimSettings.getInstance().getTaskLookUpTable().length; i++) {
-			if(SimSettings.getInstance().getTaskLookUpTable()[i][0] ==0)
-				continue;
-			
-			expRngList[i][0] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][5]);
-			expRngList[i][1] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][6]);
-			expRngList[i][2] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][7]);
-		}
+		taskTrace = new TaskTrace();
 		
 		//Each mobile device utilizes an app type (task type)
 		taskTypeOfDevices = new int[numberOfMobileDevices];
 		for(int i=0; i<numberOfMobileDevices; i++) {
+			//each device has its own random stream, so the tasks of a device
+			//do not depend on the number of tasks created by the other devices
+			RandomStream rng = RandomStreams.getInstance().getStream("load_generator", i);
+
 			int randomTaskType = -1;
-			double taskTypeSelector = SimUtils.getRandomDoubleNumber(0,100);
+			double taskTypeSelector = SimUtils.getRandomDoubleNumber(rng, 0,100);
 			double taskTypePercentage = 0;
 			for (int j=0; j<SimSettings.getInstance().getTaskLookUpTable().length; j++) {
 				taskTypePercentage += SimSettings.getInstance().getTaskLookUpTable()[j][0];
@@ -68,14 +56,13 @@ public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 			double poissonMean = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][2];
 			double activePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][3];
 			double idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][4];
-			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(
+			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(rng,
 					SimSettings.CLIENT_ACTIVITY_START_TIME, 
 					SimSettings.CLIENT_ACTIVITY_START_TIME + activePeriod);  //active period starts shortly after the simulation started (e.g. 10 seconds)
 			double virtualTime = activePeriodStartTime;
 
-			ExponentialDistribution rng = new ExponentialDistribution(poissonMean);
 			while(virtualTime < simulationTime) {
-				double interval = rng.sample();
+				double interval = rng.nextExponential(poissonMean);
 
 				if(interval <= 0){
 					SimLogger.printLine("Impossible is occurred! interval is " + interval + " for device " + i + " time " + virtualTime);
@@ -90,9 +77,10 @@ public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 					continue;
 				}
 				
-				taskList.add(new TaskProperty(i,randomTaskType, virtualTime, expRngList));
+				taskTrace.add(i,randomTaskType, virtualTime, rng);
 			}
 		}
+		taskTrace.trimToSize();
 	}
 
 	@Override
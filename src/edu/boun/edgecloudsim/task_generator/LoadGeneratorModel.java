@@ -3,7 +3,7 @@
  * 
  * Description: 
  * LoadGeneratorModel is an abstract class which is used for 
- * deciding task generation pattern via a task list. For those who
+ * deciding task generation pattern via a task trace. For those who
  * wants to add a custom Load Generator Model to EdgeCloudSim should
  * extend this class and provide a concrete instance via ScenarioFactory
  *               
@@ -13,12 +13,10 @@
 
 package edu.boun.edgecloudsim.task_generator;
 
-import java.util.List;
-
 import edu.boun.edgecloudsim.utils.TaskProperty;
 
 public abstract class LoadGeneratorModel {
-	protected List<TaskProperty> taskList;
+	protected TaskTrace taskTrace;
 	protected int numberOfMobileDevices;
 	protected double simulationTime;
 	protected String simScenario;
@@ -39,12 +37,21 @@ public abstract class LoadGeneratorModel {
 	 * each task has a virtual start time
 	 * it will be used while generating task
 	 */
-	public List<TaskProperty> getTaskList() {
-		return taskList;
+	public TaskTrace getTaskTrace() {
+		return taskTrace;
+	}
+	
+	/*
+	 * creates the task at the given index of the task trace, it is
+	 * called when the task is scheduled; the load generator models
+	 * which keep more information about the tasks may override it
+	 */
+	public TaskProperty getTaskProperty(int index) {
+		return taskTrace.getTaskProperty(index);
 	}
 
 	/*
-	 * fill task list according to related task generation model
+	 * fill task trace according to related task generation model
 	 */
 	public abstract void initializeModel();
 	
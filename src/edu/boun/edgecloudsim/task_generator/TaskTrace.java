@@ -0,0 +1,188 @@
+/*
+ * Title:        EdgeCloudSim - Task Trace
+ *
+ * Description:
+ * TaskTrace keeps the tasks created by the load generator models in
+ * primitive arrays (one array for each property) instead of one object
+ * per task. The TaskProperty objects are created only when the tasks
+ * are scheduled by SimManager, so the memory consumption of the trace
+ * is a few bytes per task even for long simulations with many devices.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.task_generator;
+
+import java.util.Arrays;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.RandomStream;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class TaskTrace {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private int size;
+	private double[] startTime;
+	private int[] mobileDeviceId;
+	private int[] taskType;
+	private int[] pesNumber;
+	private long[] length;
+	private long[] inputFileSize;
+	private long[] outputFileSize;
+
+	public TaskTrace() {
+		startTime = new double[INITIAL_CAPACITY];
+		mobileDeviceId = new int[INITIAL_CAPACITY];
+		taskType = new int[INITIAL_CAPACITY];
+		pesNumber = new int[INITIAL_CAPACITY];
+		length = new long[INITIAL_CAPACITY];
+		inputFileSize = new long[INITIAL_CAPACITY];
+		outputFileSize = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * adds a task and returns its index
+	 */
+	public int add(double _startTime, int _mobileDeviceId, int _taskType, int _pesNumber, long _length, long _inputFileSize, long _outputFileSize) {
+		if(size == startTime.length)
+			resize(size * 2);
+
+		startTime[size] = _startTime;
+		mobileDeviceId[size] = _mobileDeviceId;
+		taskType[size] = _taskType;
+		pesNumber[size] = _pesNumber;
+		length[size] = _length;
+		inputFileSize[size] = _inputFileSize;
+		outputFileSize[size] = _outputFileSize;
+		return size++;
+	}
+
+	/**
+	 * adds a task whose input size, output size and length are sampled
+	 * from the exponential distributions of its task type
+	 */
+	public int add(int _mobileDeviceId, int _taskType, double _startTime, RandomStream rng) {
+		double[] taskProperties = SimSettings.getInstance().getTaskLookUpTable()[_taskType];
+		long _inputFileSize = (long)rng.nextExponential(taskProperties[5]);
+		long _outputFileSize = (long)rng.nextExponential(taskProperties[6]);
+		long _length = (long)rng.nextExponential(taskProperties[7]);
+		int _pesNumber = (int)taskProperties[8];
+
+		return add(_startTime, _mobileDeviceId, _taskType, _pesNumber, _length, _inputFileSize, _outputFileSize);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getStartTime(int index) {
+		return startTime[index];
+	}
+
+	public int getMobileDeviceId(int index) {
+		return mobileDeviceId[index];
+	}
+
+	public int getTaskType(int index) {
+		return taskType[index];
+	}
+
+	public int getPesNumber(int index) {
+		return pesNumber[index];
+	}
+
+	public long getLength(int index) {
+		return length[index];
+	}
+
+	public long getInputFileSize(int index) {
+		return inputFileSize[index];
+	}
+
+	public long getOutputFileSize(int index) {
+		return outputFileSize[index];
+	}
+
+	public TaskProperty getTaskProperty(int index) {
+		return new TaskProperty(startTime[index], mobileDeviceId[index], taskType[index],
+				pesNumber[index], length[index], inputFileSize[index], outputFileSize[index]);
+	}
+
+	/**
+	 * sorts the tasks by their start times, the order of the tasks
+	 * with the same start time is not changed
+	 */
+	public void sortByStartTime() {
+		boolean sorted = true;
+		for(int i=1; i<size && sorted; i++)
+			sorted = startTime[i-1] <= startTime[i];
+		if(sorted)
+			return;
+
+		//merge sort of the indexes
+		int[] order = new int[size];
+		int[] buffer = new int[size];
+		for(int i=0; i<size; i++)
+			order[i] = i;
+		for(int width=1; width<size; width*=2){
+			for(int left=0; left<size; left+=2*width){
+				int middle = Math.min(left + width, size);
+				int right = Math.min(left + 2 * width, size);
+				int i = left, j = middle, k = left;
+				while(i < middle && j < right)
+					buffer[k++] = (startTime[order[j]] < startTime[order[i]]) ? order[j++] : order[i++];
+				while(i < middle)
+					buffer[k++] = order[i++];
+				while(j < right)
+					buffer[k++] = order[j++];
+			}
+			int[] temp = order;
+			order = buffer;
+			buffer = temp;
+		}
+
+		double[] sortedStartTime = new double[size];
+		int[] sortedMobileDeviceId = new int[size];
+		int[] sortedTaskType = new int[size];
+		int[] sortedPesNumber = new int[size];
+		long[] sortedLength = new long[size];
+		long[] sortedInputFileSize = new long[size];
+		long[] sortedOutputFileSize = new long[size];
+		for(int i=0; i<size; i++){
+			sortedStartTime[i] = startTime[order[i]];
+			sortedMobileDeviceId[i] = mobileDeviceId[order[i]];
+			sortedTaskType[i] = taskType[order[i]];
+			sortedPesNumber[i] = pesNumber[order[i]];
+			sortedLength[i] = length[order[i]];
+			sortedInputFileSize[i] = inputFileSize[order[i]];
+			sortedOutputFileSize[i] = outputFileSize[order[i]];
+		}
+		startTime = sortedStartTime;
+		mobileDeviceId = sortedMobileDeviceId;
+		taskType = sortedTaskType;
+		pesNumber = sortedPesNumber;
+		length = sortedLength;
+		inputFileSize = sortedInputFileSize;
+		outputFileSize = sortedOutputFileSize;
+	}
+
+	/**
+	 * releases the unused capacity of the arrays
+	 */
+	public void trimToSize() {
+		if(size < startTime.length)
+			resize(Math.max(size, 1));
+	}
+
+	private void resize(int capacity) {
+		startTime = Arrays.copyOf(startTime, capacity);
+		mobileDeviceId = Arrays.copyOf(mobileDeviceId, capacity);
+		taskType = Arrays.copyOf(taskType, capacity);
+		pesNumber = Arrays.copyOf(pesNumber, capacity);
+		length = Arrays.copyOf(length, capacity);
+		inputFileSize = Arrays.copyOf(inputFileSize, capacity);
+		outputFileSize = Arrays.copyOf(outputFileSize, capacity);
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Title:        EdgeCloudSim - Asynchronous Log Writer
+ *
+ * Description:
+ * AsyncLogWriter appends the lines to a log file on a background thread,
+ * so the simulation thread does not wait for the file IO operations.
+ * The lines are passed through a bounded queue; if the writer falls
+ * behind, append blocks until there is room in the queue, so the memory
+ * consumption does not depend on the number of logged lines.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class AsyncLogWriter implements Runnable {
+	private static final int DEFAULT_CAPACITY = 8192;
+
+	//the identity of the object is used to mark the end of the log
+	private static final String END_OF_LOG = new String("END_OF_LOG");
+
+	private BlockingQueue<String> queue;
+	private BufferedWriter bw;
+	private Thread thread;
+	private volatile IOException error;
+
+	public AsyncLogWriter(File file) throws IOException {
+		this(file, DEFAULT_CAPACITY);
+	}
+
+	public AsyncLogWriter(File file, int capacity) throws IOException {
+		bw = new BufferedWriter(new FileWriter(file, true));
+		queue = new ArrayBlockingQueue<String>(capacity);
+		thread = new Thread(this, "AsyncLogWriter-" + file.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void append(String line) throws IOException {
+		if(error != null)
+			throw error;
+
+		try {
+			queue.put(line);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while appending to the log", e);
+		}
+	}
+
+	/**
+	 * waits until all lines are written and closes the file
+	 */
+	public void close() throws IOException {
+		try {
+			queue.put(END_OF_LOG);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while closing the log", e);
+		}
+
+		bw.close();
+		if(error != null)
+			throw error;
+	}
+
+	@Override
+	public void run() {
+		List<String> lines = new ArrayList<String>();
+		boolean endOfLog = false;
+		while(!endOfLog){
+			try {
+				lines.add(queue.take());
+				queue.drainTo(lines);
+			} catch (InterruptedException e) {
+				continue;
+			}
+
+			for(int i=0; i<lines.size(); i++){
+				String line = lines.get(i);
+				if(line == END_OF_LOG){
+					endOfLog = true;
+					break;
+				}
+
+				//after an error the lines are discarded so that append does not block
+				if(error == null){
+					try {
+						bw.write(line);
+						bw.newLine();
+					} catch (IOException e) {
+						error = e;
+					}
+				}
+			}
+			lines.clear();
+		}
+
+		try {
+			bw.flush();
+		} catch (IOException e) {
+			if(error == null)
+				error = e;
+		}
+	}
+}
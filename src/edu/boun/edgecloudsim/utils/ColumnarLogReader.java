@@ -0,0 +1,174 @@
+/*
+ * Title:        EdgeCloudSim - Columnar Log Reader
+ *
+ * Description:
+ * ColumnarLogReader reads the binary files created by ColumnarLogWriter.
+ * Only the block headers are parsed when the file is opened; the values
+ * of a column are read from each block at its file offset when the
+ * column is requested, so the file may be larger than 2 GB.
+ *
+ * Sample usage:
+ *   ColumnarLogReader reader = new ColumnarLogReader(new File(folder, prefix + "_TASKS.bin"));
+ *   double[] endTime = reader.getDoubleColumn("endTime");
+ *   int[] status = reader.getIntColumn("status");
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.boun.edgecloudsim.utils.ColumnarLogWriter.COLUMN_TYPES;
+
+public class ColumnarLogReader {
+	private File file;
+	private String[] columnNames;
+	private COLUMN_TYPES[] columnTypes;
+	private int numOfRows;
+	private List<Long> blockPositions;
+	private List<Integer> blockRows;
+
+	public ColumnarLogReader(File _file) throws IOException {
+		file = _file;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			ByteBuffer buffer = read(channel, 0, 3 * Integer.BYTES);
+			if(buffer.getInt() != ColumnarLogWriter.MAGIC)
+				throw new IOException("not a columnar log file: " + file.getPath());
+			int version = buffer.getInt();
+			if(version != ColumnarLogWriter.VERSION)
+				throw new IOException("unsupported columnar log version " + version + ": " + file.getPath());
+
+			int numOfColumns = buffer.getInt();
+			long position = 3 * Integer.BYTES;
+			columnNames = new String[numOfColumns];
+			columnTypes = new COLUMN_TYPES[numOfColumns];
+			int rowSize = 0;
+			for(int i=0; i<numOfColumns; i++){
+				buffer = read(channel, position, Byte.BYTES + Short.BYTES);
+				columnTypes[i] = COLUMN_TYPES.values()[buffer.get()];
+				int nameLength = buffer.getShort();
+				position += Byte.BYTES + Short.BYTES;
+
+				columnNames[i] = new String(read(channel, position, nameLength).array(), StandardCharsets.UTF_8);
+				position += nameLength;
+				rowSize += (columnTypes[i] == COLUMN_TYPES.INT) ? Integer.BYTES : Double.BYTES;
+			}
+
+			blockPositions = new ArrayList<Long>();
+			blockRows = new ArrayList<Integer>();
+			long size = channel.size();
+			while(position < size){
+				int rows = read(channel, position, Integer.BYTES).getInt();
+				blockPositions.add(position + Integer.BYTES);
+				blockRows.add(rows);
+				numOfRows += rows;
+				position += Integer.BYTES + (long)rows * rowSize;
+			}
+		}
+	}
+
+	public int getNumOfRows() {
+		return numOfRows;
+	}
+
+	public int getNumOfColumns() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public COLUMN_TYPES getColumnType(int column) {
+		return columnTypes[column];
+	}
+
+	/**
+	 * returns the index of the column, -1 if there is no such column
+	 */
+	public int getColumnIndex(String name) {
+		for(int i=0; i<columnNames.length; i++)
+			if(columnNames[i].equals(name))
+				return i;
+		return -1;
+	}
+
+	public int[] getIntColumn(String name) throws IOException {
+		return getIntColumn(getRequiredColumn(name, COLUMN_TYPES.INT));
+	}
+
+	public double[] getDoubleColumn(String name) throws IOException {
+		return getDoubleColumn(getRequiredColumn(name, COLUMN_TYPES.DOUBLE));
+	}
+
+	public int[] getIntColumn(int column) throws IOException {
+		int[] result = new int[numOfRows];
+		int offset = 0;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			for(int b=0; b<blockPositions.size(); b++){
+				int rows = blockRows.get(b);
+				read(channel, getColumnPosition(b, column), rows * Integer.BYTES).asIntBuffer().get(result, offset, rows);
+				offset += rows;
+			}
+		}
+		return result;
+	}
+
+	public double[] getDoubleColumn(int column) throws IOException {
+		double[] result = new double[numOfRows];
+		int offset = 0;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			for(int b=0; b<blockPositions.size(); b++){
+				int rows = blockRows.get(b);
+				read(channel, getColumnPosition(b, column), rows * Double.BYTES).asDoubleBuffer().get(result, offset, rows);
+				offset += rows;
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * reads the given number of bytes at the position of the file, the
+	 * returned buffer is ready to be read
+	 */
+	private ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		while(buffer.hasRemaining()){
+			int count = channel.read(buffer, position + buffer.position());
+			if(count < 0)
+				throw new EOFException("unexpected end of columnar log file: " + file.getPath());
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private long getColumnPosition(int block, int column) {
+		long position = blockPositions.get(block);
+		int rows = blockRows.get(block);
+		for(int i=0; i<column; i++)
+			position += (long)rows * ((columnTypes[i] == COLUMN_TYPES.INT) ? Integer.BYTES : Double.BYTES);
+		return position;
+	}
+
+	private int getRequiredColumn(String name, COLUMN_TYPES type) {
+		int column = getColumnIndex(name);
+		if(column == -1)
+			throw new IllegalArgumentException("there is no column named " + name);
+		if(columnTypes[column] != type)
+			throw new IllegalArgumentException("column " + name + " is not of type " + type);
+		return column;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Title:        EdgeCloudSim - Columnar Log Writer
+ *
+ * Description:
+ * ColumnarLogWriter saves a table of fixed width primitive columns into
+ * a binary file, which can be read by ColumnarLogReader much faster than
+ * parsing the text logs.
+ *
+ * File format (big endian):
+ *   header: magic (int), version (int), number of columns (int), and
+ *           for each column: type (byte), name length (short), name (UTF-8)
+ *   blocks: number of rows (int), followed by the values of each column
+ *           (int: 4 bytes, double: 8 bytes) one column after the other
+ *
+ * The rows are collected in column buffers and each full block is copied
+ * to a memory mapped region of the file, so the values are written without
+ * any conversion to text.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ColumnarLogWriter {
+	public static enum COLUMN_TYPES { INT, DOUBLE }
+
+	public static final int MAGIC = 0x45435343; //ECSC
+	public static final int VERSION = 1;
+
+	private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private long position;
+
+	private COLUMN_TYPES[] columnTypes;
+	private int blockSize;
+	private int numOfRowsInBlock;
+	private int[][] intColumns;
+	private double[][] doubleColumns;
+
+	public ColumnarLogWriter(File _file, String[] columnNames, COLUMN_TYPES[] _columnTypes) throws IOException {
+		this(_file, columnNames, _columnTypes, DEFAULT_BLOCK_SIZE);
+	}
+
+	public ColumnarLogWriter(File _file, String[] columnNames, COLUMN_TYPES[] _columnTypes, int _blockSize) throws IOException {
+		createColumns(_columnTypes, _blockSize);
+
+		file = new RandomAccessFile(_file, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+
+		byte[][] names = new byte[columnNames.length][];
+		int headerSize = 3 * Integer.BYTES;
+		for(int i=0; i<columnNames.length; i++){
+			names[i] = columnNames[i].getBytes(StandardCharsets.UTF_8);
+			headerSize += Byte.BYTES + Short.BYTES + names[i].length;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(headerSize);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(columnNames.length);
+		for(int i=0; i<columnNames.length; i++){
+			header.put((byte)columnTypes[i].ordinal());
+			header.putShort((short)names[i].length);
+			header.put(names[i]);
+		}
+		header.flip();
+		while(header.hasRemaining())
+			position += channel.write(header, position);
+	}
+
+	/**
+	 * opens a file which is written by a ColumnarLogWriter to append new
+	 * blocks to it, e.g. to continue the time series of a forked simulation;
+	 * the column types must be the same with the ones in the file
+	 */
+	public ColumnarLogWriter(File _file, COLUMN_TYPES[] _columnTypes) throws IOException {
+		createColumns(_columnTypes, DEFAULT_BLOCK_SIZE);
+
+		file = new RandomAccessFile(_file, "rw");
+		channel = file.getChannel();
+		position = file.length();
+	}
+
+	private void createColumns(COLUMN_TYPES[] _columnTypes, int _blockSize) {
+		columnTypes = _columnTypes;
+		blockSize = _blockSize;
+		intColumns = new int[columnTypes.length][];
+		doubleColumns = new double[columnTypes.length][];
+		for(int i=0; i<columnTypes.length; i++){
+			if(columnTypes[i] == COLUMN_TYPES.INT)
+				intColumns[i] = new int[blockSize];
+			else
+				doubleColumns[i] = new double[blockSize];
+		}
+	}
+
+	public int getNumOfColumns() {
+		return columnTypes.length;
+	}
+
+	public void setInt(int column, int value) {
+		intColumns[column][numOfRowsInBlock] = value;
+	}
+
+	public void setDouble(int column, double value) {
+		doubleColumns[column][numOfRowsInBlock] = value;
+	}
+
+	/**
+	 * completes the current row, the values which are not set are zero
+	 */
+	public void endRow() throws IOException {
+		numOfRowsInBlock++;
+		if(numOfRowsInBlock == blockSize)
+			writeBlock();
+	}
+
+	public void close() throws IOException {
+		if(numOfRowsInBlock > 0)
+			writeBlock();
+		channel.close();
+		file.close();
+	}
+
+	private void writeBlock() throws IOException {
+		long size = Integer.BYTES;
+		for(int i=0; i<columnTypes.length; i++)
+			size += (long)numOfRowsInBlock * ((columnTypes[i] == COLUMN_TYPES.INT) ? Integer.BYTES : Double.BYTES);
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+		buffer.putInt(numOfRowsInBlock);
+		for(int i=0; i<columnTypes.length; i++){
+			if(columnTypes[i] == COLUMN_TYPES.INT){
+				buffer.asIntBuffer().put(intColumns[i], 0, numOfRowsInBlock);
+				buffer.position(buffer.position() + numOfRowsInBlock * Integer.BYTES);
+				Arrays.fill(intColumns[i], 0, numOfRowsInBlock, 0);
+			}
+			else{
+				buffer.asDoubleBuffer().put(doubleColumns[i], 0, numOfRowsInBlock);
+				buffer.position(buffer.position() + numOfRowsInBlock * Double.BYTES);
+				Arrays.fill(doubleColumns[i], 0, numOfRowsInBlock, 0);
+			}
+		}
+
+		position += size;
+		numOfRowsInBlock = 0;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Title:        EdgeCloudSim - Latency Histogram
+ *
+ * Description:
+ * LatencyHistogram records the latencies (in second unit) in log-linear
+ * buckets, i.e. each power of two is divided into 32 linear sub buckets,
+ * so the percentiles are found with a relative error below 3% by using
+ * a fixed amount of memory. The latencies are counted in microseconds;
+ * the values up to 32 microseconds are exact.
+ *
+ * The buckets are updated via atomic operations without locks, so the
+ * histogram can be read by the JMX threads (see MetricsRegistry) while
+ * the simulation thread is recording the values. The histograms of the
+ * SimLogger keep the distributions of the results instead of the values
+ * of the tasks, see getPercentile and getCdf.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final double TICKS_PER_SECOND = 1000000;
+
+	//the first 32 buckets are linear, then 32 buckets for each power of two
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(BUCKET_COUNT);
+		count = new AtomicLong();
+		sum = new AtomicLong();
+		max = new AtomicLong();
+	}
+
+	/**
+	 * records the given latency in second unit, the negative values
+	 * are recorded as zero
+	 */
+	public void record(double latency) {
+		long ticks = (latency > 0) ? Math.round(latency * TICKS_PER_SECOND) : 0;
+		buckets.incrementAndGet(getBucketIndex(ticks));
+		count.incrementAndGet();
+		sum.addAndGet(ticks);
+
+		long currentMax = max.get();
+		while(ticks > currentMax && !max.compareAndSet(currentMax, ticks))
+			currentMax = max.get();
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * returns the average latency in second unit
+	 */
+	public double getMean() {
+		long n = count.get();
+		return (n == 0) ? 0 : sum.get() / TICKS_PER_SECOND / n;
+	}
+
+	/**
+	 * returns the maximum latency in second unit
+	 */
+	public double getMax() {
+		return max.get() / TICKS_PER_SECOND;
+	}
+
+	/**
+	 * returns the latency in second unit which is not exceeded by the
+	 * given percentage of the recorded values, e.g. 99 for p99; the upper
+	 * bound of the bucket is returned, so the percentile is not underestimated
+	 */
+	public double getPercentile(double percentage) {
+		long n = count.get();
+		if(n == 0)
+			return 0;
+
+		long rank = Math.max(1, (long)Math.ceil(n * percentage / 100));
+		long seen = 0;
+		for(int i=0; i<BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if(seen >= rank)
+				return Math.min(getBucketUpperBound(i), max.get()) / TICKS_PER_SECOND;
+		}
+		return getMax();
+	}
+
+	/**
+	 * returns the cumulative distribution of the recorded values, i.e.
+	 * the upper bound of each non empty bucket (in second unit) and the
+	 * fraction of the values which are not greater than it
+	 */
+	public double[][] getCdf() {
+		long n = 0;
+		int numOfBuckets = 0;
+		for(int i=0; i<BUCKET_COUNT; i++) {
+			long bucket = buckets.get(i);
+			if(bucket != 0) {
+				n += bucket;
+				numOfBuckets++;
+			}
+		}
+
+		double[][] cdf = new double[2][numOfBuckets];
+		long seen = 0;
+		int index = 0;
+		for(int i=0; i<BUCKET_COUNT && index<numOfBuckets; i++) {
+			long bucket = buckets.get(i);
+			if(bucket == 0)
+				continue;
+			seen += bucket;
+			cdf[0][index] = Math.min(getBucketUpperBound(i), max.get()) / TICKS_PER_SECOND;
+			cdf[1][index] = (double)seen / n;
+			index++;
+		}
+		return cdf;
+	}
+
+	/**
+	 * adds the values recorded by the given histogram to this one
+	 */
+	public void add(LatencyHistogram other) {
+		for(int i=0; i<BUCKET_COUNT; i++) {
+			long bucket = other.buckets.get(i);
+			if(bucket != 0)
+				buckets.addAndGet(i, bucket);
+		}
+		count.addAndGet(other.count.get());
+		sum.addAndGet(other.sum.get());
+
+		long otherMax = other.max.get();
+		long currentMax = max.get();
+		while(otherMax > currentMax && !max.compareAndSet(currentMax, otherMax))
+			currentMax = max.get();
+	}
+
+	/**
+	 * clears the recorded values
+	 */
+	public void reset() {
+		for(int i=0; i<BUCKET_COUNT; i++)
+			buckets.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	private static int getBucketIndex(long ticks) {
+		if(ticks < SUB_BUCKET_COUNT)
+			return (int)ticks;
+
+		int shift = (63 - Long.numberOfLeadingZeros(ticks)) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int)(ticks >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	private static long getBucketUpperBound(int index) {
+		if(index < SUB_BUCKET_COUNT)
+			return index;
+
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long)(index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
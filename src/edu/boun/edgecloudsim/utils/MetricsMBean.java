@@ -0,0 +1,164 @@
+/*
+ * Title:        EdgeCloudSim - Metrics MBean
+ *
+ * Description:
+ * MetricsMBean exposes the metrics of a MetricsRegistry as read only JMX
+ * attributes. The attributes are created from the metrics which exist
+ * when the attributes are listed, so the metrics which are created later
+ * appear when the MBean is reloaded in the JMX client.
+ *
+ * counter           : the value of the counter
+ * counter.rate      : the increase per second (wall clock) since the
+ *                     rate was last updated, it is updated once a second
+ * gauge             : the value of the gauge
+ * histogram.count   : the number of recorded latencies
+ * histogram.mean    : the average latency (in second unit)
+ * histogram.p50/p90/p99
+ *                   : the percentiles of the latency (in second unit)
+ * histogram.max     : the maximum latency (in second unit)
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+class MetricsMBean implements DynamicMBean {
+	private static final String RATE_SUFFIX = ".rate";
+	private static final String[] HISTOGRAM_SUFFIXES = {".count", ".mean", ".p50", ".p90", ".p99", ".max"};
+	private static final long RATE_INTERVAL = 1000000000L; //ns
+
+	private final MetricsRegistry registry;
+
+	//the last sample of each counter which is used for its rate
+	private final Map<String, long[]> rateSamples;
+	private final Map<String, Double> rates;
+
+	MetricsMBean(MetricsRegistry _registry) {
+		registry = _registry;
+		rateSamples = new HashMap<String, long[]>();
+		rates = new HashMap<String, Double>();
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		LongAdder counter = registry.getCounters().get(attribute);
+		if(counter != null)
+			return counter.sum();
+
+		DoubleSupplier gauge = registry.getGauges().get(attribute);
+		if(gauge != null)
+			return gauge.getAsDouble();
+
+		int separator = attribute.lastIndexOf('.');
+		if(separator > 0) {
+			String name = attribute.substring(0, separator);
+			String suffix = attribute.substring(separator);
+
+			counter = registry.getCounters().get(name);
+			if(counter != null && suffix.equals(RATE_SUFFIX))
+				return getRate(name, counter);
+
+			LatencyHistogram histogram = registry.getHistograms().get(name);
+			if(histogram != null) {
+				switch(suffix) {
+				case ".count": return histogram.getCount();
+				case ".mean": return histogram.getMean();
+				case ".p50": return histogram.getPercentile(50);
+				case ".p90": return histogram.getPercentile(90);
+				case ".p99": return histogram.getPercentile(99);
+				case ".max": return histogram.getMax();
+				}
+			}
+		}
+
+		throw new AttributeNotFoundException("unknown metric: " + attribute);
+	}
+
+	private synchronized double getRate(String name, LongAdder counter) {
+		long now = System.nanoTime();
+		long value = counter.sum();
+		long[] sample = rateSamples.get(name);
+
+		if(sample == null) {
+			rateSamples.put(name, new long[] {now, value});
+			rates.put(name, 0.0);
+		}
+		else if(now - sample[0] >= RATE_INTERVAL) {
+			//the counters are reset by the next run
+			double increase = Math.max(0, value - sample[1]);
+			rates.put(name, increase * RATE_INTERVAL / (now - sample[0]));
+			sample[0] = now;
+			sample[1] = value;
+		}
+		return rates.get(name);
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for(String attribute : attributes) {
+			try {
+				list.add(new Attribute(attribute, getAttribute(attribute)));
+			} catch (AttributeNotFoundException e) {
+				//the missing attributes are not returned
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("metrics are read only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName), "metrics have no operations");
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+
+		for(String name : new TreeSet<String>(registry.getCounters().keySet())) {
+			attributes.add(new MBeanAttributeInfo(name, "long", "counter", true, false, false));
+			attributes.add(new MBeanAttributeInfo(name + RATE_SUFFIX, "double", "increase per second", true, false, false));
+		}
+		for(String name : new TreeSet<String>(registry.getGauges().keySet()))
+			attributes.add(new MBeanAttributeInfo(name, "double", "gauge", true, false, false));
+		for(String name : new TreeSet<String>(registry.getHistograms().keySet())) {
+			for(String suffix : HISTOGRAM_SUFFIXES) {
+				String type = suffix.equals(".count") ? "long" : "double";
+				attributes.add(new MBeanAttributeInfo(name + suffix, type, "latency histogram (seconds)", true, false, false));
+			}
+		}
+
+		return new MBeanInfo(getClass().getName(), "EdgeCloudSim metrics",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+				null, new MBeanOperationInfo[0], null);
+	}
+}
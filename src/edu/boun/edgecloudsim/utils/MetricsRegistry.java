@@ -0,0 +1,186 @@
+/*
+ * Title:        EdgeCloudSim - Metrics Registry
+ *
+ * Description:
+ * MetricsRegistry keeps the metrics which are updated while the simulation
+ * is running, so that a long simulation can be watched from outside via
+ * JMX, e.g. by jconsole or JDK Mission Control. The metrics are the
+ * counters, the gauges and the latency histograms; they are created on
+ * their first use and identified by their names.
+ *
+ * The counters and the histograms are lock free, since the simulation
+ * thread updates them while the JMX threads read them. The gauges are
+ * evaluated only when they are read.
+ *
+ * The registry is registered as an MBean named
+ * edu.boun.edgecloudsim:type=Metrics,run=<file prefix>,folder=<output folder>
+ * when a simulation starts, and unregistered when it stops. The parallel
+ * simulations (see SimulationExecutor) have their own registries, so
+ * each of them has its own MBean; if two of them have the same name,
+ * e.g. the candidates of a parameter search, an instance number is added
+ * to the name of the later one. A registry never unregisters the MBean
+ * of another registry.
+ *
+ * The metrics are not a part of the simulation state; they are kept out
+ * of the snapshots (see SimulationSnapshot) and start from zero in each
+ * simulation, including the forks of a snapshot.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsRegistry {
+	public static final String DOMAIN = "edu.boun.edgecloudsim";
+
+	private static final MetricsRegistry instance = new MetricsRegistry();
+
+	private final Map<String, LongAdder> counters;
+	private final Map<String, DoubleSupplier> gauges;
+	private final Map<String, LatencyHistogram> histograms;
+	private final Map<String, LatencyHistogram[]> histogramFamilies;
+	private ObjectName objectName;
+
+	private MetricsRegistry() {
+		counters = new ConcurrentHashMap<String, LongAdder>();
+		gauges = new ConcurrentHashMap<String, DoubleSupplier>();
+		histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+		histogramFamilies = new ConcurrentHashMap<String, LatencyHistogram[]>();
+	}
+
+	public static MetricsRegistry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * returns the counter with the given name, a new counter is
+	 * created if it does not exist
+	 */
+	public LongAdder getCounter(String name) {
+		LongAdder counter = counters.get(name);
+		if(counter == null)
+			counter = counters.computeIfAbsent(name, key -> new LongAdder());
+		return counter;
+	}
+
+	/**
+	 * registers a gauge which is evaluated when the metric is read, the
+	 * existing gauge with the same name is replaced
+	 */
+	public void registerGauge(String name, DoubleSupplier gauge) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * returns the histogram with the given name, a new histogram is
+	 * created if it does not exist
+	 */
+	public LatencyHistogram getHistogram(String name) {
+		LatencyHistogram histogram = histograms.get(name);
+		if(histogram == null)
+			histogram = histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+		return histogram;
+	}
+
+	/**
+	 * returns the histogram of a family of histograms which are indexed
+	 * by an integer, e.g. an access point; it is named as family.index
+	 * without building the name on each call
+	 */
+	public LatencyHistogram getHistogram(String family, int index) {
+		LatencyHistogram[] members = histogramFamilies.get(family);
+		if(members == null || index >= members.length || members[index] == null)
+			members = addFamilyMember(family, index);
+		return members[index];
+	}
+
+	private synchronized LatencyHistogram[] addFamilyMember(String family, int index) {
+		LatencyHistogram[] members = histogramFamilies.get(family);
+		if(members == null)
+			members = new LatencyHistogram[index + 1];
+		else if(index >= members.length)
+			members = Arrays.copyOf(members, index + 1);
+
+		if(members[index] == null) {
+			members[index] = getHistogram(family + "." + index);
+			histogramFamilies.put(family, members);
+		}
+		return members;
+	}
+
+	Map<String, LongAdder> getCounters() {
+		return counters;
+	}
+
+	Map<String, DoubleSupplier> getGauges() {
+		return gauges;
+	}
+
+	Map<String, LatencyHistogram> getHistograms() {
+		return histograms;
+	}
+
+	/**
+	 * resets the metrics and registers the MBean of the given run, the
+	 * MBean of the previous run is unregistered if it is not stopped
+	 */
+	public synchronized void start(String runName, String outputFolder, boolean jmxEnabled) {
+		stop();
+
+		for(LongAdder counter : counters.values())
+			counter.reset();
+		for(LatencyHistogram histogram : histograms.values())
+			histogram.reset();
+
+		if(!jmxEnabled)
+			return;
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			String baseName = DOMAIN + ":type=Metrics,run=" + ObjectName.quote(runName) +
+					",folder=" + ObjectName.quote(outputFolder);
+			ObjectName name = new ObjectName(baseName);
+			for(int instanceNumber=2; objectName == null; instanceNumber++) {
+				try {
+					server.registerMBean(new MetricsMBean(this), name);
+					objectName = name;
+				} catch (InstanceAlreadyExistsException e) {
+					//the name is used by another simulation running in this JVM
+					name = new ObjectName(baseName + ",instance=" + instanceNumber);
+				}
+			}
+		} catch (JMException e) {
+			//the simulation does not depend on the monitoring
+			SimLogger.printLine("metrics cannot be registered via JMX: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * unregisters the MBean of the current run, the metrics are kept
+	 * until the next run starts
+	 */
+	public synchronized void stop() {
+		if(objectName == null)
+			return;
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			SimLogger.printLine("metrics cannot be unregistered via JMX: " + e.getMessage());
+		}
+		objectName = null;
+	}
+}
@@ -0,0 +1,325 @@
+/*
+ * Title:        EdgeCloudSim - Object Graph Copier
+ *
+ * Description:
+ * ObjectGraphCopier creates deep copies of object graphs, e.g. the whole
+ * state of a simulation, without requiring the classes to implement
+ * Serializable or Cloneable. The fields of the objects are copied via
+ * reflection and the objects are created without calling constructors.
+ * The references between the objects are preserved, so an object which
+ * is referred from many places is copied only once, even if it is reached
+ * from different roots via the same copier.
+ *
+ * The objects which are registered via share() and the immutable objects
+ * (strings, boxed primitives, enums, classes, lambdas) are not copied.
+ * The internal fields of the standard library cannot be accessed, so
+ * the collections and maps are copied via their public interfaces, which
+ * means that the iteration order of the hash based collections may not
+ * be the same. Other standard library types, except the calendars and
+ * the atomic numbers, are not supported.
+ *
+ * The graph is traversed via a work list instead of recursion, so long
+ * chains of objects do not cause a stack overflow. The contents of the
+ * collections are added after all objects are copied, since the hash
+ * codes of the elements may depend on their fields.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ObjectGraphCopier {
+	private static Object unsafe;
+	private static Method allocateInstance;
+	private static final Map<Class<?>, Field[]> fieldCache = new HashMap<Class<?>, Field[]>();
+
+	private Map<Object, Object> copies;
+	private Set<Object> sharedObjects;
+	private ArrayDeque<Object> pendingObjects;
+	private List<Object[]> pendingContents;
+
+	public ObjectGraphCopier() {
+		copies = new IdentityHashMap<Object, Object>();
+		sharedObjects = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		pendingObjects = new ArrayDeque<Object>();
+		pendingContents = new ArrayList<Object[]>();
+	}
+
+	/**
+	 * the given object and the objects referred by it are not copied,
+	 * the copies refer to the same object instead
+	 */
+	public ObjectGraphCopier share(Object object) {
+		if(object != null)
+			sharedObjects.add(object);
+		return this;
+	}
+
+	/**
+	 * returns the number of objects copied so far
+	 */
+	public int getNumOfCopies() {
+		return copies.size();
+	}
+
+	/**
+	 * returns a deep copy of the given object; the objects which are
+	 * already copied by this copier are not copied again
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T copy(T original) throws ReflectiveOperationException {
+		Object result = copyReference(original);
+
+		while(!pendingObjects.isEmpty())
+			copyFields(pendingObjects.poll());
+
+		//inner collections are discovered later, so they are filled first
+		for(int i=pendingContents.size()-1; i>=0; i--)
+			fillContents(pendingContents.get(i));
+		pendingContents.clear();
+
+		return (T)result;
+	}
+
+	private Object copyReference(Object original) throws ReflectiveOperationException {
+		if(original == null || isImmutable(original) || sharedObjects.contains(original))
+			return original;
+
+		Object copy = copies.get(original);
+		if(copy != null)
+			return copy;
+
+		Class<?> type = original.getClass();
+		if(type.isArray()) {
+			int length = Array.getLength(original);
+			copy = Array.newInstance(type.getComponentType(), length);
+			if(type.getComponentType().isPrimitive())
+				System.arraycopy(original, 0, copy, 0, length);
+			else
+				pendingObjects.add(original);
+		}
+		else if(original instanceof Collection || original instanceof Map) {
+			copy = createContainer(original);
+			pendingObjects.add(original);
+		}
+		else if(original instanceof Calendar) {
+			copy = ((Calendar)original).clone();
+		}
+		else if(original instanceof AtomicInteger) {
+			copy = new AtomicInteger(((AtomicInteger)original).get());
+		}
+		else if(original instanceof AtomicLong) {
+			copy = new AtomicLong(((AtomicLong)original).get());
+		}
+		else if(original instanceof AtomicLongArray) {
+			AtomicLongArray array = (AtomicLongArray)original;
+			AtomicLongArray arrayCopy = new AtomicLongArray(array.length());
+			for(int i=0; i<array.length(); i++)
+				arrayCopy.set(i, array.get(i));
+			copy = arrayCopy;
+		}
+		else if(isLibraryClass(type)) {
+			throw new IllegalArgumentException("objects of " + type.getName() + " cannot be copied");
+		}
+		else {
+			copy = allocate(type);
+			pendingObjects.add(original);
+		}
+
+		copies.put(original, copy);
+		return copy;
+	}
+
+	private void copyFields(Object original) throws ReflectiveOperationException {
+		Object copy = copies.get(original);
+
+		if(original.getClass().isArray()) {
+			Object[] source = (Object[])original;
+			Object[] target = (Object[])copy;
+			for(int i=0; i<source.length; i++)
+				target[i] = copyReference(source[i]);
+		}
+		else if(original instanceof Collection) {
+			Collection<?> collection = (Collection<?>)original;
+			Object[] contents = new Object[collection.size() + 1];
+			int index = 0;
+			contents[index++] = copy;
+			for(Object item : collection)
+				contents[index++] = copyReference(item);
+			pendingContents.add(contents);
+		}
+		else if(original instanceof Map) {
+			Map<?,?> map = (Map<?,?>)original;
+			Object[] contents = new Object[2 * map.size() + 1];
+			int index = 0;
+			contents[index++] = copy;
+			for(Map.Entry<?,?> entry : map.entrySet()) {
+				contents[index++] = copyReference(entry.getKey());
+				contents[index++] = copyReference(entry.getValue());
+			}
+			pendingContents.add(contents);
+		}
+		else {
+			for(Field field : getFields(original.getClass())) {
+				if(field.getType().isPrimitive())
+					field.set(copy, field.get(original));
+				else
+					field.set(copy, copyReference(field.get(original)));
+			}
+		}
+	}
+
+	/*
+	 * the copied collection keeps the elements of the original one, so
+	 * the copy of its comparator can compare them
+	 */
+	@SuppressWarnings("unchecked")
+	private Comparator<Object> copyComparator(Comparator<?> comparator) throws ReflectiveOperationException {
+		return (Comparator<Object>)copyReference(comparator);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void fillContents(Object[] contents) {
+		if(contents[0] instanceof Collection) {
+			Collection<Object> collection = (Collection<Object>)contents[0];
+			for(int i=1; i<contents.length; i++)
+				collection.add(contents[i]);
+		}
+		else {
+			Map<Object, Object> map = (Map<Object, Object>)contents[0];
+			for(int i=1; i<contents.length; i+=2)
+				map.put(contents[i], contents[i+1]);
+		}
+	}
+
+	/*
+	 * creates an empty collection or map of the same type if possible,
+	 * the sorted ones are created with a copy of their comparator
+	 */
+	private Object createContainer(Object original) throws ReflectiveOperationException {
+		Class<?> type = original.getClass();
+		Comparator<?> comparator = null;
+		if(original instanceof SortedSet)
+			comparator = ((SortedSet<?>)original).comparator();
+		else if(original instanceof SortedMap)
+			comparator = ((SortedMap<?,?>)original).comparator();
+		else if(original instanceof PriorityQueue)
+			comparator = ((PriorityQueue<?>)original).comparator();
+
+		if(Modifier.isPublic(type.getModifiers())) {
+			try {
+				if(comparator != null) {
+					Constructor<?> constructor = type.getConstructor(Comparator.class);
+					return constructor.newInstance(copyReference(comparator));
+				}
+				return type.getConstructor().newInstance();
+			}
+			catch (NoSuchMethodException e) {
+				//the nearest general type is used below
+			}
+		}
+
+		//e.g. unmodifiable views, the copies are modifiable
+		if(original instanceof SortedSet)
+			return new TreeSet<Object>(copyComparator(comparator));
+		else if(original instanceof SortedMap)
+			return new TreeMap<Object, Object>(copyComparator(comparator));
+		else if(original instanceof PriorityQueue)
+			return new PriorityQueue<Object>(11, copyComparator(comparator));
+		else if(original instanceof List)
+			return new ArrayList<Object>();
+		else if(original instanceof Set)
+			return new LinkedHashSet<Object>();
+		else if(original instanceof Queue)
+			return new ArrayDeque<Object>();
+		else if(original instanceof Map)
+			return new LinkedHashMap<Object, Object>();
+
+		throw new IllegalArgumentException("objects of " + type.getName() + " cannot be copied");
+	}
+
+	private static boolean isImmutable(Object object) {
+		return object instanceof String ||
+				object instanceof Number && isLibraryClass(object.getClass()) && !(object instanceof AtomicInteger || object instanceof AtomicLong) ||
+				object instanceof Boolean ||
+				object instanceof Character ||
+				object instanceof Enum ||
+				object instanceof Class ||
+				object.getClass().isSynthetic(); //lambdas
+	}
+
+	private static boolean isLibraryClass(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") ||
+				name.startsWith("sun.") || name.startsWith("jdk.") || name.startsWith("com.sun.");
+	}
+
+	/*
+	 * returns the instance fields of the class and its super classes
+	 */
+	private static Field[] getFields(Class<?> type) {
+		synchronized(fieldCache) {
+			Field[] fields = fieldCache.get(type);
+			if(fields == null) {
+				List<Field> list = new ArrayList<Field>();
+				for(Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+					if(isLibraryClass(c))
+						throw new IllegalArgumentException("objects of " + type.getName() + " cannot be copied since it extends " + c.getName());
+					for(Field field : c.getDeclaredFields()) {
+						if(Modifier.isStatic(field.getModifiers()))
+							continue;
+						field.setAccessible(true);
+						list.add(field);
+					}
+				}
+				fields = list.toArray(new Field[list.size()]);
+				fieldCache.put(type, fields);
+			}
+			return fields;
+		}
+	}
+
+	/*
+	 * creates an object without calling its constructors, the fields
+	 * are set by the copier
+	 */
+	private static synchronized Object allocate(Class<?> type) throws ReflectiveOperationException {
+		if(allocateInstance == null) {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+		}
+		return allocateInstance.invoke(unsafe, type);
+	}
+}
@@ -9,9 +9,6 @@
 
 package edu.boun.edgecloudsim.utils;
 
-import java.util.Date;
-import java.util.concurrent.TimeUnit;
-
 import cern.jet.random.Poisson;
 import cern.jet.random.engine.MersenneTwister;
 import cern.jet.random.engine.RandomEngine;
@@ -26,17 +23,9 @@ public class PoissonDistr {
 	 * @param mean the mean for the distribution.
  	 */
 	public PoissonDistr(double mean) {
-		engine = new MersenneTwister(new Date());
+		//each instance is seeded with the next number of the poisson stream
+		engine = new MersenneTwister(RandomStreams.getInstance().getStream("poisson_distribution").nextInt());
 		poisson = new Poisson(mean, engine);
-		
-		//always sleep for some milliseconds in order not to have same seed for iterative PoissonDistr construction
-		try {
-			TimeUnit.MILLISECONDS.sleep(10);
-		} catch (InterruptedException e) {
-			SimLogger.printLine("impossible is occurred! Poisson random number cannot be created!");
-			e.printStackTrace();
-			System.exit(1);
-		}
 	}
 
 	/**
@@ -0,0 +1,95 @@
+/*
+ * Title:        EdgeCloudSim - Random Stream
+ *
+ * Description:
+ * RandomStream is a small and fast random number generator based on the
+ * SplitMix64 algorithm. A stream can be split into any number of child
+ * streams, e.g. one stream for each mobile device; the child stream of
+ * a given index is always the same and independent of the other ones,
+ * so the streams can be used in any order or in parallel threads.
+ *
+ * RandomStream is a commons-math RandomGenerator, so it can be passed
+ * to the distributions of commons-math as well. The helper methods
+ * below draw the samples without creating any objects.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+public class RandomStream extends BitsStreamGenerator {
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private long seed;
+	private long state;
+
+	public RandomStream(long _seed) {
+		setSeed(_seed);
+	}
+
+	/**
+	 * returns a new stream which is derived from the seed of this stream
+	 * and the index; it does not depend on the numbers drawn so far
+	 */
+	public RandomStream split(long index) {
+		return new RandomStream(mix(seed + mix(index + GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * returns a sample of the exponential distribution with the given mean
+	 */
+	public double nextExponential(double mean) {
+		return -mean * Math.log(1.0 - nextDouble());
+	}
+
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int)(nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public void setSeed(int _seed) {
+		setSeed((long)_seed);
+	}
+
+	@Override
+	public void setSeed(int[] _seed) {
+		long value = 0;
+		for(int i=0; i<_seed.length; i++)
+			value = mix(value + _seed[i]);
+		setSeed(value);
+	}
+
+	@Override
+	public void setSeed(long _seed) {
+		seed = _seed;
+		state = _seed;
+		clear();
+	}
+
+	/**
+	 * returns a well distributed 64 bit hash of the value (the finalizer of SplitMix64)
+	 */
+	public static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Title:        EdgeCloudSim - Random Streams
+ *
+ * Description:
+ * RandomStreams provides independent random streams to the subsystems
+ * of the simulation. Each stream is identified by a name, e.g. mobility
+ * or load_generator, and can be split further for each mobile device.
+ * All streams are derived from a master seed, which is created from the
+ * random_seed property of the configuration file and the iteration
+ * number; therefore a simulation with a non-zero random_seed can be
+ * repeated with exactly the same results, and the subsystems do not
+ * affect the random numbers of each other.
+ *
+ * The main applications should initialize the streams before each
+ * scenario, so that all policies of an iteration are evaluated with
+ * the same mobility and load patterns.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+
+public class RandomStreams {
+	public static final String DEFAULT_STREAM = "default";
+
+	private static RandomStreams instance = null;
+
+	private long masterSeed;
+	private Map<String, RandomStream> streams;
+	private RandomStream defaultStream;
+
+	private RandomStreams() {
+		streams = new ConcurrentHashMap<String, RandomStream>();
+		initialize(SimSettings.getInstance().getRandomSeed(), 0);
+	}
+
+	public static RandomStreams getInstance() {
+		if(instance == null)
+			instance = new RandomStreams();
+		return instance;
+	}
+
+	/**
+	 * resets all streams; if the seed is zero, the master seed is
+	 * selected randomly, otherwise it is derived from the seed and
+	 * the iteration number
+	 */
+	public void initialize(long seed, int iterationNumber) {
+		if(seed == 0)
+			masterSeed = RandomStream.mix(System.nanoTime() ^ System.currentTimeMillis());
+		else
+			masterSeed = RandomStream.mix(seed + RandomStream.mix(iterationNumber));
+
+		streams.clear();
+		defaultStream = getStream(DEFAULT_STREAM);
+	}
+
+	public long getMasterSeed() {
+		return masterSeed;
+	}
+
+	/**
+	 * returns the stream with the given name, the same object is
+	 * returned until the streams are initialized again
+	 */
+	public RandomStream getStream(String name) {
+		return streams.computeIfAbsent(name, key -> new RandomStream(RandomStream.mix(masterSeed + RandomStream.mix(key.hashCode()))));
+	}
+
+	/**
+	 * returns a new stream for the given index (e.g. mobile device id) of
+	 * the named stream; the result is the same for the same name and index
+	 */
+	public RandomStream getStream(String name, int index) {
+		return getStream(name).split(index);
+	}
+
+	/**
+	 * returns the stream used by the helper methods of SimUtils
+	 */
+	public RandomStream getDefaultStream() {
+		return defaultStream;
+	}
+}
@@ -23,6 +23,39 @@
  * simulation ends. Since this approach increases memory consumption
  * too much, we sacrificed the time complexity.
  * 
+ * Only the tasks in flight are kept in the memory; a task is added to
+ * the statistics and released as soon as it is completed or failed.
+ * The VM load and AP delay samples are added to the statistics and
+ * written to their files when they are logged, and the deep file logs
+ * are written by background threads via AsyncLogWriter. Therefore the
+ * memory consumption does not grow with the simulation time.
+ * 
+ * If binary logging is enabled, the task results and the time series
+ * are also saved in the columnar binary format (see ColumnarLogWriter)
+ * to the _TASKS.bin, _VM_LOAD.bin, _AP_DELAY.bin and _LOCATION.bin files,
+ * which can be read via ColumnarLogReader.
+ * 
+ * The distributions of the service time, the processing time and the
+ * network delay are kept in fixed size histograms (see LatencyHistogram)
+ * for each app type and tier, so the percentiles are reported without
+ * keeping the results of the tasks. They are saved to the _DISTRIBUTION.log
+ * (percentiles) and _CDF.log (cumulative distribution) files of each app.
+ * 
+ * The latencies, the network delays and the orchestrator decisions are
+ * also recorded to the MetricsRegistry as the tasks are logged, so they
+ * can be watched via JMX while the simulation is running.
+ * 
+ * If the edge result caches are enabled, the lookups and the service
+ * time of the cacheable requests are kept for each app type; the latency
+ * saved by the caches is the difference of the average service time of
+ * the requests which are missed and hit, and it is saved to the
+ * _EDGE_CACHE.log file.
+ * 
+ * The tasks which are rejected by the admission control of the edge VMs
+ * since they cannot meet their deadlines have their own status, and the
+ * completed tasks which finish after their deadlines are counted as
+ * deadline misses.
+ * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
  */
@@ -33,15 +66,23 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.utils.ColumnarLogWriter.COLUMN_TYPES;
 import edu.boun.edgecloudsim.utils.SimLogger.NETWORK_ERRORS;
 
 public class SimLogger {
@@ -49,30 +90,58 @@ public class SimLogger {
 		CREATED, UPLOADING, PROCESSING, DOWNLOADING, COMLETED,
 		REJECTED_DUE_TO_VM_CAPACITY, REJECTED_DUE_TO_BANDWIDTH,
 		UNFINISHED_DUE_TO_BANDWIDTH, UNFINISHED_DUE_TO_MOBILITY,
-		REJECTED_DUE_TO_WLAN_COVERAGE
+		REJECTED_DUE_TO_WLAN_COVERAGE, REJECTED_DUE_TO_DEADLINE
 	}
 	
 	public static enum NETWORK_ERRORS {
 		LAN_ERROR, MAN_ERROR, WAN_ERROR, GSM_ERROR, NONE
 	}
 
+	//names of the metrics, see MetricsRegistry
+	private static final String SERVICE_TIME_METRIC = "service_time";
+	private static final String TASKS_IN_FLIGHT_METRIC = "tasks_in_flight";
+	private static final String SIMULATION_TIME_METRIC = "simulation_time";
+	public static final String AP_UPLOAD_DELAY_METRIC = "ap_upload_delay";
+	public static final String AP_DOWNLOAD_DELAY_METRIC = "ap_download_delay";
+	private static final String REJECTED_DECISION_METRIC = "decisions.REJECTED";
+	private static final String CACHE_LOOKUPS_METRIC = "edge_cache.lookups";
+	private static final String CACHE_HITS_METRIC = "edge_cache.hits";
+	private static final String[] NETWORK_DELAY_METRICS = new String[NETWORK_DELAY_TYPES.values().length];
+	private static final String[] DECISION_METRICS = new String[SimSettings.VM_TYPES.values().length];
+	
+	//the percentiles which are reported, and the tiers of the distributions
+	//which are indexed by the VM types, the last tier is all of the tiers
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	private static final String[] DISTRIBUTION_TIERS = {"MOBILE", "EDGE", "CLOUD", "ALL"};
+	private static final int ALL_TIERS = DISTRIBUTION_TIERS.length - 1;
+	static {
+		for (NETWORK_DELAY_TYPES type : NETWORK_DELAY_TYPES.values())
+			NETWORK_DELAY_METRICS[type.ordinal()] = "network_delay." + type.name();
+		for (SimSettings.VM_TYPES type : SimSettings.VM_TYPES.values())
+			DECISION_METRICS[type.ordinal()] = "decisions." + type.name();
+	}
+
 	private long startTime;
 	private long endTime;
 	private static boolean fileLogEnabled;
 	private static boolean printLogEnabled;
 	private String filePrefix;
+	private String suspendedFilePrefix;
 	private String outputFolder;
 	private Map<Integer, LogItem> taskMap;
-	private LinkedList<VmLoadLogItem> vmLoadList;
-	private LinkedList<ApDelayLogItem> apDelayList;
+	
+	private int numOfVmLoadLogs;
+	private double totalVmLoadOnEdge;
+	private double totalVmLoadOnCloud;
+	private double totalVmLoadOnMobile;
 
 	private static SimLogger singleton = new SimLogger();
 	
 	private int numOfAppTypes;
 	
-	private File successFile = null, failFile = null;
-	private FileWriter successFW = null, failFW = null;
-	private BufferedWriter successBW = null, failBW = null;
+	private AsyncLogWriter successWriter = null, failWriter = null;
+	private BufferedWriter vmLoadBW = null, apUploadDelayBW = null, apDownloadDelayBW = null;
+	private ColumnarLogWriter taskTable = null, vmLoadTable = null, apDelayTable = null;
 
 	// extract following values for each app type.
 	// last index is average of all app types
@@ -126,8 +195,33 @@ public class SimLogger {
 	private int[] failedTaskDuetoGsmBw = null;
 	private int[] failedTaskDuetoMobility = null;
 	private int[] refectedTaskDuetoWlanRange = null;
+	private int[] failedTaskDueToDeadline = null;
+	
+	// tasks with a deadline and the completed tasks which miss their deadlines
+	private int[] taskWithDeadline = null;
+	private int[] deadlineMissedTask = null;
 	
 	private double[] orchestratorOverhead = null;
+	
+	//distributions of the completed tasks indexed by the tier and the app type
+	private LatencyHistogram[][] serviceTimeDistribution = null;
+	private LatencyHistogram[][] processingTimeDistribution = null;
+	private LatencyHistogram[][] networkDelayDistribution = null;
+	
+	// migrations of the running tasks, see TaskRebalancer
+	private int numOfMigrationsToEdge;
+	private int numOfMigrationsToCloud;
+	private double totalMigrationDelay;
+	private int completedMigratedTask;
+	private double serviceTimeOfMigratedTask;
+	
+	// edge result cache lookups of each app type, see EdgeResultCache
+	private int[] cacheLookups = null;
+	private int[] cacheHits = null;
+	private int[] completedCacheHits = null;
+	private int[] completedCacheMisses = null;
+	private double[] serviceTimeOfCacheHits = null;
+	private double[] serviceTimeOfCacheMisses = null;
 
 	/*
 	 * A private Constructor prevents any other class from instantiating.
@@ -166,6 +260,33 @@ public class SimLogger {
 		return outputFolder;
 	}
 
+	/**
+	 * returns the number of the tasks of all apps which are completed
+	 * after the warm up period, valid after the simulation is stopped
+	 */
+	public int getNumOfCompletedTasks() {
+		return completedTask[numOfAppTypes];
+	}
+
+	/**
+	 * returns the number of the tasks of all apps which are failed
+	 * after the warm up period, valid after the simulation is stopped
+	 */
+	public int getNumOfFailedTasks() {
+		return failedTask[numOfAppTypes];
+	}
+
+	/**
+	 * returns the average service time (in seconds) of the completed tasks
+	 * of all apps, valid after the simulation is stopped; NaN if no task
+	 * is completed
+	 */
+	public double getAverageServiceTime() {
+		if(completedTask[numOfAppTypes] == 0)
+			return Double.NaN;
+		return serviceTime[numOfAppTypes] / completedTask[numOfAppTypes];
+	}
+
 	private void appendToFile(BufferedWriter bw, String line) throws IOException {
 		bw.write(line);
 		bw.newLine();
@@ -186,28 +307,14 @@ public class SimLogger {
 		filePrefix = fileName;
 		outputFolder = outFolder;
 		taskMap = new HashMap<Integer, LogItem>();
-		vmLoadList = new LinkedList<VmLoadLogItem>();
-		apDelayList = new LinkedList<ApDelayLogItem>();
+		numOfVmLoadLogs = 0;
+		totalVmLoadOnEdge = 0;
+		totalVmLoadOnCloud = 0;
+		totalVmLoadOnMobile = 0;
 		
 		numOfAppTypes = SimSettings.getInstance().getTaskLookUpTable().length;
 		
-		if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
-			try {
-				successFile = new File(outputFolder, filePrefix + "_SUCCESS.log");
-				successFW = new FileWriter(successFile, true);
-				successBW = new BufferedWriter(successFW);
-
-				failFile = new File(outputFolder, filePrefix + "_FAIL.log");
-				failFW = new FileWriter(failFile, true);
-				failBW = new BufferedWriter(failFW);
-				
-				appendToFile(successBW, "#auto generated file!");
-				appendToFile(failBW, "#auto generated file!");
-			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(1);
-			}
-		}
+		openLogFiles(false);
 
 		// extract following values for each app type.
 		// last index is average of all app types
@@ -261,8 +368,237 @@ public class SimLogger {
 		failedTaskDuetoGsmBw = new int[numOfAppTypes + 1];
 		failedTaskDuetoMobility = new int[numOfAppTypes + 1];
 		refectedTaskDuetoWlanRange = new int[numOfAppTypes + 1];
+		failedTaskDueToDeadline = new int[numOfAppTypes + 1];
+		taskWithDeadline = new int[numOfAppTypes + 1];
+		deadlineMissedTask = new int[numOfAppTypes + 1];
 
 		orchestratorOverhead = new double[numOfAppTypes + 1];
+		
+		serviceTimeDistribution = createDistribution();
+		processingTimeDistribution = createDistribution();
+		networkDelayDistribution = createDistribution();
+		
+		numOfMigrationsToEdge = 0;
+		numOfMigrationsToCloud = 0;
+		totalMigrationDelay = 0;
+		completedMigratedTask = 0;
+		serviceTimeOfMigratedTask = 0;
+		
+		cacheLookups = new int[numOfAppTypes + 1];
+		cacheHits = new int[numOfAppTypes + 1];
+		completedCacheHits = new int[numOfAppTypes + 1];
+		completedCacheMisses = new int[numOfAppTypes + 1];
+		serviceTimeOfCacheHits = new double[numOfAppTypes + 1];
+		serviceTimeOfCacheMisses = new double[numOfAppTypes + 1];
+		
+		startMetrics();
+		SimProfiler.getInstance().start();
+	}
+	
+	private LatencyHistogram[][] createDistribution() {
+		LatencyHistogram[][] distribution = new LatencyHistogram[DISTRIBUTION_TIERS.length][numOfAppTypes + 1];
+		for (int tier = 0; tier < distribution.length; tier++)
+			for (int i = 0; i < numOfAppTypes + 1; i++)
+				distribution[tier][i] = new LatencyHistogram();
+		return distribution;
+	}
+	
+	/*
+	 * adds the distributions of the tiers and the app types to the totals,
+	 * the tasks are recorded only to the distribution of their own tier and app
+	 */
+	private void addDistributionTotals(LatencyHistogram[][] distribution) {
+		for (int tier = 0; tier < ALL_TIERS; tier++) {
+			for (int i = 0; i < numOfAppTypes; i++) {
+				distribution[tier][numOfAppTypes].add(distribution[tier][i]);
+				distribution[ALL_TIERS][i].add(distribution[tier][i]);
+			}
+			distribution[ALL_TIERS][numOfAppTypes].add(distribution[tier][numOfAppTypes]);
+		}
+	}
+	
+	private static String formatPercentiles(LatencyHistogram histogram) {
+		StringBuilder result = new StringBuilder();
+		for (int p = 0; p < PERCENTILES.length; p++) {
+			if (p > 0)
+				result.append("/");
+			result.append(String.format("%.6f", histogram.getPercentile(PERCENTILES[p])));
+		}
+		return result.toString();
+	}
+	
+	/*
+	 * saves the percentiles and the cumulative distributions of the given
+	 * app type to the _DISTRIBUTION.log and _CDF.log files
+	 */
+	private void saveDistributions(int appType, String appName) throws IOException {
+		String[] metricNames = {"SERVICE_TIME", "PROCESSING_TIME", "NETWORK_DELAY"};
+		LatencyHistogram[][][] distributions = {serviceTimeDistribution, processingTimeDistribution, networkDelayDistribution};
+		
+		try (BufferedWriter distributionBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_" + appName + "_DISTRIBUTION.log"), true));
+				BufferedWriter cdfBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_" + appName + "_CDF.log"), true))) {
+			appendToFile(distributionBW, "#auto generated file!");
+			appendToFile(distributionBW, "#metric;tier;count;mean;p50;p90;p99;p99.9;max");
+			appendToFile(cdfBW, "#auto generated file!");
+			appendToFile(cdfBW, "#metric;tier;value;cumulative probability");
+			
+			for (int m = 0; m < metricNames.length; m++) {
+				for (int tier = 0; tier < DISTRIBUTION_TIERS.length; tier++) {
+					LatencyHistogram histogram = distributions[m][tier][appType];
+					String key = metricNames[m] + SimSettings.DELIMITER + DISTRIBUTION_TIERS[tier] + SimSettings.DELIMITER;
+					
+					StringBuilder line = new StringBuilder(key);
+					line.append(histogram.getCount()).append(SimSettings.DELIMITER).append(histogram.getMean());
+					for (double percentile : PERCENTILES)
+						line.append(SimSettings.DELIMITER).append(histogram.getPercentile(percentile));
+					line.append(SimSettings.DELIMITER).append(histogram.getMax());
+					appendToFile(distributionBW, line.toString());
+					
+					double[][] cdf = histogram.getCdf();
+					for (int i = 0; i < cdf[0].length; i++)
+						appendToFile(cdfBW, key + cdf[0][i] + SimSettings.DELIMITER + cdf[1][i]);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * starts the metrics of the simulation with the current file prefix
+	 */
+	private void startMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.start(filePrefix, outputFolder, SimSettings.getInstance().getMetricsJmxEnabled());
+		
+		//the singleton is replaced by the forks, so it is not captured here
+		metrics.registerGauge(TASKS_IN_FLIGHT_METRIC, () -> getInstance().taskMap.size());
+		metrics.registerGauge(SIMULATION_TIME_METRIC, () -> CloudSim.clock());
+	}
+
+	/**
+	 * closes the files of a simulation which is suspended to take a snapshot
+	 * of it (see SimulationSnapshot); the results are kept in the memory, and
+	 * each fork of the snapshot continues the time series via simForked
+	 */
+	public void simSuspended() {
+		suspendedFilePrefix = filePrefix;
+		MetricsRegistry.getInstance().stop();
+		try {
+			closeLogFiles();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * continues the logging of a forked simulation with the given file prefix;
+	 * the time series of the suspended simulation are copied to the new files
+	 */
+	public void simForked(String fileName) {
+		startTime = System.currentTimeMillis();
+		filePrefix = fileName;
+		
+		if (fileLogEnabled && !filePrefix.equals(suspendedFilePrefix)) {
+			List<String> suffixes = new ArrayList<String>(Arrays.asList("_VM_LOAD.log", "_AP_UPLOAD_DELAY.log", "_AP_DOWNLOAD_DELAY.log"));
+			if (SimSettings.getInstance().getBinaryLoggingEnabled())
+				suffixes.addAll(Arrays.asList("_VM_LOAD.bin", "_AP_DELAY.bin"));
+			
+			try {
+				for (String suffix : suffixes)
+					Files.copy(new File(outputFolder, suspendedFilePrefix + suffix).toPath(),
+							new File(outputFolder, filePrefix + suffix).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		openLogFiles(true);
+		startMetrics();
+		SimProfiler.getInstance().start();
+	}
+
+	/**
+	 * deletes the files of the suspended simulation once all forks of its
+	 * snapshot are completed, so they are not taken as the results of a policy
+	 */
+	public void deleteSuspendedFiles() {
+		File[] files = new File(outputFolder).listFiles();
+		if (suspendedFilePrefix == null || files == null)
+			return;
+
+		for (File file : files)
+			if (file.getName().startsWith(suspendedFilePrefix + "_"))
+				file.delete();
+	}
+
+	/*
+	 * opens the files which are written during the simulation, the time
+	 * series are appended to the existing files if the simulation is resumed
+	 */
+	private void openLogFiles(boolean resumed) {
+		if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
+			try {
+				successWriter = new AsyncLogWriter(new File(outputFolder, filePrefix + "_SUCCESS.log"));
+				failWriter = new AsyncLogWriter(new File(outputFolder, filePrefix + "_FAIL.log"));
+				
+				successWriter.append("#auto generated file!");
+				failWriter.append("#auto generated file!");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		// time series are written to the files as they are logged
+		if (fileLogEnabled) {
+			try {
+				vmLoadBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_VM_LOAD.log"), true));
+				apUploadDelayBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_AP_UPLOAD_DELAY.log"), true));
+				apDownloadDelayBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_AP_DOWNLOAD_DELAY.log"), true));
+				
+				if (!resumed) {
+					appendToFile(vmLoadBW, "#auto generated file!");
+					appendToFile(apUploadDelayBW, "#auto generated file!");
+					appendToFile(apDownloadDelayBW, "#auto generated file!");
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		if (SimSettings.getInstance().getBinaryLoggingEnabled()) {
+			try {
+				taskTable = new ColumnarLogWriter(new File(outputFolder, filePrefix + "_TASKS.bin"),
+						LogItem.TABLE_COLUMN_NAMES, LogItem.TABLE_COLUMN_TYPES);
+				COLUMN_TYPES[] vmLoadColumnTypes = {COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE};
+				if (resumed)
+					vmLoadTable = new ColumnarLogWriter(new File(outputFolder, filePrefix + "_VM_LOAD.bin"), vmLoadColumnTypes);
+				else
+					vmLoadTable = new ColumnarLogWriter(new File(outputFolder, filePrefix + "_VM_LOAD.bin"),
+							new String[] {"time", "edgeLoad", "cloudLoad", "mobileLoad"}, vmLoadColumnTypes);
+				apDelayTable = createTimeSeriesTable("_AP_DELAY.bin", new String[] {"upload_", "download_"}, COLUMN_TYPES.DOUBLE, resumed);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void closeLogFiles() throws IOException {
+		if (successWriter != null) {
+			successWriter.close();
+			failWriter.close();
+			successWriter = failWriter = null;
+		}
+		if (vmLoadBW != null) {
+			vmLoadBW.close();
+			apUploadDelayBW.close();
+			apDownloadDelayBW.close();
+			vmLoadBW = apUploadDelayBW = apDownloadDelayBW = null;
+		}
+		if (taskTable != null) {
+			taskTable.close();
+			vmLoadTable.close();
+			apDelayTable.close();
+			taskTable = vmLoadTable = apDelayTable = null;
+		}
 	}
 
 	public void addLog(int deviceId, int taskId, int taskType,
@@ -285,6 +621,7 @@ public class SimLogger {
 	
 	public void taskAssigned(int taskId, int datacenterId, int hostId, int vmId, int vmType) {
 		taskMap.get(taskId).taskAssigned(datacenterId, hostId, vmId, vmType);
+		MetricsRegistry.getInstance().getCounter(DECISION_METRICS[vmType]).increment();
 	}
 
 	public void taskExecuted(int taskId) {
@@ -298,6 +635,7 @@ public class SimLogger {
 
 	public void rejectedDueToVMCapacity(int taskId, double time, int vmType) {
 		taskMap.get(taskId).taskRejectedDueToVMCapacity(time, vmType);
+		MetricsRegistry.getInstance().getCounter(REJECTED_DECISION_METRIC).increment();
 		recordLog(taskId);
 	}
 
@@ -321,6 +659,23 @@ public class SimLogger {
 		recordLog(taskId);
 	}
 
+	/**
+	 * the task is not offloaded since it cannot meet its deadline on
+	 * the selected VM type
+	 */
+	public void rejectedDueToDeadline(int taskId, double time, int vmType) {
+		taskMap.get(taskId).taskRejectedDueToDeadline(time, vmType);
+		MetricsRegistry.getInstance().getCounter(REJECTED_DECISION_METRIC).increment();
+		recordLog(taskId);
+	}
+
+	/**
+	 * sets the time (in seconds) until which the task should be completed
+	 */
+	public void setDeadline(int taskId, double deadline) {
+		taskMap.get(taskId).setDeadline(deadline);
+	}
+
 	public void setQoE(int taskId, double QoE){
 		taskMap.get(taskId).setQoE(QoE);
 	}
@@ -328,22 +683,162 @@ public class SimLogger {
 	public void setOrchestratorOverhead(int taskId, double overhead){
 		taskMap.get(taskId).setOrchestratorOverhead(overhead);
 	}
+	
+	/**
+	 * the running task is moved to a VM of the given type, the state
+	 * transfer delay is added to the network delay of the task
+	 */
+	public void taskMigrated(int taskId, double delay, int vmType) {
+		LogItem item = taskMap.get(taskId);
+		item.taskMigrated(delay);
+		
+		if (item.isInWarmUpPeriod())
+			return;
+		
+		if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+			numOfMigrationsToCloud++;
+		else
+			numOfMigrationsToEdge++;
+		totalMigrationDelay += delay;
+	}
+
+	/**
+	 * the result of a request of the given app type is looked up in
+	 * an edge result cache
+	 */
+	public void edgeCacheLookedUp(int taskType, double time, boolean hit) {
+		if (time < SimSettings.getInstance().getWarmUpPeriod())
+			return;
+		
+		cacheLookups[taskType]++;
+		MetricsRegistry.getInstance().getCounter(CACHE_LOOKUPS_METRIC).increment();
+		if (hit) {
+			cacheHits[taskType]++;
+			MetricsRegistry.getInstance().getCounter(CACHE_HITS_METRIC).increment();
+		}
+	}
+	
+	/**
+	 * a request whose result is looked up in an edge result cache at the
+	 * lookup time is completed; a request which is missed is completed
+	 * when its whole result is received by the mobile device
+	 */
+	public void edgeCacheRequestCompleted(int taskType, double lookupTime, double time, boolean hit) {
+		if (lookupTime < SimSettings.getInstance().getWarmUpPeriod())
+			return;
+		
+		if (hit) {
+			completedCacheHits[taskType]++;
+			serviceTimeOfCacheHits[taskType] += time - lookupTime;
+		}
+		else {
+			completedCacheMisses[taskType]++;
+			serviceTimeOfCacheMisses[taskType] += time - lookupTime;
+		}
+	}
+	
+	/*
+	 * returns the service time saved by the edge result caches for the
+	 * requests of the given app type (seconds), the last index is the
+	 * total of all app types
+	 */
+	private double getLatencySavedByCache(int taskType) {
+		if (taskType == numOfAppTypes) {
+			double total = 0;
+			for (int i = 0; i < numOfAppTypes; i++)
+				total += getLatencySavedByCache(i);
+			return total;
+		}
+		
+		if (completedCacheHits[taskType] == 0 || completedCacheMisses[taskType] == 0)
+			return 0;
+		
+		double averageHitTime = serviceTimeOfCacheHits[taskType] / completedCacheHits[taskType];
+		double averageMissTime = serviceTimeOfCacheMisses[taskType] / completedCacheMisses[taskType];
+		return completedCacheHits[taskType] * (averageMissTime - averageHitTime);
+	}
+	
+	/*
+	 * saves the lookups of the edge result caches and the saved latency
+	 * of each app type to the _EDGE_CACHE.log file
+	 */
+	private void saveEdgeCacheResults() throws IOException {
+		try (BufferedWriter cacheBW = new BufferedWriter(new FileWriter(new File(outputFolder, filePrefix + "_EDGE_CACHE.log"), false))) {
+			appendToFile(cacheBW, "#auto generated file!");
+			appendToFile(cacheBW, "#app;lookups;hits;hit ratio (%);average service time of hits;average service time of misses;latency saved (sec)");
+			
+			for (int i = 0; i < numOfAppTypes + 1; i++) {
+				if (cacheLookups[i] == 0 && i < numOfAppTypes)
+					continue;
+				
+				appendToFile(cacheBW, ((i < numOfAppTypes) ? SimSettings.getInstance().getTaskName(i) : "ALL_APPS") + SimSettings.DELIMITER
+						+ cacheLookups[i] + SimSettings.DELIMITER
+						+ cacheHits[i] + SimSettings.DELIMITER
+						+ ((cacheLookups[i] == 0) ? 0.0 : 100.0 * cacheHits[i] / cacheLookups[i]) + SimSettings.DELIMITER
+						+ ((completedCacheHits[i] == 0) ? 0.0 : serviceTimeOfCacheHits[i] / completedCacheHits[i]) + SimSettings.DELIMITER
+						+ ((completedCacheMisses[i] == 0) ? 0.0 : serviceTimeOfCacheMisses[i] / completedCacheMisses[i]) + SimSettings.DELIMITER
+						+ getLatencySavedByCache(i));
+			}
+		}
+	}
 
 	public void addVmUtilizationLog(double time, double loadOnEdge, double loadOnCloud, double loadOnMobile) {
-		if(SimSettings.getInstance().getLocationLogInterval() != 0)
-			vmLoadList.add(new VmLoadLogItem(time, loadOnEdge, loadOnCloud, loadOnMobile));
+		if(SimSettings.getInstance().getLocationLogInterval() == 0)
+			return;
+		
+		numOfVmLoadLogs++;
+		totalVmLoadOnEdge += loadOnEdge;
+		totalVmLoadOnCloud += loadOnCloud;
+		totalVmLoadOnMobile += loadOnMobile;
+		
+		if (fileLogEnabled && SimSettings.getInstance().getVmLoadLogInterval() != 0) {
+			try {
+				appendToFile(vmLoadBW, new VmLoadLogItem(time, loadOnEdge, loadOnCloud, loadOnMobile).toString());
+				if (vmLoadTable != null) {
+					vmLoadTable.setDouble(0, time);
+					vmLoadTable.setDouble(1, loadOnEdge);
+					vmLoadTable.setDouble(2, loadOnCloud);
+					vmLoadTable.setDouble(3, loadOnMobile);
+					vmLoadTable.endRow();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 
 	public void addApDelayLog(double time, double[] apUploadDelays, double[] apDownloadDelays) {
-		if(SimSettings.getInstance().getApDelayLogInterval() != 0)
-			apDelayList.add(new ApDelayLogItem(time, apUploadDelays, apDownloadDelays));
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		for (int i = 0; i < apUploadDelays.length; i++) {
+			metrics.getHistogram(AP_UPLOAD_DELAY_METRIC, i).record(apUploadDelays[i]);
+			metrics.getHistogram(AP_DOWNLOAD_DELAY_METRIC, i).record(apDownloadDelays[i]);
+		}
+		
+		if (fileLogEnabled && SimSettings.getInstance().getApDelayLogInterval() != 0) {
+			try {
+				ApDelayLogItem entry = new ApDelayLogItem(time, apUploadDelays, apDownloadDelays);
+				appendToFile(apUploadDelayBW, entry.getUploadStat());
+				appendToFile(apDownloadDelayBW, entry.getDownloadStat());
+				if (apDelayTable != null) {
+					apDelayTable.setDouble(0, time);
+					for (int i = 0; i < apUploadDelays.length; i++) {
+						apDelayTable.setDouble(1 + i, apUploadDelays[i]);
+						apDelayTable.setDouble(1 + apUploadDelays.length + i, apDownloadDelays[i]);
+					}
+					apDelayTable.endRow();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 	
 	public void simStopped() throws IOException {
 		endTime = System.currentTimeMillis();
-		File vmLoadFile = null, locationFile = null, apUploadDelayFile = null, apDownloadDelayFile = null;
-		FileWriter vmLoadFW = null, locationFW = null, apUploadDelayFW = null, apDownloadDelayFW = null;
-		BufferedWriter vmLoadBW = null, locationBW = null, apUploadDelayBW = null, apDownloadDelayBW = null;
+		File locationFile = null;
+		FileWriter locationFW = null;
+		BufferedWriter locationBW = null;
+		ColumnarLogWriter locationTable = null;
 
 		// Save generic results to file for each app type. last index is average
 		// of all app types
@@ -353,21 +848,12 @@ public class SimLogger {
 
 		// open all files and prepare them for write
 		if (fileLogEnabled) {
-			vmLoadFile = new File(outputFolder, filePrefix + "_VM_LOAD.log");
-			vmLoadFW = new FileWriter(vmLoadFile, true);
-			vmLoadBW = new BufferedWriter(vmLoadFW);
-
 			locationFile = new File(outputFolder, filePrefix + "_LOCATION.log");
 			locationFW = new FileWriter(locationFile, true);
 			locationBW = new BufferedWriter(locationFW);
-
-			apUploadDelayFile = new File(outputFolder, filePrefix + "_AP_UPLOAD_DELAY.log");
-			apUploadDelayFW = new FileWriter(apUploadDelayFile, true);
-			apUploadDelayBW = new BufferedWriter(apUploadDelayFW);
-
-			apDownloadDelayFile = new File(outputFolder, filePrefix + "_AP_DOWNLOAD_DELAY.log");
-			apDownloadDelayFW = new FileWriter(apDownloadDelayFile, true);
-			apDownloadDelayBW = new BufferedWriter(apDownloadDelayFW);
+			
+			if (SimSettings.getInstance().getBinaryLoggingEnabled())
+				locationTable = createTimeSeriesTable("_LOCATION.bin", new String[] {"ap_"}, COLUMN_TYPES.INT, false);
 
 			for (int i = 0; i < numOfAppTypes + 1; i++) {
 				String fileName = "ALL_APPS_GENERIC.log";
@@ -386,10 +872,7 @@ public class SimLogger {
 				appendToFile(genericBWs[i], "#auto generated file!");
 			}
 
-			appendToFile(vmLoadBW, "#auto generated file!");
 			appendToFile(locationBW, "#auto generated file!");
-			appendToFile(apUploadDelayBW, "#auto generated file!");
-			appendToFile(apDownloadDelayBW, "#auto generated file!");
 		}
 
 		//the tasks in the map is not completed yet!
@@ -406,6 +889,10 @@ public class SimLogger {
 		}
 
 		// calculate total values
+		addDistributionTotals(serviceTimeDistribution);
+		addDistributionTotals(processingTimeDistribution);
+		addDistributionTotals(networkDelayDistribution);
+		
 		uncompletedTask[numOfAppTypes] = IntStream.of(uncompletedTask).sum();
 		uncompletedTaskOnCloud[numOfAppTypes] = IntStream.of(uncompletedTaskOnCloud).sum();
 		uncompletedTaskOnEdge[numOfAppTypes] = IntStream.of(uncompletedTaskOnEdge).sum();
@@ -456,21 +943,19 @@ public class SimLogger {
 		failedTaskDuetoLanBw[numOfAppTypes] = IntStream.of(failedTaskDuetoLanBw).sum();
 		failedTaskDuetoMobility[numOfAppTypes] = IntStream.of(failedTaskDuetoMobility).sum();
 		refectedTaskDuetoWlanRange[numOfAppTypes] = IntStream.of(refectedTaskDuetoWlanRange).sum();
+		failedTaskDueToDeadline[numOfAppTypes] = IntStream.of(failedTaskDueToDeadline).sum();
+		taskWithDeadline[numOfAppTypes] = IntStream.of(taskWithDeadline).sum();
+		deadlineMissedTask[numOfAppTypes] = IntStream.of(deadlineMissedTask).sum();
 
 		orchestratorOverhead[numOfAppTypes] = DoubleStream.of(orchestratorOverhead).sum();
 		
-		// calculate server load
-		double totalVmLoadOnEdge = 0;
-		double totalVmLoadOnCloud = 0;
-		double totalVmLoadOnMobile = 0;
-		for (VmLoadLogItem entry : vmLoadList) {
-			totalVmLoadOnEdge += entry.getEdgeLoad();
-			totalVmLoadOnCloud += entry.getCloudLoad();
-			totalVmLoadOnMobile += entry.getMobileLoad();
-			if (fileLogEnabled && SimSettings.getInstance().getVmLoadLogInterval() != 0)
-				appendToFile(vmLoadBW, entry.toString());
-		}
-
+		cacheLookups[numOfAppTypes] = IntStream.of(cacheLookups).sum();
+		cacheHits[numOfAppTypes] = IntStream.of(cacheHits).sum();
+		completedCacheHits[numOfAppTypes] = IntStream.of(completedCacheHits).sum();
+		completedCacheMisses[numOfAppTypes] = IntStream.of(completedCacheMisses).sum();
+		serviceTimeOfCacheHits[numOfAppTypes] = DoubleStream.of(serviceTimeOfCacheHits).sum();
+		serviceTimeOfCacheMisses[numOfAppTypes] = DoubleStream.of(serviceTimeOfCacheMisses).sum();
+		
 		if (fileLogEnabled) {
 			// write location info to file for each location
 			// assuming each location has only one access point
@@ -483,27 +968,24 @@ public class SimLogger {
 					if (time < SimSettings.CLIENT_ACTIVITY_START_TIME)
 						continue;
 
-					for (int i = 0; i < SimManager.getInstance().getNumOfMobileDevice(); i++) {
-						Location loc = SimManager.getInstance().getMobilityModel().getLocation(i, time);
-						locationInfo[loc.getServingWlanId()]++;
-					}
+					for (int i = 0; i < locationInfo.length; i++)
+						locationInfo[i] = SimManager.getInstance().getMobilityModel().getDeviceCount(i, time);
 
 					locationBW.write(time.toString());
 					for (int i = 0; i < locationInfo.length; i++)
 						locationBW.write(SimSettings.DELIMITER + locationInfo[i]);
 
 					locationBW.newLine();
+					
+					if (locationTable != null) {
+						locationTable.setDouble(0, time);
+						for (int i = 0; i < locationInfo.length; i++)
+							locationTable.setInt(1 + i, locationInfo[i]);
+						locationTable.endRow();
+					}
 				}
 			}
 			
-			// write delay info to file for each access point
-			if(SimSettings.getInstance().getApDelayLogInterval() != 0) {
-				for (ApDelayLogItem entry : apDelayList) {
-					appendToFile(apUploadDelayBW, entry.getUploadStat());
-					appendToFile(apDownloadDelayBW, entry.getDownloadStat());
-				}
-			}
-
 			for (int i = 0; i < numOfAppTypes + 1; i++) {
 
 				if (i < numOfAppTypes) {
@@ -517,9 +999,9 @@ public class SimLogger {
 				double _serviceTime = (completedTask[i] == 0) ? 0.0 : (serviceTime[i] / (double) completedTask[i]);
 				double _networkDelay = (completedTask[i] == 0) ? 0.0 : (networkDelay[i] / ((double) completedTask[i] - (double)completedTaskOnMobile[i]));
 				double _processingTime = (completedTask[i] == 0) ? 0.0 : (processingTime[i] / (double) completedTask[i]);
-				double _vmLoadOnEdge = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnEdge / (double) vmLoadList.size());
-				double _vmLoadOnClould = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnCloud / (double) vmLoadList.size());
-				double _vmLoadOnMobile = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnMobile / (double) vmLoadList.size());
+				double _vmLoadOnEdge = (numOfVmLoadLogs == 0) ? 0.0 : (totalVmLoadOnEdge / (double) numOfVmLoadLogs);
+				double _vmLoadOnClould = (numOfVmLoadLogs == 0) ? 0.0 : (totalVmLoadOnCloud / (double) numOfVmLoadLogs);
+				double _vmLoadOnMobile = (numOfVmLoadLogs == 0) ? 0.0 : (totalVmLoadOnMobile / (double) numOfVmLoadLogs);
 				double _cost = (completedTask[i] == 0) ? 0.0 : (cost[i] / (double) completedTask[i]);
 				double _QoE1 = (completedTask[i] == 0) ? 0.0 : (QoE[i] / (double) completedTask[i]);
 				double _QoE2 = (completedTask[i] == 0) ? 0.0 : (QoE[i] / (double) (failedTask[i] + completedTask[i]));
@@ -616,6 +1098,8 @@ public class SimLogger {
 				appendToFile(genericBWs[i], genericResult4);
 				appendToFile(genericBWs[i], genericResult5);
 				
+				saveDistributions(i, (i < numOfAppTypes) ? SimSettings.getInstance().getTaskName(i) : "ALL_APPS");
+				
 				//append performance related values only to ALL_ALLPS file
 				if(i == numOfAppTypes) {
 					appendToFile(genericBWs[i], genericResult6);
@@ -642,9 +1126,11 @@ public class SimLogger {
 			}
 
 			// close open files
-			if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
-				successBW.close();
-				failBW.close();
+			if (SimSettings.getInstance().getBinaryLoggingEnabled()) {
+				taskTable.close();
+				vmLoadTable.close();
+				apDelayTable.close();
+				locationTable.close();
 			}
 			vmLoadBW.close();
 			locationBW.close();
@@ -702,6 +1188,13 @@ public class SimLogger {
 				+ "/" + failedTaskDuetoWanBw[numOfAppTypes] 
 				+ "/" + failedTaskDuetoGsmBw[numOfAppTypes] + ")");
 		
+		if (taskWithDeadline[numOfAppTypes] > 0) {
+			printLine("# of tasks with deadline: " + taskWithDeadline[numOfAppTypes]
+					+ " - rejected due to deadline: " + failedTaskDueToDeadline[numOfAppTypes]
+					+ " - completed after deadline (deadline misses): " + deadlineMissedTask[numOfAppTypes]
+					+ " (" + String.format("%.6f", 100.0 * deadlineMissedTask[numOfAppTypes] / taskWithDeadline[numOfAppTypes]) + "%)");
+		}
+		
 		printLine("percentage of failed tasks: "
 				+ String.format("%.6f", ((double) failedTask[numOfAppTypes] * (double) 100)
 						/ (double) (completedTask[numOfAppTypes] + failedTask[numOfAppTypes]))
@@ -737,21 +1230,91 @@ public class SimLogger {
 				+ String.format("%.6f", wanDelay[numOfAppTypes] / (double) wanUsage[numOfAppTypes])
 				+ ", " + "GSM delay: "
 				+ String.format("%.6f", gsmDelay[numOfAppTypes] / (double) gsmUsage[numOfAppTypes]) + ")");
+		
+		String[] distributionNames = {"service time", "processing time", "network delay"};
+		LatencyHistogram[][][] distributions = {serviceTimeDistribution, processingTimeDistribution, networkDelayDistribution};
+		for (int m = 0; m < distributions.length; m++) {
+			printLine(distributionNames[m] + " p50/p90/p99/p99.9: "
+					+ formatPercentiles(distributions[m][ALL_TIERS][numOfAppTypes])
+					+ " seconds. (p99 on Edge: "
+					+ String.format("%.6f", distributions[m][SimSettings.VM_TYPES.EDGE_VM.ordinal()][numOfAppTypes].getPercentile(99))
+					+ ", on Cloud: "
+					+ String.format("%.6f", distributions[m][SimSettings.VM_TYPES.CLOUD_VM.ordinal()][numOfAppTypes].getPercentile(99))
+					+ ", on Mobile: "
+					+ String.format("%.6f", distributions[m][SimSettings.VM_TYPES.MOBILE_VM.ordinal()][numOfAppTypes].getPercentile(99))
+					+ ")");
+		}
 
 		printLine("average server utilization Edge/Cloud/Mobile: " 
-				+ String.format("%.6f", totalVmLoadOnEdge / (double) vmLoadList.size()) + "/"
-				+ String.format("%.6f", totalVmLoadOnCloud / (double) vmLoadList.size()) + "/"
-				+ String.format("%.6f", totalVmLoadOnMobile / (double) vmLoadList.size()));
+				+ String.format("%.6f", totalVmLoadOnEdge / (double) numOfVmLoadLogs) + "/"
+				+ String.format("%.6f", totalVmLoadOnCloud / (double) numOfVmLoadLogs) + "/"
+				+ String.format("%.6f", totalVmLoadOnMobile / (double) numOfVmLoadLogs));
 
 		printLine("average cost: " + cost[numOfAppTypes] / completedTask[numOfAppTypes] + "$");
 		printLine("average overhead: " + orchestratorOverhead[numOfAppTypes] / (failedTask[numOfAppTypes] + completedTask[numOfAppTypes]) + " ns");
+		
+		if (SimSettings.getInstance().getMigrationInterval() > 0) {
+			int numOfMigrations = numOfMigrationsToEdge + numOfMigrationsToCloud;
+			printLine("# of migrations (Edge/Cloud): "
+					+ numOfMigrations + "(" + numOfMigrationsToEdge + "/" + numOfMigrationsToCloud + ")"
+					+ " - average migration delay: "
+					+ String.format("%.6f", (numOfMigrations == 0) ? 0.0 : totalMigrationDelay / numOfMigrations) + " seconds");
+			printLine("# of completed migrated tasks: " + completedMigratedTask
+					+ " - average service time: "
+					+ String.format("%.6f", (completedMigratedTask == 0) ? 0.0 : serviceTimeOfMigratedTask / completedMigratedTask) + " seconds");
+		}
+		if (SimSettings.getInstance().getEdgeCacheCapacity() > 0) {
+			int lookups = cacheLookups[numOfAppTypes];
+			int completedHits = completedCacheHits[numOfAppTypes];
+			double latencySaved = getLatencySavedByCache(numOfAppTypes);
+			printLine("# of edge cache lookups/hits: " + lookups + "/" + cacheHits[numOfAppTypes]
+					+ " - hit ratio: "
+					+ String.format("%.2f", (lookups == 0) ? 0.0 : 100.0 * cacheHits[numOfAppTypes] / lookups) + "%");
+			printLine("average service time of cache hits/misses: "
+					+ String.format("%.6f", (completedHits == 0) ? 0.0 : serviceTimeOfCacheHits[numOfAppTypes] / completedHits) + "/"
+					+ String.format("%.6f", (completedCacheMisses[numOfAppTypes] == 0) ? 0.0 : serviceTimeOfCacheMisses[numOfAppTypes] / completedCacheMisses[numOfAppTypes])
+					+ " seconds - latency saved: " + String.format("%.3f", latencySaved) + " seconds ("
+					+ String.format("%.6f", (completedHits == 0) ? 0.0 : latencySaved / completedHits) + " per hit)");
+			
+			if (fileLogEnabled)
+				saveEdgeCacheResults();
+		}
 		printLine("average QoE (for all): " + QoE[numOfAppTypes] / (failedTask[numOfAppTypes] + completedTask[numOfAppTypes]) + "%");
 		printLine("average QoE (for executed): " + QoE[numOfAppTypes] / completedTask[numOfAppTypes] + "%");
 
+		// wait for the deep file logs, they are enabled independently of the file logging
+		if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
+			successWriter.close();
+			failWriter.close();
+		}
+		
+		MetricsRegistry.getInstance().stop();
+		SimProfiler.getInstance().saveReport(new File(outputFolder, filePrefix + "_PROFILE.log"));
+
 		// clear related collections (map list etc.)
 		taskMap.clear();
-		vmLoadList.clear();
-		apDelayList.clear();
+	}
+	
+	/*
+	 * creates a time series table with a time column followed by
+	 * a column for each access point and each of the given prefixes,
+	 * or opens the existing table to append rows if resumed is true
+	 */
+	private ColumnarLogWriter createTimeSeriesTable(String fileName, String[] prefixes, COLUMN_TYPES type, boolean resumed) throws IOException {
+		int numOfAPs = SimSettings.getInstance().getNumOfEdgeDatacenters();
+		String[] columnNames = new String[1 + prefixes.length * numOfAPs];
+		COLUMN_TYPES[] columnTypes = new COLUMN_TYPES[columnNames.length];
+		columnNames[0] = "time";
+		columnTypes[0] = COLUMN_TYPES.DOUBLE;
+		for (int p = 0; p < prefixes.length; p++) {
+			for (int i = 0; i < numOfAPs; i++) {
+				columnNames[1 + p * numOfAPs + i] = prefixes[p] + i;
+				columnTypes[1 + p * numOfAPs + i] = type;
+			}
+		}
+		if (resumed)
+			return new ColumnarLogWriter(new File(outputFolder, filePrefix + fileName), columnTypes);
+		return new ColumnarLogWriter(new File(outputFolder, filePrefix + fileName), columnNames, columnTypes);
 	}
 	
 	private void recordLog(int taskId){
@@ -759,6 +1322,14 @@ public class SimLogger {
 		
 		if (value.isInWarmUpPeriod())
 			return;
+		
+		if (taskTable != null) {
+			try {
+				value.writeTo(taskTable, taskId);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 
 		if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED) {
 			completedTask[value.getTaskType()]++;
@@ -781,6 +1352,12 @@ public class SimLogger {
 				failedTaskOnEdge[value.getTaskType()]++;
 		}
 
+		if (value.getDeadline() > 0) {
+			taskWithDeadline[value.getTaskType()]++;
+			if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED && value.isDeadlineMissed())
+				deadlineMissedTask[value.getTaskType()]++;
+		}
+
 		if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED) {
 			cost[value.getTaskType()] += value.getCost();
 			QoE[value.getTaskType()] += value.getQoE();
@@ -789,6 +1366,31 @@ public class SimLogger {
 			processingTime[value.getTaskType()] += (value.getServiceTime() - value.getNetworkDelay());
 			orchestratorOverhead[value.getTaskType()] += value.getOrchestratorOverhead();
 			
+			if(value.getNumOfMigrations() > 0) {
+				completedMigratedTask++;
+				serviceTimeOfMigratedTask += value.getServiceTime();
+			}
+			
+			int tier = value.getVmType();
+			if (tier != SimSettings.VM_TYPES.CLOUD_VM.ordinal() && tier != SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				tier = SimSettings.VM_TYPES.EDGE_VM.ordinal();
+			serviceTimeDistribution[tier][value.getTaskType()].record(value.getServiceTime());
+			if (tier == SimSettings.VM_TYPES.MOBILE_VM.ordinal()) {
+				processingTimeDistribution[tier][value.getTaskType()].record(value.getServiceTime());
+			}
+			else {
+				processingTimeDistribution[tier][value.getTaskType()].record(value.getServiceTime() - value.getNetworkDelay());
+				networkDelayDistribution[tier][value.getTaskType()].record(value.getNetworkDelay());
+			}
+			
+			MetricsRegistry metrics = MetricsRegistry.getInstance();
+			metrics.getHistogram(SERVICE_TIME_METRIC).record(value.getServiceTime());
+			for (NETWORK_DELAY_TYPES type : NETWORK_DELAY_TYPES.values()) {
+				double delay = value.getNetworkDelay(type);
+				if (delay != 0)
+					metrics.getHistogram(NETWORK_DELAY_METRICS[type.ordinal()]).record(delay);
+			}
+			
 			if(value.getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY) != 0) {
 				lanUsage[value.getTaskType()]++;
 				lanDelay[value.getTaskType()] += value.getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY);
@@ -842,18 +1444,19 @@ public class SimLogger {
 			failedTaskDuetoMobility[value.getTaskType()]++;
 		} else if (value.getStatus() == SimLogger.TASK_STATUS.REJECTED_DUE_TO_WLAN_COVERAGE) {
 			refectedTaskDuetoWlanRange[value.getTaskType()]++;;
-        }
+        } else if (value.getStatus() == SimLogger.TASK_STATUS.REJECTED_DUE_TO_DEADLINE) {
+			failedTaskDueToDeadline[value.getTaskType()]++;
+		}
 		
 		//if deep file logging is enabled, record every task result
 		if (SimSettings.getInstance().getDeepFileLoggingEnabled()){
 			try {
 				if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED)
-					appendToFile(successBW, value.toString(taskId));
+					successWriter.append(value.toString(taskId));
 				else
-					appendToFile(failBW, value.toString(taskId));
+					failWriter.append(value.toString(taskId));
 			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(1);
+				throw new UncheckedIOException(e);
 			}
 		}
 	}
@@ -921,6 +1524,21 @@ class ApDelayLogItem {
 }
 
 class LogItem {
+	// columns of the binary task table, see writeTo
+	static final String[] TABLE_COLUMN_NAMES = {
+			"taskId", "deviceId", "datacenterId", "hostId", "vmId", "vmType", "taskType",
+			"taskLength", "taskInputSize", "taskOutputSize", "status", "networkError",
+			"startTime", "endTime", "lanDelay", "manDelay", "wanDelay", "gsmDelay",
+			"cost", "QoE", "orchestratorOverhead"};
+	static final COLUMN_TYPES[] TABLE_COLUMN_TYPES = {
+			COLUMN_TYPES.INT, COLUMN_TYPES.INT, COLUMN_TYPES.INT,
+			COLUMN_TYPES.INT, COLUMN_TYPES.INT, COLUMN_TYPES.INT,
+			COLUMN_TYPES.INT, COLUMN_TYPES.INT, COLUMN_TYPES.INT,
+			COLUMN_TYPES.INT, COLUMN_TYPES.INT, COLUMN_TYPES.INT,
+			COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE,
+			COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE,
+			COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE, COLUMN_TYPES.DOUBLE};
+
 	private SimLogger.TASK_STATUS status;
 	private SimLogger.NETWORK_ERRORS networkError;
 	private int deviceId;
@@ -946,6 +1564,9 @@ class LogItem {
 	private double cpuCost;
 	private double QoE;
 	private double orchestratorOverhead;
+	private int numOfMigrations;
+	private double migrationDelay;
+	private double deadline;
 	private boolean isInWarmUpPeriod;
 
 	LogItem(int _deviceId, int _taskType, int _taskLenght, int _taskInputType, int _taskOutputSize) {
@@ -1003,11 +1624,38 @@ class LogItem {
 		status = SimLogger.TASK_STATUS.DOWNLOADING;
 	}
 
+	public void taskMigrated(double delay) {
+		numOfMigrations++;
+		migrationDelay += delay;
+	}
+
 	public void taskEnded(double time) {
 		taskEndTime = time;
 		status = SimLogger.TASK_STATUS.COMLETED;
 	}
 
+	public void taskRejectedDueToDeadline(double time, int _vmType) {
+		vmType = _vmType;
+		taskEndTime = time;
+		status = SimLogger.TASK_STATUS.REJECTED_DUE_TO_DEADLINE;
+	}
+
+	public void setDeadline(double _deadline) {
+		deadline = _deadline;
+	}
+
+	/**
+	 * returns the deadline of the task (in seconds), zero if the
+	 * task has no deadline
+	 */
+	public double getDeadline() {
+		return deadline;
+	}
+
+	public boolean isDeadlineMissed() {
+		return deadline > 0 && taskEndTime > deadline;
+	}
+
 	public void taskRejectedDueToVMCapacity(double time, int _vmType) {
 		vmType = _vmType;
 		taskEndTime = time;
@@ -1133,7 +1781,12 @@ class LogItem {
 				lanDownloadDelay +
 				manDownloadDelay +
 				wanDownloadDelay +
-				gsmDownloadDelay;
+				gsmDownloadDelay +
+				migrationDelay;
+	}
+	
+	public int getNumOfMigrations() {
+		return numOfMigrations;
 	}
 	
 	public double getServiceTime() {
@@ -1156,6 +1809,31 @@ class LogItem {
 		return taskType;
 	}
 
+	public void writeTo(ColumnarLogWriter table, int taskId) throws IOException {
+		table.setInt(0, taskId);
+		table.setInt(1, deviceId);
+		table.setInt(2, datacenterId);
+		table.setInt(3, hostId);
+		table.setInt(4, vmId);
+		table.setInt(5, vmType);
+		table.setInt(6, taskType);
+		table.setInt(7, taskLenght);
+		table.setInt(8, taskInputType);
+		table.setInt(9, taskOutputSize);
+		table.setInt(10, status.ordinal());
+		table.setInt(11, networkError.ordinal());
+		table.setDouble(12, taskStartTime);
+		table.setDouble(13, taskEndTime);
+		table.setDouble(14, getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY));
+		table.setDouble(15, getNetworkDelay(NETWORK_DELAY_TYPES.MAN_DELAY));
+		table.setDouble(16, getNetworkDelay(NETWORK_DELAY_TYPES.WAN_DELAY));
+		table.setDouble(17, getNetworkDelay(NETWORK_DELAY_TYPES.GSM_DELAY));
+		table.setDouble(18, getCost());
+		table.setDouble(19, QoE);
+		table.setDouble(20, orchestratorOverhead);
+		table.endRow();
+	}
+
 	public String toString(int taskId) {
 		String result = taskId + SimSettings.DELIMITER + deviceId + SimSettings.DELIMITER + datacenterId + SimSettings.DELIMITER + hostId
 				+ SimSettings.DELIMITER + vmId + SimSettings.DELIMITER + vmType + SimSettings.DELIMITER + taskType
@@ -1180,6 +1858,8 @@ class LogItem {
 			result += "4"; // failure reason 4
         else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_WLAN_COVERAGE)
             result += "5"; // failure reason 5
+		else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_DEADLINE)
+			result += "6"; // failure reason 6
 		else
 			result += "0"; // default failure reason
 		return result;
@@ -0,0 +1,242 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Profiler
+ *
+ * Description:
+ * SimProfiler measures the wall clock time and the allocated memory of
+ * the sections of a simulation, e.g. the processing of an event of an
+ * entity or a call to the edge orchestrator, so the expensive parts of
+ * a long simulation can be found. A section is measured between begin()
+ * and end(); the sections can be nested, so the time of a section
+ * includes the time of the sections inside it.
+ *
+ * The sections are grouped, e.g. by the entity which processes the event
+ * or by the subsystem which is called. The time which is not spent in
+ * any section is reported as the time of the CloudSim kernel, which
+ * includes the event queues and the datacenters of CloudSim.
+ *
+ * The profiler is disabled by default; it does nothing but to check
+ * isEnabled() unless profiler_enabled is set in the properties file.
+ * The allocated memory is measured via the ThreadMXBean of the JVM, it
+ * is reported as zero if the JVM does not support it.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+
+public class SimProfiler {
+	//the groups of the subsystems which are called during the events
+	public static final String EDGE_ORCHESTRATOR = "EdgeOrchestrator";
+	public static final String NETWORK_MODEL = "NetworkModel";
+
+	private static final String KERNEL_GROUP = "CloudSim";
+	private static final String KERNEL_SECTION = "KERNEL_AND_DATACENTERS";
+
+	//indexes of the statistics of a section
+	private static final int CALLS = 0;
+	private static final int TIME = 1;
+	private static final int BYTES = 2;
+
+	private static final SimProfiler instance = new SimProfiler();
+
+	private boolean enabled;
+	private com.sun.management.ThreadMXBean threadBean;
+	private long threadId;
+	private long startTime;
+	private long startBytes;
+	private long sectionTime; //time spent in the outermost sections
+	private long sectionBytes; //memory allocated in the outermost sections
+
+	//begin times and allocations of the open sections
+	private long[] beginTimes;
+	private long[] beginBytes;
+	private int depth;
+
+	private Map<String, Map<String, long[]>> sections;
+	private Map<Integer, String> tagNames;
+
+	private SimProfiler() {
+		beginTimes = new long[16];
+		beginBytes = new long[16];
+		sections = new LinkedHashMap<String, Map<String, long[]>>();
+		tagNames = new HashMap<Integer, String>();
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+			if(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+				threadBean = sunBean;
+		}
+	}
+
+	public static SimProfiler getInstance() {
+		return instance;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * clears the statistics and starts profiling the simulation which is
+	 * running on the current thread, if the profiler is enabled
+	 */
+	public void start() {
+		enabled = SimSettings.getInstance().getProfilerEnabled();
+		sections.clear();
+		depth = 0;
+		sectionTime = 0;
+		sectionBytes = 0;
+		threadId = Thread.currentThread().getId();
+		startTime = System.nanoTime();
+		startBytes = getAllocatedBytes();
+	}
+
+	public void begin() {
+		if(!enabled)
+			return;
+
+		if(depth == beginTimes.length) {
+			beginTimes = Arrays.copyOf(beginTimes, depth * 2);
+			beginBytes = Arrays.copyOf(beginBytes, depth * 2);
+		}
+		beginBytes[depth] = getAllocatedBytes();
+		beginTimes[depth] = System.nanoTime();
+		depth++;
+	}
+
+	/**
+	 * ends the last section which is begun, and adds it to the
+	 * statistics of the given group and section
+	 */
+	public void end(String group, String section) {
+		if(!enabled || depth == 0)
+			return;
+
+		long endTime = System.nanoTime();
+		depth--;
+		long time = endTime - beginTimes[depth];
+		long bytes = getAllocatedBytes() - beginBytes[depth];
+
+		Map<String, long[]> groupSections = sections.get(group);
+		if(groupSections == null) {
+			groupSections = new LinkedHashMap<String, long[]>();
+			sections.put(group, groupSections);
+		}
+		long[] stats = groupSections.get(section);
+		if(stats == null) {
+			stats = new long[3];
+			groupSections.put(section, stats);
+		}
+		stats[CALLS]++;
+		stats[TIME] += time;
+		stats[BYTES] += bytes;
+
+		if(depth == 0) {
+			sectionTime += time;
+			sectionBytes += bytes;
+		}
+	}
+
+	/**
+	 * returns the name of a CloudSim event tag, or a generated name
+	 * for the other event tags which have no name
+	 */
+	public String getTagName(int tag) {
+		String name = tagNames.get(tag);
+		if(name == null) {
+			name = "TAG_" + tag;
+			for(Field field : CloudSimTags.class.getFields()) {
+				try {
+					if(Modifier.isStatic(field.getModifiers()) && field.getType() == int.class && field.getInt(null) == tag) {
+						name = field.getName();
+						break;
+					}
+				} catch (IllegalAccessException e) {
+					//the generated name is used
+				}
+			}
+			tagNames.put(tag, name);
+		}
+		return name;
+	}
+
+	private long getAllocatedBytes() {
+		return (threadBean == null) ? 0 : threadBean.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * saves the statistics of the sections to the given file and stops
+	 * profiling; the sections are sorted by their total time in each group
+	 */
+	public void saveReport(File file) throws IOException {
+		if(!enabled)
+			return;
+
+		long wallTime = System.nanoTime() - startTime;
+		long wallBytes = getAllocatedBytes() - startBytes;
+		enabled = false;
+
+		BufferedWriter bw = new BufferedWriter(new FileWriter(file, false));
+		try {
+			bw.write("#auto generated file!");
+			bw.newLine();
+			bw.write("#group;section;calls;total time (ms);average time (us);share of wall time (%);allocated bytes;average allocated bytes");
+			bw.newLine();
+
+			for(Map.Entry<String, Map<String, long[]>> group : sections.entrySet()) {
+				List<Map.Entry<String, long[]>> entries = new ArrayList<Map.Entry<String, long[]>>(group.getValue().entrySet());
+				entries.sort(new Comparator<Map.Entry<String, long[]>>() {
+					@Override
+					public int compare(Map.Entry<String, long[]> first, Map.Entry<String, long[]> second) {
+						return Long.compare(second.getValue()[TIME], first.getValue()[TIME]);
+					}
+				});
+				for(Map.Entry<String, long[]> entry : entries)
+					writeSection(bw, group.getKey(), entry.getKey(), entry.getValue(), wallTime);
+			}
+
+			//the time and the allocations out of the sections
+			long[] kernel = {0, Math.max(0, wallTime - sectionTime), Math.max(0, wallBytes - sectionBytes)};
+			writeSection(bw, KERNEL_GROUP, KERNEL_SECTION, kernel, wallTime);
+
+			bw.write("#wall time (ms): " + String.format("%.3f", wallTime / 1000000.0)
+					+ " - allocated bytes: " + wallBytes);
+			bw.newLine();
+		}
+		finally {
+			bw.close();
+		}
+	}
+
+	private static void writeSection(BufferedWriter bw, String group, String section, long[] stats, long wallTime) throws IOException {
+		bw.write(group + SimSettings.DELIMITER + section + SimSettings.DELIMITER
+				+ stats[CALLS] + SimSettings.DELIMITER
+				+ String.format("%.3f", stats[TIME] / 1000000.0) + SimSettings.DELIMITER
+				+ String.format("%.3f", (stats[CALLS] == 0) ? 0.0 : stats[TIME] / 1000.0 / stats[CALLS]) + SimSettings.DELIMITER
+				+ String.format("%.2f", (wallTime == 0) ? 0.0 : 100.0 * stats[TIME] / wallTime) + SimSettings.DELIMITER
+				+ stats[BYTES] + SimSettings.DELIMITER
+				+ ((stats[CALLS] == 0) ? 0 : stats[BYTES] / stats[CALLS]));
+		bw.newLine();
+	}
+}
@@ -11,31 +11,42 @@ package edu.boun.edgecloudsim.utils;
 
 import java.io.File;
 import java.util.Date;
-import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 public class SimUtils {
 
-	public static final Random RNG = new Random(System.currentTimeMillis());
-
+	/*
+	 * the helper methods without a stream parameter use the default
+	 * stream of RandomStreams, the subsystems should prefer their own
+	 * streams so that they do not affect the random numbers of each other
+	 */
 	public static int getRandomNumber(int start, int end) {
-		//return pd.sample();
+		return getRandomNumber(RandomStreams.getInstance().getDefaultStream(), start, end);
+	}
+
+	public static double getRandomDoubleNumber(double start, double end) {
+		return getRandomDoubleNumber(RandomStreams.getInstance().getDefaultStream(), start, end);
+	}
+
+	public static long getRandomLongNumber(long start, long end) {
+		return getRandomLongNumber(RandomStreams.getInstance().getDefaultStream(), start, end);
+	}
+
+	public static int getRandomNumber(RandomStream rng, int start, int end) {
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * rng.nextDouble());
 		return (int)(fraction + start);
 	}
 
-	public static double getRandomDoubleNumber(double start, double end) {
-		//return pd.sample();
+	public static double getRandomDoubleNumber(RandomStream rng, double start, double end) {
 		double range = end - start;
-		double fraction = (range * RNG.nextDouble());
+		double fraction = (range * rng.nextDouble());
 		return (fraction + start); 
 	}
 
-	public static long getRandomLongNumber(long start, long end) {
-		//return pd.sample();
+	public static long getRandomLongNumber(RandomStream rng, long start, long end) {
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * rng.nextDouble());
 		return (fraction + start); 
 	}
 
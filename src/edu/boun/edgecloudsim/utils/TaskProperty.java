@@ -27,8 +27,8 @@ public class TaskProperty {
 		taskType=_taskType;
 		pesNumber = _pesNumber;
 		length = _length;
-		outputFileSize = _inputFileSize;
-		inputFileSize = _outputFileSize;
+		inputFileSize = _inputFileSize;
+		outputFileSize = _outputFileSize;
 	}
 
 	public TaskProperty(int _mobileDeviceId, int _taskType, double _startTime, ExponentialDistribution[][] expRngList) {
@@ -0,0 +1,57 @@
+/*
+ * Title:        EdgeCloudSim - Zipf Distribution
+ *
+ * Description:  ZipfDistr draws the rank of a content (0 is the most
+ *               popular one) from a Zipf distribution, i.e. the rank k
+ *               is requested with a probability proportional to
+ *               1/(k+1)^exponent; zero exponent means the contents are
+ *               equally popular. The cumulative probabilities are
+ *               calculated once, so a sample costs O(log n).
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.Arrays;
+
+public class ZipfDistr {
+	private double[] cumulativeProbabilities;
+	private RandomStream rng;
+
+	/**
+	 * Creates a new Zipf number generator.
+	 *
+	 * @param numOfElements the number of contents.
+	 * @param exponent the exponent of the distribution.
+	 * @param _rng the stream of the random numbers.
+	 */
+	public ZipfDistr(int numOfElements, double exponent, RandomStream _rng) {
+		if(numOfElements <= 0 || exponent < 0)
+			throw new IllegalArgumentException("Zipf distribution needs a positive number of elements and a non negative exponent");
+
+		rng = _rng;
+		cumulativeProbabilities = new double[numOfElements];
+		double sum = 0;
+		for(int i=0; i<numOfElements; i++){
+			sum += 1.0 / Math.pow(i + 1, exponent);
+			cumulativeProbabilities[i] = sum;
+		}
+		for(int i=0; i<numOfElements; i++)
+			cumulativeProbabilities[i] /= sum;
+	}
+
+	/**
+	 * Generate a new random number.
+	 *
+	 * @return the rank of the next content, [0, numOfElements)
+	 */
+	public int sample() {
+		double value = rng.nextDouble();
+		int index = Arrays.binarySearch(cumulativeProbabilities, value);
+		if(index < 0)
+			index = -index - 1;
+		return Math.min(index, cumulativeProbabilities.length - 1);
+	}
+}